@@ -0,0 +1,225 @@
+package hex.mojo;
+
+import hex.Model;
+import hex.deeplearning.DeepLearning;
+import hex.deeplearning.DeepLearningModel;
+import hex.ensemble.StackedEnsemble;
+import hex.ensemble.StackedEnsembleModel;
+import hex.genmodel.GenModel;
+import hex.genmodel.ModelMojoReader;
+import hex.genmodel.MojoReaderBackendFactory;
+import hex.glm.GLM;
+import hex.glm.GLMModel;
+import hex.kmeans.KMeans;
+import hex.kmeans.KMeansModel;
+import hex.tree.drf.DRF;
+import hex.tree.drf.DRFModel;
+import hex.tree.gbm.GBM;
+import hex.tree.gbm.GBMModel;
+import hex.tree.isofor.IsolationForest;
+import hex.tree.isofor.IsolationForestModel;
+import water.Key;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * Synthetic models for the MOJO benchmarks, trained at benchmark setup so that the benchmarks always measure
+ * MOJOs produced by the current version of H2O.
+ *
+ * The training data has 4 numerical columns (with ~1% of NAs), a categorical column with 8 levels and
+ * a binary response that depends on all of them.
+ */
+class MojoBenchModels {
+
+  static final String[] ALGOS = {
+          "gbm", "drf", "glm", "deeplearning", "kmeans", "isolationforest", "stackedensemble"
+  };
+
+  static final String[] NUM_COLS = {"x1", "x2", "x3", "x4"};
+  static final String CAT_COL = "cat";
+  static final String RESPONSE = "y";
+  static final String[] CAT_LEVELS = {"a", "b", "c", "d", "e", "f", "g", "h"};
+
+  private static final int TRAIN_ROWS = 10000;
+
+  /** Synthetic rows: numerical columns followed by the index of the categorical level */
+  static double[][] makeRows(int n, long seed) {
+    Random rnd = new Random(seed);
+    double[][] rows = new double[n][NUM_COLS.length + 1];
+    for (double[] row : rows) {
+      for (int c = 0; c < NUM_COLS.length; c++)
+        row[c] = rnd.nextInt(100) == 0 ? Double.NaN : rnd.nextGaussian() * (c + 1);
+      row[NUM_COLS.length] = rnd.nextInt(CAT_LEVELS.length);
+    }
+    return rows;
+  }
+
+  static Frame makeTrainingFrame() {
+    double[][] rows = makeRows(TRAIN_ROWS, 0xB3AC4);
+    Random rnd = new Random(42);
+    double[][] nums = new double[NUM_COLS.length][TRAIN_ROWS];
+    String[] cats = new String[TRAIN_ROWS];
+    String[] response = new String[TRAIN_ROWS];
+    for (int r = 0; r < TRAIN_ROWS; r++) {
+      double[] row = rows[r];
+      for (int c = 0; c < NUM_COLS.length; c++)
+        nums[c][r] = row[c];
+      int level = (int) row[NUM_COLS.length];
+      cats[r] = CAT_LEVELS[level];
+      double signal = (Double.isNaN(row[0]) ? 0 : row[0]) - (Double.isNaN(row[1]) ? 0 : 0.5 * row[1])
+              + (Double.isNaN(row[2]) ? 0 : Math.sin(row[2])) + (level % 3 - 1) + rnd.nextGaussian() * 0.5;
+      response[r] = signal > 0 ? "yes" : "no";
+    }
+    TestFrameBuilder builder = new TestFrameBuilder()
+            .withName("mojo_bench_train")
+            .withColNames(NUM_COLS[0], NUM_COLS[1], NUM_COLS[2], NUM_COLS[3], CAT_COL, RESPONSE)
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_CAT);
+    for (int c = 0; c < NUM_COLS.length; c++)
+      builder = builder.withDataForCol(c, nums[c]);
+    return builder
+            .withDataForCol(NUM_COLS.length, cats)
+            .withDataForCol(NUM_COLS.length + 1, response)
+            .build();
+  }
+
+  @SuppressWarnings("unchecked") // Models are raw, there is no typed array of their keys otherwise
+  private static Key<Model>[] keys(Model[] models) {
+    Key<Model>[] keys = new Key[models.length];
+    for (int i = 0; i < models.length; i++)
+      keys[i] = models[i]._key;
+    return keys;
+  }
+
+  /**
+   * Trains a model of the given algo on the synthetic data and returns its MOJO.
+   */
+  static byte[] trainMojo(String algo) throws IOException {
+    water.util.Log.setLogLevel("ERR");
+    stall_till_cloudsize(1);
+    Frame train = makeTrainingFrame();
+    Model model = null;
+    Model[] baseModels = {};
+    try {
+      if ("stackedensemble".equals(algo)) {
+        baseModels = new Model[]{trainModel("gbm", train, true), trainModel("glm", train, true)};
+        StackedEnsembleModel.StackedEnsembleParameters parms = new StackedEnsembleModel.StackedEnsembleParameters();
+        parms._train = train._key;
+        parms._response_column = RESPONSE;
+        parms._base_models = keys(baseModels);
+        parms._seed = 42;
+        model = new StackedEnsemble(parms).trainModel().get();
+      } else {
+        model = trainModel(algo, train, false);
+      }
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      model.getMojo().writeTo(os);
+      return os.toByteArray();
+    } finally {
+      if (model != null) model.delete();
+      for (Model m : baseModels) {
+        m.deleteCrossValidationPreds();
+        m.deleteCrossValidationModels();
+      }
+      for (Model m : baseModels) m.delete();
+      train.delete();
+    }
+  }
+
+  private static Model trainModel(String algo, Frame train, boolean baseModel) {
+    Model.Parameters parms;
+    switch (algo) {
+      case "gbm":
+        GBMModel.GBMParameters gbm = new GBMModel.GBMParameters();
+        gbm._ntrees = 50;
+        gbm._max_depth = 5;
+        parms = gbm;
+        break;
+      case "drf":
+        DRFModel.DRFParameters drf = new DRFModel.DRFParameters();
+        drf._ntrees = 50;
+        drf._max_depth = 10;
+        parms = drf;
+        break;
+      case "glm":
+        GLMModel.GLMParameters glm = new GLMModel.GLMParameters(GLMModel.GLMParameters.Family.binomial);
+        parms = glm;
+        break;
+      case "deeplearning":
+        DeepLearningModel.DeepLearningParameters dl = new DeepLearningModel.DeepLearningParameters();
+        dl._hidden = new int[]{50, 50};
+        dl._epochs = 1;
+        parms = dl;
+        break;
+      case "kmeans":
+        KMeansModel.KMeansParameters km = new KMeansModel.KMeansParameters();
+        km._k = 5;
+        parms = km;
+        break;
+      case "isolationforest":
+        IsolationForestModel.IsolationForestParameters iso = new IsolationForestModel.IsolationForestParameters();
+        iso._ntrees = 50;
+        parms = iso;
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported algo: " + algo);
+    }
+    parms._train = train._key;
+    parms._seed = 42;
+    if ("kmeans".equals(algo) || "isolationforest".equals(algo)) {
+      parms._ignored_columns = new String[]{RESPONSE};
+    } else {
+      parms._response_column = RESPONSE;
+    }
+    if (baseModel) {
+      parms._nfolds = 3;
+      parms._fold_assignment = Model.Parameters.FoldAssignmentScheme.Modulo;
+      parms._keep_cross_validation_predictions = true;
+    }
+    switch (algo) {
+      case "gbm":             return new GBM((GBMModel.GBMParameters) parms).trainModel().get();
+      case "drf":             return new DRF((DRFModel.DRFParameters) parms).trainModel().get();
+      case "glm":             return new GLM((GLMModel.GLMParameters) parms).trainModel().get();
+      case "deeplearning":    return new DeepLearning((DeepLearningModel.DeepLearningParameters) parms).trainModel().get();
+      case "kmeans":          return new KMeans((KMeansModel.KMeansParameters) parms).trainModel().get();
+      default:                return new IsolationForest((IsolationForestModel.IsolationForestParameters) parms).trainModel().get();
+    }
+  }
+
+  static GenModel loadMojo(byte[] mojo) throws IOException {
+    return ModelMojoReader.readFrom(MojoReaderBackendFactory.createReaderBackend(
+            new ByteArrayInputStream(mojo), MojoReaderBackendFactory.CachingStrategy.MEMORY));
+  }
+
+  /**
+   * Converts synthetic rows to the raw data layout of the given MOJO (columns are matched by name).
+   */
+  static double[][] toRawData(GenModel mojo, double[][] rows) {
+    int[] map = new int[mojo.nfeatures()];
+    for (int i = 0; i < map.length; i++) {
+      String name = mojo._names[i];
+      map[i] = CAT_COL.equals(name) ? NUM_COLS.length : Arrays.asList(NUM_COLS).indexOf(name);
+    }
+    double[][] rawData = new double[rows.length][mojo.nfeatures()];
+    for (int r = 0; r < rows.length; r++) {
+      for (int i = 0; i < map.length; i++) {
+        if (map[i] < 0)
+          rawData[r][i] = Double.NaN;
+        else if (map[i] == NUM_COLS.length)
+          rawData[r][i] = mojo.mapEnum(i, CAT_LEVELS[(int) rows[r][NUM_COLS.length]]);
+        else
+          rawData[r][i] = rows[r][map[i]];
+      }
+    }
+    return rawData;
+  }
+
+}
@@ -0,0 +1,64 @@
+package hex.mojo;
+
+import hex.genmodel.GenModel;
+import hex.genmodel.algos.tree.ContributionsPredictor;
+import hex.genmodel.algos.tree.SharedTreeMojoModelWithContributions;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static hex.mojo.MojoBenchModels.*;
+
+/**
+ * TreeSHAP contributions micro-benchmark, measures the time to calculate the contributions of a block of rows.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(1)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MojoContributionsBench {
+
+  @Param({"gbm", "drf"})
+  private String algo;
+
+  @Param({"1000"})
+  private int rows;
+
+  private ContributionsPredictor<?> _predictor;
+  private double[][] _rawData;
+  private float[] _contribs;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(MojoContributionsBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    GenModel mojo = loadMojo(trainMojo(algo));
+    _predictor = (ContributionsPredictor<?>) ((SharedTreeMojoModelWithContributions) mojo).makeContributionsPredictor();
+    _rawData = toRawData(mojo, makeRows(rows, 0xDA7A));
+    _contribs = mojo.makeScoringContext().contributions(_predictor.getContributionNames().length);
+  }
+
+  @Benchmark
+  public double calculateContributions() {
+    double sum = 0;
+    for (double[] row : _rawData) {
+      sum += _predictor.calculateContributions(row, _contribs)[0];
+    }
+    return sum;
+  }
+
+}
@@ -0,0 +1,117 @@
+package hex.mojo;
+
+import hex.genmodel.GenModel;
+import hex.genmodel.easy.ColumnBatch;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+import hex.genmodel.easy.prediction.AbstractPrediction;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static hex.mojo.MojoBenchModels.*;
+
+/**
+ * MOJO loading and scoring micro-benchmark across algorithms.
+ *
+ * The models are trained on synthetic data at setup (see {@link MojoBenchModels}), so the results track
+ * the scoring performance of MOJOs produced by the current version. Scoring benchmarks measure the time
+ * to score a block of {@code rows} rows.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(1)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MojoScoringBench {
+
+  @Param({"gbm", "drf", "glm", "deeplearning", "kmeans", "isolationforest", "stackedensemble"})
+  private String algo;
+
+  @Param({"1000"})
+  private int rows;
+
+  private byte[] _mojoBytes;
+  private GenModel _mojo;
+  private EasyPredictModelWrapper _wrapper;
+  private double[][] _rawData;
+  private double[] _preds;
+  private RowData[] _rowData;
+  private ColumnBatch _batch;
+  private double[][] _batchPreds;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(MojoScoringBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    _mojoBytes = trainMojo(algo);
+    _mojo = MojoBenchModels.loadMojo(_mojoBytes);
+    _wrapper = new EasyPredictModelWrapper(_mojo);
+
+    double[][] data = makeRows(rows, 0xDA7A);
+    _rawData = toRawData(_mojo, data);
+    _preds = new double[_mojo.getPredsSize()];
+
+    _rowData = new RowData[rows];
+    double[][] nums = new double[NUM_COLS.length][rows];
+    String[] cats = new String[rows];
+    for (int r = 0; r < rows; r++) {
+      _rowData[r] = new RowData();
+      for (int c = 0; c < NUM_COLS.length; c++) {
+        nums[c][r] = data[r][c];
+        if (!Double.isNaN(data[r][c]))
+          _rowData[r].put(NUM_COLS[c], data[r][c]);
+      }
+      cats[r] = CAT_LEVELS[(int) data[r][NUM_COLS.length]];
+      _rowData[r].put(CAT_COL, cats[r]);
+    }
+    _batch = new ColumnBatch(rows);
+    for (int c = 0; c < NUM_COLS.length; c++)
+      _batch.put(NUM_COLS[c], nums[c]);
+    _batch.put(CAT_COL, cats);
+    _batchPreds = new double[rows][_mojo.getPredsSize()];
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public GenModel loadMojo() throws IOException {
+    return MojoBenchModels.loadMojo(_mojoBytes);
+  }
+
+  @Benchmark
+  public double score0() {
+    double sum = 0;
+    for (double[] row : _rawData) {
+      sum += _mojo.score0(row, _preds)[0];
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double[][] predictRawBatch() throws Exception {
+    return _wrapper.predictRaw(_batch, null, _batchPreds);
+  }
+
+  @Benchmark
+  public void predictEasy(Blackhole bh) throws Exception {
+    for (RowData row : _rowData) {
+      AbstractPrediction p = _wrapper.predict(row);
+      bh.consume(p);
+    }
+  }
+
+}
@@ -129,6 +129,7 @@ public final class DHistogram extends Iced {
   public final long _seed;
   public transient boolean _hasQuantiles;
   public Key _globalQuantilesKey; //key under which original top-level quantiles are stored;
+  public boolean _derived; // Bins are not accumulated from data, but computed as parent minus sibling histogram
 
 
 
@@ -383,6 +384,62 @@ public final class DHistogram extends Iced {
     if (_maxIn < dsh._maxIn) _maxIn = dsh._maxIn;
   }
 
+  /**
+   * Can this histogram take part in histogram subtraction? Only plain uniform bins of w, wY and wYY
+   * are additive across sibling leaves (random and quantile split points are re-drawn per histogram).
+   */
+  boolean canSubtract() {
+    return _vals_dim == 3 && _histoType == SharedTreeModel.SharedTreeParameters.HistogramType.UniformAdaptive &&
+            _splitPts == null && !_hasQuantiles;
+  }
+
+  /** Do both histograms bin the column identically? */
+  boolean sameBins(DHistogram h) {
+    return _isInt == h._isInt && _nbin == h._nbin && _step == h._step && _min == h._min && _maxEx == h._maxEx;
+  }
+
+  /**
+   * Make an (empty) histogram for a child leaf which keeps exactly the bins of this histogram,
+   * so that the child histograms can later be subtracted from this one.
+   */
+  DHistogram makeChildWithSameBins(boolean hasNAs, long seed) {
+    assert canSubtract();
+    return new DHistogram(_name, _nbin, _nbin, _isInt, _min, _maxEx, hasNAs, _minSplitImprovement, _histoType,
+            seed, _globalQuantilesKey, null);
+  }
+
+  /**
+   * Fill in a derived histogram as the difference of its parent and its (already computed) sibling.
+   * Roundoff residues of (nearly) empty bins are cleared; bin min/max are bounded by the non-empty bins.
+   */
+  void subtract(DHistogram parent, DHistogram sibling) {
+    assert _derived && _vals == null && sameBins(parent) && sameBins(sibling);
+    final double[] pv = parent._vals;
+    final double[] sv = sibling._vals;
+    final double[] vals = MemoryManager.malloc8d(pv.length);
+    int first = -1, last = -1;
+    for (int b = 0; b <= _nbin; b++) { // Including the NA bucket
+      final int i = _vals_dim * b;
+      final double w = sv == null ? pv[i] : pv[i] - sv[i];
+      if (w <= pv[i] * 1e-12) continue; // Empty (up to roundoff) bin
+      vals[i] = w;
+      vals[i + 1] = sv == null ? pv[i + 1] : pv[i + 1] - sv[i + 1];
+      vals[i + 2] = sv == null ? pv[i + 2] : Math.max(0, pv[i + 2] - sv[i + 2]);
+      if (b < _nbin) {
+        if (first < 0) first = b;
+        last = b;
+      }
+    }
+    init(vals);
+    if (first >= 0) {
+      // Integer columns: bin b holds the integers in [binAt(b), binAt(b+1)), bins may span fractional bounds
+      _min2 = Math.max(parent._min2, _isInt > 0 ? Math.ceil(binAt(first)) : binAt(first));
+      _maxIn = Math.min(parent._maxIn, _isInt > 0 ? Math.ceil(binAt(last + 1)) - 1 : binAt(last + 1));
+      if (_maxIn < _min2) _maxIn = _min2;
+    }
+    reducePrecision();
+  }
+
   // Inclusive min & max
   public double find_min  () { return _min2 ; }
   public double find_maxIn() { return _maxIn; }
@@ -504,6 +561,73 @@ public final class DHistogram extends Iced {
     }
   }
 
+  /**
+   * Same as {@link #updateHisto} for histograms which only track w, wY and wYY
+   * ({@code _vals_dim == 3}), split into two column-at-a-time passes: first all
+   * the rows are binned into a scratch buffer, then the bins are accumulated.
+   * The binning loop has no dependency on {@code _vals} and inlines uniform
+   * binning, so it runs considerably faster than the fused per-row loop;
+   * the per-bin summation order is unchanged, and so are the results.
+   * @param bins scratch space for bin indices, at least {@code hi-lo} long
+   * @param idx scratch space for row indices, at least {@code hi-lo} long
+   */
+  void updateHisto(double[] ws, double[] cs, double[] ys, int[] rows, int hi, int lo, int[] bins, int[] idx) {
+    assert _vals_dim == 3;
+    final int n = binRows(ws, cs, rows, hi, lo, bins, idx);
+    final double[] vals = _vals;
+    for (int i = 0; i < n; i++) {
+      final int k = idx[i];
+      final int b = 3 * bins[i];
+      final double weight = ws[k];
+      final double y = ys[k];
+      assert (!Double.isNaN(y));
+      final double wy = weight * y;
+      vals[b] += weight;
+      vals[b + 1] += wy;
+      vals[b + 2] += wy * y;
+    }
+  }
+
+  // Pass 1 of updateHisto: bin the rows with non-zero weight, track min/max
+  private int binRows(double[] ws, double[] cs, int[] rows, int hi, int lo, int[] bins, int[] idx) {
+    double min2 = _min2, maxIn = _maxIn;
+    int n = 0;
+    if (_splitPts == null && !_hasQuantiles) { // Uniform binning, inlined
+      final double min = _min, step = _step;
+      final int nbin = _nbin;
+      for (int r = lo; r < hi; ++r) {
+        final int k = rows[r];
+        if (ws[k] == 0) continue;
+        final double col_data = cs[k];
+        if (col_data < min2) min2 = col_data;
+        if (col_data > maxIn) maxIn = col_data;
+        int b;
+        if (Double.isNaN(col_data)) b = nbin;
+        else if (Double.isInfinite(col_data)) b = col_data < 0 ? 0 : nbin - 1;
+        else {
+          b = (int) ((col_data - min) * step);
+          if (b == nbin) b--;
+          assert 0 <= b && b < nbin : b + " " + nbin;
+        }
+        bins[n] = b;
+        idx[n++] = k;
+      }
+    } else {
+      for (int r = lo; r < hi; ++r) {
+        final int k = rows[r];
+        if (ws[k] == 0) continue;
+        final double col_data = cs[k];
+        if (col_data < min2) min2 = col_data;
+        if (col_data > maxIn) maxIn = col_data;
+        bins[n] = bin(col_data);
+        idx[n++] = k;
+      }
+    }
+    _min2 = min2;
+    _maxIn = maxIn;
+    return n;
+  }
+
   /**
    * Cast bin values *except for sums of weights and Na-bucket counters to floats to drop least significant bits.
    * Improves reproducibility (drop bits most affected by floating point error).
@@ -39,6 +39,11 @@ public class DTree extends Iced {
   public final transient int[] _cols; // Per-tree selection of columns to consider for splits
   public transient SharedTreeModel.SharedTreeParameters _parms;
 
+  // Build histograms only for the smaller child of a split and derive the larger one by subtracting it
+  // from the parent's histogram.  Once the bin count stops shrinking with depth (reaches nbins), children
+  // keep the parent's binning for the columns not split on instead of re-binning over the observed range.
+  // Read when the tree is made (sys.ai.h2o.tree.histogramSubtraction), so it can change between model builds.
+  final boolean _histogramSubtraction;
 
   // compute the effective number of columns to sample
   public int actual_mtries() {
@@ -54,6 +59,7 @@ public class DTree extends Iced {
     _mtrys_per_tree = mtrys_per_tree;
     _seed = seed;
     _rand = RandomUtils.getRNG(seed);
+    _histogramSubtraction = H2O.getSysBoolProperty("tree.histogramSubtraction", false);
     int[] activeCols=new int[_ncols];
     for (int i=0;i<activeCols.length;++i)
       activeCols[i] = i;
@@ -212,6 +218,11 @@ public class DTree extends Iced {
      * @return Array of histograms to be used for the next level of split finding
      */
     public DHistogram[] nextLevelHistos(DHistogram currentHistos[], int way, double splat, SharedTreeModel.SharedTreeParameters parms, Constraints cs) {
+      return nextLevelHistos(currentHistos, way, splat, parms, cs, false);
+    }
+
+    // keepBins: children keep the parent's bins once they are no longer refined, see DTree._histogramSubtraction
+    DHistogram[] nextLevelHistos(DHistogram currentHistos[], int way, double splat, SharedTreeModel.SharedTreeParameters parms, Constraints cs, boolean keepBins) {
       double n = way==0 ? _n0 : _n1;
       if( n < parms._min_rows ) {
 //        Log.info("Not splitting: too few observations left: " + n);
@@ -291,7 +302,10 @@ public class DTree extends Iced {
         final boolean hasNAs = (_nasplit == DHistogram.NASplitDir.NALeft && way == 0 || 
                 _nasplit == DHistogram.NASplitDir.NARight && way == 1) && h.hasNABin();
 
-        nhists[j] = DHistogram.make(h._name, adj_nbins, h._isInt, min, maxEx, hasNAs,h._seed*0xDECAF+(way+1), parms, h._globalQuantilesKey, cs);
+        if (keepBins && _col != j && h.nbins() <= adj_nbins && h.canSubtract()) // Bins no longer refined
+          nhists[j] = h.makeChildWithSameBins(hasNAs, h._seed*0xDECAF+(way+1));
+        else
+          nhists[j] = DHistogram.make(h._name, adj_nbins, h._isInt, min, maxEx, hasNAs,h._seed*0xDECAF+(way+1), parms, h._globalQuantilesKey, cs);
         cnt++;                    // At least some chance of splitting
       }
       return cnt == 0 ? null : nhists;
@@ -320,6 +334,8 @@ public class DTree extends Iced {
     public transient DHistogram[] _hs; //(up to) one histogram per column
     public transient Constraints _cs;
     public final int _scoreCols[];      // A list of columns to score; could be null for all
+    transient DHistogram[] _parentHs;  // Parent histograms, kept for one level if some of _hs are derived
+    transient int _siblingNid;         // Sibling whose histograms are subtracted from the parent ones
     public UndecidedNode( DTree tree, int pid, DHistogram[] hs, Constraints cs ) {
       super(tree,pid);
       assert hs.length==tree._ncols;
@@ -328,6 +344,11 @@ public class DTree extends Iced {
       _scoreCols = scoreCols();
     }
 
+    // Is the column scored (histogram computed) for this node?
+    boolean scores(int col) {
+      return _scoreCols == null || ArrayUtils.find(_scoreCols, col) >= 0;
+    }
+
     // Pick a random selection of columns to compute best score.
     // Can return null for 'all columns'.
     public int[] scoreCols() {
@@ -557,11 +578,36 @@ public class DTree extends Iced {
       for(int way = 0; way <2; way++ ) { // left / right
         // Create children histograms, not yet populated, but the ranges are set
         Constraints ncs = cs != null ? _split.nextLevelConstraints(cs, way, _splat, _tree._parms) : null;
-        DHistogram nhists[] = _split.nextLevelHistos(hs, way,_splat, _tree._parms, ncs); //maintains the full range for NAvsREST
+        DHistogram nhists[] = _split.nextLevelHistos(hs, way,_splat, _tree._parms, ncs, _tree._histogramSubtraction); //maintains the full range for NAvsREST
         assert nhists==null || nhists.length==_tree._ncols;
         // Assign a new (yet undecided) node to each child, and connect this (the parent) decided node and the newly made histograms to it
         _nids[way] = nhists == null ? ScoreBuildHistogram.UNDECIDED_CHILD_NODE_ID : makeUndecidedNode(nhists,ncs)._nid;
       }
+      if (_tree._histogramSubtraction)
+        markDerivedHistos(hs);
+    }
+
+    // Mark the histograms of the larger child which can be computed as parent minus the smaller child.
+    // Only columns scored in both children and binned identically to the parent qualify.
+    private void markDerivedHistos(DHistogram[] hs) {
+      if (_nids[0] == ScoreBuildHistogram.UNDECIDED_CHILD_NODE_ID || _nids[1] == ScoreBuildHistogram.UNDECIDED_CHILD_NODE_ID)
+        return;
+      final int large = _split._n0 >= _split._n1 ? 0 : 1;
+      UndecidedNode lnode = _tree.undecided(_nids[large]);
+      UndecidedNode snode = _tree.undecided(_nids[1 - large]);
+      boolean derived = false;
+      for (int j = 0; j < hs.length; j++) {
+        DHistogram p = hs[j], l = lnode._hs[j], s = snode._hs[j];
+        if (p == null || l == null || s == null || p._vals == null) continue;
+        if (!lnode.scores(j) || !snode.scores(j)) continue;
+        if (!p.canSubtract() || !l.sameBins(p) || !s.sameBins(p)) continue;
+        l._derived = true;
+        derived = true;
+      }
+      if (derived) {
+        lnode._parentHs = hs;
+        lnode._siblingNid = snode._nid;
+      }
     }
 
     public int getChildNodeID(Chunk [] chks, int row ) {
@@ -303,19 +303,23 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
       double[] cs = null;
       double[] resp = null;
       double[] preds = null;
+      int[] bins = null;
+      int[] idx = null;
       for(int i = _cidx.getAndIncrement(); i < _cids.length; i = _cidx.getAndIncrement()) {
         if (cs == null) {
           cs = MemoryManager.malloc8d(_maxChunkSz);
+          bins = MemoryManager.malloc4(_maxChunkSz);
+          idx = MemoryManager.malloc4(_maxChunkSz);
           if (_respIdx >= 0)
             resp = MemoryManager.malloc8d(_maxChunkSz);
           if (_predsIdx >= 0)
             preds = MemoryManager.malloc8d(_maxChunkSz);
         }
-        computeChunk(i, cs, _ws[i], resp, preds);
+        computeChunk(i, cs, _ws[i], resp, preds, bins, idx);
       }
     }
 
-    private void computeChunk(int id, double[] cs, double[] ws, double[] resp, double[] preds){
+    private void computeChunk(int id, double[] cs, double[] ws, double[] resp, double[] preds, int[] bins, int[] idx){
       int [] nh = _nhs[id];
       int [] rs = _rss[id];
       Chunk resChk = _chks[id][_workIdx];
@@ -330,7 +334,7 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
           DHistogram h = _lh[n];
           int hi = nh[n];
           int lo = (n == 0 ? 0 : nh[n - 1]);
-          if (hi == lo || h == null) continue; // Ignore untracked columns in this split
+          if (hi == lo || h == null || h._derived) continue; // Ignore untracked columns in this split (and those derived by subtraction)
           if (h._vals == null) h.init();
           if (! extracted) {
             _chks[id][_col].getDoubles(cs, 0, len);
@@ -342,7 +346,10 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
             }
             extracted = true;
           }
-          h.updateHisto(ws, resp, cs, ys, preds, rs, hi, lo);
+          if (h._vals_dim == 3)
+            h.updateHisto(ws, cs, ys, rs, hi, lo, bins, idx);
+          else
+            h.updateHisto(ws, resp, cs, ys, preds, rs, hi, lo);
         }
       }
     }
@@ -603,6 +603,15 @@ public abstract class SharedTree<
       ScoreBuildHistogram sbh = (ScoreBuildHistogram) caller;
       final int leafOffset = _leafOffsets[_k];
       int tmax = _tree.len();   // Number of total splits in tree K
+      for (int leaf = leafOffset; leaf < tmax; leaf++) { // Fill in histograms skipped by the histogram subtraction
+        DTree.UndecidedNode udn = _tree.undecided(leaf);
+        if (udn._parentHs == null) continue;
+        DHistogram[] hs = sbh._hcs[leaf - leafOffset], shs = sbh._hcs[udn._siblingNid - leafOffset];
+        for (int j = 0; j < hs.length; j++)
+          if (hs[j] != null && hs[j]._derived)
+            hs[j].subtract(udn._parentHs[j], shs[j]);
+        udn._parentHs = null;
+      }
       for (int leaf = leafOffset; leaf < tmax; leaf++) { // Visit all the new splits (leaves)
         DTree.UndecidedNode udn = _tree.undecided(leaf);
 //        System.out.println((_st._nclass==1?"Regression":("Class "+_st._response.domain()[_k]))+",\n  Undecided node:"+udn);
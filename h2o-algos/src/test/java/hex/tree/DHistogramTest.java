@@ -8,6 +8,7 @@ import water.Scope;
 import water.TestUtil;
 
 import java.util.Arrays;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -71,4 +72,74 @@ public class DHistogramTest extends TestUtil {
     }
   }
 
+  @Test
+  public void binnedUpdateMatchesRowWiseUpdate() {
+    for (SharedTreeModel.SharedTreeParameters.HistogramType type : new SharedTreeModel.SharedTreeParameters.HistogramType[]{
+            SharedTreeModel.SharedTreeParameters.HistogramType.UniformAdaptive,
+            SharedTreeModel.SharedTreeParameters.HistogramType.Random}) {
+      final int n = 10000;
+      Random rnd = new Random(0xBEEF);
+      double[] ws = new double[n];
+      double[] cs = new double[n];
+      double[] ys = new double[n];
+      int[] rows = new int[n];
+      for (int i = 0; i < n; i++) {
+        ws[i] = i % 13 == 0 ? 0 : rnd.nextDouble();
+        cs[i] = i % 17 == 0 ? Double.NaN : (i % 101 == 0 ? Double.NEGATIVE_INFINITY : -5 + 15 * rnd.nextDouble());
+        ys[i] = rnd.nextGaussian();
+        rows[i] = n - 1 - i;
+      }
+      DHistogram h1 = new DHistogram("test", 20, 1024, (byte) 0, -5, 10, true, -0.001, type, 42L, null, null);
+      DHistogram h2 = new DHistogram("test", 20, 1024, (byte) 0, -5, 10, true, -0.001, type, 42L, null, null);
+      h1.init();
+      h2.init();
+      h1.updateHisto(ws, null, cs, ys, null, rows, n - 100, 100);
+      h2.updateHisto(ws, cs, ys, rows, n - 100, 100, new int[n], new int[n]);
+
+      assertArrayEquals(h1._vals, h2._vals, 0);
+      assertEquals(h1.find_min(), h2.find_min(), 0);
+      assertEquals(h1.find_maxIn(), h2.find_maxIn(), 0);
+    }
+  }
+
+  @Test
+  public void derivedHistogramMatchesDirectlyComputed() {
+    final int n = 10000;
+    Random rnd = new Random(0xD1FF);
+    double[] ws = new double[n];
+    double[] cs = new double[n];
+    double[] ys = new double[n];
+    int[] rows = new int[n];
+    for (int i = 0; i < n; i++) {
+      ws[i] = 1 + rnd.nextInt(3);
+      cs[i] = i % 19 == 0 ? Double.NaN : rnd.nextInt(50);
+      ys[i] = rnd.nextGaussian();
+      rows[i] = i;
+    }
+    DHistogram parent = new DHistogram("test", 64, 1024, (byte) 1, 0, 50, true, -0.001,
+            SharedTreeModel.SharedTreeParameters.HistogramType.UniformAdaptive, 42L, null, null);
+    parent.init();
+    parent.updateHisto(ws, cs, ys, rows, n, 0, new int[n], new int[n]);
+    assertTrue(parent.canSubtract());
+
+    // rows [0, 3000) go to the small child, the rest to the large one
+    DHistogram small = parent.makeChildWithSameBins(true, 1);
+    DHistogram large = parent.makeChildWithSameBins(true, 2);
+    DHistogram expected = parent.makeChildWithSameBins(true, 2);
+    assertTrue(large.sameBins(parent));
+    small.init();
+    small.updateHisto(ws, cs, ys, rows, 3000, 0, new int[n], new int[n]);
+    expected.init();
+    expected.updateHisto(ws, cs, ys, rows, n, 3000, new int[n], new int[n]);
+    small.reducePrecision();
+    expected.reducePrecision();
+
+    large._derived = true;
+    large.subtract(parent, small);
+    assertArrayEquals(expected._vals, large._vals, 1e-4);
+    assertEquals(expected.wNA(), large.wNA(), 0);
+    assertEquals(expected.find_min(), large.find_min(), 0);
+    assertEquals(expected.find_maxIn(), large.find_maxIn(), 0);
+  }
+
 }
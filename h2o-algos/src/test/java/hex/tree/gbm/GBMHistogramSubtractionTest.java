@@ -0,0 +1,95 @@
+package hex.tree.gbm;
+
+import hex.genmodel.utils.DistributionFamily;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Trains deep GBMs with histogram subtraction (sys.ai.h2o.tree.histogramSubtraction) switched on and off.
+ */
+public class GBMHistogramSubtractionTest extends TestUtil {
+
+  private static final String PROPERTY = "sys.ai.h2o.tree.histogramSubtraction";
+  private static final int ROWS = 5000;
+
+  @BeforeClass
+  public static void stall() { stall_till_cloudsize(1); }
+
+  @Test
+  public void testDeepTreesMatchWithAndWithoutSubtraction() {
+    try {
+      Scope.enter();
+      Frame fr = Scope.track(frame());
+      GBMModel plain = train(fr, false);
+      GBMModel subtracted = train(fr, true);
+      Frame pPlain = Scope.track(plain.score(fr));
+      Frame pSubtracted = Scope.track(subtracted.score(fr));
+      double maxDiff = 0, sumDiff = 0;
+      for (long i = 0; i < fr.numRows(); i++) {
+        double d = Math.abs(pPlain.vec(0).at(i) - pSubtracted.vec(0).at(i));
+        maxDiff = Math.max(maxDiff, d);
+        sumDiff += d;
+      }
+      System.out.println("max diff " + maxDiff + ", mean diff " + sumDiff / fr.numRows()
+              + ", train mse " + plain._output._training_metrics.mse() + " vs " + subtracted._output._training_metrics.mse());
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  private static GBMModel train(Frame fr, boolean subtraction) {
+    String old = System.getProperty(PROPERTY);
+    try {
+      System.setProperty(PROPERTY, String.valueOf(subtraction));
+      GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+      parms._train = fr._key;
+      parms._response_column = "y";
+      parms._distribution = DistributionFamily.gaussian;
+      parms._ntrees = 10;
+      parms._max_depth = 10;
+      parms._min_rows = 1;
+      parms._seed = 42;
+      GBMModel gbm = new GBM(parms).trainModel().get();
+      Scope.track_generic(gbm);
+      return gbm;
+    } finally {
+      if (old == null)
+        System.clearProperty(PROPERTY);
+      else
+        System.setProperty(PROPERTY, old);
+    }
+  }
+
+  private static Frame frame() {
+    Random rnd = new Random(0xD7EE);
+    double[] x1 = new double[ROWS], x2 = new double[ROWS], x3 = new double[ROWS], y = new double[ROWS];
+    String[] x4 = new String[ROWS];
+    for (int i = 0; i < ROWS; i++) {
+      x1[i] = rnd.nextInt(16);
+      x2[i] = rnd.nextInt(12);
+      x3[i] = rnd.nextInt(18);
+      x4[i] = "c" + rnd.nextInt(8);
+      y[i] = Math.sin(x1[i]) + x2[i] * x2[i] / 50 + (x3[i] % 7) / 7 + x4[i].hashCode() % 3 + rnd.nextGaussian() * 0.05;
+    }
+    return new TestFrameBuilder()
+            .withColNames("x1", "x2", "x3", "x4", "y")
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_NUM)
+            .withDataForCol(0, x1)
+            .withDataForCol(1, x2)
+            .withDataForCol(2, x3)
+            .withDataForCol(3, x4)
+            .withDataForCol(4, y)
+            .withChunkLayout(1000, 1000, 1000, 1000, 1000)
+            .build();
+  }
+
+}
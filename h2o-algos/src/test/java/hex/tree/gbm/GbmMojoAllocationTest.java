@@ -0,0 +1,158 @@
+package hex.tree.gbm;
+
+import hex.genmodel.MojoModel;
+import hex.genmodel.ScoringContext;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+import hex.genmodel.easy.exception.PredictException;
+import hex.genmodel.easy.prediction.BinomialModelPrediction;
+import hex.genmodel.easy.prediction.MultinomialModelPrediction;
+import hex.genmodel.easy.prediction.RegressionModelPrediction;
+import hex.genmodel.utils.DistributionFamily;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the allocation-free contract of {@link ScoringContext} for GBM MOJOs.
+ */
+public class GbmMojoAllocationTest extends TestUtil {
+
+  private static final int ROWS = 500;
+  private static final int N = 20000;
+
+  @BeforeClass
+  public static void stall() { stall_till_cloudsize(1); }
+
+  @Test
+  public void testPredictBinomialDoesNotAllocate() throws Exception {
+    try {
+      Scope.enter();
+      final EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(new EasyPredictModelWrapper.Config()
+              .setModel(train(DistributionFamily.bernoulli, ar("no", "yes")))
+              .setEnableContributions(true));
+      final ScoringContext ctx = wrapper.m.makeScoringContext();
+      final BinomialModelPrediction p = new BinomialModelPrediction();
+      assertEquals(0, allocatedPerPredict(new Predict() {
+        @Override
+        public void predict(RowData row) throws PredictException {
+          wrapper.predictBinomial(row, 0, ctx, p);
+        }
+      }));
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testPredictMultinomialDoesNotAllocate() throws Exception {
+    try {
+      Scope.enter();
+      final EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(
+              train(DistributionFamily.multinomial, ar("a", "b", "c")));
+      final ScoringContext ctx = wrapper.m.makeScoringContext();
+      final MultinomialModelPrediction p = new MultinomialModelPrediction();
+      assertEquals(0, allocatedPerPredict(new Predict() {
+        @Override
+        public void predict(RowData row) throws PredictException {
+          wrapper.predictMultinomial(row, 0, ctx, p);
+        }
+      }));
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testPredictRegressionDoesNotAllocate() throws Exception {
+    try {
+      Scope.enter();
+      final EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(new EasyPredictModelWrapper.Config()
+              .setModel(train(DistributionFamily.gaussian, null))
+              .setEnableContributions(true));
+      final ScoringContext ctx = wrapper.m.makeScoringContext();
+      final RegressionModelPrediction p = new RegressionModelPrediction();
+      assertEquals(0, allocatedPerPredict(new Predict() {
+        @Override
+        public void predict(RowData row) throws PredictException {
+          wrapper.predictRegression(row, 0, ctx, p);
+        }
+      }));
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  private interface Predict {
+    void predict(RowData row) throws PredictException;
+  }
+
+  private static long allocatedPerPredict(Predict predict) throws PredictException {
+    RowData[] rows = rows();
+    for (int i = 0; i < N; i++) // warm-up, also lets the prediction object grow its arrays
+      predict.predict(rows[i % rows.length]);
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long tid = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(tid);
+    for (int i = 0; i < N; i++)
+      predict.predict(rows[i % rows.length]);
+    long allocated = threads.getThreadAllocatedBytes(tid) - before;
+    return allocated / N; // the measurement itself is less than a byte per prediction
+  }
+
+  private static RowData[] rows() {
+    Random rnd = new Random(0xA110C);
+    RowData[] rows = new RowData[64];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = new RowData();
+      rows[i].put("x1", rnd.nextDouble());
+      rows[i].put("x2", rnd.nextDouble());
+      rows[i].put("x3", rnd.nextBoolean() ? "u" : "v");
+    }
+    return rows;
+  }
+
+  private static MojoModel train(DistributionFamily family, String[] domain) throws IOException {
+    Random rnd = new Random(42);
+    double[] x1 = new double[ROWS], x2 = new double[ROWS];
+    String[] x3 = new String[ROWS];
+    double[] y = new double[ROWS];
+    String[] ycat = new String[ROWS];
+    for (int i = 0; i < ROWS; i++) {
+      x1[i] = rnd.nextDouble();
+      x2[i] = rnd.nextDouble();
+      x3[i] = rnd.nextBoolean() ? "u" : "v";
+      y[i] = x1[i] + 2 * x2[i] + ("u".equals(x3[i]) ? 1 : 0) + rnd.nextGaussian() * 0.1;
+      if (domain != null)
+        ycat[i] = domain[Math.min(domain.length - 1, (int) (y[i] * domain.length / 4))];
+    }
+    TestFrameBuilder builder = new TestFrameBuilder()
+            .withColNames("x1", "x2", "x3", "y")
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, domain != null ? Vec.T_CAT : Vec.T_NUM)
+            .withDataForCol(0, x1)
+            .withDataForCol(1, x2)
+            .withDataForCol(2, x3);
+    Frame fr = Scope.track(domain != null ? builder.withDataForCol(3, ycat).build() : builder.withDataForCol(3, y).build());
+    GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+    parms._train = fr._key;
+    parms._response_column = "y";
+    parms._distribution = family;
+    parms._ntrees = 20;
+    parms._max_depth = 5;
+    parms._seed = 42;
+    GBMModel gbm = new GBM(parms).trainModel().get();
+    Scope.track_generic(gbm);
+    return gbm.toMojo();
+  }
+
+}
@@ -0,0 +1,98 @@
+package water;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * Serialization of Iced objects through the generated (weaved) serializers.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AutoBufferBench {
+
+  @Param({"10", "10000"})
+  private int size;
+
+  private Payload payload;
+  private byte[] serialized;
+
+  public static class Item extends Iced<Item> {
+    public int _id;
+    public double _weight;
+    public String _label;
+
+    public Item() {}
+
+    Item(int id) {
+      _id = id;
+      _weight = id / 3.0;
+      _label = "item_" + id;
+    }
+  }
+
+  public static class Payload extends Iced<Payload> {
+    public Key _key;
+    public long _seed;
+    public double[] _doubles;
+    public long[] _longs;
+    public String[] _names;
+    public Item[] _items;
+
+    public Payload() {}
+  }
+
+  @Setup
+  public void setup() {
+    water.util.Log.setLogLevel("ERR");
+    stall_till_cloudsize(1);
+    payload = new Payload();
+    payload._key = Key.make("payload");
+    payload._seed = 0xC0FFEE;
+    payload._doubles = new double[size];
+    payload._longs = new long[size];
+    payload._names = new String[size];
+    payload._items = new Item[size];
+    for (int i = 0; i < size; i++) {
+      payload._doubles[i] = Math.PI * i;
+      payload._longs[i] = (long) i * i;
+      payload._names[i] = "name_" + i;
+      payload._items[i] = new Item(i);
+    }
+    serialized = new AutoBuffer().put(payload).buf();
+  }
+
+  @Benchmark
+  public byte[] write() {
+    return new AutoBuffer().put(payload).buf();
+  }
+
+  @Benchmark
+  public Payload read() {
+    return new AutoBuffer(serialized).get();
+  }
+
+  @Benchmark
+  public Payload writeRead() {
+    return new AutoBuffer().put(payload).flipForReading().get();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(AutoBufferBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+}
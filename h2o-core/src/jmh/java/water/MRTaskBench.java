@@ -0,0 +1,120 @@
+package water;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.util.ArrayUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * MRTask fan-out and reduction overhead benchmark.
+ *
+ * The number of rows is fixed, the chunk size varies: with small chunks the cost of distributing
+ * the map calls and of reducing the results dominates, with large chunks the map work does.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MRTaskBench {
+
+  @Param({"1048576"})
+  private int rows;
+
+  @Param({"10", "14", "18"}) // 1024, 64 and 4 chunks
+  private int logRowsPerChunk;
+
+  private Frame frame;
+
+  @Setup
+  public void setup() {
+    water.util.Log.setLogLevel("ERR");
+    stall_till_cloudsize(1);
+    Vec con = Vec.makeCon(1, rows, logRowsPerChunk);
+    Vec seq = new SeqTask().doAll(Vec.T_NUM, con).outputFrame().anyVec();
+    frame = new Frame(Key.<Frame>make(), new String[]{"con", "seq"}, new Vec[]{con, seq});
+    DKV.put(frame);
+  }
+
+  @TearDown
+  public void tearDown() {
+    frame.delete();
+  }
+
+  private static class SeqTask extends MRTask<SeqTask> {
+    @Override
+    public void map(Chunk c, NewChunk nc) {
+      for (int i = 0; i < c._len; i++)
+        nc.addNum(c.start() + i);
+    }
+  }
+
+  private static class NoopTask extends MRTask<NoopTask> {
+    @Override
+    public void map(Chunk[] cs) {}
+  }
+
+  private static class SumTask extends MRTask<SumTask> {
+    double _sum;
+    @Override
+    public void map(Chunk[] cs) {
+      for (Chunk c : cs)
+        for (int i = 0; i < c._len; i++)
+          _sum += c.atd(i);
+    }
+    @Override
+    public void reduce(SumTask mrt) {
+      _sum += mrt._sum;
+    }
+  }
+
+  private static class HistoTask extends MRTask<HistoTask> {
+    long[] _bins;
+    @Override
+    public void map(Chunk[] cs) {
+      _bins = new long[256];
+      Chunk c = cs[1];
+      for (int i = 0; i < c._len; i++)
+        _bins[(int) (c.at8(i) & 255)]++;
+    }
+    @Override
+    public void reduce(HistoTask mrt) {
+      ArrayUtils.add(_bins, mrt._bins);
+    }
+  }
+
+  @Benchmark
+  public NoopTask doAllNoop() {
+    return new NoopTask().doAll(frame);
+  }
+
+  @Benchmark
+  public double doAllSum() {
+    return new SumTask().doAll(frame)._sum;
+  }
+
+  @Benchmark
+  public long[] doAllArrayReduce() {
+    return new HistoTask().doAll(frame)._bins;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(MRTaskBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+}
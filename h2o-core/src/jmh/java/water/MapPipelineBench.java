@@ -0,0 +1,98 @@
+package water;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * A chain of elementwise passes: one MRTask materializing a new Vec per pass vs. all passes fused in a {@link MapPipeline}.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MapPipelineBench {
+
+  @Param({"1000000"})
+  private int rows;
+
+  @Param({"5", "20"})
+  private int passes;
+
+  private Frame frame;
+
+  @Setup
+  public void setup() {
+    water.util.Log.setLogLevel("ERR");
+    stall_till_cloudsize(1);
+    Vec seq = Vec.makeSeq(rows, false);
+    frame = new Frame(Key.<Frame>make(), new String[]{"seq"}, new Vec[]{seq});
+    DKV.put(frame);
+  }
+
+  @TearDown
+  public void tearDown() {
+    frame.delete();
+  }
+
+  private static class AffineTask extends MRTask<AffineTask> {
+    @Override
+    public void map(Chunk c, NewChunk nc) {
+      for (int i = 0; i < c._len; i++)
+        nc.addNum(c.atd(i) * 0.5 + 1);
+    }
+  }
+
+  private static class AffineStage extends MapPipeline.Stage {
+    @Override
+    public void map(double[][] in, double[][] out, int len) {
+      double[] x = in[0], y = out[0];
+      for (int i = 0; i < len; i++)
+        y[i] = x[i] * 0.5 + 1;
+    }
+  }
+
+  @Benchmark
+  public Vec chainedTasks() {
+    Vec v = frame.anyVec();
+    for (int p = 0; p < passes; p++) {
+      Vec next = new AffineTask().doAll(Vec.T_NUM, v).outputFrame().anyVec();
+      if (v != frame.anyVec()) v.remove();
+      v = next;
+    }
+    v.remove();
+    return v;
+  }
+
+  @Benchmark
+  public Vec pipeline() {
+    MapPipeline pipeline = new MapPipeline(frame);
+    int col = 0;
+    for (int p = 0; p < passes; p++)
+      col = pipeline.add(new AffineStage(), col);
+    Vec v = pipeline.outputs(col).execute(null).anyVec();
+    v.remove();
+    return v;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(MapPipelineBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,56 @@
+package water.fvec;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Integer element access benchmark across the chunk types without floating point values,
+ * the data is the same as in {@link ChunkTypesBench}.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChunkTypesAt8Bench {
+
+  @Param({"C0L", "C1N", "C1", "C2", "C4", "C8", "CXI"})
+  private String type;
+
+  @Param({"100000"})
+  private int rows;
+
+  private Chunk chunk;
+
+  @Setup
+  public void setup() {
+    chunk = ChunkTypesBench.makeChunk(type, rows);
+    if (chunk.hasFloat())
+      throw new IllegalStateException("at8 is not applicable to floating point chunk " + type);
+  }
+
+  @Benchmark
+  public long readAt8() {
+    final Chunk c = chunk;
+    long sum = 0;
+    for (int row = 0; row < c._len; ++row) {
+      if (!c.isNA(row))
+        sum += c.at8(row);
+    }
+    return sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(ChunkTypesAt8Bench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,117 @@
+package water.fvec;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compression and element access benchmark across chunk types.
+ *
+ * Each chunk type is produced by compressing data picked to end up in the type, setup fails
+ * if {@link NewChunk#compress()} chooses a different representation. Integer access is benchmarked
+ * by {@link ChunkTypesAt8Bench}, {@link Chunk#at8(int)} does not apply to floating point chunks.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChunkTypesBench {
+
+  @Param({"C0L", "C0D", "C1N", "C1", "C1S", "C2", "C2S", "C4", "C4S", "C8", "C8D", "CUD", "CXI", "CXF"})
+  private String type;
+
+  @Param({"100000"})
+  private int rows;
+
+  private Chunk chunk;
+  private double[] vals;
+
+  @Setup
+  public void setup() {
+    chunk = makeChunk(type, rows);
+    vals = new double[rows];
+  }
+
+  /**
+   * Compresses data picked for the given chunk type, fails if it ends up in a different one.
+   */
+  static Chunk makeChunk(String type, int rows) {
+    Chunk chunk = makeNewChunk(type, rows).compress();
+    if (!chunk.getClass().getSimpleName().equals(type + "Chunk"))
+      throw new IllegalStateException("Expected " + type + "Chunk, data was compressed to " + chunk.getClass().getSimpleName());
+    return chunk;
+  }
+
+  /**
+   * Fills a NewChunk the way the parser does: integers and decimals are added as mantissa and exponent,
+   * other numbers as doubles.
+   */
+  static NewChunk makeNewChunk(String type, int rows) {
+    NewChunk nc = new NewChunk(null, 0);
+    for (int i = 0; i < rows; ++i) {
+      if (i % 100 == 99 && !type.startsWith("C0") && !type.equals("C1N") && !type.startsWith("CX")) {
+        nc.addNA();
+        continue;
+      }
+      switch (type) {
+        case "C0L": nc.addNum(1000, 0); break;
+        case "C0D": nc.addNum(Math.PI); break;
+        case "C1N":
+        case "C1":  nc.addNum(i % 200, 0); break;
+        case "C1S": nc.addNum(i % 250, -1); break;
+        case "C2":  nc.addNum(i % 30000, 0); break;
+        case "C2S": nc.addNum(i % 30000, -2); break;
+        case "C4":  nc.addNum(i * 1000L, 0); break;
+        case "C4S": nc.addNum(i * 7919L % 100000000, -3); break;
+        case "C8":  nc.addNum((long) Integer.MAX_VALUE * i, 0); break;
+        case "C8D": nc.addNum(Math.PI * i); break;
+        case "CUD": nc.addNum(Math.PI * (i % 100)); break;
+        case "CXI": nc.addNum(i % 1000 == 17 ? i : 0, 0); break;
+        case "CXF": nc.addNum(i % 1000 == 17 ? Math.PI * i : 0); break;
+        default:
+          throw new IllegalArgumentException("Unknown chunk type " + type);
+      }
+    }
+    return nc;
+  }
+
+  @Benchmark
+  public Chunk appendAndCompress() {
+    return makeNewChunk(type, rows).compress();
+  }
+
+  @Benchmark
+  public double readAtd() {
+    final Chunk c = chunk;
+    double sum = 0;
+    for (int row = 0; row < c._len; ++row) {
+      sum += c.atd(row);
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public double readBulk() {
+    final Chunk c = chunk;
+    c.getDoubles(vals, 0, c._len);
+    double sum = 0;
+    for (double v : vals) {
+      sum += v;
+    }
+    return sum;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(ChunkTypesBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,87 @@
+package water.fvec;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.DKV;
+import water.MRTask;
+
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * Rollup statistics computation benchmark, rollups are dropped before every computation.
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RollupStatsBench {
+
+  @Param({"1000000"})
+  private int rows;
+
+  @Param({"int", "double", "sparse"})
+  private String data;
+
+  private Vec vec;
+
+  @Setup
+  public void setup() {
+    water.util.Log.setLogLevel("ERR");
+    stall_till_cloudsize(1);
+    Vec zeros = Vec.makeZero(rows);
+    vec = new FillTask(data).doAll(Vec.T_NUM, zeros).outputFrame().anyVec();
+    zeros.remove();
+  }
+
+  private static class FillTask extends MRTask<FillTask> {
+    private final String _data;
+
+    FillTask(String data) {
+      _data = data;
+    }
+
+    @Override
+    public void map(Chunk c, NewChunk nc) {
+      for (int i = 0; i < c._len; i++) {
+        long row = c.start() + i;
+        switch (_data) {
+          case "int":    nc.addNum(row % 1000); break;
+          case "double": nc.addNum(Math.sqrt(row)); break;
+          default:       nc.addNum(row % 1000 == 17 ? row : 0); break;
+        }
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    vec.remove();
+  }
+
+  @Benchmark
+  public double rollups() {
+    DKV.remove(vec.rollupStatsKey());
+    return RollupStats.get(vec, false)._sigma;
+  }
+
+  @Benchmark
+  public long[] rollupsWithHistogram() {
+    DKV.remove(vec.rollupStatsKey());
+    return RollupStats.get(vec, true)._bins;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(RollupStatsBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,85 @@
+package water.parser;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.Key;
+import water.fvec.FVecFactory;
+import water.fvec.Frame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * CSV parse throughput benchmark over an in-memory file (parse setup is guessed once, at setup).
+ */
+@State(Scope.Thread)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CsvParserBench {
+
+  private static final int CHUNK_BYTES = 4 << 20;
+
+  @Param({"1000000"})
+  private int rows;
+
+  private Key<Frame> input;
+  private ParseSetup setup;
+
+  @Setup
+  public void setup() {
+    water.util.Log.setLogLevel("ERR");
+    stall_till_cloudsize(1);
+    Random rnd = new Random(0xC5F);
+    List<String> chunks = new ArrayList<>();
+    StringBuilder sb = new StringBuilder("id,int,double,cat,sparse\n");
+    for (int r = 0; r < rows; r++) {
+      sb.append(r).append(',')
+        .append(rnd.nextInt(100) == 0 ? "" : String.valueOf(rnd.nextInt(10000))).append(',')
+        .append(rnd.nextGaussian()).append(',')
+        .append("level_").append(rnd.nextInt(50)).append(',')
+        .append(r % 100 == 0 ? 1 : 0).append('\n');
+      if (sb.length() >= CHUNK_BYTES) { // Chunks end at line boundaries
+        chunks.add(sb.toString());
+        sb.setLength(0);
+      }
+    }
+    if (sb.length() > 0)
+      chunks.add(sb.toString());
+    input = Key.make("csv_parser_bench_input");
+    FVecFactory.makeByteVec(input, chunks.toArray(new String[0]));
+    setup = ParseSetup.guessSetup(new Key[]{input}, false, ParseSetup.HAS_HEADER);
+  }
+
+  @TearDown
+  public void tearDown() {
+    input.get().delete();
+  }
+
+  @Benchmark
+  public long parse() {
+    Frame fr = ParseDataset.parse(Key.make(), new Key[]{input}, false, new ParseSetup(setup));
+    try {
+      return fr.numRows();
+    } finally {
+      fr.delete();
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(CsvParserBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -4,10 +4,22 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Arrays;
 import water.fvec.Chunk;
+import water.persist.PersistOffHeap;
 import water.util.Log;
 import water.util.PrettyPrint;
 
-/** Store Cleaner: User-Mode Swap-To-Disk */
+/** Store Cleaner: User-Mode Swap-To-Disk
+ *
+ *  Swapping is tiered.  Chunks which need to leave the heap are first moved
+ *  into an in-heap compressed tier (opt-in, {@code sys.ai.h2o.cleaner.swap.compress}),
+ *  which is bounded to a fraction of the desired cache level.  The oldest
+ *  compressed Chunks (by the same age histogram which drives the spilling)
+ *  are then dropped, leaving only the disk tier behind.
+ *
+ *  With an off-heap ice backend ({@link PersistOffHeap}) the "disk" tier is
+ *  native memory.  Chunks are copied there as soon as they are old enough to
+ *  be cleaned, and dropped from the Java heap under memory pressure, by the
+ *  same age policy as Chunks swapped to disk. */
 
 class Cleaner extends Thread {
   // msec time at which the STORE was dirtied.
@@ -43,6 +55,15 @@ class Cleaner extends Thread {
   // Desired cache level. Set by the MemoryManager asynchronously.
   static volatile long DESIRED;
 
+  // In-heap compressed swap tier: on/off (settable by tests), share of DESIRED
+  // it may hold, and the worst compression ratio still worth keeping.
+  static volatile boolean SWAP_COMPRESS = H2O.getSysBoolProperty("cleaner.swap.compress", false);
+  static final float SWAP_TIER_FRACTION = Float.parseFloat(H2O.getSysProperty("cleaner.swap.tierFraction", "0.25"));
+  static final float SWAP_MAX_RATIO = Float.parseFloat(H2O.getSysProperty("cleaner.swap.maxRatio", "0.75"));
+  // Compressed tier budget in test mode (DESIRED == -1): 0 drops the whole
+  // tier, anything else keeps it all.
+  static volatile long TEST_TIER_BUDGET = 0;
+
   Cleaner() {
     super("MemCleaner");
     setDaemon(true);
@@ -92,19 +113,27 @@ class Cleaner extends Thread {
       now = System.currentTimeMillis();
       _dirty = Long.MAX_VALUE; // Reset, since we are going write stuff out
       MemoryManager.set_goals("preclean",false);
+      final boolean test_mode = DESIRED == -1; // Test mode: clean all, for the whole pass
 
       // The age beyond which we need to toss out things to hit the desired
       // caching levels. If forced, be exact (toss out the minimal amount).
       // If lazy, store-to-disk things down to 1/2 the desired cache level
       // and anything older than 5 secs.
       boolean force = (h._cached >= DESIRED || !MemoryManager.CAN_ALLOC); // Forced to clean
+      boolean offheap = H2O.getPM().getIce() instanceof PersistOffHeap;
       if( force && diskFull )   // Try to clean the diskFull flag
         diskFull = isDiskFull();
       long clean_to_age = h.clean_to(force ? DESIRED : (DESIRED>>1));
       // If not forced cleaning, expand the cleaning age to allows Values
       // more than 5sec old
       if( !force ) clean_to_age = Math.max(clean_to_age,now-5000);
-      if( DESIRED == -1 ) clean_to_age = now;  // Test mode: clean all
+      if( test_mode ) clean_to_age = now;  // Test mode: clean all
+      // Compressed tier budget, and the age beyond which compressed Chunks
+      // are dropped to stay within it.
+      long tier_budget = test_mode ? TEST_TIER_BUDGET : (long)(DESIRED*SWAP_TIER_FRACTION);
+      long evict_to_age = !test_mode ? h.evict_to(tier_budget) : (tier_budget == 0 ? now : 0);
+      boolean evict_all = test_mode && tier_budget == 0; // Whatever the estimated tier size
+      long tier_size = h._compressed; // Running estimate of the compressed tier
 
       // No logging if under memory pressure: can deadlock the cleaner thread
       String s = h+" DESIRED="+(DESIRED>>20)+"M dirtysince="+(now-dirty)+" force="+force+" clean2age="+(now-clean_to_age);
@@ -113,6 +142,7 @@ class Cleaner extends Thread {
       long cleaned = 0;         // Disk i/o bytes
       long freed = 0;           // memory freed bytes
       long io_ns = 0;           // i/o ns writing
+      long compressed = 0;      // bytes moved into the compressed tier
 
       // For faster K/V store walking get the NBHM raw backing array,
       // and walk it directly.
@@ -127,12 +157,28 @@ class Cleaner extends Thread {
         Value val = (Value)ov;
         byte[] m = val.rawMem();
         Object p = val.rawPOJO();
+        long touched = val._lastAccessedTime;
+        byte[] c = val.rawCompressedMem();
+        if( c != null ) {
+          if( m != null || p != null ) { // Both forms, e.g. racing swap-in: keep the raw one
+            val.freeCompressedMem();
+            freed += c.length;
+            tier_size -= c.length;
+          } else {
+            // Drop the oldest compressed Chunks, to keep the tier within budget
+            if( (evict_all || tier_size > tier_budget) && touched <= evict_to_age ) {
+              val.freeCompressedMem();
+              freed += c.length;
+              tier_size -= c.length;
+            }
+            continue;
+          }
+        }
         if( m == null && p == null ) continue; // Nothing to throw out
         if( val.isLockable() ) continue; // we do not want to throw out Lockables.
         boolean isChunk = p instanceof Chunk && !((Chunk)p).isVolatile();
         // Ignore things younger than the required age.  In particular, do
         // not spill-to-disk all dirty things we find.
-        long touched = val._lastAccessedTime;
         if( touched > clean_to_age ) { // Too recently touched?
           // But can toss out a byte-array if already deserialized & on disk
           // (no need for both forms).  Note no savings for Chunks, for which m==p._mem
@@ -144,7 +190,7 @@ class Cleaner extends Thread {
           continue;             // Too young
         }
         // Spiller turned off?
-        if( !H2O.ARGS.cleaner ) continue;
+        if( !H2O.ARGS.cleaner && !offheap ) continue;
 
         // CNC - Memory cleaning turned off, except for Chunks
         // Too many POJOs are written to dynamically; cannot spill & reload
@@ -168,8 +214,16 @@ class Cleaner extends Thread {
           if( m != null ) cleaned += m.length; // Accumulate i/o bytes
           io_ns += System.nanoTime() - now_ns; // Accumulate i/o time
         }
-        // And, under pressure, free all
+        // And, under pressure, free all - keeping a compressed copy in-heap
+        // while the compressed tier has room.  Off-heap swapped Chunks follow
+        // the same pressure & age policy as Chunks swapped to disk.
         if( isChunk && force && (val.isPersisted() || !((Key)ok).home()) ) {
+          if( SWAP_COMPRESS && m != null && tier_size < tier_budget && touched > evict_to_age ) {
+            int clen = val.compressMem(SWAP_MAX_RATIO);
+            tier_size += clen;
+            compressed += clen;
+            freed -= clen;
+          }
           val.freeMem ();  if( m != null ) freed += val._max;  m = null;
           val.freePOJO();  if( p != null ) freed += val._max;  p = null;
           if( isChunk ) freed -= val._max; // Double-counted freed mem for Chunks since val._pojo._mem & val._mem are the same.
@@ -187,17 +241,19 @@ class Cleaner extends Thread {
       }
 
       String s1 = "Cleaner pass took: "+PrettyPrint.msecs(System.currentTimeMillis()-now,true)+
-                  ", spilled "+PrettyPrint.bytes(cleaned)+" in "+PrettyPrint.usecs(io_ns>>10);
+                  ", spilled "+PrettyPrint.bytes(cleaned)+" in "+PrettyPrint.usecs(io_ns>>10)+
+                  ", compressed "+PrettyPrint.bytes(compressed)+" in-heap";
       h = Histo.current(true); // Force a new histogram
       MemoryManager.set_goals("postclean",false);
       // No logging if under memory pressure: can deadlock the cleaner thread
-      String s2 = h+" diski_o="+PrettyPrint.bytes(cleaned)+", freed="+(freed>>20)+"M, DESIRED="+(DESIRED>>20)+"M";
+      String s2 = h+" diski_o="+PrettyPrint.bytes(cleaned)+", freed="+(freed>>20)+"M, DESIRED="+(DESIRED>>20)+"M"+
+                  (offheap ? ", offheap="+(((PersistOffHeap)H2O.getPM().getIce()).usedBytes()>>20)+"M" : "");
       if( MemoryManager.canAlloc() ) Log.debug(s1,s2);
       else                           System.err.println(s1+"\n"+s2);
       // For testing thread
       synchronized(this) {
         _did_sweep = true;
-        if( DESIRED == -1 ) DESIRED = 0; // Turn off test-mode after 1 sweep
+        if( test_mode && DESIRED == -1 ) DESIRED = 0; // Turn off test-mode after 1 sweep
         notifyAll(); // Wake up testing thread
       }
     }
@@ -228,6 +284,7 @@ class Cleaner extends Thread {
     static long swapped(){ return H._swapped;}
 
     final long[] _hs = new long[128];
+    final long[] _chs = new long[128]; // Same, for the compressed tier only
     long _oldest; // Time of the oldest K/V discovered this pass
     long _eldest; // Time of the eldest K/V found in some prior pass
     long _hStep;  // Histogram step: (now-eldest)/histogram.length
@@ -235,12 +292,14 @@ class Cleaner extends Thread {
     long _total;  // Total data in local K/V
     long _when;   // When was this histogram computed
     long _swapped;// On-disk stuff
+    long _compressed; // In-heap compressed tier
     Value _vold;  // For assertions: record the oldest Value
     boolean _clean; // Was "clean" K/V when built?
 
     // Compute a histogram
     Histo( long eldest ) {
       Arrays.fill(_hs, 0);
+      Arrays.fill(_chs, 0);
       _when = System.currentTimeMillis();
       _eldest = eldest; // Eldest seen in some prior pass
       _hStep = Math.max(1,(_when-eldest)/_hs.length);
@@ -250,6 +309,7 @@ class Cleaner extends Thread {
       long cached = 0; // Total K/V cached in ram
       long total = 0;  // Total K/V in local node
       long swapped=0;  // Total K/V persisted
+      long compressed=0; // Total K/V in the compressed tier
       long oldest = Long.MAX_VALUE; // K/V with the longest time since being touched
       Value vold = null;
       // Start the walk at slot 2, because slots 0,1 hold meta-data
@@ -268,6 +328,10 @@ class Cleaner extends Thread {
         if( m != null ) len += val._max;
         if( p != null ) len += val._max;
         if( m != null && p instanceof Chunk ) len -= val._max; // Do not double-count Chunks
+        byte[] c = val.rawCompressedMem();
+        int clen = c == null ? 0 : c.length;
+        len += clen;
+        compressed += clen;
         if( len == 0 ) continue;
         cached += len; // Accumulate total amount of cached keys
 
@@ -280,10 +344,12 @@ class Cleaner extends Thread {
         if( idx < 0 ) idx = 0;
         else if( idx >= _hs.length ) idx = _hs.length-1;
         _hs[idx] += len;      // Bump histogram bucket
+        _chs[idx] += clen;
       }
       _cached = cached; // Total cached; NOTE: larger than sum of histogram buckets
       _total = total;   // Total used data
       _swapped = swapped;
+      _compressed = compressed;
       _oldest = oldest; // Oldest seen in this pass
       _vold = vold;
       _clean = clean && _dirty==Long.MAX_VALUE; // Looks like a clean K/V the whole time?
@@ -303,11 +369,25 @@ class Cleaner extends Thread {
       return age;
     }
 
+    // Compute the time (in msec) beyond which compressed Values need to be
+    // dropped, to bring the compressed tier down to the given budget.
+    long evict_to( long budget ) {
+      long age = _eldest;
+      if( _compressed <= budget ) return age;
+      long s = 0;
+      for( long t : _chs ) {
+        s += t;
+        age += _hStep;
+        if( _compressed - s <= budget ) break;
+      }
+      return age;
+    }
+
     // Pretty print
     @Override public String toString() {
       long x = _eldest;
       long now = System.currentTimeMillis();
-      return "H(cached:"+(_cached>>20)+"M, eldest:"+x+"L < +"+(_oldest-x)+"ms <...{"+_hStep+"ms}...< +"+(_hStep*_hs.length)+"ms < +"+(now-x)+")";
+      return "H(cached:"+(_cached>>20)+"M, compressed:"+(_compressed>>20)+"M, eldest:"+x+"L < +"+(_oldest-x)+"ms <...{"+_hStep+"ms}...< +"+(_hStep*_hs.length)+"ms < +"+(now-x)+")";
     }
   }
 }
@@ -1792,6 +1792,7 @@ final public class H2O {
     SELF._heartbeat._jar_md5 = JarHash.JARHASH;
     SELF._heartbeat._client = ARGS.client;
     SELF._heartbeat._cloud_name_hash = ARGS.name.hashCode();
+    SELF._heartbeat._rpc_compression = WireCompression.ENABLED;
   }
 
   /** Starts the worker threads, receiver threads, heartbeats and all other
@@ -2,6 +2,7 @@ package water;
 
 import water.nbhm.NonBlockingHashMap;
 import water.nbhm.NonBlockingHashMapLong;
+import water.network.SharedMemoryChannel;
 import water.network.SocketChannelFactory;
 import water.util.*;
 
@@ -426,8 +427,9 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
     sock2.socket().setSendBufferSize(AutoBuffer.BBP_BIG._size);
     boolean res = sock2.connect( _key );
     assert res && !sock2.isConnectionPending() && sock2.isBlocking() && sock2.isConnected() && sock2.isOpen();
+    boolean shm = useSharedMemory();
     ByteBuffer bb = ByteBuffer.allocate(6).order(ByteOrder.nativeOrder());
-    bb.put((byte)2);
+    bb.put(shm ? TCPReceiverThread.TCP_SHM : TCPReceiverThread.TCP_BIG);
     bb.putShort(H2O.SELF._timestamp);
     bb.putChar((char)H2O.H2O_PORT);
     bb.put((byte)0xef);
@@ -436,9 +438,34 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
     while(bb.hasRemaining()) {
       wrappedSocket.write(bb);
     }
+    if( shm ) {
+      // Negotiate a shared memory ring, the receiver falls back to the socket if it cannot map it
+      SharedMemoryChannel ring = SharedMemoryChannel.offer(sock2, SharedMemoryChannel.DEFAULT_DIR,
+              "h2o-" + H2O.H2O_PORT + "-" + _key.getPort(), SHM_RING_SIZE);
+      if( ring != null ) wrappedSocket = ring;
+      else _shm_refused = true;
+    }
     TCPS.incrementAndGet();     // Cluster-wide counting
     return wrappedSocket;
   }
+
+  // Co-located nodes (several JVMs on one host) can exchange big payloads
+  // through a memory-mapped ring instead of loopback TCP.  The TCP connection
+  // stays open next to the ring, for the handshake bytes and for waking up an
+  // idle reader.  Not used with internal security enabled (the traffic needs
+  // to go through SSL).
+  static final boolean SHM_TRANSPORT = H2O.getSysBoolProperty("rpc.shm", false);
+  static final int SHM_RING_SIZE = Integer.parseInt(H2O.getSysProperty("rpc.shm.ring_size", String.valueOf(SharedMemoryChannel.DEFAULT_RING_SIZE)));
+  private transient volatile boolean _shm_refused; // The other node could not map our ring, don't try again
+
+  boolean isColocated() {
+    return _key.getAddress().equals(H2O.SELF._key.getAddress());
+  }
+
+  private boolean useSharedMemory() {
+    return SHM_TRANSPORT && !_shm_refused && !_security.securityEnabled && isColocated() &&
+            SharedMemoryChannel.DEFAULT_DIR.isDirectory() && SharedMemoryChannel.DEFAULT_DIR.canWrite();
+  }
   synchronized void freeTCPSocket( ByteChannel sock ) {
     assert 0 <= _socksAvail && _socksAvail < _socks.length;
     assert TCPS.get() > 0;
@@ -70,12 +70,13 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   *
   *    internal "top-level" fields
   *    ---------------------------
-  *     - RPC<T> _nleft, _nrite: "child" node/JVMs that are doing work
+  *     - RPC<T>[] _nkids      : "child" node/JVMs that are doing work
   *     - boolean _topLocal    : "root" MRTask on a local machine
   *     - boolean _topGlobal   : "root" MRTask on the "root" node
   *     - T _left, _rite       : "child" MRTasks on a local machine
   *     - T _res               : "result" MRTask (everything reduced into here)
   *     - int _nlo,_nhi        : range of nodes to do remote work on (divide-conquer; see Diagram 2)
+  *     - reductionFanout()    : number of ranges the nodes are split into (2 by default, as drawn below)
   *     - Futures _fs          : _topLocal task blocks on _fs for _left and _rite to complete
   *
   *       Diagram 1: N is for Node; T is for Task
@@ -83,7 +84,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   *              3 node cloud              Inside one of the 'N' nodes:
   *                   N1                               T  _topLocal**
   *                 /   \                            /  \
-  *         N2 (_nleft)  N3 (_nrite)         T (_left)   T (_rite)
+  *       N2 (_nkids[0]) N3 (_nkids[1])      T (_left)   T (_rite)
   *
   *                  **: T is also _topGlobal if N==N1
   *
@@ -102,8 +103,8 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   *                            - topLocal=true
   *                            - _fs = new Futures()
   *                            - nmid = (_nlo + _nhi) >> 1 => split the range of nodes (divide-conquer)
-  *                            - _nleft = remote_compute(_nlo,nmid) => chooses a node in range and does new RPC().call()
-  *                            - _nrite = remote_compute(nmid,_nhi)    serializing MRTask and call dinvoke on remote.
+  *                            - _nkids[0] = remote_compute(_nlo,nmid) => chooses a node in range and does new RPC().call()
+  *                            - _nkids[1] = remote_compute(nmid,_nhi)    serializing MRTask and call dinvoke on remote.
   *                           /                                 \
   *                         /                                     \
   *                       /                                         \
@@ -149,8 +150,8 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
    *  style, can not be passed via K/V store).*/
   protected AppendableVec[] _appendables;
 
-  /** Internal field to track the left &amp; right remote nodes/JVMs to work on */
-  transient protected RPC<T> _nleft, _nrite;
+  /** Internal field to track the remote nodes/JVMs to work on */
+  transient protected RPC<T>[] _nkids;
 
   /** Internal field to track if this is a top-level local call */
   transient protected boolean _topLocal; // Top-level local call, returning results over the wire
@@ -297,6 +298,16 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
    *  some output vector.  */
   public void reduce( T mrt ) { }
 
+  /** Number of sub-ranges the remaining nodes are split into on each node, ie.
+   *  the arity of the tree the task is distributed over and its results are
+   *  reduced along.  The default binary tree takes log2(N) hops to reduce the
+   *  results of N nodes; a flatter tree needs fewer hops (each of them being a
+   *  serialization, a transfer and a reduce) at the cost of a node receiving
+   *  more results at once.  Override for tasks with large results, the
+   *  cloud-wide default can be set by -Dsys.ai.h2o.mrtask.fanout. */
+  protected int reductionFanout() { return REDUCTION_FANOUT; }
+  static final int REDUCTION_FANOUT = Math.max(2, Integer.parseInt(H2O.getSysProperty("mrtask.fanout", "2")));
+
   /** Override to do any remote initialization on the 1st remote instance of
    *  this object, for initializing node-local shared data structures.  */
   protected void setupLocal() {}
@@ -538,16 +549,19 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     int selfidx = selfidx();
     int nlo = subShift(selfidx);
     assert nlo < _nhi;
-    final int nmid = (nlo+_nhi)>>>1; // Mid-point
 
     // Run remote IF:
     // - Not forced to run local (no remote jobs allowed) AND
     // - - There's remote work, or Client mode (always remote work)
     if( (!_run_local) && ((nlo+1 < _nhi) || H2O.ARGS.client) ) {
       if(_profile!=null) _profile._rpcLstart = System.currentTimeMillis();
-      _nleft = remote_compute(H2O.ARGS.client ? nlo : nlo+1,nmid);
-      if(_profile!=null) _profile._rpcRstart = System.currentTimeMillis();
-      _nrite = remote_compute( nmid,_nhi);
+      int[] bounds = splitNodes(H2O.ARGS.client ? nlo : nlo+1, nlo, _nhi, reductionFanout());
+      @SuppressWarnings("unchecked") RPC<T>[] nkids = (RPC<T>[]) new RPC[bounds.length-1];
+      _nkids = nkids;
+      for( int i=0; i<_nkids.length; i++ ) {
+        if(_profile!=null && i==_nkids.length-1) _profile._rpcRstart = System.currentTimeMillis();
+        _nkids[i] = remote_compute(bounds[i],bounds[i+1]);
+      }
       if(_profile!=null) _profile._rpcRdone  = System.currentTimeMillis();
     } else {
       if(_profile!=null)
@@ -567,6 +581,19 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     if(_profile!=null) _profile._localdone = System.currentTimeMillis();
   }
 
+  // Split the (relative) range of nodes [nlo,nhi) into 'fanout' contiguous
+  // ranges, the first one starting at 'lo' (past self, unless a client).
+  // Returns the fanout+1 range boundaries; ranges can be empty.  With the
+  // fanout of 2 this is the plain old halving at (nlo+nhi)/2.
+  static int[] splitNodes( int lo, int nlo, int nhi, int fanout ) {
+    int[] bounds = new int[fanout+1];
+    bounds[0] = lo;
+    for( int i=1; i<fanout; i++ )
+      bounds[i] = Math.min(nhi, Math.max(bounds[i-1], nlo + (int)((long)(nhi-nlo)*i/fanout)));
+    bounds[fanout] = nhi;
+    return bounds;
+  }
+
   // Make an RPC call to some node in the middle of the given range.  Add a
   // pending completion to self, so that we complete when the RPC completes.
   private RPC<T> remote_compute( int nlo, int nhi ) {
@@ -727,8 +754,9 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
   private void postLocal0() {
     closeLocal();               // User's node-local cleanup
     if(_profile!=null) _profile._closeLocalDone = System.currentTimeMillis();
-    reduce3(_nleft);            // Reduce global results from neighbors.
-    reduce3(_nrite);
+    if( _nkids != null )        // Reduce global results from neighbors.
+      for( RPC<T> rpc : _nkids )
+        reduce3(rpc);
     if(_profile!=null) _profile._remoteBlkDone = System.currentTimeMillis();
     _fs.blockForPending();      // Block any pending user tasks
     if(_profile!=null) _profile._localBlkDone = System.currentTimeMillis();
@@ -796,8 +824,11 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
 
     // Since blocking can throw (generally the same exception, again and again)
     // catch & ignore, keeping only the first one we already got.
-    RPC<T> nl = _nleft; if( nl != null ) try { nl.get(); } catch( Throwable ignore ) { } _nleft = null;
-    RPC<T> nr = _nrite; if( nr != null ) try { nr.get(); } catch( Throwable ignore ) { } _nrite = null;
+    RPC<T>[] nkids = _nkids;
+    if( nkids != null )
+      for( RPC<T> rpc : nkids )
+        if( rpc != null ) try { rpc.get(); } catch( Throwable ignore ) { }
+    _nkids = null;
     return true;
   }
 
@@ -807,7 +838,7 @@ public abstract class MRTask<T extends MRTask<T>> extends DTask<T> implements Fo
     x._topGlobal = false;
     x.setCompleter(this); // Set completer, what used to be a final field
     x._topLocal = false;  // Not a top job
-    x._nleft = x._nrite = null;
+    x._nkids = null;
     x. _left = x. _rite = null;
     x._fs = _fs;
     if( _profile!=null )  x._profile = new MRProfile(this);
@@ -0,0 +1,245 @@
+package water;
+
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A chain of chunk-local map stages executed in a single pass over a Frame.
+ *
+ * <p>Each stage reads some of the <i>working columns</i> - the columns of the source Frame followed by the outputs
+ * of all the previously added stages - and produces one or more new working columns. All the stages run
+ * back-to-back on one chunk at a time. Intermediate columns are kept in {@code double[]} buffers private to the
+ * thread mapping the chunk, a buffer is reused as soon as no later stage reads its column. The buffers of a thread
+ * are sized for the largest chunk and reused for all the chunks it maps. Only the columns selected as outputs are
+ * compressed into new Vecs. This replaces a chain of {@code doAll(...).outputFrame()} calls, each of
+ * them materializing (and compressing) its result before the next pass reads it back.</p>
+ *
+ * <pre>{@code
+ *   MapPipeline p = new MapPipeline(fr);
+ *   int sum = p.add(new Plus(), 0, 1);  // fr[0] + fr[1]
+ *   int log = p.add(new Log(), sum);    // log(fr[0] + fr[1])
+ *   Frame res = p.outputs(sum, log).execute(new String[]{"sum", "log"});
+ * }</pre>
+ *
+ * Stages only see numbers: NAs are passed as NaNs, categorical columns as their level indices. The output Vecs
+ * are numeric.
+ */
+public class MapPipeline {
+
+  /** A single elementwise (row-local) transformation of a chunk */
+  public static abstract class Stage extends Iced<Stage> {
+    /** Number of columns this stage produces */
+    public int nOutputs() { return 1; }
+
+    /**
+     * Computes rows [0, len) of the outputs.
+     * @param in input columns, in the order given to {@link MapPipeline#add}; must not be modified
+     * @param out output buffers, possibly holding stale values - every row has to be written
+     * @param len number of rows in this chunk, the buffers may be longer
+     */
+    public abstract void map(double[][] in, double[][] out, int len);
+  }
+
+  private final Frame _fr;
+  private final List<Stage> _stages = new ArrayList<>();
+  private final List<int[]> _inputs = new ArrayList<>();
+  private int _nworking;
+  private int[] _outputs;
+
+  public MapPipeline(Frame fr) {
+    _fr = fr;
+    _nworking = fr.numCols();
+  }
+
+  /** Number of working columns, ie. source columns plus the columns produced by the stages */
+  public int numColumns() { return _nworking; }
+
+  public int numStages() { return _stages.size(); }
+
+  /**
+   * Appends a stage to the pipeline.
+   * @param stage transformation to apply
+   * @param inputs indices of the working columns the stage reads
+   * @return index of the first working column produced by the stage
+   */
+  public int add(Stage stage, int... inputs) {
+    for (int in : inputs)
+      if (in < 0 || in >= _nworking)
+        throw new IllegalArgumentException("Stage input " + in + " is not a working column, expected a value in [0, " + _nworking + ")");
+    if (stage.nOutputs() < 1)
+      throw new IllegalArgumentException("Stage " + stage.getClass().getSimpleName() + " doesn't produce any output");
+    int first = _nworking;
+    _stages.add(stage);
+    _inputs.add(inputs.clone());
+    _nworking += stage.nOutputs();
+    return first;
+  }
+
+  /** Selects the working columns to materialize. */
+  public MapPipeline outputs(int... cols) {
+    for (int c : cols)
+      if (c < 0 || c >= _nworking)
+        throw new IllegalArgumentException("Output " + c + " is not a working column, expected a value in [0, " + _nworking + ")");
+    _outputs = cols.clone();
+    return this;
+  }
+
+  /** Runs all stages in a single pass and returns the output columns as a new Frame (not in DKV). */
+  public Frame execute(String[] names) {
+    if (_outputs == null)
+      throw new IllegalStateException("Outputs of the pipeline were not specified");
+    if (names != null && names.length != _outputs.length)
+      throw new IllegalArgumentException("Expected " + _outputs.length + " names, got " + names.length);
+    return plan().doAll(_outputs.length, Vec.T_NUM, _fr).outputFrame(names, null);
+  }
+
+  // Assigns a buffer to every working column: a buffer is taken when the column
+  // is loaded (source columns) or computed, and is released after the last stage
+  // reading it.  Outputs are written right after they are computed.
+  PipelineTask plan() {
+    int nsrc = _fr.numCols();
+    int nstages = _stages.size();
+    int[] lastUse = new int[_nworking];
+    Arrays.fill(lastUse, Integer.MIN_VALUE);
+    for (int s = 0; s < nstages; s++)
+      for (int in : _inputs.get(s))
+        lastUse[in] = s;
+    int[] producer = new int[_nworking];
+    for (int c = 0; c < nsrc; c++) producer[c] = -1;
+    for (int s = 0, c = nsrc; s < nstages; c += _stages.get(s).nOutputs(), s++)
+      for (int j = 0; j < _stages.get(s).nOutputs(); j++)
+        producer[c + j] = s;
+    for (int o : _outputs) lastUse[o] = Math.max(lastUse[o], producer[o]);
+
+    int[] slot = new int[_nworking];
+    Arrays.fill(slot, -1);
+    int[] free = new int[_nworking];
+    int nfree = 0, nslots = 0;
+    // Sources used by any stage or as an output are loaded upfront
+    for (int c = 0; c < nsrc; c++)
+      if (lastUse[c] != Integer.MIN_VALUE)
+        slot[c] = nslots++;
+    int[][] ins = new int[nstages][];
+    int[][] outs = new int[nstages][];
+    for (int r : releasedAfter(-1, lastUse, producer, slot)) free[nfree++] = r;
+    for (int s = 0, c = nsrc; s < nstages; s++) {
+      int[] inputs = _inputs.get(s);
+      ins[s] = new int[inputs.length];
+      for (int i = 0; i < inputs.length; i++) ins[s][i] = slot[inputs[i]];
+      outs[s] = new int[_stages.get(s).nOutputs()];
+      for (int j = 0; j < outs[s].length; j++, c++)
+        outs[s][j] = slot[c] = nfree > 0 ? free[--nfree] : nslots++;
+      for (int r : releasedAfter(s, lastUse, producer, slot)) free[nfree++] = r;
+    }
+    int[] outSlot = new int[_outputs.length];
+    int[] outStage = new int[_outputs.length];
+    for (int i = 0; i < _outputs.length; i++) {
+      outSlot[i] = slot[_outputs[i]];
+      outStage[i] = producer[_outputs[i]];
+    }
+    int[] srcSlot = Arrays.copyOf(slot, nsrc);
+    return new PipelineTask(_stages.toArray(new Stage[0]), srcSlot, ins, outs, outSlot, outStage, nslots);
+  }
+
+  // Buffers of the columns not needed anymore after the given stage (-1 being the loading of sources)
+  private int[] releasedAfter(int stage, int[] lastUse, int[] producer, int[] slot) {
+    int n = 0;
+    int[] res = new int[_nworking];
+    for (int c = 0; c < _nworking; c++)
+      if (slot[c] >= 0 && (lastUse[c] == stage || (lastUse[c] == Integer.MIN_VALUE && producer[c] == stage)))
+        res[n++] = slot[c];
+    return Arrays.copyOf(res, n);
+  }
+
+  static class PipelineTask extends MRTask<PipelineTask> {
+    final Stage[] _stages;
+    final int[] _srcSlot;   // Buffer of each source column, -1 if not used
+    final int[][] _ins;     // Buffers read by each stage
+    final int[][] _outs;    // Buffers written by each stage
+    final int[] _outSlot;   // Buffer of each output column
+    final int[] _outStage;  // Stage computing each output column, -1 for source columns
+    final int _nslots;
+
+    PipelineTask(Stage[] stages, int[] srcSlot, int[][] ins, int[][] outs, int[] outSlot, int[] outStage, int nslots) {
+      _stages = stages;
+      _srcSlot = srcSlot;
+      _ins = ins;
+      _outs = outs;
+      _outSlot = outSlot;
+      _outStage = outStage;
+      _nslots = nslots;
+    }
+
+    // Buffers of the thread mapping a chunk, shared by the copies of this task on a node
+    private transient ThreadLocal<Scratch> _scratch;
+    private transient int _maxChunkLen;
+
+    // Buffers of one thread, sized for the largest chunk, plus the argument arrays of every stage wired to them
+    private static class Scratch {
+      final double[][] _bufs;
+      final double[][][] _in;
+      final double[][][] _out;
+
+      Scratch(int nslots, int[][] ins, int[][] outs, int len) {
+        _bufs = new double[nslots][];
+        for (int i = 0; i < nslots; i++)
+          _bufs[i] = MemoryManager.malloc8d(len);
+        _in = new double[ins.length][][];
+        _out = new double[outs.length][][];
+        for (int s = 0; s < ins.length; s++) {
+          _in[s] = new double[ins[s].length][];
+          for (int i = 0; i < ins[s].length; i++) _in[s][i] = _bufs[ins[s][i]];
+          _out[s] = new double[outs[s].length][];
+          for (int j = 0; j < outs[s].length; j++) _out[s][j] = _bufs[outs[s][j]];
+        }
+      }
+    }
+
+    @Override
+    protected void setupLocal() {
+      _scratch = new ThreadLocal<>();
+      long[] espc = _fr.anyVec().espc();
+      for (int i = 1; i < espc.length; i++)
+        _maxChunkLen = (int) Math.max(_maxChunkLen, espc[i] - espc[i - 1]);
+    }
+
+    private Scratch scratch() {
+      Scratch scratch = _scratch.get();
+      if (scratch == null)
+        _scratch.set(scratch = new Scratch(_nslots, _ins, _outs, _maxChunkLen));
+      return scratch;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      int len = cs[0]._len;
+      Scratch scratch = scratch();
+      double[][] bufs = scratch._bufs;
+      for (int c = 0; c < cs.length; c++)
+        if (_srcSlot[c] >= 0)
+          cs[c].getDoubles(bufs[_srcSlot[c]], 0, len);
+      write(-1, bufs, ncs, len);
+      for (int s = 0; s < _stages.length; s++) {
+        _stages[s].map(scratch._in[s], scratch._out[s], len);
+        write(s, bufs, ncs, len);
+      }
+    }
+
+    private void write(int stage, double[][] bufs, NewChunk[] ncs, int len) {
+      for (int o = 0; o < ncs.length; o++) {
+        if (_outStage[o] != stage) continue;
+        double[] vals = bufs[_outSlot[o]];
+        NewChunk nc = ncs[o];
+        for (int i = 0; i < len; i++)
+          nc.addNum(vals[i]);
+      }
+    }
+  }
+
+}
@@ -72,6 +72,14 @@ public abstract class Paxos {
       return 0;
     }
 
+    if(h2o._heartbeat._rpc_compression != H2O.SELF._heartbeat._rpc_compression){
+      // RPC payloads are framed differently, the nodes could not read each other's tasks
+      Log.warn("Ignoring " + h2o + " because it was started with sys.ai.h2o.rpc.compression=" +
+              h2o._heartbeat._rpc_compression + ", this node with " + H2O.SELF._heartbeat._rpc_compression);
+      ListenerService.getInstance().report("rpc_compression_mismatch", h2o);
+      return 0;
+    }
+
     if (H2O.isFlatfileEnabled() && !H2O.ARGS.client && h2o._heartbeat._client && !H2O.isNodeInFlatfile(h2o)) {
         H2O.addNodeToFlatfile(h2o);
     }
@@ -10,6 +10,7 @@ import java.nio.channels.SocketChannel;
 import java.util.Date;
 import java.util.Random;
 
+import water.network.SharedMemoryChannel;
 import water.network.SocketChannelFactory;
 import water.util.Log;
 import water.util.SB;
@@ -36,6 +37,12 @@ public class TCPReceiverThread extends Thread {
    * Byte representing TCP communication for big data
    */
   static final byte TCP_BIG = 2;
+
+  /**
+   * Byte representing big data sent by a co-located node through a shared memory ring,
+   * the ring is negotiated over the socket first (see {@link SharedMemoryChannel})
+   */
+  static final byte TCP_SHM = 4;
   
   public TCPReceiverThread(
           ServerSocketChannel sock) {
@@ -82,7 +89,7 @@ public class TCPReceiverThread extends Thread {
           wrappedSocket.read(bb);
         }
         bb.flip();
-        int chanType = bb.get(); // 1 - small, 2 - big, 3 - external
+        int chanType = bb.get(); // 1 - small, 2 - big, 3 - external, 4 - shared memory
         short timestamp = bb.getShort(); // read timestamp
                                          // Note: timestamp was not part of the original protocol, was added in 3.22.0.1, #a33de44)
         if (H2ONodeTimestamp.decodeIsClient(timestamp) && !H2O.ARGS.allow_clients) {
@@ -106,9 +113,16 @@ public class TCPReceiverThread extends Thread {
         case TCP_BIG:
           new TCPReaderThread(wrappedSocket, new AutoBuffer(wrappedSocket, inetAddress, timestamp), inetAddress, timestamp).start();
           break;
+        case TCP_SHM:
+          if (H2O.SELF.getSecurityManager().securityEnabled) {
+            ListenerService.getInstance().report("protocol-failure", "channel-type", chanType);
+            throw new IOException("Communication protocol failure: Shared memory channel requested from " + inetAddress + " with internal security enabled");
+          }
+          new SharedMemoryReaderThread(sock, wrappedSocket, inetAddress, timestamp).start();
+          break;
         default:
           ListenerService.getInstance().report("protocol-failure", "channel-type", chanType);
-          throw new IOException("Communication protocol failure: Unexpected channel type " + chanType + ", only know 1 - Small, 2 - Big");
+          throw new IOException("Communication protocol failure: Unexpected channel type " + chanType + ", only know 1 - Small, 2 - Big, 4 - Shared memory");
         }
       } catch( java.nio.channels.AsynchronousCloseException ex ) {
         break;                  // Socket closed for shutdown
@@ -128,11 +142,15 @@ public class TCPReceiverThread extends Thread {
   static class TCPReaderThread extends Thread {
     public ByteChannel _sock;
     public AutoBuffer _ab;
-    private final InetAddress _address;
-    private final short _timestamp;
+    final InetAddress _address;
+    final short _timestamp;
 
     public TCPReaderThread(ByteChannel sock, AutoBuffer ab, InetAddress address, short timestamp) {
-      super("TCP-"+ab._h2o+"-"+(ab._h2o._tcp_readers++));
+      this("TCP-"+ab._h2o+"-"+(ab._h2o._tcp_readers++), sock, ab, address, timestamp);
+    }
+
+    TCPReaderThread(String name, ByteChannel sock, AutoBuffer ab, InetAddress address, short timestamp) {
+      super(name);
       ThreadHelper.initCommonThreadProperties(this);
       _sock = sock;
       _ab = ab;
@@ -180,6 +198,31 @@ public class TCPReceiverThread extends Thread {
   }
 
 
+  // Negotiates the shared memory ring on its own thread, so that a slow peer does not hold up the accept loop, then
+  // reads from the ring, or from the socket when the ring was refused
+  static class SharedMemoryReaderThread extends TCPReaderThread {
+    private final SocketChannel _raw;
+
+    SharedMemoryReaderThread(SocketChannel raw, ByteChannel sock, InetAddress address, short timestamp) {
+      super("TCP-SHM-"+address, sock, null, address, timestamp);
+      _raw = raw;
+    }
+
+    @Override public void run() {
+      try {
+        ByteChannel ring = SharedMemoryChannel.accept(_raw, SharedMemoryChannel.DEFAULT_DIR);
+        if (ring != null) _sock = ring; // Otherwise keep using TCP
+        _ab = new AutoBuffer(_sock, _address, _timestamp);
+      } catch( Exception e ) {
+        Log.err("IO error opening a shared memory channel from " + _address + ": ", e);
+        try { _sock.close(); } catch (Exception e2) { Log.trace(e2); }
+        return;
+      }
+      setName("TCP-"+_ab._h2o+"-"+(_ab._h2o._tcp_readers++));
+      super.run();
+    }
+  }
+
   /** A private thread reading small messages from a tcp channel.  The thread
    *  reads the raw bytes of a message from the channel, copies them into a
    *  byte array which is than passed on to FJQ.  Each message is expected to
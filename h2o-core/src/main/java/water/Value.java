@@ -6,6 +6,7 @@ import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import jsr166y.ForkJoinPool;
 import water.fvec.Frame;
 import water.fvec.Vec;
+import water.util.LZBlockCodec;
 import water.util.Log;
 import water.util.StringUtils;
 
@@ -94,6 +95,29 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   private volatile Freezable _pojo;
   Freezable rawPOJO() { return _pojo; }
 
+  // ---
+  // A compressed copy of the _mem array, held in-heap as the first swap tier
+  // (see Cleaner).  Only filled in by the Cleaner for Values which could be
+  // freed anyways (persisted, or cached copies of remote Values), so it is
+  // always safe to drop.  Cleared when the _mem array is rebuilt from it.
+  private volatile byte[] _cmem;
+  final byte[] rawCompressedMem() { return _cmem; }
+
+  /** Move the byte[] form into the in-heap compressed tier, if it compresses
+   *  to no more than {@code maxRatio} of its size.  Only called by the Cleaner.
+   *  @return size of the compressed form, or 0 if not compressed */
+  final int compressMem(float maxRatio) {
+    assert isPersisted() || !_key.home();
+    byte[] mem = _mem;          // Read once!
+    if( mem == null || mem.length == 0 || _cmem != null ) return 0;
+    byte[] cmem = LZBlockCodec.compress(mem);
+    if( cmem.length > mem.length * maxRatio ) return 0; // Not worth it
+    _cmem = cmem;
+    return cmem.length;
+  }
+  /** Drop the in-heap compressed tier. */
+  final void freeCompressedMem() { _cmem = null; }
+
   /** Invalidate byte[] cache.  Only used to eagerly free memory, for data
    *  which is expected to be read-once. */
   public final void freeMem() {
@@ -117,11 +141,17 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     if( pojo != null )          // Has the POJO, make raw bytes
       return _mem = pojo.asBytes();
     if( _max == 0 ) return (_mem = new byte[0]);
+    byte[] cmem = _cmem;        // Read once!
+    if( cmem != null ) {        // Swap-in from the compressed tier
+      mem = LZBlockCodec.decompress(cmem, _max);
+      _cmem = null;             // Do not hold both forms
+      return _mem = mem;
+    }
     return (_mem = loadPersist());
   }
   // Just an empty shell of a Value, no local data but the Value is "real".
   // Any attempt to look at the Value will require a remote fetch.
-  final boolean isEmpty() { return _max > 0 && _mem==null && _pojo == null && !isPersisted(); }
+  final boolean isEmpty() { return _max > 0 && _mem==null && _pojo == null && _cmem == null && !isPersisted(); }
 
   /** The FAST path get-POJO as an {@link Iced} subclass - final method for
    *  speed.  Will (re)build the POJO from the _mem array.  Never returns NULL.
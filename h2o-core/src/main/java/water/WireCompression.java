@@ -0,0 +1,151 @@
+package water;
+
+import water.util.LZBlockCodec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional compression of large RPC payloads: remote task requests and their answers.
+ *
+ * With compression disabled (default) payloads are streamed exactly as before. When enabled
+ * ({@code -Dsys.ai.h2o.rpc.compression=true}), every payload is prefixed by a format byte and the payload of an MRTask
+ * is serialized into a byte array first; if it is larger than the threshold
+ * ({@code sys.ai.h2o.rpc.compression.threshold}, 64kB by default) and compresses well, the compressed block is sent
+ * instead. Reduce results made of mostly-zero doubles (histograms, gram matrices) typically shrink several times.
+ * The setting changes the wire format, so it has to be the same on all nodes: it is advertised in the heartbeat and
+ * nodes started with a different setting are not let into the cloud.
+ *
+ * Per message type statistics of the sent payloads are exposed via {@link water.util.WaterMeterIo}.
+ */
+public final class WireCompression {
+
+  private WireCompression() {}
+
+  static final boolean ENABLED = H2O.getSysBoolProperty("rpc.compression", false);
+  static final int THRESHOLD = Integer.parseInt(H2O.getSysProperty("rpc.compression.threshold", String.valueOf(64 << 10)));
+
+  // Payload formats
+  private static final int PLAIN = 0;      // Streamed, the way payloads are sent without compression
+  private static final int SERIALIZED = 1; // Serialized upfront, sent uncompressed (did not compress well)
+  private static final int COMPRESSED = 2; // Serialized upfront and compressed
+
+  /** Statistics of payloads (of one message type) considered for compression */
+  public static final class Stats {
+    public final AtomicLong _messages = new AtomicLong();   // Payloads over the threshold
+    public final AtomicLong _compressed = new AtomicLong(); // ... of which were sent compressed
+    public final AtomicLong _rawBytes = new AtomicLong();
+    public final AtomicLong _wireBytes = new AtomicLong();
+  }
+
+  private static final ConcurrentHashMap<String, Stats> STATS = new ConcurrentHashMap<>();
+
+  /** Statistics of the payloads sent by this node, by message type */
+  public static Map<String, Stats> stats() {
+    return STATS;
+  }
+
+  private static boolean compressible(DTask dt) {
+    return dt instanceof MRTask;
+  }
+
+  /** Writes a task sent for remote execution, read back by {@link #readRequest(AutoBuffer)}. */
+  static void writeRequest(AutoBuffer ab, DTask dt) {
+    writeRequest(ab, dt, ENABLED);
+  }
+
+  static void writeRequest(AutoBuffer ab, DTask dt, boolean enabled) {
+    if (!enabled) {
+      ab.put(dt);
+    } else if (!compressible(dt)) {
+      ab.put1(PLAIN).put(dt);
+    } else
+      writeBytes(ab, dt, new AutoBuffer().put(dt).buf());
+  }
+
+  static DTask readRequest(AutoBuffer ab) {
+    return readRequest(ab, ENABLED);
+  }
+
+  static DTask readRequest(AutoBuffer ab, boolean enabled) {
+    int format = enabled ? ab.get1U() : PLAIN;
+    if (format == PLAIN)
+      return ab.get(DTask.class);
+    return readBytes(ab, format).get(DTask.class);
+  }
+
+  /** Writes the answer of a remote task, read back by {@link #readAnswer(AutoBuffer, DTask)}. */
+  static void writeAnswer(AutoBuffer ab, DTask dt) {
+    writeAnswer(ab, dt, ENABLED);
+  }
+
+  static void writeAnswer(AutoBuffer ab, DTask dt, boolean enabled) {
+    if (!enabled) {
+      dt.write(ab);
+    } else if (!compressible(dt)) {
+      ab.put1(PLAIN);
+      dt.write(ab);
+    } else {
+      AutoBuffer tmp = new AutoBuffer();
+      dt.write(tmp);
+      writeBytes(ab, dt, tmp.buf());
+    }
+  }
+
+  static void readAnswer(AutoBuffer ab, DTask dt) {
+    readAnswer(ab, dt, ENABLED);
+  }
+
+  static void readAnswer(AutoBuffer ab, DTask dt, boolean enabled) {
+    int format = enabled ? ab.get1U() : PLAIN;
+    if (format == PLAIN)
+      dt.read(ab);
+    else
+      dt.read(readBytes(ab, format));
+  }
+
+  private static void writeBytes(AutoBuffer ab, DTask dt, byte[] raw) {
+    byte[] z = raw.length >= THRESHOLD ? LZBlockCodec.compress(raw) : null;
+    if (z != null && z.length < raw.length - (raw.length >> 3)) { // Require at least 12.5% savings
+      ab.put1(COMPRESSED).putInt(raw.length).putA1(z);
+    } else {
+      z = null;
+      ab.put1(SERIALIZED).putA1(raw);
+    }
+    if (raw.length >= THRESHOLD)
+      record(dt, raw.length, z == null ? raw.length : z.length);
+  }
+
+  private static AutoBuffer readBytes(AutoBuffer ab, int format) {
+    byte[] bytes;
+    if (format == COMPRESSED) {
+      int rawLen = ab.getInt();
+      bytes = LZBlockCodec.decompress(ab.getA1(), rawLen);
+    } else {
+      assert format == SERIALIZED : "Unexpected payload format " + format;
+      bytes = ab.getA1();
+    }
+    return new AutoBuffer(ab._h2o, bytes, 0, bytes.length);
+  }
+
+  private static void record(DTask dt, int rawBytes, int wireBytes) {
+    String type = dt.getClass().getName();
+    Stats s = STATS.get(type);
+    if (s == null) {
+      Stats prev = STATS.putIfAbsent(type, s = new Stats());
+      if (prev != null) s = prev;
+    }
+    s._messages.incrementAndGet();
+    if (wireBytes < rawBytes) s._compressed.incrementAndGet();
+    s._rawBytes.addAndGet(rawBytes);
+    s._wireBytes.addAndGet(wireBytes);
+  }
+
+  /** Class id of plain requests (preceded by the format byte when enabled), used when pretty-printing packets */
+  static String describeRequest(AutoBuffer ab) {
+    int format = ENABLED ? ab.get1U() : PLAIN;
+    return format == PLAIN ? TypeMap.className(ab.getInt()) : "(serialized)";
+  }
+
+}
@@ -361,7 +361,7 @@ public class Frame extends Lockable<Frame> {
    *  remotely, or that the _vecs array was shared and now needs to be a
    *  defensive copy.
    *  @return the new instance of the Frame's Vec[] */
-  public final Vec[] reloadVecs() { _vecs=null; return vecs(); }
+  public final Vec[] reloadVecs() { _vecs=null; _col0=null; return vecs(); }
 
   /** Returns the Vec by given index, implemented by code: {@code vecs()[idx]}.
    *  @param idx idx of column
@@ -525,6 +525,13 @@ public class NewChunk extends Chunk {
     }
     ++_len;
   }
+  /** Replace the categorical ids written so far by map[id], e.g. node-local parse ids by global codes. */
+  public void mapCategoricals(int[] map) {
+    assert _ds == null && _is == null : "Only categorical ids can be mapped";
+    for(int i = 0; i < _sparseLen; i++)
+      if(!isNA2(i)) _ms.set(i, map[(int)_ms.get(i)]);
+    _naCnt = -1;                // Redo the rollups, the zeros changed
+  }
   public void addNA() {
     if(!_sparseNA) {
       if (isString()) {
@@ -0,0 +1,266 @@
+package water.network;
+
+import sun.misc.Unsafe;
+import water.nbhm.UtilUnsafe;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One-way channel between two JVMs running on the same host. The bytes are passed through a ring buffer
+ * in a memory-mapped file (typically in /dev/shm), an already established TCP connection is kept alongside
+ * and is used to negotiate the ring, to wake up an idle reader and as the back channel (the reader never writes
+ * data to the ring). When the socket is closed the channel is considered closed as well.
+ *
+ * The writer creates the ring and offers it to the reader over the socket ({@link #offer}), the reader maps
+ * the same file and confirms ({@link #accept}). The file is deleted as soon as both sides mapped it. If the reader
+ * is not able to map the file (eg. it doesn't share /dev/shm with the writer), both sides keep using the plain socket.
+ *
+ * Ring layout: writer position, reader position and reader-waiting flag (each on its own cache line),
+ * followed by the data. Positions are monotonic byte counters, the data size is a power of 2.
+ */
+public class SharedMemoryChannel implements ByteChannel {
+
+    public static final File DEFAULT_DIR = new File("/dev/shm");
+    public static final int DEFAULT_RING_SIZE = 4 << 20;
+
+    private static final Unsafe _unsafe = UtilUnsafe.getUnsafe();
+    private static final long ADDRESS_OFFSET;
+    static {
+        try {
+            ADDRESS_OFFSET = _unsafe.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final int WRITE_POS = 0;
+    private static final int READ_POS = 64;
+    private static final int WAITING = 128;
+    private static final int HEADER = 192;
+
+    private static final byte ACCEPTED = 1;
+    private static final byte REFUSED = 0;
+
+    // Busy-spin this many times before the reader falls asleep on the socket
+    private static final int SPINS = 1000;
+
+    // The writer waiting on a full ring gives up after this many ms without the reader making room
+    static volatile long STALL_TIMEOUT_MS = Long.getLong("sys.ai.h2o.rpc.shm.stall_timeout", 60000);
+    // ... and meanwhile rings the doorbell this often, the write fails once the reader's socket is gone
+    private static final long DOORBELL_INTERVAL_MS = 100;
+
+    private static final AtomicInteger RING_IDS = new AtomicInteger();
+
+    private final SocketChannel _sock;
+    private final MappedByteBuffer _ring; // Keeps the mapping alive
+    private final ByteBuffer _data;
+    private final long _base;
+    private final int _mask;
+    private final boolean _writer;
+    private final ByteBuffer _doorbell = ByteBuffer.allocate(1);
+    private long _pos; // Writer or reader position, only this side updates it
+    private long _lastDoorbell; // Writer only
+    private boolean _eof;
+
+    private SharedMemoryChannel(SocketChannel sock, MappedByteBuffer ring, boolean writer) {
+        _sock = sock;
+        _ring = ring;
+        _data = ring.duplicate();
+        _base = _unsafe.getLong(ring, ADDRESS_OFFSET);
+        _mask = ring.capacity() - HEADER - 1;
+        _writer = writer;
+        _pos = _unsafe.getLongVolatile(null, _base + (writer ? WRITE_POS : READ_POS));
+    }
+
+    /**
+     * Offers a new ring to the other end of a freshly opened socket.
+     * @param sock connected blocking socket, the other side is expected to call {@link #accept}
+     * @param dir directory of the ring file, should be a memory-backed file system
+     * @param name prefix of the name of the ring file
+     * @param ringSize data capacity of the ring, rounded up to a power of 2
+     * @return writing end of the ring, or null if the other side refused it - the socket can be then used directly
+     */
+    public static SharedMemoryChannel offer(SocketChannel sock, File dir, String name, int ringSize) throws IOException {
+        int size = Integer.highestOneBit(Math.max(ringSize - 1, 1) << 1);
+        File f = new File(dir, name + "-" + RING_IDS.incrementAndGet());
+        try {
+            MappedByteBuffer ring = map(f, HEADER + size);
+            byte[] fileName = f.getName().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer bb = ByteBuffer.allocate(2 + fileName.length).order(ByteOrder.nativeOrder());
+            bb.putShort((short) fileName.length).put(fileName).flip();
+            writeFully(sock, bb);
+            ByteBuffer answer = ByteBuffer.allocate(1);
+            readFully(sock, answer);
+            return answer.get(0) == ACCEPTED ? new SharedMemoryChannel(sock, ring, true) : null;
+        } finally {
+            if (!f.delete() && f.exists())
+                throw new IOException("Unable to delete ring file " + f);
+        }
+    }
+
+    /**
+     * Maps the ring offered by {@link #offer} on the other end of the socket.
+     * @return reading end of the ring, or null if the ring cannot be used (the writer is told to use the socket instead)
+     */
+    public static SharedMemoryChannel accept(SocketChannel sock, File dir) throws IOException {
+        ByteBuffer len = ByteBuffer.allocate(2).order(ByteOrder.nativeOrder());
+        readFully(sock, len);
+        ByteBuffer name = ByteBuffer.allocate(len.getShort(0));
+        readFully(sock, name);
+        String fileName = new String(name.array(), StandardCharsets.UTF_8);
+        SharedMemoryChannel chan = null;
+        File f = new File(dir, fileName);
+        if (!fileName.contains(File.separator) && f.isFile()) {
+            try {
+                chan = new SharedMemoryChannel(sock, map(f, f.length()), false);
+            } catch (IOException e) {
+                chan = null; // Not shared with the writer, fallback to the socket
+            }
+        }
+        writeFully(sock, ByteBuffer.wrap(new byte[]{chan != null ? ACCEPTED : REFUSED}));
+        return chan;
+    }
+
+    private static MappedByteBuffer map(File f, long size) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            if (raf.length() < size)
+                raf.setLength(size);
+            MappedByteBuffer mbb = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            mbb.order(ByteOrder.nativeOrder());
+            return mbb;
+        }
+    }
+
+    private static void writeFully(SocketChannel sock, ByteBuffer bb) throws IOException {
+        while (bb.hasRemaining())
+            sock.write(bb);
+    }
+
+    private static void readFully(SocketChannel sock, ByteBuffer bb) throws IOException {
+        while (bb.hasRemaining())
+            if (sock.read(bb) < 0)
+                throw new IOException("Connection closed while negotiating the shared memory ring");
+    }
+
+    /** Socket backing this channel, used by the reader to confirm having read a full message. */
+    public SocketChannel channel() {
+        return _sock;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return _sock.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        _sock.close();
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (!_writer) throw new IOException("Reading end of the shared memory channel cannot be written to");
+        int written = 0;
+        int idle = 0;
+        long stalledSince = 0;
+        while (src.hasRemaining()) {
+            if (!_sock.isOpen()) throw new IOException("Cannot write to a closed shared memory channel");
+            int free = (int) (_mask + 1 - (_pos - _unsafe.getLongVolatile(null, _base + READ_POS)));
+            if (free == 0) {    // Reader is behind, or gone
+                if (idle == 0) stalledSince = System.currentTimeMillis();
+                else if (idle >= 2 * SPINS) checkReader(stalledSince);
+                backoff(idle++);
+                continue;
+            }
+            idle = 0;
+            int off = (int) (_pos & _mask);
+            int len = Math.min(Math.min(free, src.remaining()), _mask + 1 - off);
+            int limit = src.limit();
+            src.limit(src.position() + len);
+            _data.clear();
+            _data.position(HEADER + off);
+            _data.put(src);
+            src.limit(limit);
+            _pos += len;
+            written += len;
+            _unsafe.putLongVolatile(null, _base + WRITE_POS, _pos);
+            // Wake up the reader if it fell asleep
+            if (_unsafe.getIntVolatile(null, _base + WAITING) == 1 && _unsafe.compareAndSwapInt(null, _base + WAITING, 1, 0)) {
+                _doorbell.clear();
+                writeFully(_sock, _doorbell);
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (_writer) throw new IOException("Writing end of the shared memory channel cannot be read from");
+        if (!dst.hasRemaining()) return 0;
+        int spins = 0;
+        while (true) {
+            int available = (int) (_unsafe.getLongVolatile(null, _base + WRITE_POS) - _pos);
+            if (available > 0) {
+                int off = (int) (_pos & _mask);
+                int len = Math.min(Math.min(available, dst.remaining()), _mask + 1 - off);
+                _data.clear();
+                _data.position(HEADER + off);
+                _data.limit(HEADER + off + len);
+                dst.put(_data);
+                _pos += len;
+                _unsafe.putLongVolatile(null, _base + READ_POS, _pos);
+                return len;
+            }
+            if (_eof) return -1;
+            if (spins++ < SPINS) continue;
+            // Fall asleep on the socket: the writer clears the flag and rings once it publishes new data
+            _unsafe.putIntVolatile(null, _base + WAITING, 1);
+            if (_unsafe.getLongVolatile(null, _base + WRITE_POS) != _pos) {
+                // Data came in, claim the flag back unless the writer already did so (and will ring)
+                if (!_unsafe.compareAndSwapInt(null, _base + WAITING, 1, 0))
+                    awaitDoorbell();
+            } else {
+                awaitDoorbell();
+            }
+        }
+    }
+
+    // The reader never writes to the ring, the socket tells whether it is still there: a doorbell written to a socket
+    // closed on the other side makes the next write fail.  A reader which is alive but stopped draining the ring is
+    // given up on after STALL_TIMEOUT_MS.
+    private void checkReader(long stalledSince) throws IOException {
+        long now = System.currentTimeMillis();
+        if (now - stalledSince > STALL_TIMEOUT_MS)
+            throw new IOException("Shared memory channel reader made no room in the ring for " + (now - stalledSince) + "ms");
+        if (now - _lastDoorbell >= DOORBELL_INTERVAL_MS) {
+            _lastDoorbell = now;
+            _doorbell.clear();
+            writeFully(_sock, _doorbell); // Spurious for a live reader, it just checks the ring again
+        }
+    }
+
+    private void awaitDoorbell() throws IOException {
+        _doorbell.clear();
+        if (_sock.read(_doorbell) < 0)
+            _eof = true; // Writer is gone, only drain what is left in the ring
+    }
+
+    private static void backoff(int idle) {
+        if (idle < SPINS) return;
+        if (idle < 2 * SPINS) Thread.yield();
+        else LockSupport.parkNanos(Math.min(idle - 2 * SPINS + 1, 1000) * 1000L);
+    }
+
+}
@@ -6,7 +6,7 @@ import java.nio.channels.SocketChannel;
 public class SocketChannelUtils {
 
     public static boolean isSocketChannel(Channel channel) {
-        return channel instanceof SocketChannel || channel instanceof SSLSocketChannel;
+        return channel instanceof SocketChannel || channel instanceof SSLSocketChannel || channel instanceof SharedMemoryChannel;
     }
 
     public static SocketChannel underlyingSocketChannel(Channel channel) {
@@ -14,6 +14,8 @@ public class SocketChannelUtils {
             return ((SSLSocketChannel) channel).channel();
         } else if(channel instanceof SocketChannel) {
             return (SocketChannel) channel;
+        } else if(channel instanceof SharedMemoryChannel) {
+            return ((SharedMemoryChannel) channel).channel();
         }
         throw new UnsupportedOperationException(
                 "Channel is not a socket channel. Cannot retrieve the underlying channel."
@@ -45,6 +45,21 @@ public final class Categorical extends Iced {
     if( m.size() > MAX_CATEGORICAL_COUNT) maxDomainExceeded = true;
     return newVal;
   }
+  /** Add key to this map, with ids without gaps: the dictionaries of {@link CategoricalDictionary}. */
+  int addKeyDense(BufferedString str) {
+    IcedHashMap<BufferedString, Integer> m = _map;
+    Integer res = m.get(str);
+    if( res != null ) return res;
+    synchronized (this) {         // A lost putIfAbsent race would leave a gap
+      res = m.get(str);
+      if( res != null ) return res;
+      assert str.length() < 65535;
+      int newVal = _id.incrementAndGet();
+      m.put(new BufferedString(str), newVal);
+      if( m.size() > MAX_CATEGORICAL_COUNT) maxDomainExceeded = true;
+      return newVal;
+    }
+  }
   final boolean containsKey(BufferedString key){ return _map.containsKey(key); }
   @Override public String toString() {
     return "{"+_map+" }";
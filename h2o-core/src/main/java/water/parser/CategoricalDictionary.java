@@ -0,0 +1,222 @@
+package water.parser;
+
+import water.*;
+import water.fvec.NewChunk;
+import water.nbhm.NonBlockingHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cluster-wide dictionaries of the categorical columns of a parse, to write the final categorical codes during the
+ * parse instead of rewriting every categorical chunk afterwards.
+ *
+ * <p>The dictionary of each column lives on the home node of a key made for the column, so the columns are spread
+ * over the cluster.  Strings get dense codes there, in the order they are first seen, instead of sorted codes.  Each
+ * parsed chunk keeps the node-local ids given by {@link Categorical} until it is closed; then the strings of the ids
+ * without a code yet are sent to the dictionary in one batch per column, the codes are cached on the node, and the
+ * ids of the chunk are replaced by the codes.</p>
+ *
+ * <p>Turned on with sys.ai.h2o.parse.categorical.dictionary, for the CSV columns of known categorical type.</p>
+ */
+final class CategoricalDictionary extends Iced<CategoricalDictionary> {
+
+  static boolean isEnabled() { return H2O.getSysBoolProperty("parse.categorical.dictionary", false); }
+
+  // Dictionaries homed on this node, by column key
+  private static final NonBlockingHashMap<Key, Categorical> DICTIONARIES = new NonBlockingHashMap<>();
+  // Codes of the node-local ids, by column key
+  private static final NonBlockingHashMap<Key, Codes> CODES = new NonBlockingHashMap<>();
+
+  private final Key[] _keys; // By parsed column, null for the columns without dictionary
+
+  CategoricalDictionary(boolean[] cols) {
+    Key parse = Key.make();
+    _keys = new Key[cols.length];
+    for (int i = 0; i < cols.length; i++)
+      if (cols[i]) _keys[i] = Key.make(parse + "_dict" + i);
+  }
+
+  boolean hasDictionary(int col) { return col < _keys.length && _keys[col] != null; }
+
+  /** Domains of the columns, in the order of their codes; null for the columns without dictionary */
+  @SuppressWarnings("unchecked")
+  String[][] domains() {
+    RPC<DomainTask>[] rpcs = new RPC[_keys.length];
+    for (int i = 0; i < _keys.length; i++)
+      if (_keys[i] != null) rpcs[i] = new RPC<>(_keys[i].home_node(), new DomainTask(_keys[i], i)).call();
+    String[][] domains = new String[_keys.length][];
+    for (int i = 0; i < _keys.length; i++)
+      if (rpcs[i] != null) domains[i] = rpcs[i].get()._domain;
+    return domains;
+  }
+
+  /** Removes the dictionaries and the cached codes from all nodes */
+  void remove() {
+    new RemoveTask(_keys).doAllNodes();
+  }
+
+  private static Categorical dictionary(Key k) {
+    Categorical dict = DICTIONARIES.get(k);
+    if (dict != null) return dict;
+    DICTIONARIES.putIfAbsent(k, new Categorical());
+    return DICTIONARIES.get(k);
+  }
+
+  private static Codes codes(Key k) {
+    Codes codes = CODES.get(k);
+    if (codes != null) return codes;
+    CODES.putIfAbsent(k, new Codes());
+    return CODES.get(k);
+  }
+
+  // Codes of the strings, added to the dictionary of the column if new; the dictionary is homed on this node
+  private static int[] encodeLocal(Key k, BufferedString[] strs) {
+    assert k.home();
+    Categorical dict = dictionary(k);
+    int[] codes = new int[strs.length];
+    for (int i = 0; i < strs.length; i++)
+      codes[i] = dict.addKeyDense(strs[i]) - 1;
+    return codes;
+  }
+
+  // --------------------------------------------------------------------------
+  // Node-local codes of the ids of a column, -1 if not known yet.  Only ever
+  // grows; writes are serialized so no code is lost to a concurrent copy.
+  private static final class Codes {
+    private volatile int[] _codes = new int[0];
+
+    int get(int id) {
+      int[] codes = _codes;
+      return id < codes.length ? codes[id] : -1;
+    }
+
+    int[] codes() { return _codes; }
+
+    synchronized void put(int[] ids, int[] codes) {
+      int[] cur = _codes;
+      int max = cur.length - 1;
+      for (int id : ids) max = Math.max(max, id);
+      if (max >= cur.length) {
+        int len = cur.length;
+        cur = Arrays.copyOf(cur, Math.max(max + 1, len << 1));
+        Arrays.fill(cur, len, cur.length, -1);
+      }
+      for (int i = 0; i < ids.length; i++) cur[ids[i]] = codes[i];
+      _codes = cur;
+    }
+  }
+
+  /** Ids of the chunk of a {@link FVecParseWriter} to be replaced by their codes when the chunk is closed */
+  final class Encoder {
+    private final Codes[] _codes = new Codes[_keys.length];
+    private final Map<Integer, BufferedString>[] _pending;
+
+    @SuppressWarnings("unchecked")
+    Encoder() {
+      _pending = new Map[_keys.length];
+    }
+
+    void add(int col, int id, BufferedString str) {
+      Codes codes = _codes[col];
+      if (codes == null) {
+        _codes[col] = codes = codes(_keys[col]);
+        _pending[col] = new HashMap<>();
+      }
+      if (codes.get(id) < 0 && !_pending[col].containsKey(id))
+        _pending[col].put(id, new BufferedString(str));
+    }
+
+    /** Replaces the ids of the chunks by their codes */
+    @SuppressWarnings("unchecked")
+    void encode(NewChunk[] nvs) {
+      // Send the strings of all columns to their dictionaries first, then wait for the codes
+      int[][] ids = new int[_codes.length][];
+      BufferedString[][] strs = new BufferedString[_codes.length][];
+      RPC<EncodeTask>[] rpcs = new RPC[_codes.length];
+      for (int col = 0; col < _codes.length; col++) {
+        Codes codes = _codes[col];
+        if (codes == null) continue;
+        Map<Integer, BufferedString> pending = _pending[col];
+        int n = 0;
+        ids[col] = new int[pending.size()];
+        strs[col] = new BufferedString[pending.size()];
+        for (Map.Entry<Integer, BufferedString> e : pending.entrySet()) {
+          if (codes.get(e.getKey()) >= 0) continue; // Encoded by another chunk meanwhile
+          ids[col][n] = e.getKey();
+          strs[col][n++] = e.getValue();
+        }
+        ids[col] = Arrays.copyOf(ids[col], n);
+        strs[col] = Arrays.copyOf(strs[col], n);
+        if (n > 0 && !_keys[col].home())
+          rpcs[col] = new RPC<>(_keys[col].home_node(), new EncodeTask(_keys[col], strs[col])).call();
+      }
+      for (int col = 0; col < _codes.length; col++) {
+        Codes codes = _codes[col];
+        if (codes == null) continue;
+        if (ids[col].length > 0)
+          codes.put(ids[col], rpcs[col] != null ? rpcs[col].get()._codes : encodeLocal(_keys[col], strs[col]));
+        nvs[col].mapCategoricals(codes.codes());
+      }
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  private static class EncodeTask extends DTask<EncodeTask> {
+    private final Key _key;
+    private BufferedString[] _strs;
+    private int[] _codes;
+
+    EncodeTask(Key key, BufferedString[] strs) {
+      super((byte)(Thread.currentThread() instanceof H2O.FJWThr ? currThrPriority()+1 : H2O.MIN_HI_PRIORITY - 2));
+      _key = key;
+      _strs = strs;
+    }
+
+    @Override public void compute2() {
+      _codes = encodeLocal(_key, _strs);
+      _strs = null;
+      tryComplete();
+    }
+  }
+
+  private static class DomainTask extends DTask<DomainTask> {
+    private final Key _key;
+    private final int _col;
+    private String[] _domain;
+
+    DomainTask(Key key, int col) {
+      super((byte)(Thread.currentThread() instanceof H2O.FJWThr ? currThrPriority()+1 : H2O.MIN_HI_PRIORITY - 2));
+      _key = key;
+      _col = col;
+    }
+
+    @Override public void compute2() {
+      Categorical dict = DICTIONARIES.get(_key);
+      if (dict == null) _domain = new String[0];
+      else {
+        dict.convertToUTF8(_col + 1);
+        _domain = new String[dict.size()];
+        for (Map.Entry<BufferedString, Integer> e : dict._map.entrySet())
+          _domain[e.getValue() - 1] = e.getKey().toString();
+      }
+      tryComplete();
+    }
+  }
+
+  private static class RemoveTask extends MRTask<RemoveTask> {
+    private final Key[] _keys;
+
+    RemoveTask(Key[] keys) { _keys = keys; }
+
+    @Override public void setupLocal() {
+      for (Key k : _keys)
+        if (k != null) {
+          DICTIONARIES.remove(k);
+          CODES.remove(k);
+        }
+    }
+  }
+
+}
@@ -0,0 +1,420 @@
+package water.parser;
+
+import water.H2O;
+import water.fvec.Vec;
+import water.util.ArrayUtils;
+import water.util.UnsafeUtils;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static water.parser.Parser.*;
+
+/**
+ * Two-pass parse of a CSV chunk, the fast path of {@link CsvParser#parseChunk}.
+ *
+ * <p>The first pass scans the chunk for structural characters (separators, line ends, quotes) eight bytes at a time,
+ * with bit tricks on longs, and records the end of every field in an index.  The second pass converts the fields
+ * column by column, with a direct path for plain integers and decimals.  Nothing is written to the parse writer
+ * before the whole chunk has been indexed.</p>
+ *
+ * <p>Only chunks that the state machine of {@link CsvParser} would parse the same way are handled: no quotes, no empty
+ * or comment lines, and every line with the number of columns of the setup.  For anything else {@link #parseChunk}
+ * returns false, and the chunk is left to the state machine.  Fields are converted as the state machine does,
+ * including currencies, percents, and forced column types.</p>
+ */
+final class CsvIndexedParser {
+
+  static final boolean ENABLED = H2O.getSysBoolProperty("parse.csv.indexed", true);
+
+  private static final boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+
+  private final ParseSetup _setup;
+  private final boolean[] _keepColumns;
+  private final byte[] _nonDataLineMarkers;
+  private final byte _sep;
+  private final int _ncols;
+
+  CsvIndexedParser(CsvParser parser, byte[] nonDataLineMarkers) {
+    _setup = parser._setup;
+    _keepColumns = parser._keepColumns;
+    _nonDataLineMarkers = nonDataLineMarkers;
+    _sep = parser.CHAR_SEPARATOR;
+    _ncols = _keepColumns == null ? 0 : _keepColumns.length;
+  }
+
+  /** Parses the chunk, false if it has to be parsed by the state machine instead; nothing is written then */
+  boolean parseChunk(int cidx, FVecParseReader din, FVecParseWriter dout) {
+    // Multiple spaces are a single separator, and Hive files have no quoting: both left to the state machine
+    if (_ncols < 2 || _sep == CHAR_SPACE || _sep == CsvParser.HIVE_SEP || _setup._parse_columns_indices == null)
+      return false;
+    byte[] bits = din.getChunkData(cidx);
+    if (bits == null) return false;
+    int start = firstLine(cidx, bits);
+    if (start < 0) return false;
+
+    // Pass 1: index the complete lines of the chunk, then the line finished in the next chunk
+    Scanner main = new Scanner(Math.max(16, (bits.length - start) / (_ncols * 4)));
+    if (!main.scan(bits, start, bits.length)) return false;
+    byte[] tail = Arrays.copyOfRange(bits, main._lineStart, bits.length);
+    byte[] next = din.getChunkData(cidx + 1);
+    if (next != null && next.length > 0) {
+      // The state machine parses the first line of the next chunk, unless it only ends a CRLF of this chunk
+      boolean endsCRLF = tail.length == 0 && main._prevCR && next[0] == CHAR_LF;
+      if (!endsCRLF) {
+        if (tail.length == 0 && isEOL(next[0])) return false; // Empty lines
+        int end = 0;
+        while (end < next.length && !isEOL(next[end])) end++;
+        tail = ArrayUtils.append(tail, Arrays.copyOf(next, end));
+      }
+    }
+    Scanner last = new Scanner(1);
+    if (tail.length > 0 && !(last.scan(tail, 0, tail.length) && last.endLine(tail, tail.length))) return false;
+
+    // Pass 2: convert the fields, column by column
+    convert(bits, main, dout);
+    convert(tail, last, dout);
+    dout.addLines(main._nlines + last._nlines);
+    return true;
+  }
+
+  // Start of the first line parsed by the state machine, as it skips the leading comments of the file, the header,
+  // or the end of the line started in the previous chunk; -1 if it is not in this chunk.
+  private int firstLine(int cidx, byte[] bits) {
+    int offset = 0;
+    if (cidx == 0) {
+      while (offset < bits.length && (ArrayUtils.contains(_nonDataLineMarkers, bits[offset]) || isEOL(bits[offset])))
+        offset = skipLine(bits, offset);
+    }
+    if (_setup._check_header == ParseSetup.HAS_HEADER || cidx > 0)
+      offset = skipLine(bits, offset);
+    return offset < bits.length ? offset : -1;
+  }
+
+  private static int skipLine(byte[] bits, int offset) {
+    while (offset < bits.length && !isEOL(bits[offset])) ++offset;
+    if (offset + 1 < bits.length && bits[offset] == CHAR_CR && bits[offset + 1] == CHAR_LF) ++offset;
+    return offset + 1;
+  }
+
+  // Bytes of a long equal to the byte b, as their high bit
+  private static long matches(long word, long b) {
+    long x = word ^ (b * ONES);
+    return ~(((x & LOW7) + LOW7) | x | LOW7);
+  }
+
+  // --------------------------------------------------------------------------
+  // Index of the lines of a region: the start of each line, and the position
+  // of the separator or line end after each of its fields.
+  private final class Scanner {
+    int _nlines;
+    int[] _starts;
+    int[] _ends;
+    int _nends;
+    int _lineStart;     // Start of the line being scanned
+    boolean _prevCR;    // Last line ended by a CR
+
+    Scanner(int lines) {
+      _starts = new int[lines];
+      _ends = new int[lines * _ncols];
+    }
+
+    /** Indexes the complete lines of buf[from, to), false if they cannot be parsed by the indexed parser */
+    boolean scan(byte[] buf, int from, int to) {
+      _lineStart = from;
+      long sep = _sep & 0xFF;
+      boolean singleQuotes = _setup._single_quotes;
+      int i = from;
+      for (; i + 8 <= to; i += 8) {
+        long word = UnsafeUtils.get8(buf, i);
+        if (BIG_ENDIAN) word = Long.reverseBytes(word);
+        long m = matches(word, sep) | matches(word, CHAR_LF) | matches(word, CHAR_CR) |
+                matches(word, CHAR_DOUBLE_QUOTE) | matches(word, 0);
+        if (singleQuotes) m |= matches(word, CHAR_SINGLE_QUOTE);
+        for (; m != 0; m &= m - 1)
+          if (!structural(buf, i + (Long.numberOfTrailingZeros(m) >>> 3))) return false;
+      }
+      for (; i < to; i++) {
+        byte c = buf[i];
+        if ((c == _sep || c == CHAR_LF || c == CHAR_CR || c == CHAR_DOUBLE_QUOTE || c == 0 ||
+                (singleQuotes && c == CHAR_SINGLE_QUOTE)) && !structural(buf, i)) return false;
+      }
+      return true;
+    }
+
+    private boolean structural(byte[] buf, int i) {
+      byte c = buf[i];
+      if (c == _sep) {
+        if (_nends - _nlines * _ncols >= _ncols - 1) return false; // Too many fields
+        addEnd(i);
+        return true;
+      }
+      if (c == CHAR_LF || c == CHAR_CR) {
+        if (i == _lineStart) {
+          if (c != CHAR_LF || !_prevCR) return false; // Empty line
+          _lineStart = i + 1;
+          _prevCR = false;
+          return true;
+        }
+        if (!endLine(buf, i)) return false;
+        _prevCR = c == CHAR_CR;
+        return true;
+      }
+      return false; // Quote or NUL
+    }
+
+    /** Ends the line at the line end i, false if the line cannot be parsed by the indexed parser */
+    boolean endLine(byte[] buf, int i) {
+      addEnd(i);
+      if (_nends != (_nlines + 1) * _ncols || ArrayUtils.contains(_nonDataLineMarkers, buf[_lineStart]))
+        return false;
+      if (_nlines == _starts.length) _starts = Arrays.copyOf(_starts, _nlines << 1);
+      _starts[_nlines++] = _lineStart;
+      _lineStart = i + 1;
+      return true;
+    }
+
+    private void addEnd(int i) {
+      if (_nends == _ends.length) _ends = Arrays.copyOf(_ends, _nends << 1);
+      _ends[_nends++] = i;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  private void convert(byte[] buf, Scanner idx, FVecParseWriter dout) {
+    if (idx._nlines == 0) return;
+    boolean forceable = dout._ctypes != null && _setup._column_types != null;
+    BufferedString str = new BufferedString();
+    for (int fc = 0, col = 0; fc < _ncols; fc++) {
+      if (!_keepColumns[fc]) continue;
+      byte type = forceable && fc < _setup._column_types.length ?
+              _setup._column_types[_setup._parse_columns_indices[col]] : Vec.T_BAD;
+      boolean forced = type == Vec.T_CAT || type == Vec.T_STR;
+      for (int l = 0; l < idx._nlines; l++) {
+        int end = idx._ends[l * _ncols + fc];
+        int from = fc == 0 ? idx._starts[l] : idx._ends[l * _ncols + fc - 1] + 1;
+        convertField(buf, from, end, col, forced, dout, str);
+      }
+      col++;
+    }
+  }
+
+  // Converts the unquoted field buf[from, to) of the column col, plain numbers directly
+  private void convertField(byte[] buf, int from, int to, int col, boolean forced, FVecParseWriter dout,
+                            BufferedString str) {
+    int i = from;
+    while (i < to && (buf[i] == CHAR_SPACE || (buf[i] == CHAR_TAB && _sep != CHAR_TAB))) i++;
+    if (i == to) {
+      dout.addInvalidCol(col);
+      return;
+    }
+    if (dout.isString(col)) {
+      addStr(buf, i, to, col, dout, str);
+      return;
+    }
+    if (!forced) { // [-+]?[0-9]*[.]?[0-9]* with 1 to 18 digits: no overflow
+      int j = i;
+      boolean neg = buf[j] == '-';
+      if (neg || buf[j] == '+') j++;
+      long number = 0;
+      int digits = 0, intDigits = -1;
+      for (; j < to; j++) {
+        int d = buf[j] - '0';
+        if (d >= 0 && d <= 9) {
+          number = number * 10 + d;
+          digits++;
+        } else if (buf[j] == '.' && intDigits < 0) intDigits = digits;
+        else break;
+      }
+      if (j == to && digits > 0 && digits <= 18) {
+        dout.addNumCol(col, neg ? -number : number, intDigits < 0 ? 0 : intDigits - digits);
+        return;
+      }
+    }
+    convertToken(buf, i, to, col, forced, dout, str);
+  }
+
+  // Any other token, following the states of the CsvParser state machine for an unquoted token
+  private void convertToken(byte[] buf, int from, int to, int col, boolean forced, FVecParseWriter dout,
+                            BufferedString str) {
+    byte state = TOKEN;
+    long number = 0;
+    int exp = 0, sgnExp = 1, fractionDigits = 0, tokenStart = from;
+    boolean decimal = false;
+    int i = from;
+    while (true) {
+      boolean end = i >= to; // At the separator or the line end
+      byte c = end ? CHAR_LF : buf[i];
+      boolean digit = !end && c >= '0' && c <= '9';
+      switch (state) {
+        case TOKEN:
+          if (dout.isString(col)) {
+            addStr(buf, i, to, col, dout, str);
+            return;
+          }
+          if (digit || c == '-' || c == '.' || c == '+') {
+            state = NUMBER;
+            number = 0;
+            fractionDigits = 0;
+            decimal = false;
+            tokenStart = i;
+            exp = c == '-' ? -1 : 1;
+            if (c == '-' || c == '+') i++;
+            continue;
+          }
+          if (c == '$') {
+            state = POSSIBLE_CURRENCY;
+            i++;
+            continue;
+          }
+          addStr(buf, i, to, col, dout, str);
+          return;
+        case POSSIBLE_CURRENCY:
+          if (digit || c == '-' || c == '.' || c == '+') {
+            state = TOKEN;
+            continue;
+          }
+          addStr(buf, i - 1, to, col, dout, str);
+          return;
+        case NUMBER:
+          if (digit) {
+            if (number >= LARGEST_DIGIT_NUMBER) state = NUMBER_SKIP;
+            else number = (number * 10) + (c - '0');
+            i++;
+            continue;
+          } else if (c == '.') {
+            state = NUMBER_FRACTION;
+            fractionDigits = i;
+            decimal = true;
+            i++;
+            continue;
+          } else if (c == 'e' || c == 'E') {
+            state = NUMBER_EXP_START;
+            sgnExp = 1;
+            i++;
+            continue;
+          }
+          if (exp == -1) number = -number;
+          exp = 0;
+          state = NUMBER_END;
+          continue;
+        case NUMBER_SKIP:
+          if (digit) {
+            exp++;
+            i++;
+            continue;
+          } else if (c == '.') {
+            state = NUMBER_SKIP_NO_DOT;
+            i++;
+            continue;
+          } else if (c == 'e' || c == 'E') {
+            state = NUMBER_EXP_START;
+            sgnExp = 1;
+            i++;
+            continue;
+          }
+          state = NUMBER_END;
+          continue;
+        case NUMBER_SKIP_NO_DOT:
+          if (digit) {
+            i++;
+            continue;
+          } else if (c == 'e' || c == 'E') {
+            state = NUMBER_EXP_START;
+            sgnExp = 1;
+            i++;
+            continue;
+          }
+          state = NUMBER_END;
+          continue;
+        case NUMBER_FRACTION:
+          if (digit) {
+            if (number >= LARGEST_DIGIT_NUMBER) {
+              if (decimal) fractionDigits = i - 1 - fractionDigits;
+              if (exp == -1) number = -number;
+              exp = 0;
+              state = NUMBER_SKIP_NO_DOT;
+            } else {
+              number = (number * 10) + (c - '0');
+            }
+            i++;
+            continue;
+          } else if (c == 'e' || c == 'E') {
+            if (decimal) fractionDigits = i - 1 - fractionDigits;
+            state = NUMBER_EXP_START;
+            sgnExp = 1;
+            i++;
+            continue;
+          }
+          state = NUMBER_END;
+          if (decimal) fractionDigits = i - fractionDigits - 1;
+          if (exp == -1) number = -number;
+          exp = 0;
+          continue;
+        case NUMBER_EXP_START:
+          if (exp == -1) number = -number;
+          exp = 0;
+          if (c == '-') {
+            sgnExp *= -1;
+            i++;
+            continue;
+          } else if (c == '+') {
+            i++;
+            continue;
+          }
+          if (!digit) {
+            addStr(buf, tokenStart, to, col, dout, str);
+            return;
+          }
+          state = NUMBER_EXP;
+          continue;
+        case NUMBER_EXP:
+          if (digit) {
+            exp = (exp * 10) + (c - '0');
+            i++;
+            continue;
+          }
+          exp *= sgnExp;
+          state = NUMBER_END;
+          continue;
+        case NUMBER_END:
+          if (forced) {
+            addStr(buf, tokenStart, to, col, dout, str);
+            return;
+          }
+          if (end) {
+            dout.addNumCol(col, number, exp - fractionDigits);
+            return;
+          } else if (c == '%') {
+            exp -= 2;
+            i++;
+            continue;
+          } else if (c == CHAR_SPACE || c == CHAR_TAB) {
+            i++;
+            continue;
+          }
+          addStr(buf, tokenStart, to, col, dout, str);
+          return;
+        default:
+          throw new IllegalStateException("Unexpected state " + state);
+      }
+    }
+  }
+
+  private void addStr(byte[] buf, int from, int to, int col, FVecParseWriter dout, BufferedString str) {
+    str.set(buf, from, to - from);
+    if (_setup.isNA(col, str)) {
+      dout.addInvalidCol(col);
+      return;
+    }
+    dout.addStrCol(col, str);
+    for (int i = from; i < to; i++)
+      if (buf[i] < 0) { // Beyond standard ASCII
+        dout.setIsAllASCII(col, false);
+        break;
+      }
+  }
+
+}
@@ -34,6 +34,10 @@ public class CsvParser extends Parser {
   // Parse this one Chunk (in parallel with other Chunks)
   @SuppressWarnings("fallthrough")
   @Override public ParseWriter parseChunk(int cidx, final ParseReader din, final ParseWriter dout) {
+    // Chunks with no quotes and regular lines are indexed and converted column by column
+    if (CsvIndexedParser.ENABLED && din instanceof FVecParseReader && dout.getClass() == FVecParseWriter.class &&
+        new CsvIndexedParser(this, _nonDataLineMarkers).parseChunk(cidx, (FVecParseReader) din, (FVecParseWriter) dout))
+      return dout;
     CharSkippingBufferedString str = new CharSkippingBufferedString();
     byte[] bits = din.getChunkData(cidx);
     if( bits == null ) return dout;
@@ -21,7 +21,8 @@ public class FVecParseReader implements ParseReader {
   }
   @Override public byte[] getChunkData(int cidx) {
     if(cidx != _idx)
-      _chk = cidx < _vec.nChunks()?_vec.chunkForChunkIdx(_idx = cidx):null;
+      _chk = cidx < _vec.nChunks()?_vec.chunkForChunkIdx(cidx):null;
+    _idx = cidx; // Also past the last chunk, so that going back reloads the chunk
     if(_chk == null)
       return null;
     _goffset = _chk.start();
@@ -29,6 +29,8 @@ public class FVecParseWriter extends Iced implements StreamParseWriter {
 
   private long _errCnt;
   int[] _parse_columns_indices;
+  CategoricalDictionary _dictionary; // Global codes for some categorical columns, null if none
+  private transient CategoricalDictionary.Encoder _encoder;
 
   public FVecParseWriter(Vec.VectorGroup vg, int cidx, Categorical[] categoricals, byte[] ctypes, int chunkSize,
                          AppendableVec[] avs) {
@@ -116,6 +118,7 @@ public class FVecParseWriter extends Iced implements StreamParseWriter {
   }
   @Override public FVecParseWriter close(Futures fs){
     if( _nvs == null ) return this; // Might call close twice
+    if( _encoder != null ) _encoder.encode(_nvs); // Global categorical codes, before the chunks are compressed
     long mem = 0;
     for(int i=0; i < _nvs.length; i++) {
       _nvs[i].close(_cidx, fs);
@@ -127,7 +130,9 @@ public class FVecParseWriter extends Iced implements StreamParseWriter {
     return this;
   }
   @Override public FVecParseWriter nextChunk(){
-    return new FVecParseWriter(_vg, _cidx+1, _categoricals, _ctypes, _chunkSize, _vecs, _parse_columns_indices, _jobKey);
+    FVecParseWriter next = new FVecParseWriter(_vg, _cidx+1, _categoricals, _ctypes, _chunkSize, _vecs, _parse_columns_indices, _jobKey);
+    next._dictionary = _dictionary;
+    return next;
   }
 
   @Override public void newLine() {
@@ -138,6 +143,11 @@ public class FVecParseWriter extends Iced implements StreamParseWriter {
     }
     _col = -1;
   }
+  /** Ends n complete lines written column by column, by parsers decoding a column at a time (eg. {@link CsvIndexedParser}) */
+  public void addLines(int n) {
+    _nLines += n;
+    _col = -1;
+  }
   @Override public void addNumCol(int colIdx, long number, int exp) {
     if( colIdx < _nCols ) {
       _nvs[_col = colIdx].addNum(number, exp);
@@ -183,6 +193,10 @@ public class FVecParseWriter extends Iced implements StreamParseWriter {
       } else { // categoricals
         if(!_categoricals[colIdx].isMapFull()) {
           int id = _categoricals[_col = colIdx].addKey(str);
+          if (_dictionary != null && _dictionary.hasDictionary(colIdx)) {
+            if (_encoder == null) _encoder = _dictionary.new Encoder();
+            _encoder.add(colIdx, id, str);
+          }
           if (_ctypes[colIdx] == Vec.T_BAD && id > 1) _ctypes[colIdx] = Vec.T_CAT;
           if(_ctypes[colIdx] == Vec.T_CAT) {
             _nvs[colIdx].addNum(id, 0); // if we are sure we have a categorical column, we can only store the integer (more efficient than remembering this value was categorical)
@@ -21,6 +21,7 @@ import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
+import static water.parser.DefaultParserProviders.CSV_INFO;
 import static water.parser.DefaultParserProviders.SVMLight_INFO;
 
 public final class ParseDataset {
@@ -58,6 +59,168 @@ public final class ParseDataset {
     return pds;
   }
 
+  /**
+   * Parses the files and appends their rows to an existing Frame, instead of parsing everything again or
+   * rbind-ing a new Frame (which copies every chunk of both).
+   *
+   * <p>The files are parsed with the column types of the Frame.  New categorical levels are added after the
+   * existing ones, so the codes and the chunks of the existing rows stay as they are; only the new chunks are
+   * remapped to the extended domains.  The new chunks are then moved to the Vecs of the Frame, after their
+   * existing chunks, and the Vecs get the extended row layout.  Every Frame sharing these Vecs sees the new rows, so
+   * the append is rejected when another Frame holds some of these Vecs next to Vecs of its own, which would be left
+   * with columns of different lengths.</p>
+   *
+   * @param dest  key of the Frame to append to
+   * @param keys  input keys
+   * @param deleteOnDone  delete input data when finished
+   * @param setup  parser setup of the new files; column names and types are taken from the Frame, the setup itself
+   *               is left unchanged
+   * @return the Frame with the appended rows
+   */
+  public static Frame append(Key<Frame> dest, Key[] keys, boolean deleteOnDone, ParseSetup setup) {
+    Frame fr = DKV.getGet(dest);
+    if( fr == null )
+      throw new H2OIllegalArgumentException("Missing data", "Did not find any frame under key " + dest);
+    Vec[] vecs = fr.vecs();
+    for( Vec v : vecs )
+      if( v.getClass() != Vec.class )
+        throw new H2OIllegalArgumentException("Cannot append to frame " + dest + ", its vecs are not plain vecs");
+    int[] cols = new int[setup.getNumberColumns()]; // Frame column of each parsed column, -1 for skipped columns
+    Arrays.fill(cols, -1);
+    int ncols = 0;
+    for( int i = 0; i < cols.length; i++ )
+      if( setup._skipped_columns == null || ArrayUtils.find(setup._skipped_columns, i) < 0 )
+        cols[i] = ncols++;
+    if( ncols != fr.numCols() )
+      throw new H2OIllegalArgumentException("Cannot append " + ncols + " parsed columns to frame " + dest + " of " + fr.numCols() + " columns");
+    checkNotPartiallyShared(fr);
+    String[] names = new String[cols.length];
+    byte[] types = setup._column_types == null ? new byte[cols.length] : setup._column_types.clone();
+    for( int i = 0; i < cols.length; i++ ) {
+      if( cols[i] < 0 ) { names[i] = "C" + (i + 1); continue; }
+      names[i] = fr.name(cols[i]);
+      types[i] = vecs[cols[i]].get_type(); // T_BAD, for an all-NA column, lets the parser guess
+    }
+    setup = (ParseSetup) setup.clone();
+    setup._column_names = names;
+    setup._column_types = types;
+
+    fr.write_lock();
+    Frame parsed = null;
+    try {
+      parsed = parse(Key.<Frame>make(), keys, deleteOnDone, setup);
+      appendFrame(fr, parsed);
+      return fr.update();
+    } finally {
+      fr.unlock();
+      if( parsed != null ) parsed.delete();
+    }
+  }
+
+  // The Vecs of the Frame get longer, so another Frame may share them only if it holds no other Vec
+  private static void checkNotPartiallyShared(Frame fr) {
+    Set<Key<Vec>> vecs = new HashSet<>(Arrays.asList(fr.keys()));
+    for( Key k : KeySnapshot.globalKeysOfClass(Frame.class) ) {
+      if( k.equals(fr._key) ) continue;
+      Frame other = DKV.getGet(k);
+      if( other == null ) continue;
+      boolean shares = false, owns = false;
+      for( Key<Vec> v : other.keys() ) {
+        if( vecs.contains(v) ) shares = true;
+        else owns = true;
+      }
+      if( shares && owns )
+        throw new H2OIllegalArgumentException("Cannot append to frame " + fr._key + ", frame " + k + " shares some of its vecs");
+    }
+  }
+
+  // Moves the chunks of the parsed Frame after the chunks of the Vecs of the Frame
+  private static void appendFrame(Frame fr, Frame parsed) {
+    Vec[] vecs = fr.vecs(), src = parsed.vecs();
+    String[][] domains = new String[vecs.length][];
+    byte[] types = new byte[vecs.length];
+    int[][] cmaps = new int[vecs.length][];
+    for( int i = 0; i < vecs.length; i++ ) {
+      Vec v = vecs[i], s = src[i];
+      domains[i] = v.domain();
+      types[i] = v.get_type();
+      if( v.isBad() ) {          // The existing rows are all NA, so any numeric type fits them
+        if( s.isString() || s.isUUID() )
+          throw new H2OIllegalArgumentException("Cannot append " + s.get_type_str() + " data to the all-NA column " + fr.name(i));
+        domains[i] = s.domain();
+        types[i] = s.get_type();
+      } else if( v.isCategorical() && s.isCategorical() ) {
+        HashMap<String, Integer> codes = new HashMap<>();
+        for( int j = 0; j < domains[i].length; j++ ) codes.put(domains[i][j], j);
+        String[] sdom = s.domain();
+        int[] cmap = new int[sdom.length];
+        boolean identity = true;
+        ArrayList<String> domain = new ArrayList<>(Arrays.asList(domains[i]));
+        for( int j = 0; j < sdom.length; j++ ) {
+          Integer code = codes.get(sdom[j]);
+          if( code == null ) {
+            code = domain.size();
+            domain.add(sdom[j]);
+          }
+          cmap[j] = code;
+          identity &= code == j;
+        }
+        if( domain.size() > Categorical.MAX_CATEGORICAL_COUNT )
+          throw new H2OParseException("Exceeded categorical limit on column #" + (i + 1) + " (using 1-based indexing) when appending to frame " + fr._key);
+        domains[i] = domain.toArray(new String[domain.size()]);
+        if( !identity ) cmaps[i] = cmap; // Otherwise the parsed chunks already hold the final codes
+      } else if( !s.isBad() && s.get_type() != v.get_type() )
+        throw new H2OIllegalArgumentException("Cannot append " + s.get_type_str() + " data to the " + v.get_type_str() + " column " + fr.name(i));
+    }
+
+    long[] espc = vecs[0].espc(), sespc = src[0].espc();
+    int nchunks = espc.length - 1;
+    long[] nespc = Arrays.copyOf(espc, nchunks + sespc.length);
+    for( int j = 1; j < sespc.length; j++ ) nespc[nchunks + j] = espc[nchunks] + sespc[j];
+    Vec[] nvecs = new Vec[vecs.length];
+    for( int i = 0; i < vecs.length; i++ ) {
+      vecs[i].preWriting();
+      nvecs[i] = new Vec(vecs[i]._key, Vec.ESPC.rowLayout(vecs[i]._key, nespc), domains[i], types[i]);
+    }
+    new AppendChunksTask(nvecs, cmaps, nchunks).doAll(parsed);
+    Futures fs = new Futures();
+    for( Vec v : nvecs ) {
+      DKV.put(v, fs);
+      v.postWrite(fs);
+    }
+    fs.blockForPending();
+    fr.reloadVecs();
+  }
+
+  // Copies the chunks of the parsed Frame, with categorical codes remapped, after the existing chunks
+  private static class AppendChunksTask extends MRTask<AppendChunksTask> {
+    private final Vec[] _vecs;
+    private final int[][] _cmaps;
+    private final int _chunkOffset;
+
+    AppendChunksTask(Vec[] vecs, int[][] cmaps, int chunkOffset) {
+      _vecs = vecs;
+      _cmaps = cmaps;
+      _chunkOffset = chunkOffset;
+    }
+
+    @Override public void map(Chunk[] cs) {
+      int cidx = _chunkOffset + cs[0].cidx();
+      for( int i = 0; i < cs.length; i++ ) {
+        int[] cmap = _cmaps[i];
+        if( cmap == null ) {
+          DKV.put(_vecs[i].chunkKey(cidx), cs[i].deepCopy(), _fs, true);
+          continue;
+        }
+        NewChunk nc = new NewChunk(_vecs[i], cidx);
+        for( int r = 0; r < cs[i]._len; r++ )
+          if( cs[i].isNA(r) ) nc.addNA();
+          else nc.addNum(cmap[(int) cs[i].at8(r)], 0);
+        nc.close(_fs);
+      }
+    }
+  }
+
   // Allow both ByteVec keys and Frame-of-1-ByteVec
   static ByteVec getByteVec(Key key) {
     Iced ice = DKV.getGet(key);
@@ -250,8 +413,15 @@ public final class ParseDataset {
 
     job.update(0, "Ingesting files.");
     VectorGroup vg = getByteVec(fkeys[0]).group();
-    MultiFileParseTask mfpt = pds._mfpt = new MultiFileParseTask(vg,setup,job._key,fkeys,deleteOnDone);
-    mfpt.doAll(fkeys);
+    CategoricalDictionary dictionary = categoricalDictionary(setup);
+    MultiFileParseTask mfpt = pds._mfpt = new MultiFileParseTask(vg,setup,job._key,fkeys,deleteOnDone,dictionary);
+    String[][] dictDomains = null; // Domains of the columns encoded with global codes during the parse
+    try {
+      mfpt.doAll(fkeys);
+      if( dictionary != null && !job.stop_requested() ) dictDomains = dictionary.domains();
+    } finally {
+      if( dictionary != null ) dictionary.remove();
+    }
     Log.trace("Done ingesting files.");
     
     if( job.stop_requested() ) return pds;
@@ -293,7 +463,15 @@ public final class ParseDataset {
 
     int[] ecols2 = new int[parseCols];
     for (int i = 0; i < parseCols; i++) {
-      if (avs[i].get_type() == Vec.T_CAT) // Intended type is categorical (even though no domain has been set)?
+      if (avs[i].get_type() != Vec.T_CAT) continue; // Intended type is categorical (even though no domain has been set)?
+      if (dictDomains != null && dictDomains[i] != null) { // Final codes written already, no need to unify
+        if (dictDomains[i].length >= Categorical.MAX_CATEGORICAL_COUNT)
+          throw new H2OParseException("Exceeded categorical limit on columns ["+ setup._column_names[i] +"].   " +
+                  "Consider reparsing these columns as a string or skip parsing the offending columns by setting" +
+                  " the skipped_columns list in Python/R/Java APIs.");
+        if (dictDomains[i].length == 0) avs[i].setBad(); // The all-NA column
+        else avs[i].setDomain(dictDomains[i]);
+      } else
         ecols2[n++] = i;
     }
     final int[] ecols = Arrays.copyOf(ecols2, n); // skipped columns are excluded already
@@ -417,6 +595,20 @@ public final class ParseDataset {
       }
     return pds;
   }
+  // Cluster-wide dictionaries for the CSV columns known to be categorical, null if not enabled
+  private static CategoricalDictionary categoricalDictionary(ParseSetup setup) {
+    if( !CategoricalDictionary.isEnabled() || !setup._parse_type.equals(CSV_INFO) || setup._column_types == null )
+      return null;
+    int[] parseCols = setup._parse_columns_indices;
+    boolean[] cols = new boolean[parseCols.length];
+    boolean any = false;
+    for( int i = 0; i < cols.length; i++ ) {
+      byte type = setup._column_types.length == parseCols.length ? setup._column_types[i] : setup._column_types[parseCols[i]];
+      any |= cols[i] = type == Vec.T_CAT;
+    }
+    return any ? new CategoricalDictionary(cols) : null;
+  }
+
   private static class CreateParse2GlobalCategoricalMaps extends DTask<CreateParse2GlobalCategoricalMaps> {
     private final Key   _parseCatMapsKey;
     private final Key   _frKey;
@@ -637,6 +829,8 @@ public final class ParseDataset {
     private int[] _chunk2ParseNodeMap;
     // Job Key, to unlock & remove raw parsed data; to report progress
     private final Key<Job> _jobKey;
+    // Global codes for the categorical columns, null if the codes are unified after the parse
+    private final CategoricalDictionary _dictionary;
     // A mapping of Key+ByteVec to rolling total Chunk counts.
     private final int[]  _fileChunkOffsets;
 
@@ -646,8 +840,10 @@ public final class ParseDataset {
     int _reservedKeys;
     private ParseWriter.ParseErr[] _errors = new ParseWriter.ParseErr[0];
 
-    MultiFileParseTask(VectorGroup vg,  ParseSetup setup, Key<Job> jobKey, Key[] fkeys, boolean deleteOnDone ) {
+    MultiFileParseTask(VectorGroup vg,  ParseSetup setup, Key<Job> jobKey, Key[] fkeys, boolean deleteOnDone,
+                       CategoricalDictionary dictionary) {
       _vg = vg; 
+      _dictionary = dictionary;
       _parseSetup = setup;
       _vecIdStart = _vg.reserveKeys(_reservedKeys = _parseSetup._parse_type.equals(SVMLight_INFO) ? 100000000 : setup._number_columns);
       _deleteOnDone = deleteOnDone;
@@ -757,11 +953,13 @@ public final class ParseDataset {
       for(int i = 0; i < avs.length; ++i)
         avs[i] = new AppendableVec(_vg.vecKey(i + _vecIdStart), espc, ctypes==null ? /*SVMLight*/Vec.T_NUM :
                 ctypes[i], chunkOff);
-      return localSetup._parse_type.equals(SVMLight_INFO)
-        ? new SVMLightFVecParseWriter(_vg, _vecIdStart,chunkOff, _parseSetup._chunk_size, avs,
-              _parseSetup._parse_columns_indices, _jobKey)
-        : new FVecParseWriter(_vg, chunkOff, categoricals(_cKey, localSetup._number_columns),
+      if( localSetup._parse_type.equals(SVMLight_INFO) )
+        return new SVMLightFVecParseWriter(_vg, _vecIdStart,chunkOff, _parseSetup._chunk_size, avs,
+              _parseSetup._parse_columns_indices, _jobKey);
+      FVecParseWriter dout = new FVecParseWriter(_vg, chunkOff, categoricals(_cKey, localSetup._number_columns),
               localSetup._column_types, _parseSetup._chunk_size, avs, _parseSetup._parse_columns_indices, _jobKey);
+      dout._dictionary = _dictionary;
+      return dout;
     }
 
     // Called once per file
@@ -902,6 +1100,7 @@ public final class ParseDataset {
       private final VectorGroup _vg;
       private FVecParseWriter _dout;
       private final Key _cKey;  // Parse-local-categoricals key
+      private final CategoricalDictionary _dictionary;
       private final Key<Job> _jobKey;
       private transient final MultiFileParseTask _outerMFPT;
       private transient final Key _srckey; // Source/text file to delete on done
@@ -917,6 +1116,7 @@ public final class ParseDataset {
         _startChunkIdx = startChunkIdx;
         _outerMFPT = mfpt;
         _cKey = mfpt._cKey;
+        _dictionary = mfpt._dictionary;
         _jobKey = mfpt._jobKey;
         _srckey = srckey;
         _nchunks = nchunks;
@@ -949,9 +1149,11 @@ public final class ParseDataset {
         case "ARFF":
         case "CSV":
         case "PARQUET":
+        case "ARROW":
           Categorical [] categoricals = categoricals(_cKey, _setup._number_columns);
           dout = new FVecParseWriter(_vg,_startChunkIdx + in.cidx(), categoricals, _setup._column_types,
                   _setup._chunk_size, avs, _setup._parse_columns_indices, _jobKey); //TODO: use _setup._domains instead of categoricals
+          dout._dictionary = _dictionary;
           break;
         case "SVMLight":
           dout = new SVMLightFVecParseWriter(_vg, _vecIdStart, in.cidx() + _startChunkIdx, _setup._chunk_size,
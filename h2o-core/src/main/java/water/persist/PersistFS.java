@@ -7,12 +7,17 @@ import java.util.ArrayList;
 import water.*;
 import water.api.FSIOException;
 import water.fvec.NFSFileVec;
+import water.util.LZBlockCodec;
 import water.util.Log;
 
 /**
  * Persistence backend using local file system.
  */
 public final class PersistFS extends Persist {
+  // Write spilled Values as LZ-compressed blocks; see LZBlockCodec
+  static final boolean COMPRESS_SPILL = H2O.getSysBoolProperty("persist.ice.compress", false);
+  private static final String COMPRESSED_SUFFIX = ".lz";
+
   final File _root;
   final File _dir;
 
@@ -46,7 +51,20 @@ public final class PersistFS extends Persist {
     return new File(_dir, getIceName(v));
   }
 
+  private File getCompressedFile(Value v) {
+    return new File(_dir, getIceName(v) + COMPRESSED_SUFFIX);
+  }
+
   @Override public byte[] load(Value v) throws IOException {
+    File cf = getCompressedFile(v);
+    if( cf.exists() ) {
+      try (FileInputStream s = new FileInputStream(cf)) {
+        AutoBuffer ab = new AutoBuffer(s.getChannel(), true, Value.ICE);
+        byte[] c = ab.getA1((int) cf.length());
+        ab.close();
+        return LZBlockCodec.decompress(c, v._max);
+      }
+    }
     File f = getFile(v);
     if( f.length() < v._max ) { // Should be fully on disk...
       // or it's a racey delete of a spilled value
@@ -67,12 +85,20 @@ public final class PersistFS extends Persist {
     File dirs = new File(_dir, getIceDirectory(v._key));
     if( !dirs.mkdirs() && !dirs.exists() )
       throw new java.io.IOException("mkdirs failed making "+dirs);
-    try(FileOutputStream s = new FileOutputStream(getFile(v))) {
-        byte[] m = v.memOrLoad(); // we are not single threaded anymore
-        if( m != null && m.length != v._max ) {
-          Log.warn("Value size mismatch? " + v._key + " byte[].len=" + m.length+" v._max="+v._max);
-          v._max = m.length; // Implies update of underlying POJO, then re-serializing it without K/V storing it
-        }
+    byte[] m = v.memOrLoad(); // we are not single threaded anymore
+    if( m != null && m.length != v._max ) {
+      Log.warn("Value size mismatch? " + v._key + " byte[].len=" + m.length+" v._max="+v._max);
+      v._max = m.length; // Implies update of underlying POJO, then re-serializing it without K/V storing it
+    }
+    File f = getFile(v);
+    if( COMPRESS_SPILL ) {
+      byte[] c = LZBlockCodec.compress(m);
+      if( c.length < m.length ) { // Only keep the compressed form if it is smaller
+        m = c;
+        f = getCompressedFile(v);
+      }
+    }
+    try(FileOutputStream s = new FileOutputStream(f)) {
         new AutoBuffer(s.getChannel(), false, Value.ICE).putA1(m, m.length).close();
       } catch( AutoBuffer.AutoBufferException abe ) {
       throw abe._ioe;
@@ -86,6 +112,7 @@ public final class PersistFS extends Persist {
 
   @Override public void delete(Value v) {
     getFile(v).delete();        // Silently ignore errors
+    getCompressedFile(v).delete();
     // Attempt to delete empty containing directory
     new File(_dir, getIceDirectory(v._key)).delete();
   }
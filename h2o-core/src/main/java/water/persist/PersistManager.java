@@ -136,6 +136,11 @@ public class PersistManager {
 //      }
     }
 
+    long offHeapMax = Long.parseLong(H2O.getSysProperty("persist.ice.offheap.maxBytes", "0"));
+    if (offHeapMax > 0 && ice != null) {
+      ice = new PersistOffHeap(offHeapMax, ice);
+    }
+
     I[Value.ICE] = ice;
     I[Value.NFS] = new PersistNFS();
 
@@ -2,7 +2,9 @@ package water.persist;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 
 import water.*;
@@ -18,6 +20,9 @@ import water.util.Log;
 // @author cliffc
 public final class PersistNFS extends Persist {
 
+  // Read file chunks with one positional read instead of buffered channel reads
+  static final boolean POSITIONAL_READ = H2O.getSysBoolProperty("persist.nfs.positionalRead", false);
+
   static final String KEY_PREFIX = "nfs:" + File.separator;
   static final int KEY_PREFIX_LENGTH = KEY_PREFIX.length();
 
@@ -54,6 +59,7 @@ public final class PersistNFS extends Persist {
     Key k = v._key;
     long skip = k.isChunkKey() ? water.fvec.NFSFileVec.chunkOffset(k) : 0;
     try {
+      if (POSITIONAL_READ) return loadRange(getFileForKey(k), skip, v._max);
       FileInputStream s = null;
       try {
         s = new FileInputStream(getFileForKey(k));
@@ -72,6 +78,22 @@ public final class PersistNFS extends Persist {
     }
   }
 
+  /**
+   * Read a section of a file straight into the returned array, with positional
+   * reads that neither map the file nor go through AutoBuffer's buffers.
+   */
+  static byte[] loadRange(File f, long skip, int len) throws IOException {
+    try (FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+      byte[] b = new byte[len];
+      ByteBuffer bb = ByteBuffer.wrap(b);
+      while (bb.hasRemaining()) {
+        if (fc.read(bb, skip + bb.position()) < 0)
+          throw new EOFException("File " + f + " is shorter than expected: " + fc.size() + " < " + (skip + len));
+      }
+      return b;
+    }
+  }
+
   @Override
   public void store(Value v) {
     // Only the home node does persistence on NFS
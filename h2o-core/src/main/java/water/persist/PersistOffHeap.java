@@ -0,0 +1,149 @@
+package water.persist;
+
+import sun.misc.Unsafe;
+import water.Key;
+import water.Value;
+import water.nbhm.NonBlockingHashMap;
+import water.nbhm.UtilUnsafe;
+import water.util.Log;
+import water.util.PrettyPrint;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * User-mode swap into off-heap memory.
+ *
+ * Replaces the ice_root backend when {@code sys.ai.h2o.persist.ice.offheap.maxBytes}
+ * is set.  Swapped-out Values are copied into {@code Unsafe}-allocated native
+ * segments, so the Cleaner can drop the Java heap copy without paying for disk
+ * i/o on swap-in.  The off-heap space is accounted exactly; once it is
+ * exhausted, Values are handed to the wrapped file-system backend instead.
+ */
+public final class PersistOffHeap extends Persist {
+  private static final Unsafe _unsafe = UtilUnsafe.getUnsafe();
+  private static final long _Bbase = _unsafe.arrayBaseOffset(byte[].class);
+
+  private final long _maxBytes;
+  private final AtomicLong _usedBytes = new AtomicLong();
+  private final NonBlockingHashMap<Key, Segment> _segments = new NonBlockingHashMap<>();
+  private final Persist _overflow; // Where Values go once we run out of off-heap space
+
+  PersistOffHeap(long maxBytes, Persist overflow) {
+    _maxBytes = maxBytes;
+    _overflow = overflow;
+    Log.info("Swapping to off-heap memory, up to " + PrettyPrint.bytes(maxBytes));
+  }
+
+  /** Native memory currently held by swapped-out Values. */
+  public long usedBytes() { return _usedBytes.get(); }
+
+  /** Off-heap capacity, in bytes */
+  public long maxBytes() { return _maxBytes; }
+
+  /** One native allocation holding a single Value.  Reads and the final free
+   *  are serialized on the segment, so a racing delete can never leave a
+   *  reader looking at freed memory. */
+  private static final class Segment {
+    final Value _val;
+    final int _len;
+    private long _addr;
+    Segment(Value val, long addr, int len) { _val = val; _addr = addr; _len = len; }
+    synchronized byte[] read() {
+      if( _addr == 0 ) return null; // Racing delete
+      byte[] b = new byte[_len];
+      _unsafe.copyMemory(null, _addr, b, _Bbase, _len);
+      return b;
+    }
+    synchronized boolean free() {
+      if( _addr == 0 ) return false;
+      _unsafe.freeMemory(_addr);
+      _addr = 0;
+      return true;
+    }
+  }
+
+  @Override public void store(Value v) throws IOException {
+    byte[] m = v.memOrLoad();
+    if( !reserve(m.length) ) {  // Off-heap full; go to the next tier
+      _overflow.store(v);
+      return;
+    }
+    long addr;
+    try {
+      addr = _unsafe.allocateMemory(Math.max(1, m.length));
+    } catch( OutOfMemoryError oom ) {
+      _usedBytes.addAndGet(-m.length);
+      _overflow.store(v);
+      return;
+    }
+    _unsafe.copyMemory(m, _Bbase, null, addr, m.length);
+    Segment old = _segments.put(v._key, new Segment(v, addr, m.length));
+    if( old != null ) release(old); // Stale copy of an older Value for the same Key
+  }
+
+  private boolean reserve(long len) {
+    while( true ) {
+      long used = _usedBytes.get();
+      if( used + len > _maxBytes ) return false;
+      if( _usedBytes.compareAndSet(used, used + len) ) return true;
+    }
+  }
+
+  private void release(Segment seg) {
+    if( seg.free() ) _usedBytes.addAndGet(-seg._len);
+  }
+
+  @Override public byte[] load(Value v) throws IOException {
+    Segment seg = _segments.get(v._key);
+    if( seg != null && seg._val == v ) {
+      byte[] b = seg.read();
+      if( b != null ) return b;
+    }
+    return _overflow.load(v);
+  }
+
+  @Override public void delete(Value v) {
+    Segment seg = _segments.get(v._key);
+    if( seg != null && seg._val == v ) {
+      _segments.remove(v._key, seg);
+      release(seg);
+      return;
+    }
+    _overflow.delete(v);
+  }
+
+  @Override public void cleanUp() {
+    for( Key k : _segments.keySet() ) {
+      Segment seg = _segments.remove(k);
+      if( seg != null ) release(seg);
+    }
+    _overflow.cleanUp();
+  }
+
+  /** Remaining space across both tiers, so the Cleaner only reports a full
+   *  disk once the overflow tier is full as well. */
+  @Override public long getUsableSpace() {
+    long disk = _overflow.getUsableSpace();
+    long free = _maxBytes - _usedBytes.get();
+    return disk < 0 ? free : disk + free;
+  }
+
+  @Override public long getTotalSpace() {
+    long disk = _overflow.getTotalSpace();
+    return disk < 0 ? _maxBytes : disk + _maxBytes;
+  }
+
+  @Override public Key uriToKey(URI uri) throws IOException { return _overflow.uriToKey(uri); }
+
+  @Override public List<String> calcTypeaheadMatches(String filter, int limit) {
+    return _overflow.calcTypeaheadMatches(filter, limit);
+  }
+
+  @Override public void importFiles(String path, String pattern, ArrayList<String> files, ArrayList<String> keys, ArrayList<String> fails, ArrayList<String> dels) {
+    _overflow.importFiles(path, pattern, files, keys, fails, dels);
+  }
+}
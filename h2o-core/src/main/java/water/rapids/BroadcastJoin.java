@@ -0,0 +1,450 @@
+package water.rapids;
+
+import water.H2O;
+import water.Iced;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.parser.BufferedString;
+import water.util.ArrayUtils;
+import water.util.Log;
+import water.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Hash join of a large left frame with a small right frame.
+ *
+ * <p>The right frame is collected on the caller and turned into a hash index made of primitive arrays (the join keys
+ * as longs, open-addressing slots and chains of the rows sharing a key) together with its non-key columns.  The index
+ * is sent once to every node with the join task, and the left frame is joined in a single chunk-local pass: no
+ * sorting, and no data of the left frame ever leaves its node.</p>
+ *
+ * <p>Categorical and string keys are joined on their values, as the 64-bit hash of their bytes: categorical levels
+ * are hashed once per domain, so no domain needs to be matched or remapped, and strings straight from their chunks.
+ * A categorical key can be joined with a string key.  Matches are verified on the bytes, so that hash collisions never
+ * pair different values.</p>
+ *
+ * <p>Same semantic as the radix {@link Merge#merge}: rows of the right frame with an NA key are ignored, every left row
+ * is paired with all the right rows with the same key, and left rows without a match are kept (with NAs) only for
+ * a left outer join.  Unlike the radix merge the rows keep the order of the left frame.</p>
+ */
+class BroadcastJoin {
+
+  // Largest right frame to broadcast, see fitsInMemory()
+  static final long MAX_BYTES = Long.parseLong(H2O.getSysProperty("rapids.merge.broadcast.max_bytes", "67108864"));
+
+  // Types of the non-key columns in the index
+  private static final byte LONG = 0, DOUBLE = 1, STR = 2;
+  private static final long LONG_NA = Long.MIN_VALUE; // Never an integer value, as in C8Chunk
+
+  /** Whether the key and the right columns are of supported types */
+  static boolean isSupported(Frame leftFrame, Frame riteFrame, int[] leftCols, int[] riteCols) {
+    for (int i = 0; i < leftCols.length; i++) {
+      Vec lv = leftFrame.vec(leftCols[i]), rv = riteFrame.vec(riteCols[i]);
+      if (isText(lv) != isText(rv)) return false;
+      if (!isText(lv) && (lv.get_type() != rv.get_type() || !(lv.isNumeric() || lv.isTime()))) return false;
+    }
+    for (Vec v : riteFrame.vecs())
+      if (v.isUUID()) return false;
+    return riteFrame.numRows() < Integer.MAX_VALUE >> 2;
+  }
+
+  /** Whether the right frame is small enough to be broadcast: the size of its data, and at least 8 bytes per value
+   *  as the index holds the values uncompressed */
+  static boolean fitsInMemory(Frame riteFrame) {
+    return fitsInMemory(riteFrame, MAX_BYTES);
+  }
+
+  static boolean fitsInMemory(Frame riteFrame, long maxBytes) {
+    long bytes = 0;
+    for (Vec v : riteFrame.vecs())
+      bytes += Math.max(v.byteSize(), v.length() * 8);
+    return bytes <= maxBytes;
+  }
+
+  private static boolean isText(Vec v) {
+    return v.isCategorical() || v.isString();
+  }
+
+  static Frame join(Frame leftFrame, Frame riteFrame, int[] leftCols, int[] riteCols, boolean allLeft) {
+    long start = System.currentTimeMillis();
+    int[] payloadCols = new int[0];
+    for (int c = 0; c < riteFrame.numCols(); c++)
+      if (ArrayUtils.find(riteCols, c) < 0) payloadCols = ArrayUtils.append(payloadCols, c);
+    HashIndex index = HashIndex.make(riteFrame, riteCols, payloadCols);
+    Log.info("Broadcast join index of " + index._nrows + " rows built in " + (System.currentTimeMillis() - start) / 1000. + " (s)");
+
+    int nleft = leftFrame.numCols();
+    String[] names = new String[nleft + payloadCols.length];
+    String[][] domains = new String[names.length][];
+    byte[] types = new byte[names.length];
+    for (int c = 0; c < nleft; c++) {
+      names[c] = leftFrame.name(c);
+      domains[c] = leftFrame.vec(c).domain();
+      types[c] = leftFrame.vec(c).get_type();
+    }
+    for (int p = 0; p < payloadCols.length; p++) {
+      Vec v = riteFrame.vec(payloadCols[p]);
+      names[nleft + p] = riteFrame.name(payloadCols[p]);
+      domains[nleft + p] = v.domain();
+      types[nleft + p] = v.get_type();
+    }
+    return new JoinTask(index, leftCols, allLeft).doAll(types, leftFrame).outputFrame(names, domains);
+  }
+
+  // Key value of a join column as a long, same for equal values; NA keys are never looked up
+  private static long key(double d) {
+    return d == 0 ? 0 : Double.doubleToRawLongBits(d); // -0.0 == 0.0
+  }
+
+  // Key value of a categorical level or a string: FNV-1a of its bytes
+  private static long key(byte[] buf, int off, int len) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = off; i < off + len; i++)
+      h = (h ^ (buf[i] & 0xFF)) * 0x100000001b3L;
+    return h;
+  }
+
+  private static long hash(long[] keys, int off, int width) {
+    long h = 0;
+    for (int i = 0; i < width; i++)
+      h = (h ^ keys[off + i]) * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  // --------------------------------------------------------------------------
+  // The key columns of a frame on one node, with the bytes and the key of
+  // every categorical level computed once from the domains
+  private static class KeyColumns {
+    final int[] _cols;
+    final boolean[] _text;      // Categorical or string
+    final byte[][][] _levels;   // Per categorical column, the bytes of each level
+    final long[][] _levelKeys;
+
+    KeyColumns(Frame fr, int[] cols) {
+      _cols = cols;
+      _text = new boolean[cols.length];
+      _levels = new byte[cols.length][][];
+      _levelKeys = new long[cols.length][];
+      for (int i = 0; i < cols.length; i++) {
+        Vec v = fr.vec(cols[i]);
+        _text[i] = isText(v);
+        if (!v.isCategorical()) continue;
+        String[] dom = v.domain();
+        _levels[i] = new byte[dom.length][];
+        _levelKeys[i] = new long[dom.length];
+        for (int l = 0; l < dom.length; l++) {
+          _levels[i][l] = StringUtils.bytesOf(dom[l]);
+          _levelKeys[i][l] = key(_levels[i][l], 0, _levels[i][l].length);
+        }
+      }
+    }
+  }
+
+  // Reads the key of a row: its longs, and the bytes of its categorical and
+  // string values for the verification of the matches.  One per thread.
+  private static class KeyReader {
+    final KeyColumns _kc;
+    final long[] _key;
+    final BufferedString[] _strs;
+    final BufferedString _tmp = new BufferedString();
+
+    KeyReader(KeyColumns kc) {
+      _kc = kc;
+      _key = new long[kc._cols.length];
+      _strs = new BufferedString[kc._cols.length];
+      for (int i = 0; i < _strs.length; i++)
+        if (kc._text[i]) _strs[i] = new BufferedString();
+    }
+
+    /** Reads the key of the row, false for an NA key */
+    boolean readKey(Chunk[] cs, int r) {
+      for (int i = 0; i < _key.length; i++) {
+        Chunk c = cs[_kc._cols[i]];
+        if (c.isNA(r)) return false;
+        if (_kc._levels[i] != null) {
+          int level = (int) c.at8(r);
+          _strs[i].set(_kc._levels[i][level]);
+          _key[i] = _kc._levelKeys[i][level];
+        } else if (_strs[i] != null) {
+          BufferedString s = c.atStr(_strs[i], r);
+          _key[i] = key(s.getBuffer(), s.getOffset(), s.length());
+        } else
+          _key[i] = key(c.atd(r));
+      }
+      return true;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // The right frame as primitive arrays: keys and non-key columns by row, and
+  // an open-addressing table of the first row of each distinct key, the next
+  // rows with the same key being chained in their original order.
+  static class HashIndex extends Iced<HashIndex> {
+    final int _width;
+    final int _nrows;
+    final long[] _keys;       // _width longs per row
+    final byte[][] _keyBytes; // Per categorical or string key column, the bytes of all the rows
+    final int[][] _keyOffs;   // Per categorical or string key column, nrows + 1 offsets into _keyBytes
+    final int[] _slots;       // First row + 1 of the key, 0 is empty
+    final int[] _next;        // Next row with the same key, -1 for none
+    final long[][] _longs;    // Non-key integer, categorical and time columns, NAs as LONG_NA
+    final double[][] _nums;   // Non-key real columns
+    final String[][] _strs;   // Non-key string columns
+
+    private HashIndex(int width, int nrows, long[] keys, byte[][] keyBytes, int[][] keyOffs, long[][] longs,
+                      double[][] nums, String[][] strs) {
+      _width = width;
+      _nrows = nrows;
+      _keys = keys;
+      _keyBytes = keyBytes;
+      _keyOffs = keyOffs;
+      _longs = longs;
+      _nums = nums;
+      _strs = strs;
+      _slots = new int[Math.max(16, Integer.highestOneBit(Math.max(nrows, 1)) << 2)];
+      _next = new int[nrows];
+      int mask = _slots.length - 1;
+      BufferedString[] rowStrs = new BufferedString[width];
+      for (int i = 0; i < width; i++)
+        if (keyBytes[i] != null) rowStrs[i] = new BufferedString();
+      BufferedString tmp = new BufferedString();
+      for (int r = nrows - 1; r >= 0; r--) { // Backwards, so the chains are in row order
+        for (int i = 0; i < width; i++)
+          if (rowStrs[i] != null) rowStrs[i].set(keyBytes[i], keyOffs[i][r], keyOffs[i][r + 1] - keyOffs[i][r]);
+        int s = (int) hash(_keys, r * width, width) & mask;
+        while (_slots[s] != 0 && !sameKey(_keys, r * width, rowStrs, _slots[s] - 1, tmp)) s = (s + 1) & mask;
+        _next[r] = _slots[s] - 1;
+        _slots[s] = r + 1;
+      }
+    }
+
+    static HashIndex make(Frame fr, int[] keyCols, int[] payloadCols) {
+      byte[] payloadTypes = new byte[payloadCols.length];
+      for (int p = 0; p < payloadCols.length; p++) {
+        Vec v = fr.vec(payloadCols[p]);
+        payloadTypes[p] = v.isString() ? STR : v.isInt() ? LONG : DOUBLE;
+      }
+      CollectTask ct = new CollectTask(keyCols, payloadCols, payloadTypes, fr.anyVec().nChunks()).doAll(fr);
+      int width = keyCols.length, nrows = 0;
+      for (int n : ct._lens) nrows += n;
+      long[] keys = new long[nrows * width];
+      byte[][] keyBytes = new byte[width][];
+      int[][] keyOffs = new int[width][];
+      for (int i = 0; i < width; i++) {
+        if (!isText(fr.vec(keyCols[i]))) continue;
+        int size = 0;
+        for (int c = 0; c < ct._keyLens.length; c++)
+          for (int r = 0; r < ct._lens[c]; r++) size += ct._keyLens[c][r * width + i];
+        keyBytes[i] = new byte[size];
+        keyOffs[i] = new int[nrows + 1];
+      }
+      long[][] longs = new long[payloadCols.length][];
+      double[][] nums = new double[payloadCols.length][];
+      String[][] strs = new String[payloadCols.length][];
+      for (int p = 0; p < payloadCols.length; p++) {
+        if (payloadTypes[p] == STR) strs[p] = new String[nrows];
+        else if (payloadTypes[p] == LONG) longs[p] = new long[nrows];
+        else nums[p] = new double[nrows];
+      }
+      for (int c = 0, row = 0; c < ct._keys.length; c++) {
+        int n = ct._lens[c];
+        if (n == 0) continue;
+        System.arraycopy(ct._keys[c], 0, keys, row * width, n * width);
+        for (int r = 0, pos = 0; r < n; r++) {
+          for (int i = 0; i < width; i++) {
+            if (keyBytes[i] == null) continue;
+            int len = ct._keyLens[c][r * width + i], off = keyOffs[i][row + r];
+            System.arraycopy(ct._keyBytes[c], pos, keyBytes[i], off, len);
+            keyOffs[i][row + r + 1] = off + len;
+            pos += len;
+          }
+        }
+        for (int p = 0; p < payloadCols.length; p++) {
+          if (longs[p] != null) System.arraycopy(ct._longs[c][p], 0, longs[p], row, n);
+          else if (nums[p] != null) System.arraycopy(ct._nums[c][p], 0, nums[p], row, n);
+          else System.arraycopy(ct._strs[c], p * n, strs[p], row, n);
+        }
+        row += n;
+      }
+      return new HashIndex(width, nrows, keys, keyBytes, keyOffs, longs, nums, strs);
+    }
+
+    private boolean sameKey(long[] keys, int off, BufferedString[] strs, int row, BufferedString tmp) {
+      for (int i = 0; i < _width; i++)
+        if (_keys[row * _width + i] != keys[off + i]) return false;
+      for (int i = 0; i < _width; i++) { // Same hashes, verify the bytes
+        if (strs[i] == null) continue;
+        int from = _keyOffs[i][row];
+        if (!strs[i].equals(tmp.set(_keyBytes[i], from, _keyOffs[i][row + 1] - from))) return false;
+      }
+      return true;
+    }
+
+    /** First right row with the key just read, -1 if none */
+    int find(KeyReader kr) {
+      int mask = _slots.length - 1;
+      for (int s = (int) hash(kr._key, 0, _width) & mask; _slots[s] != 0; s = (s + 1) & mask)
+        if (sameKey(kr._key, 0, kr._strs, _slots[s] - 1, kr._tmp)) return _slots[s] - 1;
+      return -1;
+    }
+  }
+
+  // Collects the rows of the right frame without NA keys, per chunk
+  private static class CollectTask extends MRTask<CollectTask> {
+    final int[] _keyCols;
+    final int[] _payloadCols;
+    final byte[] _payloadTypes;
+    int[] _lens;           // Per chunk
+    long[][] _keys;
+    byte[][] _keyBytes;    // Per chunk, the bytes of the categorical and string keys, row by row
+    int[][] _keyLens;      // Per chunk, the length of each key, 0 for the numeric ones
+    long[][][] _longs;     // Per chunk, per non-key integer column
+    double[][][] _nums;    // Per chunk, per non-key real column
+    String[][] _strs;      // Per chunk, n values per non-key string column
+    transient KeyColumns _kc;
+
+    CollectTask(int[] keyCols, int[] payloadCols, byte[] payloadTypes, int nchunks) {
+      _keyCols = keyCols;
+      _payloadCols = payloadCols;
+      _payloadTypes = payloadTypes;
+      _lens = new int[nchunks];
+      _keys = new long[nchunks][];
+      _keyBytes = new byte[nchunks][];
+      _keyLens = new int[nchunks][];
+      _longs = new long[nchunks][][];
+      _nums = new double[nchunks][][];
+      _strs = new String[nchunks][];
+    }
+
+    @Override
+    protected void setupLocal() {
+      _kc = new KeyColumns(_fr, _keyCols);
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      int len = cs[0]._len, cidx = cs[0].cidx();
+      int width = _keyCols.length;
+      KeyReader kr = new KeyReader(_kc);
+      long[] keys = new long[len * width];
+      int[] keyLens = new int[len * width];
+      ByteArrayOutputStream keyBytes = new ByteArrayOutputStream();
+      long[][] longs = new long[_payloadCols.length][];
+      double[][] nums = new double[_payloadCols.length][];
+      String[][] strs = new String[_payloadCols.length][];
+      for (int p = 0; p < _payloadCols.length; p++) {
+        if (_payloadTypes[p] == STR) strs[p] = new String[len];
+        else if (_payloadTypes[p] == LONG) longs[p] = new long[len];
+        else nums[p] = new double[len];
+      }
+      BufferedString bs = new BufferedString();
+      int n = 0;
+      for (int r = 0; r < len; r++) {
+        if (!kr.readKey(cs, r)) continue;
+        System.arraycopy(kr._key, 0, keys, n * width, width);
+        for (int i = 0; i < width; i++) {
+          BufferedString s = kr._strs[i];
+          if (s == null) continue;
+          keyBytes.write(s.getBuffer(), s.getOffset(), s.length());
+          keyLens[n * width + i] = s.length();
+        }
+        for (int p = 0; p < _payloadCols.length; p++) {
+          Chunk c = cs[_payloadCols[p]];
+          if (longs[p] != null) longs[p][n] = c.isNA(r) ? LONG_NA : c.at8(r);
+          else if (nums[p] != null) nums[p][n] = c.atd(r);
+          else strs[p][n] = c.isNA(r) ? null : c.atStr(bs, r).toString();
+        }
+        n++;
+      }
+      _lens[cidx] = n;
+      _keys[cidx] = Arrays.copyOf(keys, n * width);
+      _keyBytes[cidx] = keyBytes.toByteArray();
+      _keyLens[cidx] = Arrays.copyOf(keyLens, n * width);
+      String[] allStrs = new String[_payloadCols.length * n];
+      for (int p = 0; p < _payloadCols.length; p++) {
+        if (longs[p] != null) longs[p] = Arrays.copyOf(longs[p], n);
+        else if (nums[p] != null) nums[p] = Arrays.copyOf(nums[p], n);
+        else System.arraycopy(strs[p], 0, allStrs, p * n, n);
+      }
+      _longs[cidx] = longs;
+      _nums[cidx] = nums;
+      _strs[cidx] = allStrs;
+    }
+
+    @Override
+    public void reduce(CollectTask that) {
+      if (_keys == that._keys) return; // Same node
+      for (int c = 0; c < _keys.length; c++) {
+        if (that._keys[c] == null) continue;
+        _lens[c] = that._lens[c];
+        _keys[c] = that._keys[c];
+        _keyBytes[c] = that._keyBytes[c];
+        _keyLens[c] = that._keyLens[c];
+        _longs[c] = that._longs[c];
+        _nums[c] = that._nums[c];
+        _strs[c] = that._strs[c];
+      }
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Chunk-local pass over the left frame
+  private static class JoinTask extends MRTask<JoinTask> {
+    final HashIndex _index;
+    final int[] _leftCols;
+    final boolean _allLeft;
+    transient KeyColumns _kc;
+
+    JoinTask(HashIndex index, int[] leftCols, boolean allLeft) {
+      _index = index;
+      _leftCols = leftCols;
+      _allLeft = allLeft;
+    }
+
+    @Override
+    protected void setupLocal() {
+      _kc = new KeyColumns(_fr, _leftCols);
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      KeyReader kr = new KeyReader(_kc);
+      for (int r = 0; r < cs[0]._len; r++) {
+        int match = kr.readKey(cs, r) ? _index.find(kr) : -1;
+        if (match < 0) {
+          if (!_allLeft) continue;
+          addLeft(cs, r, ncs);
+          for (int c = cs.length; c < ncs.length; c++) ncs[c].addNA();
+          continue;
+        }
+        for (int m = match; m >= 0; m = _index._next[m]) {
+          addLeft(cs, r, ncs);
+          for (int p = 0; p < ncs.length - cs.length; p++) {
+            NewChunk nc = ncs[cs.length + p];
+            if (_index._longs[p] != null) {
+              long l = _index._longs[p][m];
+              if (l == LONG_NA) nc.addNA();
+              else nc.addNum(l, 0);
+            } else if (_index._nums[p] != null) nc.addNum(_index._nums[p][m]);
+            else if (_index._strs[p][m] == null) nc.addNA();
+            else nc.addStr(_index._strs[p][m]);
+          }
+        }
+      }
+    }
+
+    private static void addLeft(Chunk[] cs, int r, NewChunk[] ncs) {
+      for (int c = 0; c < cs.length; c++)
+        cs[c].extractRows(ncs[c], r, r + 1);
+    }
+  }
+
+}
@@ -0,0 +1,464 @@
+package water.rapids;
+
+import water.H2O;
+import water.Key;
+import water.MapPipeline;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.rapids.ast.AstExec;
+import water.rapids.ast.AstPrimitive;
+import water.rapids.ast.AstRoot;
+import water.rapids.ast.prims.math.AstUniOp;
+import water.rapids.ast.prims.mungers.AstIsNa;
+import water.rapids.ast.prims.operators.*;
+import water.rapids.vals.ValFrame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single-pass evaluation of nested elementwise expressions.
+ *
+ * <p>Applied one operator at a time, {@code (* (log (+ x 1)) (> y 0))} runs four MRTasks and materializes three
+ * temporary Frames which die right away. Instead, when an elementwise operator is applied, its arguments which are
+ * elementwise expressions themselves are not evaluated; the whole expression is compiled into a single
+ * {@link MapPipeline} and only its result is materialized - ie. once the value is needed by an operator which is not
+ * elementwise, or is assigned or returned.</p>
+ *
+ * <p>Fused operators are the binary operators ({@link AstBinOp}, except the short-circuiting {@code &&} and
+ * {@code ||}), the math functions ({@link AstUniOp}), {@link AstIfElse} and {@link AstIsNa}. Only scalars and
+ * numeric Frames sharing the same row layout are fused. An operator applied to anything else (categorical, string or
+ * time columns, rows, broadcasting of a single row, ...) falls back to its own implementation, its already compiled
+ * arguments are materialized first. The results, including the column names, are the same either way.</p>
+ */
+public class ElementwiseFusion {
+
+  /** Fusion can be disabled by -Dsys.ai.h2o.rapids.fusion=false, or per Session */
+  public static final boolean ENABLED = H2O.getSysBoolProperty("rapids.fusion", true);
+
+  private final Env _env;
+  private final Env.StackHelp _stk;
+
+  public ElementwiseFusion(Env env, Env.StackHelp stk) {
+    _env = env;
+    _stk = stk;
+  }
+
+  /** Is the function an elementwise operator which can be fused with its arguments? */
+  public static boolean isFusible(Env env, AstPrimitive fun) {
+    if (env._ses == null || !env._ses.fuseElementwise()) return false;
+    if (fun instanceof AstBinOp) return !(fun instanceof AstLAnd || fun instanceof AstLOr);
+    return fun instanceof AstUniOp || fun instanceof AstIsNa || fun instanceof AstIfElse;
+  }
+
+  /** Applies an elementwise operator, fused with all the elementwise expressions nested in its arguments. */
+  public Val apply(AstPrimitive fun, AstRoot[] asts) {
+    return compile(fun, asts).value();
+  }
+
+  private Expr compile(AstRoot ast) {
+    if (ast instanceof AstExec) {
+      AstExec exec = (AstExec) ast;
+      AstPrimitive fun = exec.function(_env);
+      if (isFusible(_env, fun))
+        return compile(fun, exec._asts);
+      return leaf(exec.apply(_env, fun));
+    }
+    return leaf(ast.exec(_env));
+  }
+
+  private Expr compile(AstPrimitive fun, AstRoot[] asts) {
+    Expr[] args = new Expr[asts.length - 1];
+    args[0] = compile(asts[1]);
+    if (fun instanceof AstIfElse) {
+      // A scalar test evaluates just one of the branches, and so does a test with no zeros or only zeros: the test is
+      // materialized to check that both branches are needed before fusing them
+      if (args[0] instanceof Op)
+        args[0] = leaf(_env.returning(args[0].value()));
+      if (!(args[0] instanceof Columns) || !needsBothBranches(((Source) args[0])._val.getFrame()))
+        return fallback(fun, asts, args, 1);
+    }
+    for (int i = 1; i < args.length; i++)
+      args[i] = compile(asts[i + 1]);
+    Op op = fuse(fun, args);
+    return op != null ? op : fallback(fun, asts, args, args.length);
+  }
+
+  // Applies the operator on its own, to the first n arguments already compiled
+  // and the remaining ones not evaluated yet
+  private Expr fallback(AstPrimitive fun, AstRoot[] asts, Expr[] args, int n) {
+    AstRoot[] evaluated = asts.clone();
+    for (int i = 0; i < n; i++)
+      evaluated[i + 1] = new AstValue(args[i].value());
+    Val val;
+    try (Env.StackHelp stk = _env.stk()) {
+      val = _env.returning(fun.apply(_env, stk, evaluated));
+    }
+    return leaf(val);
+  }
+
+  private Expr leaf(Val val) {
+    _stk.track(val);
+    if (val.type() == Val.FRM) {
+      Frame fr = val.getFrame();
+      if (fr.numCols() > 0 && fr.numRows() > 0 && isNumeric(fr))
+        return new Source(val);
+    }
+    return new Leaf(val);
+  }
+
+  // Same checks as AstIfElse: the true branch is evaluated if there is a non-zero test, the false one if there is a zero
+  private static boolean needsBothBranches(Frame tst) {
+    boolean nonZeros = false, zeros = false;
+    for (Vec v : tst.vecs()) {
+      nonZeros |= v.min() != 0 || v.max() != 0;
+      zeros |= v.nzCnt() + v.naCnt() < v.length();
+    }
+    return nonZeros && zeros;
+  }
+
+  private static boolean isNumeric(Frame fr) {
+    for (Vec v : fr.vecs())
+      if (!v.isNumeric()) return false;
+    return true;
+  }
+
+  // The fused operator, null if the arguments do not allow for fusion
+  private static Op fuse(AstPrimitive fun, Expr[] args) {
+    Columns cols = null;
+    for (Expr arg : args) {
+      if (arg instanceof Columns) {
+        if (cols != null && !((Columns) arg)._layout.isCompatibleWith(cols._layout))
+          return null;
+        cols = (Columns) arg;
+      } else if (!((Leaf) arg).isScalar())
+        return null;
+    }
+    if (cols == null) return null; // Nothing to gain on scalars
+    if (fun instanceof AstBinOp) return BinOp.make((AstBinOp) fun, args[0], args[1]);
+    if (fun instanceof AstUniOp) return new UniOp((AstUniOp) fun, (Columns) args[0]);
+    if (fun instanceof AstIsNa) return new IsNa((Columns) args[0]);
+    if (fun instanceof AstIfElse) return IfElse.make(args[0], args[1], args[2]);
+    return null;
+  }
+
+  /** Compiles an expression into a pipeline over all the Vecs it reads and runs it */
+  private static Frame materialize(Op op) {
+    Map<Key<Vec>, Integer> index = new HashMap<>();
+    List<Vec> vecs = new ArrayList<>();
+    collectSources(op, index, vecs);
+    MapPipeline pipeline = new MapPipeline(new Frame(vecs.toArray(new Vec[vecs.size()])));
+    int[] cols = emit(pipeline, op, index);
+    return pipeline.outputs(cols).execute(op._names);
+  }
+
+  private static void collectSources(Expr e, Map<Key<Vec>, Integer> index, List<Vec> vecs) {
+    if (e instanceof Source) {
+      for (Vec v : ((Source) e)._val.getFrame().vecs())
+        if (!index.containsKey(v._key)) {
+          index.put(v._key, vecs.size());
+          vecs.add(v);
+        }
+    } else if (e instanceof Op) {
+      for (Expr arg : ((Op) e)._args)
+        collectSources(arg, index, vecs);
+    }
+  }
+
+  // Working columns holding the value of the expression, null for scalars
+  private static int[] emit(MapPipeline pipeline, Expr e, Map<Key<Vec>, Integer> index) {
+    if (e instanceof Source) {
+      Vec[] vecs = ((Source) e)._val.getFrame().vecs();
+      int[] cols = new int[vecs.length];
+      for (int i = 0; i < cols.length; i++)
+        cols[i] = index.get(vecs[i]._key);
+      return cols;
+    }
+    if (e instanceof Op) {
+      Op op = (Op) e;
+      int[][] args = new int[op._args.length][];
+      for (int i = 0; i < args.length; i++)
+        args[i] = emit(pipeline, op._args[i], index);
+      return op.emit(pipeline, args);
+    }
+    return null;
+  }
+
+  // --------------------------------------------------------------------------
+  // Compiled expressions
+
+  private static abstract class Expr {
+    abstract Val value();
+  }
+
+  /** Already evaluated value which is not fused: scalars and anything else than numeric Frames */
+  private static class Leaf extends Expr {
+    final Val _val;
+    Leaf(Val val) { _val = val; }
+    boolean isScalar() { return _val.type() == Val.NUM; }
+    double num() { return _val.getNum(); }
+    @Override Val value() { return _val; }
+  }
+
+  /** Frame-valued expression */
+  private static abstract class Columns extends Expr {
+    final String[] _names;
+    final Vec _layout;
+    Columns(String[] names, Vec layout) { _names = names; _layout = layout; }
+    int width() { return _names.length; }
+  }
+
+  /** Already evaluated numeric Frame */
+  private static class Source extends Columns {
+    final Val _val;
+    Source(Val val) {
+      super(val.getFrame().names(), val.getFrame().anyVec());
+      _val = val;
+    }
+    @Override Val value() { return _val; }
+  }
+
+  /** Elementwise operator not evaluated yet, one stage per output column */
+  private static abstract class Op extends Columns {
+    final Expr[] _args;
+    Op(String[] names, Vec layout, Expr... args) {
+      super(names, layout);
+      _args = args;
+    }
+    @Override Val value() { return new ValFrame(materialize(this)); }
+
+    /**
+     * Adds the stages computing this operator.
+     * @param args working columns of the arguments, null for scalar arguments
+     * @return working columns of the result
+     */
+    abstract int[] emit(MapPipeline pipeline, int[][] args);
+  }
+
+  private static Columns columns(Expr... args) {
+    for (Expr arg : args)
+      if (arg instanceof Columns) return (Columns) arg;
+    throw H2O.fail();
+  }
+
+  // Column of an argument used to compute the j-th result column; single columns are broadcast
+  private static int col(int[] cols, int j) {
+    return cols.length == 1 ? cols[0] : cols[j];
+  }
+
+  private static String[] prefixed(String prefix, String[] names) {
+    String[] res = new String[names.length];
+    for (int i = 0; i < res.length; i++)
+      res[i] = prefix + "(" + names[i] + ")";
+    return res;
+  }
+
+  private static class BinOp extends Op {
+    final AstBinOp _op;
+
+    private BinOp(AstBinOp op, String[] names, Expr l, Expr r) {
+      super(names, columns(l, r)._layout, l, r);
+      _op = op;
+    }
+
+    // Follows the widening of AstBinOp: the names are taken from the left Frame unless a single column is
+    // broadcast over the right Frame
+    static BinOp make(AstBinOp op, Expr l, Expr r) {
+      if (!(l instanceof Columns))
+        return new BinOp(op, ((Columns) r)._names, l, r);
+      Columns lf = (Columns) l;
+      if (!(r instanceof Columns))   // == and != have their own Frame-to-scalar comparison
+        return op instanceof AstEq || op instanceof AstNe ? null : new BinOp(op, lf._names, l, r);
+      Columns rt = (Columns) r;
+      if (lf.width() == rt.width() || rt.width() == 1) return new BinOp(op, lf._names, l, r);
+      if (lf.width() == 1) return new BinOp(op, rt._names, l, r);
+      return null;
+    }
+
+    @Override
+    int[] emit(MapPipeline pipeline, int[][] args) {
+      int[] l = args[0], r = args[1];
+      double ld = l == null ? ((Leaf) _args[0]).num() : Double.NaN;
+      double rd = r == null ? ((Leaf) _args[1]).num() : Double.NaN;
+      int[] res = new int[width()];
+      for (int j = 0; j < res.length; j++) {
+        if (l != null && r != null) res[j] = pipeline.add(new BinOpStage(_op, true, ld, true, rd), col(l, j), col(r, j));
+        else if (l != null) res[j] = pipeline.add(new BinOpStage(_op, true, ld, false, rd), l[j]);
+        else res[j] = pipeline.add(new BinOpStage(_op, false, ld, true, rd), r[j]);
+      }
+      return res;
+    }
+  }
+
+  private static class UniOp extends Op {
+    final AstUniOp _op;
+
+    UniOp(AstUniOp op, Columns arg) {
+      super(prefixed(op.str(), arg._names), arg._layout, arg);
+      _op = op;
+    }
+
+    @Override
+    int[] emit(MapPipeline pipeline, int[][] args) {
+      int[] res = new int[width()];
+      for (int j = 0; j < res.length; j++)
+        res[j] = pipeline.add(new UniOpStage(_op), args[0][j]);
+      return res;
+    }
+  }
+
+  private static class IsNa extends Op {
+    IsNa(Columns arg) {
+      super(prefixed("isNA", arg._names), arg._layout, arg);
+    }
+
+    @Override
+    int[] emit(MapPipeline pipeline, int[][] args) {
+      int[] res = new int[width()];
+      for (int j = 0; j < res.length; j++)
+        res[j] = pipeline.add(new IsNaStage(), args[0][j]);
+      return res;
+    }
+  }
+
+  private static class IfElse extends Op {
+    private IfElse(Columns tst, Expr t, Expr f) {
+      super(defaultNames(tst.width()), tst._layout, tst, t, f);
+    }
+
+    // Both branches have to be scalars or as wide as the test
+    static IfElse make(Expr tst, Expr t, Expr f) {
+      if (!(tst instanceof Columns)) return null;
+      int width = ((Columns) tst).width();
+      if (t instanceof Columns && ((Columns) t).width() != width) return null;
+      if (f instanceof Columns && ((Columns) f).width() != width) return null;
+      return new IfElse((Columns) tst, t, f);
+    }
+
+    private static String[] defaultNames(int n) {
+      String[] names = new String[n];
+      for (int i = 0; i < n; i++)
+        names[i] = Frame.defaultColName(i);
+      return names;
+    }
+
+    @Override
+    int[] emit(MapPipeline pipeline, int[][] args) {
+      int[] t = args[1], f = args[2];
+      double td = t == null ? ((Leaf) _args[1]).num() : Double.NaN;
+      double fd = f == null ? ((Leaf) _args[2]).num() : Double.NaN;
+      int[] res = new int[width()];
+      for (int j = 0; j < res.length; j++) {
+        int[] inputs = new int[1 + (t != null ? 1 : 0) + (f != null ? 1 : 0)];
+        int n = 0;
+        inputs[n++] = args[0][j];
+        if (t != null) inputs[n++] = t[j];
+        if (f != null) inputs[n++] = f[j];
+        res[j] = pipeline.add(new IfElseStage(t != null, td, f != null, fd), inputs);
+      }
+      return res;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Pipeline stages, scalar arguments are held by the stage
+
+  private static class BinOpStage extends MapPipeline.Stage {
+    final AstBinOp _op;
+    final boolean _lcol, _rcol;
+    final double _l, _r;
+
+    BinOpStage(AstBinOp op, boolean lcol, double l, boolean rcol, double r) {
+      _op = op;
+      _lcol = lcol; _l = l;
+      _rcol = rcol; _r = r;
+    }
+
+    @Override
+    public void map(double[][] in, double[][] out, int len) {
+      double[] res = out[0];
+      if (_lcol && _rcol) {
+        double[] l = in[0], r = in[1];
+        for (int i = 0; i < len; i++) res[i] = _op.op(l[i], r[i]);
+      } else if (_lcol) {
+        double[] l = in[0];
+        for (int i = 0; i < len; i++) res[i] = _op.op(l[i], _r);
+      } else {
+        double[] r = in[0];
+        for (int i = 0; i < len; i++) res[i] = _op.op(_l, r[i]);
+      }
+    }
+  }
+
+  private static class UniOpStage extends MapPipeline.Stage {
+    final AstUniOp _op;
+
+    UniOpStage(AstUniOp op) { _op = op; }
+
+    @Override
+    public void map(double[][] in, double[][] out, int len) {
+      double[] x = in[0], res = out[0];
+      for (int i = 0; i < len; i++) res[i] = _op.op(x[i]);
+    }
+  }
+
+  private static class IsNaStage extends MapPipeline.Stage {
+    @Override
+    public void map(double[][] in, double[][] out, int len) {
+      double[] x = in[0], res = out[0];
+      for (int i = 0; i < len; i++) res[i] = Double.isNaN(x[i]) ? 1 : 0;
+    }
+  }
+
+  // NaN test gives NaN, zero picks the false branch
+  private static class IfElseStage extends MapPipeline.Stage {
+    final boolean _tcol, _fcol;
+    final double _t, _f;
+
+    IfElseStage(boolean tcol, double t, boolean fcol, double f) {
+      _tcol = tcol; _t = t;
+      _fcol = fcol; _f = f;
+    }
+
+    @Override
+    public void map(double[][] in, double[][] out, int len) {
+      double[] tst = in[0], res = out[0];
+      double[] t = _tcol ? in[1] : null;
+      double[] f = _fcol ? in[_tcol ? 2 : 1] : null;
+      for (int i = 0; i < len; i++) {
+        double d = tst[i];
+        res[i] = Double.isNaN(d) ? Double.NaN : d == 0 ? (f != null ? f[i] : _f) : (t != null ? t[i] : _t);
+      }
+    }
+  }
+
+  /** Already evaluated argument handed over to an operator applied on its own */
+  private static class AstValue extends AstRoot<AstValue> {
+    final Val _val;
+
+    AstValue(Val val) { _val = val; }
+
+    @Override
+    public Val exec(Env env) {
+      return env.returning(_val);
+    }
+
+    @Override
+    public String str() {
+      return _val.toString();
+    }
+
+    @Override
+    public String example() {
+      return null;
+    }
+
+    @Override
+    public String description() {
+      return null;
+    }
+  }
+
+}
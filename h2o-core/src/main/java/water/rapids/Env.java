@@ -196,6 +196,8 @@ public class Env extends Iced {
     // Time Series
     init(new AstDiffLag1());
     init(new AstIsax());
+    init(new AstLag());
+    init(new AstRolling());
 
     // Advanced Math
     init(new AstCorrelation());
@@ -72,6 +72,28 @@ public class Merge {
 
     return merge(leftFrame, riteFrame, leftCols, riteCols, allLeft, id_maps, ascendingL, ascendingR);
   }
+
+  // Join by hashing, with the right frame replicated on every node.  Same rows as merge() above, but in the order of
+  // the left frame.  The right frame must fit in the memory of each node, see canBroadcast().  Categorical and string
+  // keys are matched on their values, no id_maps needed: a categorical key can be joined with a string key.
+  public static Frame broadcastJoin(final Frame leftFrame, final Frame riteFrame, final int leftCols[], final int riteCols[],
+                                    boolean allLeft) {
+    if (!BroadcastJoin.isSupported(leftFrame, riteFrame, leftCols, riteCols))
+      throw new IllegalArgumentException("Broadcast join supports keys of the same numeric or time type, or categorical " +
+              "and string keys, and no UUID columns");
+    return BroadcastJoin.join(leftFrame, riteFrame, leftCols, riteCols, allLeft);
+  }
+
+  // Whether broadcastJoin() can be used: the right frame is small enough to be sent to every node, and the columns
+  // are supported
+  public static boolean canBroadcast(final Frame leftFrame, final Frame riteFrame, final int leftCols[], final int riteCols[]) {
+    return BroadcastJoin.fitsInMemory(riteFrame) && BroadcastJoin.isSupported(leftFrame, riteFrame, leftCols, riteCols);
+  }
+
+  // Largest size of the right frame of broadcastJoin(), sys.ai.h2o.rapids.merge.broadcast.max_bytes
+  public static long broadcastMaxBytes() {
+    return BroadcastJoin.MAX_BYTES;
+  }
   // single-threaded driver logic.  Merge left and right frames based on common columns.
   public static Frame merge(final Frame leftFrame, final Frame riteFrame, final int leftCols[], final int riteCols[],
                             boolean allLeft, int[][] id_maps, int[] ascendingL, int[] ascendingR) {
@@ -374,6 +396,7 @@ public class Merge {
         if (cs[i] instanceof CStrChunk) ncs[i].addStr(cs[i], row);
         else if (cs[i] instanceof C16Chunk) ncs[i].addUUID(cs[i], row);
         else if (cs[i].hasFloat()) ncs[i].addNum(cs[i].atd(row));
+        else if (cs[i].isNA(row)) ncs[i].addNA();
         else ncs[i].addNum(cs[i].at8(row), 0);
       }
     }
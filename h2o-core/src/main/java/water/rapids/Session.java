@@ -51,6 +51,8 @@ public class Session {
   // set.
   private NonBlockingHashSet<Key<Vec>> GLOBALS = new NonBlockingHashSet<>();
 
+  // Evaluate nested elementwise operators in a single pass, see ElementwiseFusion
+  private boolean fuseElementwise = ElementwiseFusion.ENABLED;
 
   /**
    * Constructor
@@ -70,6 +72,15 @@ public class Session {
     return id;
   }
 
+  /** Whether nested elementwise expressions are evaluated in a single pass. */
+  public boolean fuseElementwise() {
+    return fuseElementwise;
+  }
+
+  public void setFuseElementwise(boolean fuse) {
+    fuseElementwise = fuse;
+  }
+
   /**
    * Execute an AstRoot in the current Session with much assertion-checking
    * @param ast Rapids expression to execute
@@ -1,5 +1,6 @@
 package water.rapids.ast;
 
+import water.rapids.ElementwiseFusion;
 import water.rapids.Env;
 import water.rapids.Val;
 import water.rapids.vals.ValFun;
@@ -51,6 +52,11 @@ public class AstExec extends AstRoot {
   // evalute some arguments.
   @Override
   public Val exec(Env env) {
+    return apply(env, function(env));
+  }
+
+  /** Executes the first AstRoot and verifies that it is a function accepting the arguments. */
+  public AstPrimitive function(Env env) {
     Val fun = _asts[0].exec(env);
     if (!fun.isFun())
       throw new IllegalArgumentException("Expected a function but found " + fun.getClass());
@@ -59,8 +65,16 @@ public class AstExec extends AstRoot {
     if (nargs != -1 && nargs != _asts.length)
       throw new IllegalArgumentException(
           "Incorrect number of arguments; '" + ast + "' expects " + (nargs - 1) + " but was passed " + (_asts.length - 1));
+    return ast;
+  }
+
+  /** Applies the function to the arguments; nested elementwise operators are evaluated in a single pass. */
+  public Val apply(Env env, AstPrimitive ast) {
     try (Env.StackHelp stk = env.stk()) {
-      return env.returning(ast.apply(env, stk, _asts));
+      Val res = ElementwiseFusion.isFusible(env, ast)
+          ? new ElementwiseFusion(env, stk).apply(ast, _asts)
+          : ast.apply(env, stk, _asts);
+      return env.returning(res);
     }
   }
 
@@ -301,6 +301,15 @@ public class AstGroup extends AstPrimitive {
    * @return  grouped data with aggregations results.
    */
   public ValFrame performGroupingWithAggregations(Frame fr, int[] gbCols, AGG[] aggs) {
+    if (SortGroupBy.isSupported(fr, gbCols, aggs) && SortGroupBy.isPreferred(fr, gbCols))
+      return new ValFrame(SortGroupBy.groupBy(fr, gbCols, aggs, prepareFCNames(fr, aggs)));
+    if (PrimitiveGroupBy.isSupported(fr, gbCols, aggs))
+      return new ValFrame(PrimitiveGroupBy.groupBy(fr, gbCols, aggs, prepareFCNames(fr, aggs), _per_node_aggregates));
+    return performGroupingWithGroupObjects(fr, gbCols, aggs);
+  }
+
+  // Grouping keeping each group in a G object, handles all the group-by column types and aggregates
+  ValFrame performGroupingWithGroupObjects(Frame fr, int[] gbCols, AGG[] aggs) {
     final boolean hasMedian = hasMedian(aggs);
     final byte[] gbColsTypes = ArrayUtils.select(fr.types(), gbCols);
     
@@ -356,7 +365,7 @@ public class AstGroup extends AstPrimitive {
     };
   }
 
-  private String[] prepareFCNames(Frame fr, AGG[] aggs) {
+  String[] prepareFCNames(Frame fr, AGG[] aggs) {
     String[] fcnames = new String[aggs.length];
     for (int i = 0; i < aggs.length; i++) {
       if (aggs[i]._fcn.toString() != "nrow") {
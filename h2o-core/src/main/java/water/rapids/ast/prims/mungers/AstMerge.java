@@ -38,9 +38,15 @@ import java.util.Arrays;
  * there is no matching row in the rightFrame, and vice-versa for
  * allRightFlag.  Missing data will appear as NAs.  Both flags can be true.
  * </p>
- * We support merge method hash, radix and auto.  If a user chooses auto, the
+ * We support merge method hash, radix, broadcast and auto.  If a user chooses auto, the
  * algorithm will default to method radix which is the better algorithm.  It
  * gives accurate merge results even if there are duplicated rows in the rightFrame.
+ * The broadcast method must be asked for: it sends the frame not kept in full
+ * (the rightFrame, or the leftFrame for allRite) to all the nodes, and gives the
+ * same rows as radix but in the row order of the kept frame instead of sorted
+ * by the keys.  It also matches categorical and string keys on their values,
+ * without any remapping of the domains, so that a categorical key column can
+ * be merged with a string key column.
  * In addition, the radix method will allow the presences of string columns in
  * the frames.  The Hash method will not give correct merge results if there
  * are duplicated rows in the rightFrame.  The hash method cannot work with String columns,
@@ -110,7 +116,8 @@ public class AstMerge extends AstPrimitive {
     for (int i = 0; i < ncols; i++) {
         Vec lv = l.vecs()[i];
         Vec rv = r.vecs()[i];
-        if (lv.get_type() != rv.get_type())
+        boolean textKeys = (lv.isCategorical() || lv.isString()) && (rv.isCategorical() || rv.isString());
+        if (lv.get_type() != rv.get_type() && !(textKeys && method.equals("broadcast")))
           throw new IllegalArgumentException("Merging columns must be the same type, column " + l._names[ncols] +
               " found types " + lv.get_type_str() + " and " + rv.get_type_str());
         if (method.equals("hash") && lv.isString())
@@ -129,28 +136,17 @@ public class AstMerge extends AstPrimitive {
       }
     }.doAllNodes();
 
-    if (method.equals("radix") || method.equals("auto")) {  // default to radix as default merge metho
+    if (method.equals("radix") || method.equals("auto") || method.equals("broadcast")) {  // default to radix as default merge metho
       // Build categorical mappings, to rapidly convert categoricals from the left to the right
       // With the sortingMerge approach there is no variance here: always map left to right
       if (allLeft && allRite)
         throw new IllegalArgumentException("all.x=TRUE and all.y=TRUE is not supported.  Choose one only.");
 
       boolean onlyLeftAllOff = allLeft || (!allLeft && !allRite); // use left frame as reference unless allRite==true
-      int[][] id_maps = new int[ncols][]; // will contain enum levels of the not included frame mapped to combined enum levels of both left/rite frames
-      for (int i = 0; i < ncols; i++) { // flip the frame orders for allRite
-        Vec lv = onlyLeftAllOff ? l.vec(i) : r.vec(i);
-        Vec rv = onlyLeftAllOff ? r.vec(i) : l.vec(i);
-
-        if (onlyLeftAllOff ? lv.isCategorical() : rv.isCategorical()) {
-          assert onlyLeftAllOff ? rv.isCategorical() : lv.isCategorical();  // if not, would have thrown above
-          id_maps[i] = CategoricalWrappedVec.computeMap(lv.domain(), rv.domain());  // flipped already, no need to flip again
-        }
-      }
-
       if (onlyLeftAllOff) {
-        return sortingMerge(l, r, allLeft, ncols, id_maps);
+        return radixOrBroadcastMerge(l, r, allLeft, ncols, method);
       } else {  // implement allRite here by switching leftframe and riteframe.  However, column order is wrong, re-order before return
-        ValFrame tempFrame = sortingMerge(r, l, allRite, ncols, id_maps);
+        ValFrame tempFrame = radixOrBroadcastMerge(r, l, allRite, ncols, method);
         Frame mergedFrame = tempFrame.getFrame();  // need to switch order of merged frame
         int allColNum = mergedFrame.numCols();
         int[] colMapping = new int[allColNum];  // index into combined frame but with correct order
@@ -273,6 +269,26 @@ public class AstMerge extends AstPrimitive {
     return new ValFrame(Merge.merge(left, right, cols, cols, allLeft, id_maps));
   }
 
+  // Broadcast join of the right frame when asked for, otherwise sort both frames
+  private ValFrame radixOrBroadcastMerge(Frame left, Frame right, boolean allLeft, int ncols, String method) {
+    int cols[] = new int[ncols];
+    for (int i = 0; i < ncols; i++) cols[i] = i;
+    if (method.equals("broadcast")) {
+      if (!Merge.canBroadcast(left, right, cols, cols))
+        throw new IllegalArgumentException("The broadcast method needs the frame not kept in full to be smaller than " +
+                Merge.broadcastMaxBytes() + " bytes and to have no UUID column; use the radix method instead");
+      return new ValFrame(Merge.broadcastJoin(left, right, cols, cols, allLeft));
+    }
+    // Build categorical mappings, to rapidly convert categoricals from the left to the right
+    int[][] id_maps = new int[ncols][]; // will contain enum levels of the left frame mapped to combined enum levels of both frames
+    for (int i = 0; i < ncols; i++) {
+      Vec lv = left.vec(i), rv = right.vec(i);
+      if (lv.isCategorical())
+        id_maps[i] = CategoricalWrappedVec.computeMap(lv.domain(), rv.domain());
+    }
+    return sortingMerge(left, right, allLeft, ncols, id_maps);
+  }
+
   // One Row object per row of the hashed dataset, so kept as small as
   // possible.
   private static class Row extends Iced {
@@ -0,0 +1,478 @@
+package water.rapids.ast.prims.mungers;
+
+import water.*;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * Group-by engine keeping groups in primitive open-addressing hash tables.
+ *
+ * <p>Unlike the {@link AstGroup.G} based engine it does not allocate an object per group: group keys are
+ * longs stored back to back in a single {@code long[]} (several integer columns are packed into a single long when
+ * their value ranges allow it), and aggregate states are kept in columnar {@code double[]}/{@code long[]} arrays
+ * indexed by group id. Each table is split into {@link #PARTS} partitions by the high bits of the key hash, tables
+ * built by different maps and nodes are merged partition by partition, in parallel for large tables.</p>
+ *
+ * <p>Supports grouping by numeric, categorical and time columns, and all the aggregates but median.</p>
+ */
+class PrimitiveGroupBy {
+
+  static final boolean ENABLED = H2O.getSysBoolProperty("rapids.groupby.primitive", true);
+
+  private static final int LOG_PARTS = 4;
+  static final int PARTS = 1 << LOG_PARTS;
+
+  // Merge partitions of two tables in parallel only if there is enough groups
+  private static final int PARALLEL_MERGE_MIN_GROUPS = 1 << 14;
+
+  static boolean isSupported(Frame fr, int[] gbCols, AstGroup.AGG[] aggs) {
+    if (!ENABLED) return false;
+    for (int col : gbCols) {
+      Vec v = fr.vec(col);
+      if (!(v.isNumeric() || v.isCategorical() || v.isTime())) return false;
+    }
+    for (AstGroup.AGG agg : aggs)
+      if (agg._fcn == AstGroup.FCN.median) return false;
+    return true;
+  }
+
+  /**
+   * Groups the rows of the frame by the given columns and computes the aggregates.
+   * @return one row per group, ordered by the group-by columns, NAs first
+   */
+  static Frame groupBy(Frame fr, int[] gbCols, AstGroup.AGG[] aggs, String[] aggNames) {
+    return groupBy(fr, gbCols, aggs, aggNames, true);
+  }
+
+  /**
+   * Groups the rows of the frame by the given columns and computes the aggregates.
+   * @param perNodeAggregates whether the maps of a node merge their groups into a single node-local table, instead
+   *                          of keeping a table per map until the reduce
+   * @return one row per group, ordered by the group-by columns, NAs first
+   */
+  static Frame groupBy(Frame fr, int[] gbCols, AstGroup.AGG[] aggs, String[] aggNames, boolean perNodeAggregates) {
+    long start = System.currentTimeMillis();
+    KeyCodec codec = KeyCodec.make(fr, gbCols);
+    GroupTable[] parts = new GBTask(gbCols, aggs, codec, perNodeAggregates).doAll(fr)._parts;
+    GroupTable groups = GroupTable.concat(parts, codec.width(), aggs);
+    Log.info("Group By Task done in " + (System.currentTimeMillis() - start) / 1000. + " (s), " + groups._size +
+            " groups" + (codec.isPacked() ? " (packed keys)" : ""));
+    int[] order = groups.order();
+    return AstGroup.buildOutput(gbCols, aggs.length, fr, aggNames, groups._size, new FillTask(groups, order, codec, aggs));
+  }
+
+  // --------------------------------------------------------------------------
+  // Encoding of group-by values into long keys; the order of the keys (as
+  // signed longs, column by column) is the order of the groups, NaN being the
+  // least.  Integer columns with small enough ranges are packed into a single
+  // long, value 0 of a column being NA.  Otherwise each column takes a long.
+  static class KeyCodec extends Iced<KeyCodec> {
+    final int _ncols;
+    final long[] _mins;   // null if not packed
+    final int[] _shifts;
+    final long[] _masks;
+
+    private KeyCodec(int ncols, long[] mins, int[] shifts, long[] masks) {
+      _ncols = ncols;
+      _mins = mins;
+      _shifts = shifts;
+      _masks = masks;
+    }
+
+    static KeyCodec make(Frame fr, int[] gbCols) {
+      int n = gbCols.length;
+      long[] mins = new long[n];
+      int[] bits = new int[n];
+      int total = 0;
+      for (int c = 0; c < n; c++) {
+        Vec v = fr.vec(gbCols[c]);
+        if (v.naCnt() == v.length()) {   // Just NAs
+          bits[c] = 1;
+        } else {
+          if (!(v.isCategorical() || v.isInt()) || v.max() - v.min() > (1L << 62))
+            return new KeyCodec(n, null, null, null);
+          mins[c] = (long) v.min();
+          long range = (long) v.max() - mins[c] + 2; // Values plus the NA
+          bits[c] = 64 - Long.numberOfLeadingZeros(range - 1);
+        }
+        total += bits[c];
+        if (total > 63) return new KeyCodec(n, null, null, null);
+      }
+      int[] shifts = new int[n];
+      long[] masks = new long[n];
+      for (int c = n - 1, shift = 0; c >= 0; shift += bits[c], c--) { // First column in the high bits
+        shifts[c] = shift;
+        masks[c] = (1L << bits[c]) - 1;
+      }
+      return new KeyCodec(n, mins, shifts, masks);
+    }
+
+    boolean isPacked() { return _mins != null; }
+
+    /** Number of longs of a key */
+    int width() { return isPacked() ? 1 : _ncols; }
+
+    void encode(double[][] vals, int row, long[] key) {
+      if (isPacked()) {
+        long k = 0;
+        for (int c = 0; c < _ncols; c++) {
+          double d = vals[c][row];
+          k |= (Double.isNaN(d) ? 0 : (long) d - _mins[c] + 1) << _shifts[c];
+        }
+        key[0] = k;
+      } else {
+        for (int c = 0; c < _ncols; c++) {
+          double d = vals[c][row];
+          if (Double.isNaN(d)) key[c] = Long.MIN_VALUE;
+          else {
+            long bits = d == 0 ? 0 : Double.doubleToRawLongBits(d); // -0.0 == 0.0, like the sorted chunks
+            key[c] = bits < 0 ? bits ^ Long.MAX_VALUE : bits;
+          }
+        }
+      }
+    }
+
+    double decode(long[] keys, int off, int c) {
+      if (isPacked()) {
+        long v = (keys[off] >>> _shifts[c]) & _masks[c];
+        return v == 0 ? Double.NaN : v - 1 + _mins[c];
+      }
+      long k = keys[off + c];
+      if (k == Long.MIN_VALUE) return Double.NaN;
+      return Double.longBitsToDouble(k < 0 ? k ^ Long.MAX_VALUE : k);
+    }
+  }
+
+  static long hash(long[] key, int off, int width) {
+    long h = 0;
+    for (int i = 0; i < width; i++)
+      h = (h ^ key[off + i]) * 0x9E3779B97F4A7C15L;
+    // Murmur3 finalizer, both the high (partition) and the low (slot) bits need to be well mixed
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  static int partition(long hash) {
+    return (int) (hash >>> (64 - LOG_PARTS));
+  }
+
+  // --------------------------------------------------------------------------
+  // Open-addressing (linear probing) table of groups.  Group ids are dense;
+  // the keys and the aggregate states are stored by group id.
+  static class GroupTable extends Iced<GroupTable> {
+    final int _width;
+    final int[] _stateLen;  // Length of the state of each aggregate
+    int _size;
+    long[] _keys;           // _width longs per group
+    double[][] _states;     // Per aggregate, _stateLen[a] doubles per group
+    long[][] _ns;           // Per aggregate, row counts per group
+    private transient int[] _slots; // Group id + 1, 0 is empty; rebuilt after being sent over the wire
+
+    GroupTable(int width, AstGroup.AGG[] aggs, int capacity) {
+      _width = width;
+      _stateLen = new int[aggs.length];
+      _keys = MemoryManager.malloc8(capacity * width);
+      _states = new double[aggs.length][];
+      _ns = new long[aggs.length][];
+      for (int a = 0; a < aggs.length; a++) {
+        _stateLen[a] = aggs[a].initVal().length;
+        _states[a] = MemoryManager.malloc8d(capacity * _stateLen[a]);
+        _ns[a] = MemoryManager.malloc8(capacity);
+      }
+    }
+
+    private int capacity() { return _ns.length > 0 ? _ns[0].length : _keys.length / Math.max(_width, 1); }
+
+    private void ensureSlots() {
+      if (_slots != null) return;
+      _slots = new int[Math.max(16, Integer.highestOneBit(Math.max(_size, 1)) << 2)];
+      for (int g = 0; g < _size; g++)
+        insertSlot(g, hash(_keys, g * _width, _width));
+    }
+
+    private void insertSlot(int g, long hash) {
+      int mask = _slots.length - 1;
+      int s = (int) hash & mask;
+      while (_slots[s] != 0) s = (s + 1) & mask;
+      _slots[s] = g + 1;
+    }
+
+    /** Id of the group with the given key, the group is created if it does not exist yet */
+    int findOrAdd(long[] key, int off, long hash, AstGroup.AGG[] aggs) {
+      ensureSlots();
+      int mask = _slots.length - 1;
+      int s = (int) hash & mask;
+      for (int g1; (g1 = _slots[s]) != 0; s = (s + 1) & mask)
+        if (keyEquals(g1 - 1, key, off))
+          return g1 - 1;
+      int g = _size++;
+      if (g == capacity()) grow(aggs);
+      System.arraycopy(key, off, _keys, g * _width, _width);
+      for (int a = 0; a < aggs.length; a++)
+        init(aggs[a]._fcn, _states[a], g * _stateLen[a]);
+      if (2 * _size > _slots.length) {  // Keep the load factor under 1/2
+        _slots = new int[_slots.length << 1];
+        for (int i = 0; i < _size; i++)
+          insertSlot(i, hash(_keys, i * _width, _width));
+      } else
+        _slots[s] = g + 1;
+      return g;
+    }
+
+    private boolean keyEquals(int g, long[] key, int off) {
+      for (int i = 0, o = g * _width; i < _width; i++)
+        if (_keys[o + i] != key[off + i]) return false;
+      return true;
+    }
+
+    private void grow(AstGroup.AGG[] aggs) {
+      int cap = Math.max(capacity() << 1, 8);
+      _keys = Arrays.copyOf(_keys, cap * _width);
+      for (int a = 0; a < aggs.length; a++) {
+        _states[a] = Arrays.copyOf(_states[a], cap * _stateLen[a]);
+        _ns[a] = Arrays.copyOf(_ns[a], cap);
+      }
+    }
+
+    void add(int g, AstGroup.AGG[] aggs, int a, double d) {
+      AstGroup.AGG agg = aggs[a];
+      // Same NA handling as AGG.op
+      if (!Double.isNaN(d) || agg._na == AstGroup.NAHandling.ALL) op(agg._fcn, _states[a], g * _stateLen[a], d);
+      if (!Double.isNaN(d) || agg._na == AstGroup.NAHandling.IGNORE) _ns[a][g]++;
+    }
+
+    /** Folds all the groups of the other table into this one */
+    void merge(GroupTable that, AstGroup.AGG[] aggs) {
+      for (int h = 0; h < that._size; h++) {
+        int off = h * _width;
+        int g = findOrAdd(that._keys, off, hash(that._keys, off, _width), aggs);
+        for (int a = 0; a < aggs.length; a++) {
+          combine(aggs[a]._fcn, _states[a], g * _stateLen[a], that._states[a], h * _stateLen[a], _stateLen[a]);
+          _ns[a][g] += that._ns[a][h];
+        }
+      }
+    }
+
+    /** Single table holding the groups of all (disjoint) partitions */
+    static GroupTable concat(GroupTable[] parts, int width, AstGroup.AGG[] aggs) {
+      int size = 0;
+      for (GroupTable t : parts) if (t != null) size += t._size;
+      GroupTable res = new GroupTable(width, aggs, size);
+      for (GroupTable t : parts) {
+        if (t == null) continue;
+        System.arraycopy(t._keys, 0, res._keys, res._size * width, t._size * width);
+        for (int a = 0; a < aggs.length; a++) {
+          System.arraycopy(t._states[a], 0, res._states[a], res._size * res._stateLen[a], t._size * res._stateLen[a]);
+          System.arraycopy(t._ns[a], 0, res._ns[a], res._size, t._size);
+        }
+        res._size += t._size;
+      }
+      return res;
+    }
+
+    /** Group ids ordered by their keys */
+    int[] order() {
+      int[] idx = new int[_size];
+      for (int i = 0; i < idx.length; i++) idx[i] = i;
+      mergeSort(idx, idx.clone(), 0, _size);
+      return idx;
+    }
+
+    private void mergeSort(int[] idx, int[] tmp, int lo, int hi) {
+      if (hi - lo < 16) {  // Insertion sort
+        for (int i = lo + 1; i < hi; i++)
+          for (int j = i; j > lo && compare(idx[j - 1], idx[j]) > 0; j--) {
+            int t = idx[j]; idx[j] = idx[j - 1]; idx[j - 1] = t;
+          }
+        return;
+      }
+      int mid = (lo + hi) >>> 1;
+      mergeSort(tmp, idx, lo, mid);  // Sort the halves into tmp, merge back into idx
+      mergeSort(tmp, idx, mid, hi);
+      for (int i = lo, l = lo, r = mid; i < hi; i++)
+        idx[i] = r >= hi || (l < mid && compare(tmp[l], tmp[r]) <= 0) ? tmp[l++] : tmp[r++];
+    }
+
+    private int compare(int g1, int g2) {
+      for (int i = 0; i < _width; i++) {
+        int c = Long.compare(_keys[g1 * _width + i], _keys[g2 * _width + i]);
+        if (c != 0) return c;
+      }
+      return 0;
+    }
+  }
+
+  // Columnar versions of FCN.initVal, FCN.op and FCN.atomic_op
+  static void init(AstGroup.FCN fcn, double[] state, int off) {
+    switch (fcn) {
+      case min: state[off] = Double.MAX_VALUE; break;
+      case max: state[off] = -Double.MAX_VALUE; break;
+      default: // Zeros
+    }
+  }
+
+  static void op(AstGroup.FCN fcn, double[] state, int off, double d) {
+    switch (fcn) {
+      case nrow: state[off]++; break;
+      case mean:
+      case sum: state[off] += d; break;
+      case sumSquares: state[off] += d * d; break;
+      case var:
+      case sdev: state[off] += d * d; state[off + 1] += d; break;
+      case min: state[off] = Math.min(state[off], d); break;
+      case max: state[off] = Math.max(state[off], d); break;
+      case mode: state[off + (int) d]++; break;
+      default: throw H2O.unimpl("Group-by aggregate " + fcn);
+    }
+  }
+
+  static void combine(AstGroup.FCN fcn, double[] state, int off, double[] other, int otherOff, int len) {
+    for (int i = 0; i < len; i++) {
+      switch (fcn) {
+        case min: state[off + i] = Math.min(state[off + i], other[otherOff + i]); break;
+        case max: state[off + i] = Math.max(state[off + i], other[otherOff + i]); break;
+        default: state[off + i] += other[otherOff + i];
+      }
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Builds a partitioned table per map, merges them partition by partition.  With per-node aggregates each map
+  // merges its table right away into a table shared by the maps of the node, a lock per partition.
+  private static class GBTask extends MRTask<GBTask> {
+    final int[] _gbCols;
+    final AstGroup.AGG[] _aggs;
+    final KeyCodec _codec;
+    final boolean _perNode;
+    GroupTable[] _parts;
+    private transient GroupTable[] _nodeParts; // Shared by the maps of the node
+    private transient Object[] _locks;
+
+    GBTask(int[] gbCols, AstGroup.AGG[] aggs, KeyCodec codec, boolean perNode) {
+      _gbCols = gbCols;
+      _aggs = aggs;
+      _codec = codec;
+      _perNode = perNode;
+    }
+
+    @Override
+    protected void setupLocal() {
+      if (!_perNode) return;
+      _nodeParts = new GroupTable[PARTS];
+      _locks = new Object[PARTS];
+      for (int p = 0; p < PARTS; p++) _locks[p] = new Object();
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      int len = cs[0]._len;
+      int width = _codec.width();
+      double[][] gbVals = new double[_gbCols.length][];
+      for (int c = 0; c < gbVals.length; c++)
+        gbVals[c] = cs[_gbCols[c]].getDoubles(MemoryManager.malloc8d(len), 0, len);
+      double[][] aggVals = new double[_aggs.length][];
+      for (int a = 0; a < aggVals.length; a++)
+        aggVals[a] = cs[_aggs[a]._col].getDoubles(MemoryManager.malloc8d(len), 0, len);
+      _parts = new GroupTable[PARTS];
+      long[] key = new long[width];
+      for (int row = 0; row < len; row++) {
+        _codec.encode(gbVals, row, key);
+        long h = hash(key, 0, width);
+        int p = partition(h);
+        GroupTable t = _parts[p];
+        if (t == null) t = _parts[p] = new GroupTable(width, _aggs, 8);
+        int g = t.findOrAdd(key, 0, h, _aggs);
+        for (int a = 0; a < _aggs.length; a++)
+          t.add(g, _aggs, a, aggVals[a][row]);
+      }
+      if (_perNode) {
+        MergePartsFun f = new MergePartsFun(_aggs, _nodeParts, _parts);
+        for (int p = 0; p < PARTS; p++)
+          if (_parts[p] != null)
+            synchronized (_locks[p]) { f.map(p); }
+        _parts = _nodeParts;
+      }
+    }
+
+    @Override
+    public void reduce(GBTask that) {
+      if (_parts == null) { _parts = that._parts; return; }
+      if (that._parts == null || that._parts == _parts) return; // Nothing to merge, or the same node-local table
+      MergePartsFun f = new MergePartsFun(_aggs, _parts, that._parts);
+      int size = 0;
+      for (GroupTable t : that._parts) if (t != null) size += t._size;
+      if (size < PARALLEL_MERGE_MIN_GROUPS) {
+        for (int p = 0; p < PARTS; p++) f.map(p);  // Not worth parallelizing
+      } else {
+        H2O.submitTask(new LocalMR(f, PARTS)).join();
+      }
+    }
+  }
+
+  private static class MergePartsFun extends MrFun<MergePartsFun> {
+    private final AstGroup.AGG[] _aggs;
+    private final transient GroupTable[] _parts;
+    private final transient GroupTable[] _other;
+
+    MergePartsFun(AstGroup.AGG[] aggs, GroupTable[] parts, GroupTable[] other) {
+      _aggs = aggs;
+      _parts = parts;
+      _other = other;
+    }
+
+    @Override
+    protected void map(int p) {
+      GroupTable mine = _parts[p], other = _other[p];
+      if (other == null) return;
+      if (mine == null || mine._size < other._size) { // Merge the smaller table into the larger one
+        _parts[p] = other;
+        if (mine != null) other.merge(mine, _aggs);
+      } else
+        mine.merge(other, _aggs);
+    }
+  }
+
+  // Writes the ordered groups: group-by columns followed by the aggregates
+  private static class FillTask extends MRTask<FillTask> {
+    final GroupTable _groups;
+    final int[] _order;
+    final KeyCodec _codec;
+    final AstGroup.AGG[] _aggs;
+
+    FillTask(GroupTable groups, int[] order, KeyCodec codec, AstGroup.AGG[] aggs) {
+      _groups = groups;
+      _order = order;
+      _codec = codec;
+      _aggs = aggs;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      int start = (int) cs[0].start();
+      int ngb = _codec._ncols;
+      double[][] states = new double[_aggs.length][];
+      for (int a = 0; a < _aggs.length; a++)
+        states[a] = new double[_groups._stateLen[a]];
+      for (int i = 0; i < cs[0]._len; i++) {
+        int g = _order[start + i];
+        for (int c = 0; c < ngb; c++)
+          ncs[c].addNum(_codec.decode(_groups._keys, g * _groups._width, c));
+        for (int a = 0; a < _aggs.length; a++) {
+          int len = _groups._stateLen[a];
+          System.arraycopy(_groups._states[a], g * len, states[a], 0, len);
+          ncs[ngb + a].addNum(_aggs[a]._fcn.postPass(states[a], _groups._ns[a][g]));
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,384 @@
+package water.rapids.ast.prims.mungers;
+
+import water.*;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.rapids.Merge;
+import water.util.ArrayUtils;
+import water.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * Sort based group-by, used instead of {@link PrimitiveGroupBy} when the estimated number of groups is large
+ * (sys.ai.h2o.rapids.groupby.sort.min_groups).
+ *
+ * <p>With about as many groups as rows, hash tables are as large as the data and all end up merged on the caller
+ * node.  Here the rows are radix-sorted by the group-by columns ({@link Merge#sort}), each sorted chunk emits one row
+ * per run of equal keys, and only the runs crossing a chunk boundary are stitched on the caller node.</p>
+ *
+ * <p>Supports the same group-by columns as {@link PrimitiveGroupBy} and groups them the same way: NAs form one group,
+ * and so do -0.0 and 0.0 (the sorted chunks do not keep the sign of zeros).  Median and mode are not supported.</p>
+ */
+class SortGroupBy {
+
+  static final boolean ENABLED = H2O.getSysBoolProperty("rapids.groupby.sort", true);
+
+  // Estimated number of groups from which the group-by sorts the rows
+  static final long MIN_GROUPS = Long.parseLong(H2O.getSysProperty("rapids.groupby.sort.min_groups", "1000000"));
+
+  static boolean isSupported(Frame fr, int[] gbCols, AstGroup.AGG[] aggs) {
+    if (!ENABLED || gbCols.length == 0 || !PrimitiveGroupBy.isSupported(fr, gbCols, aggs)) return false;
+    for (AstGroup.AGG agg : aggs)
+      if (agg._fcn == AstGroup.FCN.mode) return false;
+    return true;
+  }
+
+  /** Whether there is enough groups for sorting to be cheaper than hashing */
+  static boolean isPreferred(Frame fr, int[] gbCols) {
+    return estimateGroups(fr, gbCols, MIN_GROUPS) >= MIN_GROUPS;
+  }
+
+  /**
+   * Estimated number of groups.  The exact bound given by the ranges of integer columns is used when it is under the
+   * given limit, otherwise the groups are counted by a HyperLogLog sketch of the keys.
+   */
+  static long estimateGroups(Frame fr, int[] gbCols, long limit) {
+    long bound = 1;
+    for (int col : gbCols) {
+      Vec v = fr.vec(col);
+      if (!(v.isCategorical() || v.isInt()) || bound >= limit) { bound = Long.MAX_VALUE; break; }
+      long values = v.naCnt() == v.length() ? 1 : (long) (v.max() - v.min()) + 2; // Values plus the NA
+      bound = values > limit ? Long.MAX_VALUE : bound * values;
+    }
+    bound = Math.min(bound, fr.numRows());
+    if (bound < limit) return bound;
+    return new CountGroupsTask(gbCols, PrimitiveGroupBy.KeyCodec.make(fr, gbCols)).doAll(fr).estimate();
+  }
+
+  /**
+   * Groups the rows of the frame by the given columns and computes the aggregates.
+   * @return one row per group, ordered by the group-by columns, NAs first
+   */
+  static Frame groupBy(Frame fr, int[] gbCols, AstGroup.AGG[] aggs, String[] aggNames) {
+    long start = System.currentTimeMillis();
+    // Sort only the columns needed, aggregates refer to the columns of the sorted frame
+    int[] cols = new int[0];
+    for (int col : gbCols) if (ArrayUtils.find(cols, col) < 0) cols = ArrayUtils.append(cols, col);
+    int[] sortCols = ArrayUtils.seq(0, cols.length);
+    for (AstGroup.AGG agg : aggs) if (ArrayUtils.find(cols, agg._col) < 0) cols = ArrayUtils.append(cols, agg._col);
+    int[] keyCols = new int[gbCols.length];
+    for (int c = 0; c < gbCols.length; c++) keyCols[c] = ArrayUtils.find(cols, gbCols[c]);
+    AstGroup.AGG[] sortedAggs = new AstGroup.AGG[aggs.length];
+    for (int a = 0; a < aggs.length; a++)
+      sortedAggs[a] = new AstGroup.AGG(aggs[a]._fcn, ArrayUtils.find(cols, aggs[a]._col), aggs[a]._na, aggs[a]._maxx);
+
+    Frame sorted = Merge.sort(new Frame(ArrayUtils.select(fr.names(), cols), fr.vecs(cols)), sortCols);
+    try {
+      Frame res = groupBySorted(sorted, keyCols, sortedAggs, aggNames);
+      Log.info("Sort Group By Task done in " + (System.currentTimeMillis() - start) / 1000. + " (s), " +
+              res.numRows() + " groups");
+      return res;
+    } finally {
+      sorted.delete();
+    }
+  }
+
+  /** Group-by of a frame already sorted by the group-by columns */
+  static Frame groupBySorted(Frame sorted, int[] keyCols, AstGroup.AGG[] aggs, String[] aggNames) {
+    RunsTask rt = new RunsTask(keyCols, aggs).doAll(runsTypes(keyCols.length, aggs), sorted);
+    Frame runs = rt.outputFrame();
+    try {
+      FillTask fill = new FillTask(keyCols.length, aggs, rt.stitch(runs)).doAll(outputTypes(sorted, keyCols, aggs), runs);
+      return output(sorted, keyCols, aggNames, fill);
+    } finally {
+      runs.delete();
+    }
+  }
+
+  private static byte[] runsTypes(int nkeys, AstGroup.AGG[] aggs) {
+    byte[] types = new byte[nkeys + stateWidth(aggs) + aggs.length];
+    Arrays.fill(types, Vec.T_NUM);
+    return types;
+  }
+
+  private static int stateWidth(AstGroup.AGG[] aggs) {
+    int w = 0;
+    for (AstGroup.AGG agg : aggs) w += agg.initVal().length;
+    return w;
+  }
+
+  private static byte[] outputTypes(Frame fr, int[] gbCols, AstGroup.AGG[] aggs) {
+    byte[] types = new byte[gbCols.length + aggs.length];
+    Arrays.fill(types, Vec.T_NUM);
+    for (int c = 0; c < gbCols.length; c++) types[c] = fr.vec(gbCols[c]).get_type();
+    return types;
+  }
+
+  // Same names and domains as AstGroup.buildOutput
+  private static Frame output(Frame fr, int[] gbCols, String[] aggNames, FillTask fill) {
+    String[] names = new String[gbCols.length + aggNames.length];
+    String[][] domains = new String[names.length][];
+    for (int c = 0; c < gbCols.length; c++) {
+      names[c] = fr.name(gbCols[c]);
+      domains[c] = fr.vec(gbCols[c]).domain();
+    }
+    System.arraycopy(aggNames, 0, names, gbCols.length, aggNames.length);
+    return fill.outputFrame(names, domains);
+  }
+
+  private static boolean sameKey(double d1, double d2) {
+    return d1 == d2 || (Double.isNaN(d1) && Double.isNaN(d2));
+  }
+
+  // --------------------------------------------------------------------------
+  // Emits a row per run of equal keys of each sorted chunk: the key, the raw
+  // aggregate states and the row counts.  Runs crossing chunk boundaries are
+  // stitched afterwards, the first and last keys of each chunk are kept for it.
+  private static class RunsTask extends MRTask<RunsTask> {
+    final int[] _keyCols;
+    final AstGroup.AGG[] _aggs;
+    long[] _nruns;          // Per chunk
+    double[][] _firstKeys;  // Per chunk
+    double[][] _lastKeys;
+
+    RunsTask(int[] keyCols, AstGroup.AGG[] aggs) {
+      _keyCols = keyCols;
+      _aggs = aggs;
+    }
+
+    @Override
+    public void setupLocal() {
+      int nchunks = _fr.anyVec().nChunks();
+      _nruns = new long[nchunks];
+      _firstKeys = new double[nchunks][];
+      _lastKeys = new double[nchunks][];
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      int len = cs[0]._len;
+      if (len == 0) return;
+      int nkeys = _keyCols.length;
+      double[][] keys = new double[nkeys][];
+      for (int c = 0; c < nkeys; c++)
+        keys[c] = cs[_keyCols[c]].getDoubles(MemoryManager.malloc8d(len), 0, len);
+      double[][] vals = new double[_aggs.length][];
+      for (int a = 0; a < _aggs.length; a++)
+        vals[a] = cs[_aggs[a]._col].getDoubles(MemoryManager.malloc8d(len), 0, len);
+      int[] stateLen = new int[_aggs.length];
+      double[][] states = new double[_aggs.length][];
+      for (int a = 0; a < _aggs.length; a++) {
+        stateLen[a] = _aggs[a].initVal().length;
+        states[a] = new double[stateLen[a]];
+      }
+      long[] ns = new long[_aggs.length];
+      long nruns = 0;
+      for (int start = 0, end; start < len; start = end) {
+        end = start + 1;
+        while (end < len && sameRow(keys, start, end)) end++;
+        for (int a = 0; a < _aggs.length; a++) {
+          AstGroup.FCN fcn = _aggs[a]._fcn;
+          Arrays.fill(states[a], 0);
+          PrimitiveGroupBy.init(fcn, states[a], 0);
+          ns[a] = 0;
+          for (int row = start; row < end; row++) {
+            double d = vals[a][row];
+            // Same NA handling as AGG.op
+            if (!Double.isNaN(d) || _aggs[a]._na == AstGroup.NAHandling.ALL) PrimitiveGroupBy.op(fcn, states[a], 0, d);
+            if (!Double.isNaN(d) || _aggs[a]._na == AstGroup.NAHandling.IGNORE) ns[a]++;
+          }
+        }
+        int c = 0;
+        for (int k = 0; k < nkeys; k++) ncs[c++].addNum(keys[k][start]);
+        for (int a = 0; a < _aggs.length; a++)
+          for (int i = 0; i < stateLen[a]; i++) ncs[c++].addNum(states[a][i]);
+        for (int a = 0; a < _aggs.length; a++) ncs[c++].addNum(ns[a]);
+        nruns++;
+      }
+      int cidx = cs[0].cidx();
+      _nruns[cidx] = nruns;
+      _firstKeys[cidx] = new double[nkeys];
+      _lastKeys[cidx] = new double[nkeys];
+      for (int k = 0; k < nkeys; k++) {
+        _firstKeys[cidx][k] = keys[k][0];
+        _lastKeys[cidx][k] = keys[k][len - 1];
+      }
+    }
+
+    private static boolean sameRow(double[][] keys, int r1, int r2) {
+      for (double[] k : keys)
+        if (!SortGroupBy.sameKey(k[r1], k[r2])) return false;
+      return true;
+    }
+
+    @Override
+    public void reduce(RunsTask that) {
+      if (_nruns == that._nruns) return; // Same node
+      for (int i = 0; i < _nruns.length; i++) {
+        if (that._firstKeys[i] == null) continue;
+        _nruns[i] = that._nruns[i];
+        _firstKeys[i] = that._firstKeys[i];
+        _lastKeys[i] = that._lastKeys[i];
+      }
+    }
+
+    /**
+     * Merges the first run of each chunk into the last run of the previous non-empty chunk when they have the same
+     * key.  The runs are visited in order, so a run spanning several chunks is merged into the run of its first chunk.
+     */
+    Stitches stitch(Frame runs) {
+      int nkeys = _keyCols.length;
+      int width = runs.numCols() - nkeys;
+      long[] dropped = new long[0];
+      long[] patched = new long[0];
+      double[][] patches = new double[0][];
+      long row = 0;           // First run of the current chunk
+      long target = -1;       // Last run of the previous non-empty chunk
+      double[] targetKey = null;
+      for (int i = 0; i < _nruns.length; i++) {
+        if (_nruns[i] == 0) continue;
+        if (targetKey != null && sameKey(targetKey, _firstKeys[i])) {
+          int p = Arrays.binarySearch(patched, target);
+          if (p < 0) {
+            p = patched.length;
+            patched = ArrayUtils.append(patched, new long[]{target});
+            patches = ArrayUtils.append(patches, new double[][]{rowValues(runs, nkeys, target)});
+          }
+          double[] that = rowValues(runs, nkeys, row);
+          int off = 0;
+          for (AstGroup.AGG agg : _aggs) {
+            int len = agg.initVal().length;
+            PrimitiveGroupBy.combine(agg._fcn, patches[p], off, that, off, len);
+            off += len;
+          }
+          for (int j = off; j < width; j++) patches[p][j] += that[j]; // Row counts
+          dropped = ArrayUtils.append(dropped, new long[]{row});
+          if (_nruns[i] > 1) target = row + _nruns[i] - 1;
+        } else
+          target = row + _nruns[i] - 1;
+        targetKey = _lastKeys[i];
+        row += _nruns[i];
+      }
+      return new Stitches(dropped, patched, patches);
+    }
+
+    private static boolean sameKey(double[] k1, double[] k2) {
+      for (int k = 0; k < k1.length; k++)
+        if (!SortGroupBy.sameKey(k1[k], k2[k])) return false;
+      return true;
+    }
+
+    private static double[] rowValues(Frame runs, int nkeys, long row) {
+      double[] vals = new double[runs.numCols() - nkeys];
+      for (int j = 0; j < vals.length; j++) vals[j] = runs.vec(nkeys + j).at(row);
+      return vals;
+    }
+  }
+
+  // Runs merged into a previous run, and the merged values of the runs they were merged into
+  private static class Stitches extends Iced<Stitches> {
+    final long[] _dropped;     // Sorted
+    final long[] _patched;     // Sorted
+    final double[][] _patches; // States and row counts of the patched runs
+
+    Stitches(long[] dropped, long[] patched, double[][] patches) {
+      _dropped = dropped;
+      _patched = patched;
+      _patches = patches;
+    }
+  }
+
+  // Writes the groups: group-by columns followed by the aggregates
+  private static class FillTask extends MRTask<FillTask> {
+    final int _nkeys;
+    final AstGroup.AGG[] _aggs;
+    final Stitches _stitches;
+
+    FillTask(int nkeys, AstGroup.AGG[] aggs, Stitches stitches) {
+      _nkeys = nkeys;
+      _aggs = aggs;
+      _stitches = stitches;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      long start = cs[0].start();
+      double[] buf = new double[cs.length - _nkeys];
+      double[][] states = new double[_aggs.length][];
+      for (int a = 0; a < _aggs.length; a++)
+        states[a] = new double[_aggs[a].initVal().length];
+      for (int i = 0; i < cs[0]._len; i++) {
+        long row = start + i;
+        if (Arrays.binarySearch(_stitches._dropped, row) >= 0) continue;
+        int p = Arrays.binarySearch(_stitches._patched, row);
+        double[] vals = p >= 0 ? _stitches._patches[p] : buf;
+        if (p < 0)
+          for (int j = 0; j < vals.length; j++) vals[j] = cs[_nkeys + j].atd(i);
+        for (int k = 0; k < _nkeys; k++) ncs[k].addNum(cs[k].atd(i));
+        int off = 0, nOff = vals.length - _aggs.length;
+        for (int a = 0; a < _aggs.length; a++) {
+          System.arraycopy(vals, off, states[a], 0, states[a].length);
+          off += states[a].length;
+          ncs[_nkeys + a].addNum(_aggs[a]._fcn.postPass(states[a], (long) vals[nOff + a]));
+        }
+      }
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // HyperLogLog sketch of the group-by keys
+  private static class CountGroupsTask extends MRTask<CountGroupsTask> {
+    private static final int P = 12;
+    private static final int M = 1 << P;
+    final int[] _gbCols;
+    final PrimitiveGroupBy.KeyCodec _codec;
+    byte[] _registers;
+
+    CountGroupsTask(int[] gbCols, PrimitiveGroupBy.KeyCodec codec) {
+      _gbCols = gbCols;
+      _codec = codec;
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      int len = cs[0]._len;
+      double[][] gbVals = new double[_gbCols.length][];
+      for (int c = 0; c < gbVals.length; c++)
+        gbVals[c] = cs[_gbCols[c]].getDoubles(MemoryManager.malloc8d(len), 0, len);
+      _registers = new byte[M];
+      long[] key = new long[_codec.width()];
+      for (int row = 0; row < len; row++) {
+        _codec.encode(gbVals, row, key);
+        long h = PrimitiveGroupBy.hash(key, 0, key.length);
+        int r = (int) (h >>> (64 - P));
+        byte rank = (byte) (Long.numberOfLeadingZeros((h << P) | (1L << (P - 1))) + 1);
+        if (rank > _registers[r]) _registers[r] = rank;
+      }
+    }
+
+    @Override
+    public void reduce(CountGroupsTask that) {
+      if (_registers == null) { _registers = that._registers; return; }
+      if (that._registers == null) return;
+      for (int i = 0; i < M; i++)
+        if (that._registers[i] > _registers[i]) _registers[i] = that._registers[i];
+    }
+
+    long estimate() {
+      if (_registers == null) return 0;
+      double sum = 0;
+      int zeros = 0;
+      for (byte r : _registers) {
+        sum += Math.pow(2, -r);
+        if (r == 0) zeros++;
+      }
+      double est = 0.7213 / (1 + 1.079 / M) * M * M / sum;
+      if (est <= 2.5 * M && zeros > 0) est = M * Math.log((double) M / zeros); // Linear counting for small counts
+      return Math.round(est);
+    }
+  }
+
+}
@@ -0,0 +1,70 @@
+package water.rapids.ast.prims.timeseries;
+
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.rapids.Env;
+import water.rapids.ast.AstParameter;
+import water.rapids.ast.AstRoot;
+import water.rapids.vals.ValFrame;
+
+/**
+ * Value of a column {@code k} rows before (lag) or, for a negative {@code k}, after (lead) each row of the same
+ * partition, in the order of the order-by columns; NA when there is no such row.
+ * <p/>
+ * Returns the frame sorted by the partition-by and order-by columns, with the lagged column appended.
+ */
+public class AstLag extends AstWindow {
+
+  @Override
+  public String[] args() {
+    return new String[]{"ary", "partition_by", "order_by", "col", "k"};
+  }
+
+  @Override
+  public int nargs() {
+    return 1 + 5;
+  } // (lag ary [partition-by] [order-by] col k)
+
+  @Override
+  public String str() {
+    return "lag";
+  }
+
+  @Override
+  public ValFrame apply(Env env, Env.StackHelp stk, AstRoot asts[]) {
+    Frame fr = stk.track(asts[1].exec(env)).getFrame();
+    int[] partCols = checkColumns(fr, ((AstParameter) asts[2]).columns(fr.names()), "partition-by");
+    int[] orderCols = checkColumns(fr, ((AstParameter) asts[3]).columns(fr.names()), "order-by");
+    int[] col = ((AstParameter) asts[4]).columns(fr.names());
+    if (col.length != 1)
+      throw new IllegalArgumentException("Expected a single column to lag. Got: " + col.length + " columns.");
+    if (!fr.vec(col[0]).isNumeric())
+      throw new IllegalArgumentException("Expected a numeric column to lag. Got: " + fr.vec(col[0]).get_type_str());
+    double k = asts[5].exec(env).getNum();
+    if (k != (int) k || k == 0)
+      throw new IllegalArgumentException("Lag must be a non-zero integer. Got: " + k);
+    String name = (k > 0 ? "lag" : "lead") + Math.abs((int) k) + "_" + fr.name(col[0]);
+    return new ValFrame(window(fr, partCols, orderCols, col[0], new LagWindow((int) k), name));
+  }
+
+  static class LagWindow extends Window {
+    final int _k;
+
+    LagWindow(int k) { _k = k; }
+
+    @Override
+    long rowsBefore() { return Math.max(_k, 0); }
+
+    @Override
+    long rowsAfter() { return Math.max(-_k, 0); }
+
+    @Override
+    void compute(int[] part, double[] order, double[] vals, int lo, int hi, NewChunk nc) {
+      for (int i = lo; i < hi; i++) {
+        int j = i - _k;
+        if (j >= 0 && j < vals.length && part[j] == part[i]) nc.addNum(vals[j]);
+        else nc.addNA();
+      }
+    }
+  }
+}
@@ -0,0 +1,198 @@
+package water.rapids.ast.prims.timeseries;
+
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.rapids.Env;
+import water.rapids.ast.AstParameter;
+import water.rapids.ast.AstRoot;
+import water.rapids.vals.ValFrame;
+
+/**
+ * Rolling aggregate of a column over a trailing window, per partition, in the order of the order-by columns.
+ * The window of a row is either its {@code width} last rows, or, for range windows, the rows up to it whose first
+ * order-by value is within {@code width} of its own (milliseconds for time columns).  NAs are skipped, windows
+ * without any value give NA.
+ * <p/>
+ * Returns the frame sorted by the partition-by and order-by columns, with the aggregate column appended.
+ */
+public class AstRolling extends AstWindow {
+
+  enum Fun {count, sum, mean, min, max, sd}
+
+  @Override
+  public String[] args() {
+    return new String[]{"ary", "partition_by", "order_by", "fun", "col", "width", "range"};
+  }
+
+  @Override
+  public int nargs() {
+    return 1 + 7;
+  } // (rolling ary [partition-by] [order-by] fun col width range)
+
+  @Override
+  public String str() {
+    return "rolling";
+  }
+
+  @Override
+  public ValFrame apply(Env env, Env.StackHelp stk, AstRoot asts[]) {
+    Frame fr = stk.track(asts[1].exec(env)).getFrame();
+    int[] partCols = checkColumns(fr, ((AstParameter) asts[2]).columns(fr.names()), "partition-by");
+    int[] orderCols = checkColumns(fr, ((AstParameter) asts[3]).columns(fr.names()), "order-by");
+    String funName = asts[4].exec(env).getStr();
+    Fun fun;
+    try {
+      fun = Fun.valueOf(funName);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Unknown rolling function: " + funName);
+    }
+    int[] col = ((AstParameter) asts[5]).columns(fr.names());
+    if (col.length != 1)
+      throw new IllegalArgumentException("Expected a single column to aggregate. Got: " + col.length + " columns.");
+    if (!fr.vec(col[0]).isNumeric())
+      throw new IllegalArgumentException("Expected a numeric column to aggregate. Got: " + fr.vec(col[0]).get_type_str());
+    double width = asts[6].exec(env).getNum();
+    boolean range = asts[7].exec(env).getNum() == 1;
+    if (!(width > 0) || (!range && width != (long) width))
+      throw new IllegalArgumentException("Window width must be a positive " + (range ? "number" : "integer") + ". Got: " + width);
+    RollingWindow w = new RollingWindow(fun, range ? 0 : (long) width, range ? width : Double.NaN);
+    return new ValFrame(window(fr, partCols, orderCols, col[0], w, fun + "_" + fr.name(col[0])));
+  }
+
+  static class RollingWindow extends Window {
+    final Fun _fun;
+    final long _rows;
+    final double _range;
+
+    RollingWindow(Fun fun, long rows, double range) {
+      _fun = fun;
+      _rows = rows;
+      _range = range;
+    }
+
+    @Override
+    long rowsBefore() { return Double.isNaN(_range) ? _rows - 1 : 0; }
+
+    @Override
+    double rangeBefore() { return _range; }
+
+    @Override
+    void compute(int[] part, double[] order, double[] vals, int lo, int hi, NewChunk nc) {
+      // Moments of the values in the window, and a monotonic deque of the indices of the window extremum
+      Moments m = new Moments();
+      int[] deque = new int[hi];
+      int head = 0, tail = 0;
+      boolean range = order != null;
+      for (int i = 0, s = 0; i < hi; i++) {
+        double d = vals[i];
+        m.add(d);
+        if (range && Double.isNaN(order[i])) { // Not in any window
+          if (i >= lo) nc.addNA();
+          continue;
+        }
+        // First row of the window; only moves forward
+        if (range) {
+          while (s < i && (part[s] != part[i] || !(order[s] > order[i] - _range))) m.remove(vals[s++]);
+        } else {
+          while (s < i - _rows + 1 || part[s] != part[i]) m.remove(vals[s++]);
+        }
+        if (!Double.isNaN(d) && (_fun == Fun.min || _fun == Fun.max)) {
+          while (tail > head && (_fun == Fun.min ? vals[deque[tail - 1]] >= d : vals[deque[tail - 1]] <= d)) tail--;
+          deque[tail++] = i;
+        }
+        while (tail > head && deque[head] < s) head++;
+        if (i < lo) continue;
+        long n = m._n;
+        switch (_fun) {
+          case count: nc.addNum(n); break;
+          case sum: if (n == 0) nc.addNA(); else nc.addNum(m.sum()); break;
+          case mean: if (n == 0) nc.addNA(); else nc.addNum(m.sum() / n); break;
+          case min:
+          case max: if (tail == head) nc.addNA(); else nc.addNum(vals[deque[head]]); break;
+          case sd:
+            if (n < 2) { nc.addNA(); break; }
+            if (m._updates > 2 * n + 16) m.recenter(vals, s, i); // Amortized over the updates
+            nc.addNum(Math.sqrt(Math.max(0, m.variance())));
+            break;
+          default: throw new IllegalStateException("Unknown rolling function " + _fun);
+        }
+      }
+    }
+  }
+
+  // Count, sum and variance of the non-NA values entering and leaving the window.  Prefix sums of the values and
+  // their squares would cancel out for values far from 0: the sums are compensated, and the variance is computed from
+  // the values shifted by an estimate of their mean, re-estimated from time to time as the window moves along.
+  private static class Moments {
+    long _n;
+    final Sum _sum = new Sum();   // Sum of the values
+    double _shift;
+    final Sum _dev = new Sum();   // Sums of the shifted values and of their squares
+    final Sum _dev2 = new Sum();
+    long _updates;                // Since the shift was chosen
+
+    double sum() { return _sum.value(); }
+
+    double variance() {
+      double dev = _dev.value();
+      return (_dev2.value() - dev * dev / _n) / (_n - 1);
+    }
+
+    void add(double d) {
+      if (Double.isNaN(d)) return;
+      if (_n++ == 0) shift(d);
+      _sum.add(d);
+      double x = d - _shift;
+      _dev.add(x);
+      _dev2.add(x * x);
+      _updates++;
+    }
+
+    void remove(double d) {
+      if (Double.isNaN(d)) return;
+      if (--_n == 0) { // Don't carry rounding errors over to the next window
+        _sum.clear();
+        shift(0);
+        return;
+      }
+      _sum.add(-d);
+      double x = d - _shift;
+      _dev.add(-x);
+      _dev2.add(-x * x);
+      _updates++;
+    }
+
+    // Shifts by the mean of the window values[s..i], the values held
+    void recenter(double[] vals, int s, int i) {
+      shift(_shift + _dev.value() / _n);
+      for (int j = s; j <= i; j++) {
+        if (Double.isNaN(vals[j])) continue;
+        double x = vals[j] - _shift;
+        _dev.add(x);
+        _dev2.add(x * x);
+      }
+    }
+
+    private void shift(double shift) {
+      _shift = shift;
+      _dev.clear();
+      _dev2.clear();
+      _updates = 0;
+    }
+  }
+
+  // Neumaier's compensated sum
+  private static class Sum {
+    double _sum, _comp;
+
+    double value() { return _sum + _comp; }
+
+    void add(double d) {
+      double t = _sum + d;
+      _comp += Math.abs(_sum) >= Math.abs(d) ? (_sum - t) + d : (d - t) + _sum;
+      _sum = t;
+    }
+
+    void clear() { _sum = _comp = 0; }
+  }
+}
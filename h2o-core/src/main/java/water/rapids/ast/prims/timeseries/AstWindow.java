@@ -0,0 +1,334 @@
+package water.rapids.ast.prims.timeseries;
+
+import water.DKV;
+import water.H2O;
+import water.H2ONode;
+import water.Iced;
+import water.Key;
+import water.MRTask;
+import water.MemoryManager;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.rapids.Merge;
+import water.rapids.ast.AstPrimitive;
+import water.util.ArrayUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Base of the window functions: functions of a column evaluated, for each row, over the neighboring rows of the same
+ * partition, in the order of the order-by columns.
+ *
+ * <p>The frame is radix-sorted by the partition-by and order-by columns ({@link Merge#sort}), so the rows of a
+ * partition are consecutive and each chunk can be processed on its own, provided it also sees the few rows of the
+ * neighboring chunks its windows reach into.  In a first pass every chunk gives away its first and last rows to the
+ * chunks whose windows cover them: each of these halos is put in the DKV under a key homed on the node of the
+ * receiving chunk, so rows only travel between neighboring chunks.  The result is the sorted frame with the window
+ * column appended.</p>
+ */
+public abstract class AstWindow extends AstPrimitive {
+
+  /**
+   * Extent of the windows and the function evaluated over them.
+   */
+  abstract static class Window extends Iced<Window> {
+    /** Number of rows before the current row the windows can reach */
+    long rowsBefore() { return 0; }
+
+    /** Range of order-by values before the current row the windows reach, NaN if the windows are not ranges */
+    double rangeBefore() { return Double.NaN; }
+
+    /** Number of rows after the current row the windows can reach */
+    long rowsAfter() { return 0; }
+
+    /**
+     * Computes the rows {@code [lo, hi)} of a block of consecutive rows; {@code part} numbers the partitions of the
+     * rows, {@code order} holds the first order-by column when the windows are ranges.
+     */
+    abstract void compute(int[] part, double[] order, double[] vals, int lo, int hi, NewChunk nc);
+  }
+
+  static int[] checkColumns(Frame fr, int[] cols, String what) {
+    for (int col : cols) {
+      if (col < 0 || col >= fr.numCols())
+        throw new IllegalArgumentException("Column " + col + " is out of range of " + fr.numCols());
+      Vec v = fr.vec(col);
+      if (!(v.isNumeric() || v.isCategorical() || v.isTime()))
+        throw new IllegalArgumentException("Expected numeric, categorical or time " + what + " columns. Got: " +
+                v.get_type_str() + " column " + fr.name(col));
+    }
+    return cols;
+  }
+
+  /**
+   * Sorts the frame by the partition-by and order-by columns, and appends the window function of the given column.
+   */
+  static Frame window(Frame fr, int[] partCols, int[] orderCols, int valCol, Window w, String name) {
+    boolean range = !Double.isNaN(w.rangeBefore());
+    if (range && orderCols.length == 0)
+      throw new IllegalArgumentException("Range windows need an order-by column");
+    int[] sortCols = ArrayUtils.append(partCols, orderCols);
+    Frame sorted = sortCols.length == 0 ? new Frame(fr) : Merge.sort(fr, sortCols);
+    // Columns the windows need: partition keys, then the order-by values of range windows, then the values
+    int[] cols = partCols;
+    if (range) cols = ArrayUtils.append(cols, new int[]{orderCols[0]});
+    cols = ArrayUtils.append(cols, new int[]{valCol});
+    Frame needed = new Frame(sorted.vecs(cols));
+    BoundsTask bounds = new BoundsTask(partCols.length, range).doAll(needed);
+    String haloPrefix = "__window_halo_" + Key.rand();
+    long[] espc = needed.anyVec().espc();
+    Vec res = null;
+    try {
+      new HaloTask(w, bounds, espc, haloPrefix).doAll(needed);
+      res = new WindowTask(w, partCols.length, range, espc, haloPrefix).doAll(Vec.T_NUM, needed).outputFrame().anyVec();
+    } finally {
+      if (res == null) // The halos are only all consumed by a successful WindowTask
+        new RemoveHalosTask(haloPrefix).doAllNodes();
+    }
+    sorted.add(name, res);
+    return sorted;
+  }
+
+  private static boolean sameKey(double[][] keys1, int r1, double[][] keys2, int r2) {
+    for (int k = 0; k < keys1.length; k++) {
+      double d1 = keys1[k][r1], d2 = keys2[k][r2];
+      if (d1 != d2 && !(Double.isNaN(d1) && Double.isNaN(d2))) return false;
+    }
+    return true;
+  }
+
+  private static double[][] readRows(Chunk[] cs) {
+    int len = cs[0]._len;
+    double[][] cols = new double[cs.length][];
+    for (int c = 0; c < cs.length; c++)
+      cols[c] = cs[c].getDoubles(MemoryManager.malloc8d(len), 0, len);
+    return cols;
+  }
+
+  // --------------------------------------------------------------------------
+  // Partition keys of the first and last row of each chunk, order-by value of
+  // the first row
+  private static class BoundsTask extends MRTask<BoundsTask> {
+    final int _nkeys;
+    final boolean _range;
+    double[][][] _first;  // Per chunk, keys as single-row columns
+    double[][][] _last;
+    double[] _firstOrder;
+
+    BoundsTask(int nkeys, boolean range) {
+      _nkeys = nkeys;
+      _range = range;
+    }
+
+    @Override
+    public void setupLocal() {
+      int nchunks = _fr.anyVec().nChunks();
+      _first = new double[nchunks][][];
+      _last = new double[nchunks][][];
+      _firstOrder = new double[nchunks];
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      int len = cs[0]._len, cidx = cs[0].cidx();
+      if (len == 0) return;
+      _first[cidx] = new double[_nkeys][];
+      _last[cidx] = new double[_nkeys][];
+      for (int k = 0; k < _nkeys; k++) {
+        _first[cidx][k] = new double[]{cs[k].atd(0)};
+        _last[cidx][k] = new double[]{cs[k].atd(len - 1)};
+      }
+      if (_range) _firstOrder[cidx] = cs[_nkeys].atd(0);
+    }
+
+    @Override
+    public void reduce(BoundsTask that) {
+      if (_first == that._first) return; // Same node
+      for (int i = 0; i < _first.length; i++) {
+        if (that._first[i] == null) continue;
+        _first[i] = that._first[i];
+        _last[i] = that._last[i];
+        _firstOrder[i] = that._firstOrder[i];
+      }
+    }
+  }
+
+  // Rows of the giving chunk in the halo of the receiving chunk, homed on the node of the receiving chunk
+  private static Key haloKey(String prefix, int giver, int receiver, H2ONode home) {
+    return Key.make(prefix + "_" + receiver + "_" + giver, (byte) 1, Key.HIDDEN_USER_KEY, false, home);
+  }
+
+  private static class Halo extends Iced<Halo> {
+    final double[][] _rows;
+    Halo(double[][] rows) { _rows = rows; }
+  }
+
+  // --------------------------------------------------------------------------
+  // Halo exchange: each chunk gives its last rows to the following chunks
+  // whose windows reach back into it, and its first rows to the preceding
+  // chunks whose windows reach forward into it.  Rows of other partitions
+  // than the first (last) row of the receiving chunk are never given.  If a
+  // chunk gives nothing to a receiving chunk, the chunks further away don't
+  // either: the receiving chunks rely on this to find their halos.
+  private static class HaloTask extends MRTask<HaloTask> {
+    final Window _w;
+    final int _nkeys;
+    final boolean _range;
+    final double[][][] _first;
+    final double[][][] _last;
+    final double[] _firstOrder;
+    final long[] _espc;
+    final String _haloPrefix;
+
+    HaloTask(Window w, BoundsTask bounds, long[] espc, String haloPrefix) {
+      _w = w;
+      _nkeys = bounds._nkeys;
+      _range = bounds._range;
+      _first = bounds._first;
+      _last = bounds._last;
+      _firstOrder = bounds._firstOrder;
+      _espc = espc;
+      _haloPrefix = haloPrefix;
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      int len = cs[0]._len, j = cs[0].cidx();
+      if (len == 0) return;
+      double[][] rows = readRows(cs);
+      double[][] keys = Arrays.copyOf(rows, _nkeys);
+      long start = _espc[j];
+      // Last rows, to the windows of the following chunks
+      for (int c = j + 1; c < _espc.length - 1 && (_w.rowsBefore() > 0 || _range); c++) {
+        if (_first[c] == null) continue;
+        int from = len;
+        while (from > 0 && sameKey(keys, from - 1, _first[c], 0)) from--;
+        if (_range) {
+          double lo = _firstOrder[c] - _w.rangeBefore();
+          double[] order = rows[_nkeys];
+          int f = len;
+          while (f > from && order[f - 1] > lo) f--;
+          from = f;
+        } else
+          from = (int) Math.max(from, Math.min(len, _espc[c] - _w.rowsBefore() - start));
+        if (from == len) break;
+        give(j, c, slice(rows, from, len));
+      }
+      // First rows, to the windows of the preceding chunks
+      for (int c = j - 1; c >= 0 && _w.rowsAfter() > 0; c--) {
+        if (_last[c] == null) continue;
+        int to = 0;
+        while (to < len && sameKey(keys, to, _last[c], 0)) to++;
+        to = (int) Math.min(to, Math.max(0, _espc[c + 1] + _w.rowsAfter() - start));
+        if (to == 0) break;
+        give(j, c, slice(rows, 0, to));
+      }
+    }
+
+    private void give(int giver, int receiver, double[][] rows) {
+      H2ONode home = _fr.anyVec().chunkKey(receiver).home_node();
+      DKV.put(haloKey(_haloPrefix, giver, receiver, home), new Halo(rows), _fs);
+    }
+
+    private static double[][] slice(double[][] rows, int from, int to) {
+      double[][] res = new double[rows.length][];
+      for (int c = 0; c < rows.length; c++)
+        res[c] = Arrays.copyOfRange(rows[c], from, to);
+      return res;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Removes the halos left behind by a failed evaluation from every node
+  private static class RemoveHalosTask extends MRTask<RemoveHalosTask> {
+    final String _haloPrefix;
+
+    RemoveHalosTask(String haloPrefix) {
+      _haloPrefix = haloPrefix;
+    }
+
+    @Override
+    public void setupLocal() {
+      for (Key key : H2O.localKeySet())
+        if (key.toString().contains(_haloPrefix)) // Names of keys with a home node are prefixed
+          DKV.remove(key, _fs);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Evaluates the windows of each chunk over its rows surrounded by its halo
+  private static class WindowTask extends MRTask<WindowTask> {
+    final Window _w;
+    final int _nkeys;
+    final boolean _range;
+    final long[] _espc;
+    final String _haloPrefix;
+
+    WindowTask(Window w, int nkeys, boolean range, long[] espc, String haloPrefix) {
+      _w = w;
+      _nkeys = nkeys;
+      _range = range;
+      _espc = espc;
+      _haloPrefix = haloPrefix;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk nc) {
+      int cidx = cs[0].cidx();
+      if (cs[0]._len == 0) return;
+      // The halos of this chunk are homed on this node, they are removed once read
+      List<double[][]> segments = new ArrayList<>();
+      for (int j = cidx - 1; j >= 0 && takeHalo(j, cidx, segments); j--) ;
+      Collections.reverse(segments);
+      int lo = length(segments);
+      segments.add(readRows(cs));
+      int hi = length(segments);
+      for (int j = cidx + 1; j < _espc.length - 1 && takeHalo(j, cidx, segments); j++) ;
+      double[][] rows = concat(segments, cs.length);
+      double[][] keys = Arrays.copyOf(rows, _nkeys);
+      int n = rows[0].length;
+      int[] part = new int[n];
+      for (int i = 1; i < n; i++)
+        part[i] = part[i - 1] + (sameKey(keys, i - 1, keys, i) ? 0 : 1);
+      _w.compute(part, _range ? rows[_nkeys] : null, rows[rows.length - 1], lo, hi, nc);
+    }
+
+    // Adds the halo given by a chunk to the segments, false when a non-empty chunk gave none
+    private boolean takeHalo(int giver, int receiver, List<double[][]> segments) {
+      if (_espc[giver] == _espc[giver + 1]) return true; // Empty chunks give nothing, look further
+      Key key = haloKey(_haloPrefix, giver, receiver, _fr.anyVec().chunkKey(receiver).home_node());
+      Halo halo = DKV.getGet(key);
+      if (halo == null) return false;
+      DKV.remove(key, _fs);
+      segments.add(halo._rows);
+      return true;
+    }
+
+    private static int length(List<double[][]> segments) {
+      int n = 0;
+      for (double[][] seg : segments) n += seg[0].length;
+      return n;
+    }
+
+    private static double[][] concat(List<double[][]> segments, int ncols) {
+      if (segments.size() == 1) return segments.get(0);
+      int n = length(segments);
+      double[][] res = new double[ncols][];
+      for (int c = 0; c < ncols; c++) {
+        res[c] = MemoryManager.malloc8d(n);
+        int off = 0;
+        for (double[][] seg : segments) {
+          System.arraycopy(seg[c], 0, res[c], off, seg[c].length);
+          off += seg[c].length;
+        }
+      }
+      return res;
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+package water.util;
+
+import java.util.Arrays;
+
+/**
+ * A small LZ77 block codec in the spirit of LZ4: greedy single-probe hash
+ * matching, byte-aligned sequences and no entropy coding.  It is meant for
+ * hot paths (swap, wire) where decompression speed matters far more than
+ * ratio, and it has no dependencies outside of H2O.
+ *
+ * A block is a list of sequences.  Each sequence is a token byte (high nibble
+ * literal run length, low nibble match length minus {@link #MIN_MATCH}),
+ * optional length-extension bytes (255-continued), the literals, a 2-byte
+ * little-endian back-reference offset and optional match-length extension
+ * bytes.  The last sequence carries literals only.  The uncompressed length
+ * is not stored in the block; callers keep it on the side.
+ */
+public final class LZBlockCodec {
+
+  private LZBlockCodec() {}
+
+  private static final int MIN_MATCH = 4;
+  private static final int HASH_LOG = 14;
+  private static final int MAX_DISTANCE = 0xFFFF;
+  private static final int RUN_MASK = 0xF;
+  private static final int ML_MASK = 0xF;
+  private static final int SKIP_TRIGGER = 6; // Speed up scanning of incompressible data
+
+  /** Worst-case size of a compressed block for {@code len} input bytes. */
+  public static int maxCompressedLength(int len) {
+    return len + len / 255 + 16;
+  }
+
+  /** Compress {@code src[off..off+len)} into a new, exactly sized array. */
+  public static byte[] compress(byte[] src, int off, int len) {
+    byte[] dst = new byte[maxCompressedLength(len)];
+    int dlen = compress(src, off, len, dst);
+    return Arrays.copyOf(dst, dlen);
+  }
+
+  public static byte[] compress(byte[] src) { return compress(src, 0, src.length); }
+
+  /**
+   * Compress {@code src[off..off+len)} into {@code dst}, which must hold at
+   * least {@link #maxCompressedLength(int)} bytes.
+   * @return number of bytes written into dst
+   */
+  public static int compress(byte[] src, int off, int len, byte[] dst) {
+    final int end = off + len;
+    final int mflimit = end - MIN_MATCH; // Last position a 4-byte probe can start at
+    final int[] table = new int[1 << HASH_LOG]; // Position+1 of the last probe; 0 is empty
+    int anchor = off, ip = off, op = 0;
+    while( ip <= mflimit ) {
+      int seq = UnsafeUtils.get4(src, ip);
+      int h = hash(seq);
+      int ref = table[h] - 1;
+      table[h] = ip + 1;
+      if( ref < 0 || ip - ref > MAX_DISTANCE || UnsafeUtils.get4(src, ref) != seq ) {
+        ip += 1 + ((ip - anchor) >>> SKIP_TRIGGER);
+        continue;
+      }
+      // Extend the match: 8 bytes at a time, then byte-wise
+      int mlen = MIN_MATCH;
+      while( ip + mlen + 8 <= end && UnsafeUtils.get8(src, ref + mlen) == UnsafeUtils.get8(src, ip + mlen) )
+        mlen += 8;
+      while( ip + mlen < end && src[ref + mlen] == src[ip + mlen] )
+        mlen++;
+      int tokenPos = op;
+      op = writeSequence(src, anchor, ip - anchor, dst, op);
+      dst[op++] = (byte) (ip - ref);
+      dst[op++] = (byte) ((ip - ref) >>> 8);
+      if( mlen - MIN_MATCH >= ML_MASK ) {
+        dst[tokenPos] |= ML_MASK;
+        op = writeLength(mlen - MIN_MATCH - ML_MASK, dst, op);
+      } else
+        dst[tokenPos] |= (byte) (mlen - MIN_MATCH);
+      ip += mlen;
+      anchor = ip;
+    }
+    return writeSequence(src, anchor, end - anchor, dst, op); // Trailing literals
+  }
+
+  /**
+   * Decompress a block produced by {@link #compress} into a new array of the
+   * given (known) uncompressed length.
+   */
+  public static byte[] decompress(byte[] src, int rawLen) {
+    byte[] dst = new byte[rawLen];
+    int n;
+    try {
+      n = decompress(src, 0, src.length, dst, 0);
+    } catch (IndexOutOfBoundsException e) {
+      throw new IllegalStateException("Corrupted block: does not decode into " + rawLen + " bytes", e);
+    }
+    if( n != rawLen )
+      throw new IllegalStateException("Corrupted block: expected " + rawLen + " bytes, decoded " + n);
+    return dst;
+  }
+
+  /** @return number of bytes written into dst starting at doff */
+  public static int decompress(byte[] src, int off, int len, byte[] dst, int doff) {
+    final int end = off + len;
+    int ip = off, op = doff;
+    while( ip < end ) {
+      int token = src[ip++] & 0xFF;
+      // Literals
+      int run = token >>> 4;
+      if( run == RUN_MASK ) {
+        int b;
+        do { b = src[ip++] & 0xFF; run += b; } while( b == 255 );
+      }
+      System.arraycopy(src, ip, dst, op, run);
+      ip += run;
+      op += run;
+      if( ip >= end ) break; // Last sequence has no match part
+      // Match
+      int offset = (src[ip] & 0xFF) | ((src[ip + 1] & 0xFF) << 8);
+      ip += 2;
+      int mlen = token & ML_MASK;
+      if( mlen == ML_MASK ) {
+        int b;
+        do { b = src[ip++] & 0xFF; mlen += b; } while( b == 255 );
+      }
+      mlen += MIN_MATCH;
+      int ref = op - offset;
+      if( offset == 0 || ref < doff )
+        throw new IllegalStateException("Corrupted block: bad offset " + offset + " at " + (ip - off));
+      if( offset >= mlen ) {
+        System.arraycopy(dst, ref, dst, op, mlen);
+        op += mlen;
+      } else { // Overlapping copy, e.g. runs of a repeated pattern
+        for( int i = 0; i < mlen; i++ )
+          dst[op++] = dst[ref++];
+      }
+    }
+    return op - doff;
+  }
+
+  private static int hash(int seq) {
+    return (seq * -1640531535) >>> (32 - HASH_LOG);
+  }
+
+  // Token (match nibble left at 0), literal-length extension and literals
+  private static int writeSequence(byte[] src, int from, int run, byte[] dst, int op) {
+    if( run >= RUN_MASK ) {
+      dst[op++] = (byte) (RUN_MASK << 4);
+      op = writeLength(run - RUN_MASK, dst, op);
+    } else
+      dst[op++] = (byte) (run << 4);
+    System.arraycopy(src, from, dst, op, run);
+    return op + run;
+  }
+
+  private static int writeLength(int len, byte[] dst, int op) {
+    while( len >= 255 ) { dst[op++] = (byte) 255; len -= 255; }
+    dst[op++] = (byte) len;
+    return op;
+  }
+}
@@ -5,6 +5,11 @@ import water.api.API;
 import water.api.schemas3.SchemaV3;
 import water.persist.PersistManager;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
 public class WaterMeterIo extends Iced {
 
   public static class IoStatsEntry extends SchemaV3<Iced, IoStatsEntry> {
@@ -27,11 +32,29 @@ public class WaterMeterIo extends Iced {
     public long load_bytes;
   }
 
+  public static class WireStatsEntry extends SchemaV3<Iced, WireStatsEntry> {
+    @API(help="Message type", direction = API.Direction.OUTPUT)
+    public String message_type;
+
+    @API(help="Number of messages over the compression threshold", direction = API.Direction.OUTPUT)
+    public long messages;
+
+    @API(help="Number of messages sent compressed", direction = API.Direction.OUTPUT)
+    public long compressed_messages;
+
+    @API(help="Cumulative payload bytes before compression", direction = API.Direction.OUTPUT)
+    public long raw_bytes;
+
+    @API(help="Cumulative payload bytes sent", direction = API.Direction.OUTPUT)
+    public long wire_bytes;
+  }
+
   // Input
   public int nodeidx;
 
   // Output
   public IoStatsEntry persist_stats[];
+  public WireStatsEntry wire_stats[];
 
   public void doIt(boolean aggregateAllNodes) {
     if (! aggregateAllNodes) {
@@ -39,9 +62,22 @@ public class WaterMeterIo extends Iced {
       return;
     }
 
+    Map<String, WireStatsEntry> wireStats = new TreeMap<>();
     for (int i = 0; i < H2O.CLOUD.size(); i++) {
       WaterMeterIo io = new WaterMeterIo();
       io.doIt(i);
+      for (WireStatsEntry e : io.wire_stats) {
+        WireStatsEntry agg = wireStats.get(e.message_type);
+        if (agg == null) {
+          agg = new WireStatsEntry();
+          agg.message_type = e.message_type;
+          wireStats.put(e.message_type, agg);
+        }
+        agg.messages += e.messages;
+        agg.compressed_messages += e.compressed_messages;
+        agg.raw_bytes += e.raw_bytes;
+        agg.wire_bytes += e.wire_bytes;
+      }
       if (i == 0) {
         persist_stats = new IoStatsEntry[io.persist_stats.length];
         for (int j = 0; j < persist_stats.length; j++) {
@@ -58,6 +94,7 @@ public class WaterMeterIo extends Iced {
         persist_stats[j].load_bytes += io.persist_stats[j].load_bytes;
       }
     }
+    wire_stats = wireStats.values().toArray(new WireStatsEntry[0]);
   }
 
   private void doIt(int idx) {
@@ -68,12 +105,14 @@ public class WaterMeterIo extends Iced {
     new RPC<>(node, t).call().get();
     Log.trace("IO GetTask completed to node " + idx);
     persist_stats = t._persist_stats;
+    wire_stats = t._wire_stats;
   }
 
   private static class GetTask extends DTask<GetTask> {
     private IoStatsEntry _persist_stats[];
+    private WireStatsEntry _wire_stats[];
 
-    public GetTask() { super(H2O.MIN_HI_PRIORITY); _persist_stats = null; }
+    public GetTask() { super(H2O.MIN_HI_PRIORITY); _persist_stats = null; _wire_stats = null; }
 
     @Override public void compute2() {
       PersistManager.PersistStatsEntry s[] = H2O.getPM().getStats();
@@ -118,6 +157,18 @@ public class WaterMeterIo extends Iced {
         assert(src_e.load_bytes.get() == 0);
       }
 
+      List<WireStatsEntry> wireStats = new ArrayList<>();
+      for (Map.Entry<String, WireCompression.Stats> e : new TreeMap<>(WireCompression.stats()).entrySet()) {
+        WireStatsEntry dest_e = new WireStatsEntry();
+        dest_e.message_type = e.getKey();
+        dest_e.messages = e.getValue()._messages.get();
+        dest_e.compressed_messages = e.getValue()._compressed.get();
+        dest_e.raw_bytes = e.getValue()._rawBytes.get();
+        dest_e.wire_bytes = e.getValue()._wireBytes.get();
+        wireStats.add(dest_e);
+      }
+      _wire_stats = wireStats.toArray(new WireStatsEntry[0]);
+
       tryComplete();
     }
   }
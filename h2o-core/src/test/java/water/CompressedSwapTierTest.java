@@ -0,0 +1,142 @@
+package water;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import static water.fvec.VecHelper.vecChunkIdx;
+
+public class CompressedSwapTierTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  private static final int log_rows_per_chk = 10;
+  private static final int nchks = 16;
+
+  // Sparse, well compressible Vec of nchks Chunks
+  private static Vec makeSparseVec(Vec vcon) {
+    Vec vseq = vcon.makeCon(0);
+    new MRTask() {
+      @Override public void map(water.fvec.Chunk c) {
+        for (int i = 0; i < c._len; i++)
+          c.set(i, (c.start() + i) % 7 == 0 ? c.start() + i : 0);
+      }
+    }.doAll(vseq);
+    return vseq;
+  }
+
+  // One full Cleaner pass in test mode (DESIRED == -1), spilling and freeing
+  // every Chunk.  A pass already running when DESIRED is set does not count.
+  private static void cleanAll() throws InterruptedException {
+    synchronized (Cleaner.THE_CLEANER) {
+      Cleaner.DESIRED = -1;
+      Cleaner.kick_store_cleaner();
+      while (Cleaner.DESIRED == -1)
+        Cleaner.block_for_test();
+    }
+  }
+
+  @Test public void testSwapInFromCompressedTier() throws Exception {
+    Vec vcon = Vec.makeCon(0, nchks << log_rows_per_chk, log_rows_per_chk);
+    Vec vseq = makeSparseVec(vcon);
+    Vec vcopy = null;
+    try {
+      vcopy = vseq.makeCopy();
+
+      for (int i = 0; i < nchks; i++) {
+        Value val = vecChunkIdx(vseq, i);
+        val.storePersist();
+        Assert.assertTrue(val.isPersisted());
+        int clen = val.compressMem(1.0f);
+        Assert.assertTrue(clen > 0 && clen < val._max);
+        val.freeMem();
+        val.freePOJO();
+        Assert.assertNull(val.rawMem());
+        Assert.assertNotNull(val.rawCompressedMem());
+      }
+
+      // Reading the chunks back swaps them in from the compressed tier
+      assertBitIdentical(new Frame(new String[]{"C1"}, new Vec[]{vseq}),
+                         new Frame(new String[]{"C1"}, new Vec[]{vcopy}));
+      for (int i = 0; i < nchks; i++) {
+        Value val = vecChunkIdx(vseq, i);
+        Assert.assertNotNull(val.rawMem());
+        Assert.assertNull(val.rawCompressedMem());
+      }
+    } finally {
+      vcon.remove();
+      vseq.remove();
+      if (vcopy != null) vcopy.remove();
+    }
+  }
+
+  @Test public void testCleanerEvictsIntoCompressedTier() throws Exception {
+    Vec vcon = Vec.makeCon(0, nchks << log_rows_per_chk, log_rows_per_chk);
+    Vec vseq = makeSparseVec(vcon);
+    Vec vcopy = vseq.makeCopy();
+    boolean cleaner = H2O.ARGS.cleaner, compress = Cleaner.SWAP_COMPRESS;
+    try {
+      H2O.ARGS.cleaner = true;
+      Cleaner.SWAP_COMPRESS = true;
+      Cleaner.TEST_TIER_BUDGET = Long.MAX_VALUE;
+      cleanAll();
+      // Spilled to disk, and freed from the heap but for a compressed copy
+      for (int i = 0; i < nchks; i++) {
+        Value val = vecChunkIdx(vseq, i);
+        Assert.assertTrue(val.isPersisted());
+        Assert.assertNull(val.rawMem());
+        Assert.assertNull(val.rawPOJO());
+        Assert.assertNotNull(val.rawCompressedMem());
+        Assert.assertTrue(val.rawCompressedMem().length < val._max);
+      }
+      Cleaner.TEST_TIER_BUDGET = 0;
+      assertBitIdentical(new Frame(new String[]{"C1"}, new Vec[]{vseq}),
+                         new Frame(new String[]{"C1"}, new Vec[]{vcopy}));
+    } finally {
+      H2O.ARGS.cleaner = cleaner;
+      Cleaner.SWAP_COMPRESS = compress;
+      Cleaner.TEST_TIER_BUDGET = 0;
+      vcon.remove();
+      vseq.remove();
+      vcopy.remove();
+    }
+  }
+
+  @Test public void testCleanerSpillsCompressedTierToDisk() throws Exception {
+    Vec vcon = Vec.makeCon(0, nchks << log_rows_per_chk, log_rows_per_chk);
+    Vec vseq = makeSparseVec(vcon);
+    Vec vcopy = vseq.makeCopy();
+    boolean cleaner = H2O.ARGS.cleaner, compress = Cleaner.SWAP_COMPRESS;
+    try {
+      H2O.ARGS.cleaner = true;
+      Cleaner.SWAP_COMPRESS = true;
+      Cleaner.TEST_TIER_BUDGET = Long.MAX_VALUE;
+      cleanAll();
+      for (int i = 0; i < nchks; i++)
+        Assert.assertNotNull(vecChunkIdx(vseq, i).rawCompressedMem());
+
+      // Without a budget the compressed tier is dropped, only the disk copy remains
+      Cleaner.TEST_TIER_BUDGET = 0;
+      cleanAll();
+      for (int i = 0; i < nchks; i++) {
+        Value val = vecChunkIdx(vseq, i);
+        Assert.assertTrue(val.isPersisted());
+        Assert.assertNull(val.rawMem());
+        Assert.assertNull(val.rawCompressedMem());
+      }
+      // Reading the chunks back loads them from disk
+      assertBitIdentical(new Frame(new String[]{"C1"}, new Vec[]{vseq}),
+                         new Frame(new String[]{"C1"}, new Vec[]{vcopy}));
+      for (int i = 0; i < nchks; i++)
+        Assert.assertNotNull(vecChunkIdx(vseq, i).rawMem());
+    } finally {
+      H2O.ARGS.cleaner = cleaner;
+      Cleaner.SWAP_COMPRESS = compress;
+      Cleaner.TEST_TIER_BUDGET = 0;
+      vcon.remove();
+      vseq.remove();
+      vcopy.remove();
+    }
+  }
+}
@@ -154,5 +154,47 @@ public class MRTaskTest extends TestUtil {
     }
   }
 
-}
+  @Test
+  public void testSplitNodes() {
+    for (int n = 1; n <= 40; n++) {
+      // Fanout of 2 is the original halving
+      int[] bounds = MRTask.splitNodes(1, 0, n, 2);
+      assertEquals(Math.max(1, n >>> 1), bounds[1]);
+      for (int fanout = 2; fanout <= 5; fanout++) {
+        int[] visits = new int[n];
+        visitNodes(0, n, fanout, visits);
+        for (int v : visits)
+          assertEquals(1, v);
+      }
+    }
+  }
+
+  private static void visitNodes(int nlo, int nhi, int fanout, int[] visits) {
+    visits[nlo]++;
+    int[] bounds = MRTask.splitNodes(nlo + 1, nlo, nhi, fanout);
+    for (int i = 0; i < fanout; i++)
+      if (bounds[i] < bounds[i + 1])
+        visitNodes(bounds[i], bounds[i + 1], fanout, visits);
+  }
+
+  private static class FanoutSumTask extends MRTask<FanoutSumTask> {
+    private final int _fanout;
+    double _sum;
+    FanoutSumTask(int fanout) { _fanout = fanout; }
+    @Override protected int reductionFanout() { return _fanout; }
+    @Override public void map(Chunk c) { for (int i = 0; i < c._len; i++) _sum += c.atd(i); }
+    @Override public void reduce(FanoutSumTask mrt) { _sum += mrt._sum; }
+  }
+
+  @Test
+  public void testReductionFanout() {
+    Vec v = Vec.makeCon(1.0, 100000, 10, false);
+    try {
+      for (int fanout = 2; fanout <= 5; fanout++)
+        assertEquals(v.length(), new FanoutSumTask(fanout).doAll(v)._sum, 0);
+    } finally {
+      v.remove();
+    }
+  }
 
+}
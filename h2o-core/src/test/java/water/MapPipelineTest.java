@@ -0,0 +1,163 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class MapPipelineTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  private static class Plus extends MapPipeline.Stage {
+    @Override public void map(double[][] in, double[][] out, int len) {
+      for (int i = 0; i < len; i++) out[0][i] = in[0][i] + in[1][i];
+    }
+  }
+
+  private static class Scale extends MapPipeline.Stage {
+    private final double _factor;
+    Scale(double factor) { _factor = factor; }
+    @Override public void map(double[][] in, double[][] out, int len) {
+      for (int i = 0; i < len; i++) out[0][i] = in[0][i] * _factor;
+    }
+  }
+
+  private static class MinMax extends MapPipeline.Stage {
+    @Override public int nOutputs() { return 2; }
+    @Override public void map(double[][] in, double[][] out, int len) {
+      for (int i = 0; i < len; i++) {
+        out[0][i] = Math.min(in[0][i], in[1][i]);
+        out[1][i] = Math.max(in[0][i], in[1][i]);
+      }
+    }
+  }
+
+  @Test public void testPipeline() {
+    Scope.enter();
+    try {
+      Frame fr = new TestFrameBuilder()
+              .withColNames("a", "b", "c")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2, 3, Double.NaN, 5, 6))
+              .withDataForCol(1, ard(6, 5, 4, 3, 2, 1))
+              .withDataForCol(2, ard(0, 0, 0, 0, 0, 0))
+              .withChunkLayout(2, 3, 1)
+              .build();
+      MapPipeline p = new MapPipeline(fr);
+      int sum = p.add(new Plus(), 0, 1);
+      int scaled = p.add(new Scale(2), sum);
+      int minMax = p.add(new MinMax(), scaled, 1);
+      int unused = p.add(new Scale(-1), minMax);
+      assertEquals(7, unused);
+      assertEquals(8, p.numColumns());
+      Frame res = Scope.track(p.outputs(minMax + 1, 0, sum).execute(new String[]{"max", "a", "sum"}));
+
+      assertArrayEquals(new String[]{"max", "a", "sum"}, res.names());
+      assertEquals(fr.numRows(), res.numRows());
+      for (int i = 0; i < fr.numRows(); i++) {
+        double a = fr.vec(0).at(i), b = fr.vec(1).at(i);
+        assertEquals(Math.max(2 * (a + b), b), res.vec(0).at(i), 0);
+        assertEquals(a, res.vec(1).at(i), 0);
+        assertEquals(a + b, res.vec(2).at(i), 0);
+      }
+      assertTrue(res.vec(0).isNA(3));
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  // Records the buffers handed to it, and the threads it ran on
+  private static class Recording extends MapPipeline.Stage {
+    static final Set<Object> BUFFERS = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    static final Set<Thread> THREADS = new HashSet<>();
+    static int CHUNKS;
+    @Override public void map(double[][] in, double[][] out, int len) {
+      synchronized (Recording.class) {
+        BUFFERS.add(in);
+        BUFFERS.add(out);
+        BUFFERS.add(out[0]);
+        THREADS.add(Thread.currentThread());
+        CHUNKS++;
+      }
+      System.arraycopy(in[0], 0, out[0], 0, len);
+    }
+  }
+
+  @Test public void testBuffersAreReused() {
+    Scope.enter();
+    try {
+      Frame fr = new TestFrameBuilder()
+              .withColNames("a", "unused")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2, 3))
+              .withDataForCol(1, ard(0, 0, 0))
+              .build();
+      MapPipeline p = new MapPipeline(fr);
+      int col = 0;
+      for (int i = 0; i < 20; i++)
+        col = p.add(new Scale(2), col);
+      // Two buffers alternate, the unused source column is not loaded at all
+      assertEquals(2, p.outputs(col).plan()._nslots);
+      Frame res = Scope.track(p.execute(null));
+      assertEquals(3 * (1 << 20), res.vec(0).at(2), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void testBuffersAreReusedAcrossChunks() {
+    Scope.enter();
+    try {
+      int nchunks = 200;
+      long[] layout = new long[nchunks];
+      int nrows = 0;
+      for (int i = 0; i < nchunks; i++) nrows += layout[i] = 1 + i % 10; // chunks of varying length
+      double[] data = new double[nrows];
+      for (int i = 0; i < nrows; i++) data[i] = i;
+      Frame fr = new TestFrameBuilder()
+              .withColNames("a")
+              .withVecTypes(Vec.T_NUM)
+              .withDataForCol(0, data)
+              .withChunkLayout(layout)
+              .build();
+      MapPipeline p = new MapPipeline(fr);
+      int copy = p.add(new Recording(), 0);
+      synchronized (Recording.class) {
+        Recording.BUFFERS.clear();
+        Recording.THREADS.clear();
+        Recording.CHUNKS = 0;
+      }
+      Frame res = Scope.track(p.outputs(copy).execute(null));
+      for (int i = 0; i < nrows; i++)
+        assertEquals(i, res.vec(0).at(i), 0);
+      synchronized (Recording.class) {
+        assertTrue(Recording.CHUNKS > 0);
+        // The argument arrays and the output buffer are allocated once per thread, not per chunk
+        assertEquals(3 * Recording.THREADS.size(), Recording.BUFFERS.size());
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidInput() {
+    Scope.enter();
+    try {
+      Frame fr = new TestFrameBuilder()
+              .withColNames("a")
+              .withVecTypes(Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2, 3))
+              .build();
+      new MapPipeline(fr).add(new Plus(), 0, 1);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
@@ -0,0 +1,78 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.fvec.Chunk;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class WireCompressionTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  private static class SparseResultTask extends MRTask<SparseResultTask> {
+    double[] _hist;
+    SparseResultTask(int len) {
+      _hist = new double[len];
+      for (int i = 0; i < len; i += 97) _hist[i] = i / 3.0;
+    }
+    @Override public void map(Chunk c) { }
+  }
+
+  @Test public void testAnswerRoundTrip() {
+    SparseResultTask task = new SparseResultTask(100000);
+    WireCompression.Stats before = WireCompression.stats().get(SparseResultTask.class.getName());
+    long messagesBefore = before == null ? 0 : before._messages.get();
+
+    AutoBuffer ab = new AutoBuffer();
+    WireCompression.writeAnswer(ab, task, true);
+    byte[] bytes = ab.buf();
+    assertTrue("Sent " + bytes.length + " bytes", bytes.length < task._hist.length * 8 / 4);
+
+    SparseResultTask received = new SparseResultTask(0);
+    WireCompression.readAnswer(new AutoBuffer(bytes), received, true);
+    assertArrayEquals(task._hist, received._hist, 0);
+
+    WireCompression.Stats stats = WireCompression.stats().get(SparseResultTask.class.getName());
+    assertEquals(messagesBefore + 1, stats._messages.get());
+    assertTrue(stats._wireBytes.get() < stats._rawBytes.get());
+  }
+
+  @Test public void testRequestRoundTrip() {
+    for (boolean enabled : new boolean[]{false, true}) {
+      for (int len : new int[]{10, 100000}) {
+        SparseResultTask task = new SparseResultTask(len);
+        AutoBuffer ab = new AutoBuffer();
+        WireCompression.writeRequest(ab, task, enabled);
+        DTask received = WireCompression.readRequest(new AutoBuffer(ab.buf()), enabled);
+        assertTrue(received instanceof SparseResultTask);
+        assertArrayEquals(task._hist, ((SparseResultTask) received)._hist, 0);
+      }
+    }
+  }
+
+  @Test public void testDisabledAddsNoFormatByte() {
+    SparseResultTask task = new SparseResultTask(100000);
+    AutoBuffer ab = new AutoBuffer();
+    WireCompression.writeAnswer(ab, task, false);
+    AutoBuffer plain = new AutoBuffer();
+    task.write(plain);
+    assertArrayEquals(plain.buf(), ab.buf());
+    SparseResultTask received = new SparseResultTask(0);
+    WireCompression.readAnswer(new AutoBuffer(ab.buf()), received, false);
+    assertArrayEquals(task._hist, received._hist, 0);
+  }
+
+  @Test public void testIncompressibleAnswer() {
+    SparseResultTask task = new SparseResultTask(100000);
+    Random rnd = new Random(42);
+    for (int i = 0; i < task._hist.length; i++) task._hist[i] = rnd.nextDouble();
+    AutoBuffer ab = new AutoBuffer();
+    WireCompression.writeAnswer(ab, task, true);
+    SparseResultTask received = new SparseResultTask(0);
+    WireCompression.readAnswer(new AutoBuffer(ab.buf()), received, true);
+    assertArrayEquals(task._hist, received._hist, 0);
+  }
+
+}
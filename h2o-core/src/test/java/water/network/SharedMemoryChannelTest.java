@@ -0,0 +1,167 @@
+package water.network;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class SharedMemoryChannelTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testTransferLargerThanRing() throws Exception {
+        final byte[] data = new byte[3 * 65536 + 17];
+        new Random(42).nextBytes(data);
+        final File dir = tmp.newFolder();
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SocketChannel client = SocketChannel.open(server.getLocalAddress());
+            final SocketChannel accepted = server.accept();
+
+            Future<byte[]> received = es.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws Exception {
+                    SharedMemoryChannel reader = SharedMemoryChannel.accept(accepted, dir);
+                    assertNotNull(reader);
+                    ByteBuffer bb = ByteBuffer.allocate(data.length + 1);
+                    while (reader.read(bb) >= 0) { }
+                    bb.flip();
+                    byte[] result = new byte[bb.remaining()];
+                    bb.get(result);
+                    accepted.socket().getOutputStream().write(0xcd);
+                    return result;
+                }
+            });
+
+            SharedMemoryChannel writer = SharedMemoryChannel.offer(client, dir, "test", 4096);
+            assertNotNull(writer);
+            assertEquals("ring file is removed once mapped", 0, dir.list().length);
+            for (int off = 0; off < data.length; off += 1000) { // Write in pieces, slower than the reader
+                writer.write(ByteBuffer.wrap(data, off, Math.min(1000, data.length - off)));
+            }
+            writer.write(ByteBuffer.wrap(data, 0, 0));
+            SocketChannelUtils.underlyingSocketChannel(writer).shutdownOutput(); // Reader sees the end of stream
+            assertEquals(0xcd, writer.channel().socket().getInputStream().read());
+            assertArrayEquals(data, received.get());
+            writer.close();
+            assertFalse(writer.isOpen());
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testWriteFailsWhenReaderIsGone() throws Exception {
+        final File dir = tmp.newFolder();
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SocketChannel client = SocketChannel.open(server.getLocalAddress());
+            final SocketChannel accepted = server.accept();
+
+            Future<SharedMemoryChannel> reader = es.submit(new Callable<SharedMemoryChannel>() {
+                @Override
+                public SharedMemoryChannel call() throws Exception {
+                    return SharedMemoryChannel.accept(accepted, dir);
+                }
+            });
+            SharedMemoryChannel writer = SharedMemoryChannel.offer(client, dir, "test", 4096);
+            assertNotNull(writer);
+            assertNotNull(reader.get());
+            writer.write(ByteBuffer.allocate(4096)); // Fills the ring
+            accepted.close();                        // Reader dies without draining it
+            try {
+                writer.write(ByteBuffer.allocate(1));
+                fail("Expected the write to fail once the reader is gone");
+            } catch (IOException expected) {
+                // The caller falls back to TCP
+            }
+            writer.close();
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testWriteFailsWhenReaderStalls() throws Exception {
+        final File dir = tmp.newFolder();
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        long timeout = SharedMemoryChannel.STALL_TIMEOUT_MS;
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            SharedMemoryChannel.STALL_TIMEOUT_MS = 500;
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SocketChannel client = SocketChannel.open(server.getLocalAddress());
+            final SocketChannel accepted = server.accept();
+
+            Future<SharedMemoryChannel> reader = es.submit(new Callable<SharedMemoryChannel>() {
+                @Override
+                public SharedMemoryChannel call() throws Exception {
+                    return SharedMemoryChannel.accept(accepted, dir);
+                }
+            });
+            SharedMemoryChannel writer = SharedMemoryChannel.offer(client, dir, "test", 4096);
+            assertNotNull(writer);
+            assertNotNull(reader.get()); // Alive, but never reads
+            writer.write(ByteBuffer.allocate(4096));
+            try {
+                writer.write(ByteBuffer.allocate(1));
+                fail("Expected the write to time out");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("made no room"));
+            }
+            writer.close();
+            accepted.close();
+        } finally {
+            SharedMemoryChannel.STALL_TIMEOUT_MS = timeout;
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRefusedWhenRingNotShared() throws Exception {
+        final File dir = tmp.newFolder();
+        final File otherDir = tmp.newFolder();
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            SocketChannel client = SocketChannel.open(server.getLocalAddress());
+            final SocketChannel accepted = server.accept();
+
+            Future<SharedMemoryChannel> reader = es.submit(new Callable<SharedMemoryChannel>() {
+                @Override
+                public SharedMemoryChannel call() throws Exception {
+                    return SharedMemoryChannel.accept(accepted, otherDir);
+                }
+            });
+            assertNull(SharedMemoryChannel.offer(client, dir, "test", 4096));
+            assertNull(reader.get());
+            assertEquals(0, dir.list().length);
+
+            // The socket is still usable
+            client.write(ByteBuffer.wrap(new byte[]{42}));
+            assertEquals(42, accepted.socket().getInputStream().read());
+            client.close();
+            accepted.close();
+        } finally {
+            es.shutdownNow();
+        }
+    }
+
+}
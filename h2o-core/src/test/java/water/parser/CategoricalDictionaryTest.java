@@ -0,0 +1,107 @@
+package water.parser;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.H2O;
+import water.Key;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.FVecFactory;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CategoricalDictionaryTest extends TestUtil {
+
+  private static final String PROPERTY = H2O.OptArgs.SYSTEM_PROP_PREFIX + "parse.categorical.dictionary";
+
+  @BeforeClass
+  static public void setup() { stall_till_cloudsize(1); }
+
+  private static String[] randomCsv(Random r, int nchunks, int rowsPerChunk) {
+    String[] chunks = new String[nchunks];
+    for (int c = 0; c < nchunks; c++) {
+      StringBuilder sb = new StringBuilder();
+      if (c == 0) sb.append("id,small,big,x,sparse\n");
+      for (int i = 0; i < rowsPerChunk; i++) {
+        sb.append("id").append(c * rowsPerChunk + i).append(',');
+        sb.append(r.nextInt(20) == 0 ? "" : "s" + r.nextInt(5)).append(',');
+        sb.append("b").append(r.nextInt(5000)).append(',');
+        sb.append(r.nextDouble()).append(',');
+        sb.append(r.nextInt(100) == 0 ? "level" + r.nextInt(3) : "").append('\n');
+      }
+      chunks[c] = sb.toString();
+    }
+    return chunks;
+  }
+
+  private static Frame parse(boolean dictionary, int[] skipped, String... chunks) {
+    System.setProperty(PROPERTY, String.valueOf(dictionary));
+    try {
+      Key k = FVecFactory.makeByteVec(chunks);
+      ParseSetup ps = ParseSetup.guessSetup(new Key[]{k}, false, ParseSetup.HAS_HEADER);
+      for (int c = 0; c < ps._column_types.length; c++) // High cardinality columns are guessed as strings
+        if (ps._column_types[c] == Vec.T_STR) ps._column_types[c] = Vec.T_CAT;
+      if (skipped != null) {
+        ps.setSkippedColumns(skipped);
+        ps.setParseColumnIndices(ps.getNumberColumns(), skipped);
+      }
+      return Scope.track(ParseDataset.parse(Key.make(), new Key[]{k}, true, ps));
+    } finally {
+      System.clearProperty(PROPERTY);
+    }
+  }
+
+  private static void assertSameLevels(Frame expected, Frame actual) {
+    assertArrayEquals(expected.names(), actual.names());
+    assertEquals(expected.numRows(), actual.numRows());
+    for (int c = 0; c < expected.numCols(); c++) {
+      Vec e = expected.vec(c), a = actual.vec(c);
+      assertEquals(e.get_type(), a.get_type());
+      if (e.isCategorical())
+        assertEquals(new HashSet<>(Arrays.asList(e.domain())), new HashSet<>(Arrays.asList(a.domain())));
+      for (long r = 0; r < e.length(); r++) {
+        assertEquals(e.isNA(r), a.isNA(r));
+        if (e.isNA(r)) continue;
+        if (e.isCategorical()) assertEquals(e.domain()[(int) e.at8(r)], a.domain()[(int) a.at8(r)]);
+        else assertEquals(e.at(r), a.at(r), 0);
+      }
+    }
+  }
+
+  @Test
+  public void testSameLevelsAsUnifiedParse() {
+    Scope.enter();
+    try {
+      String[] chunks = randomCsv(new Random(42), 20, 500);
+      Frame expected = parse(false, null, chunks);
+      Frame actual = parse(true, null, chunks);
+      assertEquals(20, actual.anyVec().nChunks());
+      assertTrue(actual.vec("big").isCategorical());
+      assertEquals(10000, actual.vec("id").cardinality());
+      assertSameLevels(expected, actual);
+      // Skipped columns shift the parsed columns
+      assertSameLevels(parse(false, new int[]{0, 3}, chunks), parse(true, new int[]{0, 3}, chunks));
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testCodesInFirstSeenOrder() {
+    Scope.enter();
+    try {
+      Frame fr = parse(true, null, "a,x\nc,1\nb,2\nc,3\na,4\n");
+      assertArrayEquals(new String[]{"c", "b", "a"}, fr.vec(0).domain());
+      assertArrayEquals(new long[]{0, 1, 0, 2}, new long[]{fr.vec(0).at8(0), fr.vec(0).at8(1), fr.vec(0).at8(2), fr.vec(0).at8(3)});
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
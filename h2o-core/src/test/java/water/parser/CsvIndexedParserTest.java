@@ -0,0 +1,159 @@
+package water.parser;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.DKV;
+import water.Key;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CsvIndexedParserTest extends TestUtil {
+
+  @BeforeClass
+  static public void setup() { stall_till_cloudsize(1); }
+
+  private static FVecParseWriter makeWriter(ParseSetup ps, int cidx, boolean stateMachine) {
+    int ncols = ps._parse_columns_indices.length;
+    AppendableVec[] avs = new AppendableVec[ncols];
+    for (int i = 0; i < ncols; i++)
+      avs[i] = new AppendableVec(Vec.newKey(), ps._column_types[ps._parse_columns_indices[i]]);
+    Categorical[] categoricals = new Categorical[ps._number_columns];
+    for (int i = 0; i < categoricals.length; i++) categoricals[i] = new Categorical();
+    Vec.VectorGroup vg = Vec.VectorGroup.VG_LEN1;
+    // The indexed parser is only tried for FVecParseWriter itself, not for its subclasses
+    return stateMachine ?
+            new FVecParseWriter(vg, cidx, categoricals, ps._column_types, ps._chunk_size, avs, ps._parse_columns_indices, null) {} :
+            new FVecParseWriter(vg, cidx, categoricals, ps._column_types, ps._chunk_size, avs, ps._parse_columns_indices, null);
+  }
+
+  private static void assertSameChunk(NewChunk expected, NewChunk actual) {
+    Chunk e = expected.compress(), a = actual.compress();
+    assertEquals(e._len, a._len);
+    BufferedString es = new BufferedString(), as = new BufferedString();
+    for (int r = 0; r < e._len; r++) {
+      assertEquals("row " + r, e.isNA(r), a.isNA(r));
+      if (e.isNA(r)) continue;
+      if (e instanceof CStrChunk) assertEquals("row " + r, e.atStr(es, r).toString(), a.atStr(as, r).toString());
+      else assertEquals("row " + r, e.atd(r), a.atd(r), 0);
+    }
+  }
+
+  /**
+   * Parses every chunk of the CSV with both the indexed parser and the state machine, and compares the results.
+   * @return the number of chunks parsed by the indexed parser
+   */
+  private static int assertSameAsStateMachine(int checkHeader, byte[] ctypes, int[] skipped, String... chunks) {
+    Key k = FVecFactory.makeByteVec(chunks);
+    ByteVec bv = DKV.getGet(k);
+    Scope.track(bv);
+    ParseSetup ps = ParseSetup.guessSetup(new Key[]{k}, false, checkHeader);
+    if (ctypes != null) ps._column_types = ctypes;
+    if (skipped != null) ps.setSkippedColumns(skipped);
+    ps.setParseColumnIndices(ps._number_columns, ps._skipped_columns);
+    CsvParser parser = (CsvParser) ps.parser(null);
+    int indexed = 0;
+    for (int cidx = 0; cidx < bv.nChunks(); cidx++) {
+      FVecParseWriter expected = makeWriter(ps, cidx, true), actual = makeWriter(ps, cidx, false);
+      parser.parseChunk(cidx, new FVecParseReader(bv.chunkForChunkIdx(cidx)), expected);
+      FVecParseReader din = new FVecParseReader(bv.chunkForChunkIdx(cidx));
+      if (new CsvIndexedParser(parser, new byte[]{'#'}).parseChunk(cidx, din, actual)) indexed++;
+      else parser.parseChunk(cidx, din, actual);
+      assertEquals(expected.lineNum(), actual.lineNum());
+      for (int c = 0; c < expected._nvs.length; c++)
+        assertSameChunk(expected._nvs[c], actual._nvs[c]);
+    }
+    return indexed;
+  }
+
+  private static String[] split(String data, Random r) {
+    List<String> chunks = new ArrayList<>();
+    for (int i = 0; i < data.length(); ) {
+      int len = Math.min(data.length() - i, 1 + r.nextInt(300));
+      chunks.add(data.substring(i, i + len));
+      i += len;
+    }
+    return chunks.toArray(new String[0]);
+  }
+
+  private static final String[] TOKENS = {
+          "0", "7", "-3", "+5", "12.50", "-.5", "5.", "007", "1e5", "2.5E-3", "-1.5e+2", "15%", "$12", "$-3.5",
+          "123456789012345678", "1234567890123456789012", "-12345678901234567890", "3.14159265358979323846",
+          " 7", "8 ", "\t9", "1.2.3", "1e", "12abc", "-", ".", "$", "NA", "", "  "
+  };
+
+  private static String randomCsv(Random r, int rows, String eol, boolean header) {
+    StringBuilder sb = new StringBuilder();
+    if (header) sb.append("a,b,c,d").append(eol);
+    for (int i = 0; i < rows; i++) {
+      sb.append(r.nextInt(1000) - 500).append(',');
+      sb.append(TOKENS[r.nextInt(TOKENS.length)]).append(',');
+      sb.append(r.nextInt(20) == 0 ? "" : Double.toString(r.nextGaussian())).append(',');
+      sb.append("level").append(r.nextInt(5)).append(r.nextInt(50) == 0 ? "é" : "").append(eol);
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void testSameAsStateMachine() {
+    Scope.enter();
+    try {
+      Random r = new Random(42);
+      int indexed = 0;
+      for (String eol : new String[]{"\n", "\r\n", "\r"}) {
+        for (boolean header : new boolean[]{false, true}) {
+          String csv = randomCsv(r, 500, eol, header);
+          int checkHeader = header ? ParseSetup.HAS_HEADER : ParseSetup.NO_HEADER;
+          indexed += assertSameAsStateMachine(checkHeader, null, null, csv);
+          indexed += assertSameAsStateMachine(checkHeader, null, null, split(csv, r));
+          // No line end after the last line
+          indexed += assertSameAsStateMachine(checkHeader, null, null, split(csv.substring(0, csv.length() - eol.length()), r));
+        }
+      }
+      assertTrue(indexed > 100);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testForcedTypesAndSkippedColumns() {
+    Scope.enter();
+    try {
+      Random r = new Random(7);
+      String[] chunks = split(randomCsv(r, 500, "\n", false), r);
+      byte[] ctypes = {Vec.T_STR, Vec.T_CAT, Vec.T_NUM, Vec.T_STR};
+      assertTrue(assertSameAsStateMachine(ParseSetup.NO_HEADER, ctypes, null, chunks) > 0);
+      assertTrue(assertSameAsStateMachine(ParseSetup.NO_HEADER, ctypes.clone(), new int[]{0, 2}, chunks) > 0);
+      assertTrue(assertSameAsStateMachine(ParseSetup.NO_HEADER, null, new int[]{1}, chunks) > 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testStateMachineFallback() {
+    Scope.enter();
+    try {
+      // Quotes, comments, empty lines and ragged lines are left to the state machine
+      assertEquals(0, assertSameAsStateMachine(ParseSetup.NO_HEADER, null, null, "1,2\n\"3\",4\n5,6\n"));
+      assertEquals(0, assertSameAsStateMachine(ParseSetup.NO_HEADER, null, null, "1,2\n#3,4\n5,6\n"));
+      assertEquals(0, assertSameAsStateMachine(ParseSetup.NO_HEADER, null, null, "1,2\n\n5,6\n"));
+      assertEquals(0, assertSameAsStateMachine(ParseSetup.NO_HEADER, null, null, "1,2\n3\n5,6\n"));
+      assertEquals(0, assertSameAsStateMachine(ParseSetup.NO_HEADER, null, null, "1,2\n3,4,5\n5,6\n"));
+      assertEquals(0, assertSameAsStateMachine(ParseSetup.NO_HEADER, null, null, "1,2\n3,4\n5"));
+      // Leading comments are skipped, as by the state machine
+      assertEquals(1, assertSameAsStateMachine(ParseSetup.NO_HEADER, null, null, "#comment\n\n1,2\n3,4\n5,6\n"));
+      assertEquals(2, assertSameAsStateMachine(ParseSetup.NO_HEADER, null, null, "1,2\n3,4\n", "5,6\n7,\"8\"\n", "9,10\n11,12\n"));
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
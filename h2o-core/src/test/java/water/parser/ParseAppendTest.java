@@ -0,0 +1,192 @@
+package water.parser;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.DKV;
+import water.Key;
+import water.Scope;
+import water.TestUtil;
+import water.exceptions.H2OIllegalArgumentException;
+import water.fvec.FVecFactory;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class ParseAppendTest extends TestUtil {
+
+  @BeforeClass
+  static public void setup() { stall_till_cloudsize(1); }
+
+  private static final String HISTORY[] = {
+          "cat,num,str,time\n" +
+          "b,1,x1,2017-01-01\n" +
+          "c,2,x2,2017-01-02\n",
+          "a,3,x3,2017-01-03\n" +
+          ",4,x4,2017-01-04\n",
+          "c,5.5,x5,2017-01-05\n"
+  };
+
+  private static final String DAY[] = {
+          "cat,num,str,time\n" +
+          "d,6,y1,2017-02-01\n" +
+          "b,,y2,2017-02-02\n",
+          "aa,8,,2017-02-03\n" +
+          "a,9,y4,2017-02-04\n"
+  };
+
+  private static Frame parse(String... chunks) {
+    Key k = FVecFactory.makeByteVec(chunks);
+    ParseSetup ps = setup(k);
+    ps._column_types[0] = Vec.T_CAT; // Too few rows to be guessed as categorical
+    return Scope.track(ParseDataset.parse(Key.make(), new Key[]{k}, true, ps));
+  }
+
+  private static ParseSetup setup(Key k) {
+    return ParseSetup.guessSetup(new Key[]{k}, false, ParseSetup.HAS_HEADER);
+  }
+
+  private static void assertSameRows(Frame expected, Frame actual) {
+    assertArrayEquals(expected.names(), actual.names());
+    assertEquals(expected.numRows(), actual.numRows());
+    BufferedString es = new BufferedString(), as = new BufferedString();
+    for (int c = 0; c < expected.numCols(); c++) {
+      Vec e = expected.vec(c), a = actual.vec(c);
+      assertEquals(e.get_type(), a.get_type());
+      for (long r = 0; r < e.length(); r++) {
+        assertEquals(e.isNA(r), a.isNA(r));
+        if (e.isNA(r)) continue;
+        if (e.isCategorical()) assertEquals(e.domain()[(int) e.at8(r)], a.domain()[(int) a.at8(r)]);
+        else if (e.isString()) assertEquals(e.atStr(es, r).toString(), a.atStr(as, r).toString());
+        else assertEquals(e.at(r), a.at(r), 0);
+      }
+    }
+  }
+
+  @Test
+  public void testAppendKeepsExistingChunks() {
+    Scope.enter();
+    try {
+      Frame fr = parse(HISTORY);
+      Vec[] vecs = fr.vecs();
+      int nchunks = fr.anyVec().nChunks();
+      byte[][] chunks = new byte[vecs.length][];
+      for (int c = 0; c < vecs.length; c++)
+        chunks[c] = DKV.get(vecs[c].chunkKey(0)).memOrLoad().clone();
+      assertArrayEquals(new String[]{"a", "b", "c"}, fr.vec("cat").domain());
+
+      Key day = FVecFactory.makeByteVec(DAY);
+      Frame appended = ParseDataset.append(fr._key, new Key[]{day}, true, setup(day));
+
+      assertEquals(fr._key, appended._key);
+      assertEquals(9, appended.numRows());
+      assertEquals(nchunks + DAY.length, appended.anyVec().nChunks());
+      // Same Vecs, existing levels keep their codes, existing chunks are untouched
+      for (int c = 0; c < vecs.length; c++) {
+        assertEquals(vecs[c]._key, appended.vec(c)._key);
+        assertArrayEquals(chunks[c], DKV.get(vecs[c].chunkKey(0)).memOrLoad());
+      }
+      assertArrayEquals(new String[]{"a", "b", "c", "aa", "d"}, appended.vec("cat").domain());
+      assertEquals(9, ((Frame) DKV.getGet(fr._key)).numRows());
+      assertEquals(9.0, appended.vec("num").max(), 0);
+
+      assertSameRows(parse(concat(HISTORY, DAY)), appended);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testAppendWithoutNewLevels() {
+    Scope.enter();
+    try {
+      Frame fr = parse(HISTORY);
+      String[] day = {"cat,num,str,time\na,10,z1,2017-03-01\n", "c,11,z2,2017-03-02\n"};
+      Key k = FVecFactory.makeByteVec(day);
+      Frame appended = ParseDataset.append(fr._key, new Key[]{k}, true, setup(k));
+      assertArrayEquals(new String[]{"a", "b", "c"}, appended.vec("cat").domain());
+      assertSameRows(parse(concat(HISTORY, day)), appended);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testAppendMismatchedColumns() {
+    Scope.enter();
+    try {
+      Frame fr = parse(HISTORY);
+      Key k = FVecFactory.makeByteVec("cat,num\na,1\n");
+      try {
+        ParseDataset.append(fr._key, new Key[]{k}, true, setup(k));
+        fail("Expected the column count to be checked");
+      } catch (H2OIllegalArgumentException e) {
+        assertTrue(e.getMessage().contains("Cannot append 2 parsed columns"));
+        Scope.track((Vec) DKV.getGet(k));
+      }
+      // The frame is left unlocked and unchanged
+      assertEquals(5, ((Frame) DKV.getGet(fr._key)).numRows());
+      Key day = FVecFactory.makeByteVec(DAY);
+      assertEquals(9, ParseDataset.append(fr._key, new Key[]{day}, true, setup(day)).numRows());
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testAppendKeepsSetup() {
+    Scope.enter();
+    try {
+      Frame fr = parse(HISTORY);
+      Key day = FVecFactory.makeByteVec(DAY);
+      ParseSetup ps = setup(day);
+      ps._column_names = new String[]{"a", "b", "c", "d"};
+      byte[] types = ps._column_types.clone();
+      ParseDataset.append(fr._key, new Key[]{day}, true, ps);
+      assertArrayEquals(new String[]{"a", "b", "c", "d"}, ps._column_names);
+      assertArrayEquals(types, ps._column_types);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testAppendPartiallySharedVecs() {
+    Scope.enter();
+    try {
+      Frame fr = parse(HISTORY);
+      Frame other = new Frame(Key.<Frame>make(), new String[]{"cat", "x"}, new Vec[]{fr.vec("cat"), fr.anyVec().makeCon(1)});
+      Scope.track(other.vec("x"));
+      DKV.put(other);
+      Key day = FVecFactory.makeByteVec(DAY);
+      try {
+        ParseDataset.append(fr._key, new Key[]{day}, true, setup(day));
+        fail("Expected the shared vecs to be checked");
+      } catch (H2OIllegalArgumentException e) {
+        assertTrue(e.getMessage().contains("shares some of its vecs"));
+        Scope.track((Vec) DKV.getGet(day));
+      }
+      assertEquals(5, ((Frame) DKV.getGet(fr._key)).numRows());
+      // A Frame holding only Vecs of the appended Frame gets the new rows too
+      DKV.remove(other._key);
+      Frame sub = new Frame(Key.<Frame>make(), new String[]{"num"}, new Vec[]{fr.vec("num")});
+      DKV.put(sub);
+      day = FVecFactory.makeByteVec(DAY);
+      ParseDataset.append(fr._key, new Key[]{day}, true, setup(day));
+      assertEquals(9, ((Vec) DKV.getGet(sub.keys()[0])).length());
+      DKV.remove(sub._key);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  // The rows of both files, in one file with a single header
+  private static String[] concat(String[] first, String[] second) {
+    String[] chunks = new String[first.length + second.length];
+    System.arraycopy(first, 0, chunks, 0, first.length);
+    System.arraycopy(second, 0, chunks, first.length, second.length);
+    chunks[first.length] = second[0].substring(second[0].indexOf('\n') + 1);
+    return chunks;
+  }
+
+}
@@ -0,0 +1,41 @@
+package water.persist;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PersistNFSTest {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Test
+  public void testLoadRange() throws Exception {
+    byte[] content = new byte[100000];
+    new Random(0xFEED).nextBytes(content);
+    File f = tmp.newFile("data.bin");
+    try (FileOutputStream os = new FileOutputStream(f)) {
+      os.write(content);
+    }
+    assertArrayEquals(Arrays.copyOfRange(content, 0, 4096), PersistNFS.loadRange(f, 0, 4096));
+    assertArrayEquals(Arrays.copyOfRange(content, 65536, 100000), PersistNFS.loadRange(f, 65536, 100000 - 65536));
+  }
+
+  @Test(expected = EOFException.class)
+  public void testLoadRangeShortFile() throws Exception {
+    File f = tmp.newFile("short.bin");
+    try (FileOutputStream os = new FileOutputStream(f)) {
+      os.write(new byte[10]);
+    }
+    PersistNFS.loadRange(f, 5, 10);
+  }
+
+}
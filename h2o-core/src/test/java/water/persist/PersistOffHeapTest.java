@@ -0,0 +1,64 @@
+package water.persist;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import water.Key;
+import water.TestUtil;
+import water.Value;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class PersistOffHeapTest extends TestUtil {
+
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  @Before
+  public void setUp() {
+    stall_till_cloudsize(1);
+  }
+
+  @Test
+  public void testStoreLoadDelete() throws Exception {
+    PersistFS fs = new PersistFS(tmp.newFolder());
+    PersistOffHeap offHeap = new PersistOffHeap(1 << 20, fs);
+    Value v = new Value(Key.make(), bytes(1000));
+    offHeap.store(v);
+    assertEquals(1000, offHeap.usedBytes());
+    assertArrayEquals(bytes(1000), offHeap.load(v));
+    assertFalse(fs.getFile(v).exists());
+
+    offHeap.delete(v);
+    assertEquals(0, offHeap.usedBytes());
+  }
+
+  @Test
+  public void testOverflowsToFileSystem() throws Exception {
+    PersistFS fs = new PersistFS(tmp.newFolder());
+    PersistOffHeap offHeap = new PersistOffHeap(1500, fs);
+    Value v1 = new Value(Key.make(), bytes(1000));
+    Value v2 = new Value(Key.make(), bytes(1000));
+    offHeap.store(v1);
+    offHeap.store(v2); // Does not fit off-heap anymore
+    assertEquals(1000, offHeap.usedBytes());
+    File f2 = fs.getFile(v2);
+    assertTrue(f2.exists() || new File(f2.getPath() + ".lz").exists());
+    v2.setDsk();
+    assertArrayEquals(bytes(1000), offHeap.load(v1));
+    assertArrayEquals(bytes(1000), offHeap.load(v2));
+
+    offHeap.cleanUp();
+    assertEquals(0, offHeap.usedBytes());
+  }
+
+  private static byte[] bytes(int len) {
+    byte[] b = new byte[len];
+    for (int i = 0; i < len; i++) b[i] = (byte) (i * 31);
+    return b;
+  }
+
+}
@@ -0,0 +1,269 @@
+package water.rapids;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.MRTask;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+import water.fvec.CategoricalWrappedVec;
+import water.parser.BufferedString;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BroadcastJoinTest extends TestUtil {
+
+  @BeforeClass
+  static public void setup() { stall_till_cloudsize(1); }
+
+  private static Frame randomFrame(String name, int rows, String[] levels, String valName, long seed) {
+    return randomFrame(name, rows, levels, valName, seed, Vec.T_CAT);
+  }
+
+  private static Frame randomFrame(String name, int rows, String[] levels, String valName, long seed, byte keyType) {
+    Random r = new Random(seed);
+    String[] cats = new String[rows], strs = new String[rows];
+    double[] nums = new double[rows], vals = new double[rows];
+    for (int i = 0; i < rows; i++) {
+      cats[i] = r.nextInt(25) == 0 ? null : levels[r.nextInt(levels.length)];
+      nums[i] = r.nextInt(25) == 0 ? Double.NaN : r.nextInt(8) - 3;
+      vals[i] = r.nextInt(10) == 0 ? Double.NaN : r.nextDouble();
+      strs[i] = r.nextInt(10) == 0 ? null : "s" + r.nextInt(1000);
+    }
+    long[] layout = new long[Math.max(rows / 50, 1)];
+    long left = rows;
+    for (int c = 0; c < layout.length - 1; c++) left -= layout[c] = Math.min(left, r.nextInt(100));
+    layout[layout.length - 1] = left;
+    return new TestFrameBuilder()
+            .withName(name)
+            .withColNames("cat", "num", valName, valName + "_str")
+            .withVecTypes(keyType, Vec.T_NUM, Vec.T_NUM, Vec.T_STR)
+            .withDataForCol(0, cats)
+            .withDataForCol(1, nums)
+            .withDataForCol(2, vals)
+            .withDataForCol(3, strs)
+            .withChunkLayout(layout)
+            .build();
+  }
+
+  private static int[][] idMaps(Frame left, Frame rite, int[] cols) {
+    int[][] id_maps = new int[cols.length][];
+    for (int i = 0; i < cols.length; i++)
+      if (left.vec(cols[i]).isCategorical())
+        id_maps[i] = CategoricalWrappedVec.computeMap(left.vec(cols[i]).domain(), rite.vec(cols[i]).domain());
+    return id_maps;
+  }
+
+  private static double[] col(Vec v) {
+    double[] res = new double[(int) v.length()];
+    for (int i = 0; i < res.length; i++) res[i] = v.at(i);
+    return res;
+  }
+
+  private static List<String> rows(Frame fr) {
+    List<String> res = new ArrayList<>();
+    BufferedString tmp = new BufferedString();
+    for (long r = 0; r < fr.numRows(); r++) {
+      StringBuilder sb = new StringBuilder();
+      for (Vec v : fr.vecs()) {
+        if (v.isNA(r)) sb.append("NA");
+        else if (v.isCategorical()) sb.append(v.domain()[(int) v.at8(r)]);
+        else if (v.isString()) sb.append(v.atStr(tmp, r));
+        else sb.append(v.at(r));
+        sb.append(',');
+      }
+      res.add(sb.toString());
+    }
+    Collections.sort(res);
+    return res;
+  }
+
+  private static void assertSameAsRadix(Frame left, Frame rite, int[] cols, boolean allLeft) {
+    Frame expected = Scope.track(Merge.merge(left, rite, cols, cols, allLeft, idMaps(left, rite, cols)));
+    Frame actual = Scope.track(Merge.broadcastJoin(left, rite, cols, cols, allLeft));
+    assertArrayEquals(expected.names(), actual.names());
+    for (int c = 0; c < expected.numCols(); c++)
+      assertEquals(expected.vec(c).get_type(), actual.vec(c).get_type());
+    assertEquals(expected.numRows(), actual.numRows());
+    assertEquals(rows(expected), rows(actual));
+  }
+
+  @Test
+  public void testSameAsRadix() {
+    Scope.enter();
+    try {
+      Frame left = Scope.track(randomFrame("leftFrame", 3000, new String[]{"a", "b", "c", "d", "e"}, "x", 1));
+      Frame rite = Scope.track(randomFrame("riteFrame", 200, new String[]{"e", "c", "a", "z"}, "y", 2));
+      // The radix merge joins on the leading columns
+      Frame leftByNum = left.subframe(new String[]{"num", "cat", "x", "x_str"});
+      Frame riteByNum = rite.subframe(new String[]{"num", "cat", "y", "y_str"});
+      for (boolean allLeft : new boolean[]{false, true}) {
+        assertSameAsRadix(left, rite, new int[]{0}, allLeft);
+        assertSameAsRadix(leftByNum, riteByNum, new int[]{0}, allLeft);
+        assertSameAsRadix(left, rite, new int[]{0, 1}, allLeft);
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testKeepsLeftOrder() {
+    Scope.enter();
+    try {
+      Frame left = Scope.track(new TestFrameBuilder()
+              .withName("leftFrame")
+              .withColNames("key", "x")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(3, 1, Double.NaN, 2, 3, 0))
+              .withDataForCol(1, ard(1, 2, 3, 4, 5, 6))
+              .withChunkLayout(2, 3, 1)
+              .build());
+      Frame rite = Scope.track(new TestFrameBuilder()
+              .withName("riteFrame")
+              .withColNames("key", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(3, 2, 3, Double.NaN, -0.0))
+              .withDataForCol(1, ard(10, 20, 30, 40, 50))
+              .build());
+      Frame inner = Scope.track(Merge.broadcastJoin(left, rite, new int[]{0}, new int[]{0}, false));
+      assertArrayEquals(ard(3, 3, 2, 3, 3, 0), col(inner.vec(0)), 0);
+      assertArrayEquals(ard(1, 1, 4, 5, 5, 6), col(inner.vec(1)), 0);
+      assertArrayEquals(ard(10, 30, 20, 10, 30, 50), col(inner.vec(2)), 0);
+      Frame outer = Scope.track(Merge.broadcastJoin(left, rite, new int[]{0}, new int[]{0}, true));
+      assertArrayEquals(ard(1, 1, 2, 3, 4, 5, 5, 6), col(outer.vec(1)), 0);
+      assertArrayEquals(ard(10, 30, Double.NaN, Double.NaN, 20, 10, 30, 50), col(outer.vec(2)), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testTextKeys() {
+    Scope.enter();
+    try {
+      String[] leftLevels = {"a", "b", "c", "d", "e", "f"}, riteLevels = {"f", "e", "c", "a", "z", "y"};
+      Frame leftCat = Scope.track(randomFrame("leftCat", 2000, leftLevels, "x", 5, Vec.T_CAT));
+      Frame leftStr = Scope.track(randomFrame("leftStr", 2000, leftLevels, "x", 5, Vec.T_STR));
+      Frame riteCat = Scope.track(randomFrame("riteCat", 300, riteLevels, "y", 6, Vec.T_CAT));
+      Frame riteStr = Scope.track(randomFrame("riteStr", 300, riteLevels, "y", 6, Vec.T_STR));
+      int[] cols = {0, 1};
+      for (boolean allLeft : new boolean[]{false, true}) {
+        List<String> expected = rows(Scope.track(Merge.merge(leftCat, riteCat, cols, cols, allLeft, idMaps(leftCat, riteCat, cols))));
+        for (Frame left : new Frame[]{leftCat, leftStr})
+          for (Frame rite : new Frame[]{riteCat, riteStr})
+            assertEquals(left._key + " " + rite._key, expected,
+                    rows(Scope.track(Merge.broadcastJoin(left, rite, cols, cols, allLeft))));
+      }
+      // Categorical and string keys through Rapids, with the broadcast method
+      Frame radix = Scope.track(Rapids.exec("(merge leftCat riteCat TRUE FALSE [0 1] [0 1] 'radix')").getFrame());
+      Frame mixed = Scope.track(Rapids.exec("(merge leftCat riteStr TRUE FALSE [0 1] [0 1] 'broadcast')").getFrame());
+      assertEquals(rows(radix), rows(mixed));
+      for (String method : new String[]{"radix", "auto"}) {
+        try {
+          Rapids.exec("(merge leftCat riteStr TRUE FALSE [0 1] [0 1] '" + method + "')");
+          fail("Different key types need the broadcast join");
+        } catch (IllegalArgumentException expectedFailure) {
+          // Expected
+        }
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testLongPayloads() {
+    Scope.enter();
+    try {
+      long big = (1L << 53) + 1; // Not a double
+      Frame left = Scope.track(new TestFrameBuilder()
+              .withColNames("key", "x")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2, 3))
+              .withDataForCol(1, ard(1, 2, 3))
+              .build());
+      Frame rite = Scope.track(new TestFrameBuilder()
+              .withColNames("key", "y", "t")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_TIME)
+              .withDataForCol(0, ard(1, 2, 3))
+              .withDataForCol(1, ard(0, 0, Double.NaN))
+              .withDataForCol(2, ard(0, 0, 0))
+              .build());
+      new MRTask() { // Values beyond 2^53 that the builder cannot express as doubles
+        @Override public void map(Chunk[] cs) {
+          for (int r = 0; r < cs[0]._len; r++) {
+            if (!cs[1].isNA(r)) cs[1].set(r, big - r);
+            cs[2].set(r, -big + r);
+          }
+        }
+      }.doAll(rite);
+      Frame res = Scope.track(Merge.broadcastJoin(left, rite, new int[]{0}, new int[]{0}, false));
+      assertEquals(big, res.vec(2).at8(0));
+      assertEquals(big - 1, res.vec(2).at8(1));
+      assertTrue(res.vec(2).isNA(2));
+      assertTrue(res.vec(3).isTime());
+      for (int r = 0; r < 3; r++)
+        assertEquals(-big + r, res.vec(3).at8(r));
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testFitsInMemoryCountsStrings() {
+    Scope.enter();
+    try {
+      String[] strs = new String[100];
+      double[] nums = new double[100];
+      for (int i = 0; i < strs.length; i++)
+        strs[i] = new String(new char[1000]).replace('\0', (char) ('a' + i % 26));
+      Frame rite = Scope.track(new TestFrameBuilder()
+              .withColNames("key", "str")
+              .withVecTypes(Vec.T_NUM, Vec.T_STR)
+              .withDataForCol(0, nums)
+              .withDataForCol(1, strs)
+              .build());
+      // 100 rows and 2 columns are 1600 bytes as 8 bytes per value, the strings alone are 100000 bytes
+      assertFalse(BroadcastJoin.fitsInMemory(rite, 50000));
+      assertTrue(BroadcastJoin.fitsInMemory(rite, 200000));
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testAutoMethod() {
+    Scope.enter();
+    try {
+      Frame left = Scope.track(randomFrame("leftFrame", 1000, new String[]{"a", "b", "c"}, "x", 3));
+      Frame rite = Scope.track(randomFrame("riteFrame", 100, new String[]{"c", "b", "d"}, "y", 4));
+      assertTrue(Merge.canBroadcast(left, rite, new int[]{0, 1}, new int[]{0, 1}));
+      Frame radix = Scope.track(Rapids.exec("(merge leftFrame riteFrame TRUE FALSE [0 1] [0 1] 'radix')").getFrame());
+      // The auto method never broadcasts, so the rows stay sorted by the keys
+      Frame auto = Scope.track(Rapids.exec("(merge leftFrame riteFrame TRUE FALSE [0 1] [0 1] 'auto')").getFrame());
+      assertFrameEquals(radix, auto, 0);
+      Frame broadcast = Scope.track(Rapids.exec("(merge leftFrame riteFrame TRUE FALSE [0 1] [0 1] 'broadcast')").getFrame());
+      assertEquals(Arrays.asList(radix.names()), Arrays.asList(broadcast.names()));
+      assertEquals(rows(radix), rows(broadcast));
+      for (String method : new String[]{"radix", "broadcast"}) { // All rows of the right frame
+        Frame res = Scope.track(Rapids.exec("(merge riteFrame leftFrame FALSE TRUE [0 1] [0 1] '" + method + "')").getFrame());
+        assertEquals(Arrays.asList(radix.names()).size(), res.numCols());
+        if (method.equals("radix")) radix = res;
+        else assertEquals(rows(radix), rows(res));
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
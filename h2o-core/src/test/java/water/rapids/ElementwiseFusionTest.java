@@ -0,0 +1,95 @@
+package water.rapids;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.DKV;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import static org.junit.Assert.*;
+
+public class ElementwiseFusionTest extends TestUtil {
+  @BeforeClass public static void setup() { stall_till_cloudsize(1); }
+
+  private static Frame testFrame() {
+    return new TestFrameBuilder()
+            .withName("fusionFrame")
+            .withColNames("x", "y", "c")
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT)
+            .withDataForCol(0, ard(1, 2, Double.NaN, -4, 5, 0.5))
+            .withDataForCol(1, ard(-1, 0, 3, 2, Double.NaN, 7))
+            .withDataForCol(2, ar("a", "b", "a", null, "b", "a"))
+            .withChunkLayout(2, 3, 1)
+            .build();
+  }
+
+  private static Val exec(String rapids, boolean fuse) {
+    Session ses = new Session();
+    ses.setFuseElementwise(fuse);
+    try {
+      return ses.end(ses.exec(Rapids.parse(rapids), null));
+    } catch (Throwable ex) {
+      throw ses.endQuietly(ex);
+    }
+  }
+
+  private static void assertSameResult(String rapids) {
+    Val eager = exec(rapids, false);
+    Val fused = exec(rapids, true);
+    assertEquals(rapids, eager.type(), fused.type());
+    if (eager.isNum()) {
+      assertEquals(rapids, eager.getNum(), fused.getNum(), 0);
+      return;
+    }
+    Frame expected = Scope.track(eager.getFrame());
+    Frame actual = Scope.track(fused.getFrame());
+    assertArrayEquals(rapids, expected.names(), actual.names());
+    assertFrameEquals(expected, actual, 0);
+  }
+
+  @Test public void testSameResultsAsEager() {
+    Scope.enter();
+    try {
+      Scope.track(testFrame());
+      assertSameResult("(* (log (+ (cols fusionFrame [0]) 1)) (> (cols fusionFrame [1]) 0))");
+      assertSameResult("(- 1 (/ (cols fusionFrame [0 1]) (exp (cols fusionFrame [1 0]))))");
+      assertSameResult("(+ (cols fusionFrame [0]) (* (cols fusionFrame [0 1]) 2))");          // Broadcast single column
+      assertSameResult("(ifelse (is.na (cols fusionFrame [0 1])) -1 (sqrt (abs (cols fusionFrame [0 1]))))");
+      assertSameResult("(ifelse (> (cols fusionFrame [1]) 2) (* (cols fusionFrame [0]) 10) (cols fusionFrame [1]))");
+      assertSameResult("(ifelse 0 (+ (cols fusionFrame [0]) 1) (- (cols fusionFrame [1]) 1))"); // Scalar test
+      // The branch not taken by any row is not evaluated, it would fail
+      assertSameResult("(ifelse (> (cols fusionFrame [1]) 100) (cols fusionFrame [9]) (+ (cols fusionFrame [0]) 1))");
+      assertSameResult("(ifelse (+ (is.na (cols fusionFrame [0])) 1) (+ (cols fusionFrame [0]) 1) (cols fusionFrame [9]))");
+      assertSameResult("(== (+ (cols fusionFrame [1]) 1) 3)");                                   // Own frame/scalar comparison
+      assertSameResult("(* (cols fusionFrame [2]) (+ (cols fusionFrame [0]) 1))");               // Categorical
+      assertSameResult("(+ (* 2 3) (cos 0))");
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test public void testSinglePass() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(testFrame());
+      Vec.VectorGroup vg = fr.anyVec().group();
+      String rapids = "(* (log (+ (cols fusionFrame [0]) 1)) (> (cols fusionFrame [1]) 0))";
+
+      int before = DKV.<Vec.VectorGroup>getGet(vg._key).len();
+      Frame eager = Scope.track(exec(rapids, false).getFrame());
+      int afterEager = DKV.<Vec.VectorGroup>getGet(vg._key).len();
+      assertEquals(4, afterEager - before); // +, log, >, *
+
+      Frame fused = Scope.track(exec(rapids, true).getFrame());
+      assertEquals(1, DKV.<Vec.VectorGroup>getGet(vg._key).len() - afterEager);
+      assertArrayEquals(new String[]{"log(x)"}, fused.names());
+      assertFrameEquals(eager, fused, 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
@@ -0,0 +1,67 @@
+package water.rapids.ast.prims.mungers;
+
+import org.junit.Ignore;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+import water.rapids.ast.prims.mungers.AstGroup.AGG;
+import water.rapids.ast.prims.mungers.AstGroup.FCN;
+import water.rapids.ast.prims.mungers.AstGroup.NAHandling;
+
+import java.util.Arrays;
+import java.util.Random;
+
+@Ignore("Helper class for the group-by tests, no actual tests here")
+public class GroupByTestUtils {
+
+  /**
+   * Frame with an integer, a double and a categorical group-by column, and a numeric value column, all with NAs.
+   * @param intKeys number of distinct values of the integer column
+   */
+  static Frame randomFrame(int rows, int intKeys, long seed) {
+    Random r = new Random(seed);
+    double[] ints = new double[rows], doubles = new double[rows], vals = new double[rows];
+    String[] cats = new String[rows];
+    for (int i = 0; i < rows; i++) {
+      ints[i] = r.nextInt(10) == 0 ? Double.NaN : r.nextInt(intKeys) - intKeys / 2;
+      doubles[i] = r.nextInt(10) == 0 ? Double.NaN : r.nextInt(50) * 0.25 - 3;
+      cats[i] = r.nextInt(10) == 0 ? null : "L" + r.nextInt(5);
+      vals[i] = r.nextInt(8) == 0 ? Double.NaN : r.nextGaussian();
+    }
+    long[] layout = new long[]{rows / 4, rows / 4, rows / 4, rows - 3 * (rows / 4)};
+    return new TestFrameBuilder()
+            .withColNames("int", "double", "cat", "val")
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_NUM)
+            .withDataForCol(0, ints)
+            .withDataForCol(1, doubles)
+            .withDataForCol(2, cats)
+            .withDataForCol(3, vals)
+            .withChunkLayout(layout)
+            .build();
+  }
+
+  /** The numeric aggregates of the given column, with the different NA handlings */
+  static AGG[] aggregates(int val) {
+    return new AGG[]{
+            new AGG(FCN.nrow, val, NAHandling.ALL, 0),
+            new AGG(FCN.mean, val, NAHandling.RM, 0),
+            new AGG(FCN.mean, val, NAHandling.IGNORE, 0),
+            new AGG(FCN.sum, val, NAHandling.ALL, 0),
+            new AGG(FCN.sumSquares, val, NAHandling.RM, 0),
+            new AGG(FCN.var, val, NAHandling.RM, 0),
+            new AGG(FCN.sdev, val, NAHandling.RM, 0),
+            new AGG(FCN.min, val, NAHandling.RM, 0),
+            new AGG(FCN.max, val, NAHandling.RM, 0),
+    };
+  }
+
+  /** The numeric aggregates of the value column and the mode of the categorical column of {@link #randomFrame} */
+  static AGG[] allAggregates(Frame fr) {
+    int cat = 2;
+    AGG[] aggs = aggregates(3);
+    AGG[] res = Arrays.copyOf(aggs, aggs.length + 1);
+    res[aggs.length] = new AGG(FCN.mode, cat, NAHandling.RM, (int) fr.vec(cat).max() + 1);
+    return res;
+  }
+
+}
@@ -0,0 +1,119 @@
+package water.rapids.ast.prims.mungers;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.rapids.ast.prims.mungers.AstGroup.AGG;
+import water.rapids.ast.prims.mungers.AstGroup.FCN;
+import water.rapids.ast.prims.mungers.AstGroup.NAHandling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveGroupByTest extends TestUtil {
+
+  @BeforeClass
+  static public void setup() { stall_till_cloudsize(1); }
+
+  private static void assertSameAsGroupObjects(Frame fr, int[] gbCols, boolean packed) {
+    AGG[] aggs = GroupByTestUtils.allAggregates(fr);
+    assertTrue(PrimitiveGroupBy.isSupported(fr, gbCols, aggs));
+    assertEquals(packed, PrimitiveGroupBy.KeyCodec.make(fr, gbCols).isPacked());
+    for (boolean perNode : new boolean[]{true, false})
+      assertSameAsGroupObjects(fr, gbCols, aggs, new AstGroup(perNode));
+  }
+
+  private static void assertSameAsGroupObjects(Frame fr, int[] gbCols, AGG[] aggs, AstGroup gb) {
+    Frame expected = Scope.track(gb.performGroupingWithGroupObjects(fr, gbCols, aggs).getFrame());
+    Frame actual = Scope.track(gb.performGroupingWithAggregations(fr, gbCols, aggs).getFrame());
+    assertArrayEquals(expected.names(), actual.names());
+    assertEquals(expected.numRows(), actual.numRows());
+    for (int c = 0; c < gbCols.length; c++)
+      assertArrayEquals(expected.vec(c).domain(), actual.vec(c).domain());
+    // Group objects are not ordered consistently after a NaN in a leading column, compare the groups by key
+    Map<List<Double>, Long> expectedRows = new HashMap<>();
+    for (long r = 0; r < expected.numRows(); r++)
+      expectedRows.put(key(expected, gbCols.length, r), r);
+    for (long r = 0; r < actual.numRows(); r++) {
+      Long e = expectedRows.get(key(actual, gbCols.length, r));
+      assertNotNull(e);
+      for (int c = gbCols.length; c < actual.numCols(); c++)
+        assertEquals(actual.name(c), expected.vec(c).at(e), actual.vec(c).at(r), 1e-10);
+      if (r > 0)
+        assertTrue("groups are ordered", compareKeys(actual, gbCols.length, r - 1, r) < 0);
+    }
+  }
+
+  private static List<Double> key(Frame fr, int ncols, long row) {
+    List<Double> key = new ArrayList<>();
+    for (int c = 0; c < ncols; c++) key.add(fr.vec(c).at(row));
+    return key;
+  }
+
+  // NaN is the least
+  private static int compareKeys(Frame fr, int ncols, long r1, long r2) {
+    for (int c = 0; c < ncols; c++) {
+      double d1 = fr.vec(c).at(r1), d2 = fr.vec(c).at(r2);
+      if (Double.isNaN(d1) != Double.isNaN(d2)) return Double.isNaN(d1) ? -1 : 1;
+      if (d1 != d2 && !Double.isNaN(d1)) return d1 < d2 ? -1 : 1;
+    }
+    return 0;
+  }
+
+  @Test
+  public void testPackedKeys() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(GroupByTestUtils.randomFrame(10000, 100, 42));
+      assertSameAsGroupObjects(fr, new int[]{0}, true);
+      assertSameAsGroupObjects(fr, new int[]{2, 0}, true);
+      assertSameAsGroupObjects(fr, new int[0], true);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testUnpackedKeys() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(GroupByTestUtils.randomFrame(10000, 100, 7));
+      assertSameAsGroupObjects(fr, new int[]{1}, false);
+      assertSameAsGroupObjects(fr, new int[]{0, 1, 2}, false);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testManyGroups() {
+    Scope.enter();
+    try {
+      // Large enough tables to be merged partition by partition in parallel
+      Frame fr = Scope.track(GroupByTestUtils.randomFrame(200000, 1 << 20, 11));
+      assertSameAsGroupObjects(fr, new int[]{0}, true);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testMedianNotSupported() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(GroupByTestUtils.randomFrame(100, 10, 1));
+      assertFalse(PrimitiveGroupBy.isSupported(fr, new int[]{0}, new AGG[]{new AGG(FCN.median, 3, NAHandling.RM, 0)}));
+      assertTrue(PrimitiveGroupBy.isSupported(fr, new int[]{0}, new AGG[]{new AGG(FCN.mean, 3, NAHandling.RM, 0)}));
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
@@ -0,0 +1,120 @@
+package water.rapids.ast.prims.mungers;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+import water.rapids.ast.prims.mungers.AstGroup.AGG;
+import water.rapids.ast.prims.mungers.AstGroup.FCN;
+import water.rapids.ast.prims.mungers.AstGroup.NAHandling;
+
+import static org.junit.Assert.*;
+
+public class SortGroupByTest extends TestUtil {
+
+  @BeforeClass
+  static public void setup() { stall_till_cloudsize(1); }
+
+  private static void assertSameAsHashing(Frame fr, int[] gbCols, AGG[] aggs) {
+    String[] names = new AstGroup().prepareFCNames(fr, aggs);
+    assertTrue(SortGroupBy.isSupported(fr, gbCols, aggs));
+    Frame expected = Scope.track(PrimitiveGroupBy.groupBy(fr, gbCols, aggs, names));
+    Frame actual = Scope.track(SortGroupBy.groupBy(fr, gbCols, aggs, names));
+    assertArrayEquals(expected.names(), actual.names());
+    for (int c = 0; c < gbCols.length; c++)
+      assertArrayEquals(expected.vec(c).domain(), actual.vec(c).domain());
+    assertFrameEquals(expected, actual, 1e-8);
+  }
+
+  @Test
+  public void testSameAsHashing() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(GroupByTestUtils.randomFrame(10000, 100, 42));
+      AGG[] aggs = GroupByTestUtils.aggregates(3);
+      assertSameAsHashing(fr, new int[]{0}, aggs);
+      assertSameAsHashing(fr, new int[]{1}, aggs);
+      assertSameAsHashing(fr, new int[]{2, 0}, aggs);
+      assertSameAsHashing(fr, new int[]{0, 1, 2}, aggs);
+      assertSameAsHashing(fr, new int[]{1}, new AGG[]{new AGG(FCN.sum, 1, NAHandling.RM, 0)}); // Aggregate a key
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testRunsAcrossChunks() {
+    Scope.enter();
+    try {
+      // Sorted keys, key 2 spans three chunks, chunks start and end with the same or different keys
+      Frame fr = Scope.track(new TestFrameBuilder()
+              .withColNames("k1", "k2", "val")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(Double.NaN, Double.NaN, 1, 1, 2, 2, 2, 2, 2, 2, 3, 4, 4, 4, 5))
+              .withDataForCol(1, ard(Double.NaN, Double.NaN, 0, 1, 7, 7, 7, 7, 7, 7, 0, 0, 0, 1, 0))
+              .withDataForCol(2, ard(1, 2, 3, Double.NaN, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15))
+              .withChunkLayout(1, 3, 2, 1, 3, 0, 2, 1, 2)
+              .build());
+      AGG[] aggs = GroupByTestUtils.aggregates(2);
+      String[] names = new AstGroup().prepareFCNames(fr, aggs);
+      for (int[] gbCols : new int[][]{{0}, {0, 1}}) {
+        Frame expected = Scope.track(PrimitiveGroupBy.groupBy(fr, gbCols, aggs, names));
+        Frame actual = Scope.track(SortGroupBy.groupBySorted(fr, gbCols, aggs, names));
+        assertFrameEquals(expected, actual, 1e-10);
+      }
+      assertEquals(6, Scope.track(SortGroupBy.groupBySorted(fr, new int[]{0}, aggs, names)).numRows());
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testSignedZeros() {
+    Scope.enter();
+    try {
+      // -0.0 and 0.0 are one group; each chunk starts with a value that makes it keep doubles, integers are stored
+      // as longs and lose the sign of the zero
+      Frame fr = Scope.track(new TestFrameBuilder()
+              .withColNames("k", "val")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(Math.PI, -0.0, 0.0, Math.E, 0.0, -0.0, Math.PI, -0.0))
+              .withDataForCol(1, ard(1, 2, 3, 4, 5, 6, 7, 8))
+              .withChunkLayout(3, 3, 2)
+              .build());
+      assertEquals(Double.NEGATIVE_INFINITY, 1 / fr.vec(0).at(5), 0);
+      AGG[] aggs = GroupByTestUtils.aggregates(1);
+      assertSameAsHashing(fr, new int[]{0}, aggs);
+      String[] names = new AstGroup().prepareFCNames(fr, aggs);
+      Frame groups = Scope.track(SortGroupBy.groupBy(fr, new int[]{0}, aggs, names));
+      assertEquals(3, groups.numRows());
+      assertEquals(0, groups.vec(0).at(0), 0);
+      assertEquals(5, groups.vec(1).at(0), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testEstimateGroups() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(GroupByTestUtils.randomFrame(100000, 1 << 30, 3));
+      // Small integer ranges give an exact bound
+      assertEquals(6, SortGroupBy.estimateGroups(fr, new int[]{2}, 100));
+      assertEquals(36, SortGroupBy.estimateGroups(fr, new int[]{2, 2}, 100));
+      // Otherwise the groups are counted
+      long groups = Scope.track(new AstGroup().performGroupingWithGroupObjects(fr, new int[]{0}, AstGroup.aggNRows())
+              .getFrame()).numRows();
+      long estimate = SortGroupBy.estimateGroups(fr, new int[]{0}, 1000);
+      assertEquals(groups, estimate, groups * 0.05);
+      assertEquals(6, SortGroupBy.estimateGroups(fr, new int[]{2}, 1));
+      assertEquals(51, SortGroupBy.estimateGroups(fr, new int[]{1}, 10), 3);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
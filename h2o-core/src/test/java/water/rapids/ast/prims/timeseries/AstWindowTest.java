@@ -0,0 +1,248 @@
+package water.rapids.ast.prims.timeseries;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.DKV;
+import water.H2O;
+import water.Key;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+import water.rapids.Rapids;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AstWindowTest extends TestUtil {
+
+  @BeforeClass
+  static public void setup() { stall_till_cloudsize(1); }
+
+  private static Frame randomFrame(String name, int rows, long seed) {
+    Random r = new Random(seed);
+    String[] keys = new String[rows];
+    double[] times = new double[rows], vals = new double[rows];
+    for (int i = 0; i < rows; i++) {
+      keys[i] = r.nextInt(20) == 0 ? null : "K" + r.nextInt(7);
+      times[i] = r.nextInt(30) == 0 ? Double.NaN : r.nextInt(rows);
+      vals[i] = r.nextInt(6) == 0 ? Double.NaN : r.nextInt(100) - 50;
+    }
+    // Small chunks, so that the windows span several chunks
+    long[] layout = new long[rows / 3];
+    long left = rows;
+    for (int c = 0; c < layout.length - 1; c++) left -= layout[c] = Math.min(left, r.nextInt(5));
+    layout[layout.length - 1] = left;
+    return new TestFrameBuilder()
+            .withName(name)
+            .withColNames("key", "time", "val")
+            .withVecTypes(Vec.T_CAT, Vec.T_NUM, Vec.T_NUM)
+            .withDataForCol(0, keys)
+            .withDataForCol(1, times)
+            .withDataForCol(2, vals)
+            .withChunkLayout(layout)
+            .build();
+  }
+
+  private static Frame exec(String rapids) {
+    return Scope.track(Rapids.exec(rapids).getFrame());
+  }
+
+  // Rows in the same partition are consecutive in the (sorted) result
+  private static boolean samePart(double[] keys, int i, int j) {
+    return keys == null || keys[i] == keys[j] || (Double.isNaN(keys[i]) && Double.isNaN(keys[j]));
+  }
+
+  private static double[] col(Frame fr, String name) {
+    Vec v = fr.vec(name);
+    double[] res = new double[(int) v.length()];
+    for (int i = 0; i < res.length; i++) res[i] = v.at(i);
+    return res;
+  }
+
+  private static double expectedRolling(String fun, double[] keys, double[] times, double[] vals, int i,
+                                        double width, boolean range) {
+    if (range && Double.isNaN(times[i])) return Double.NaN;
+    long n = 0;
+    double sum = 0, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+    int first = i;
+    for (int j = i; j >= 0 && samePart(keys, i, j); j--) {
+      if (range ? !(times[j] > times[i] - width) : j <= i - width) {
+        if (range) continue;
+        break;
+      }
+      first = j;
+      if (Double.isNaN(vals[j])) continue;
+      n++;
+      sum += vals[j];
+      min = Math.min(min, vals[j]);
+      max = Math.max(max, vals[j]);
+    }
+    double ss = 0; // Squared deviations, in a second pass over the window
+    for (int j = first; j <= i; j++)
+      if (!Double.isNaN(vals[j]) && (!range || times[j] > times[i] - width))
+        ss += (vals[j] - sum / n) * (vals[j] - sum / n);
+    switch (fun) {
+      case "count": return n;
+      case "sum": return n == 0 ? Double.NaN : sum;
+      case "mean": return n == 0 ? Double.NaN : sum / n;
+      case "min": return n == 0 ? Double.NaN : min;
+      case "max": return n == 0 ? Double.NaN : max;
+      case "sd": return n < 2 ? Double.NaN : Math.sqrt(ss / (n - 1));
+      default: throw new IllegalArgumentException(fun);
+    }
+  }
+
+  private static void assertRolling(String partBy, String orderBy, String fun, double width, boolean range) {
+    assertRolling(partBy, orderBy, fun, width, range, 1e-8);
+  }
+
+  private static void assertRolling(String partBy, String orderBy, String fun, double width, boolean range,
+                                    double delta) {
+    Frame res = exec("(rolling windowFrame " + partBy + " " + orderBy + " \"" + fun + "\" 2 " + width + " " +
+            (range ? 1 : 0) + ")");
+    assertEquals(4, res.numCols());
+    assertEquals(fun + "_val", res.name(3));
+    double[] keys = partBy.equals("[]") ? null : col(res, "key");
+    double[] times = col(res, "time"), vals = col(res, "val"), actual = col(res, fun + "_val");
+    for (int i = 0; i < actual.length; i++) {
+      if (i > 0 && samePart(keys, i - 1, i) && !orderBy.equals("[]"))
+        assertTrue("sorted", Double.isNaN(times[i - 1]) || times[i - 1] <= times[i]);
+      assertEquals(fun + " row " + i, expectedRolling(fun, keys, times, vals, i, width, range), actual[i], delta);
+    }
+  }
+
+  @Test
+  public void testRollingRows() {
+    Scope.enter();
+    try {
+      Scope.track(randomFrame("windowFrame", 3000, 42));
+      for (String fun : new String[]{"count", "sum", "mean", "min", "max", "sd"}) {
+        assertRolling("[0]", "[1]", fun, 7, false);
+        assertRolling("[]", "[]", fun, 7, false);  // Frame order, windows across partitions and many chunks
+      }
+      assertRolling("[0]", "[1]", "mean", 1, false);
+      assertRolling("[0]", "[1]", "sum", 500, false);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testRollingRange() {
+    Scope.enter();
+    try {
+      Scope.track(randomFrame("windowFrame", 3000, 7));
+      for (String fun : new String[]{"count", "mean", "min", "max", "sd"}) {
+        assertRolling("[0]", "[1]", fun, 25, true);
+        assertRolling("[]", "[1]", fun, 10.5, true);
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testRollingLargeMean() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(randomFrame("windowFrame", 3000, 3));
+      Random r = new Random(3);
+      Vec vals = fr.vec("val");
+      for (long i = 0; i < vals.length(); i++)
+        if (!vals.isNA(i)) vals.set(i, 1e9 + r.nextDouble()); // Prefix sums of the squares lose all the noise
+      DKV.put(fr);
+      assertRolling("[0]", "[1]", "sd", 7, false, 1e-9);
+      assertRolling("[0]", "[1]", "sd", 100, false, 1e-9);
+      assertRolling("[]", "[]", "sd", 50, false, 1e-9);
+      assertRolling("[0]", "[1]", "sd", 25, true, 1e-9);
+      assertRolling("[0]", "[1]", "mean", 7, false, 1e-6);
+      assertRolling("[0]", "[1]", "sum", 100, false, 1e-4);
+      // Drifting values, far from the ones the window started with
+      for (long i = 0; i < vals.length(); i++)
+        if (!vals.isNA(i)) vals.set(i, 1e9 + 1e6 * i + r.nextDouble());
+      DKV.put(fr);
+      assertRolling("[]", "[]", "sd", 20, false, 1e-6);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  private static class FailingWindow extends AstWindow.Window {
+    @Override long rowsBefore() { return 10; }
+    @Override long rowsAfter() { return 10; }
+    @Override void compute(int[] part, double[] order, double[] vals, int lo, int hi, NewChunk nc) {
+      throw new IllegalStateException("Failing window");
+    }
+  }
+
+  @Test
+  public void testHalosRemovedOnFailure() {
+    Scope.enter();
+    try {
+      Frame fr = Scope.track(randomFrame("windowFrame", 300, 5));
+      try {
+        AstWindow.window(fr, new int[0], new int[0], 2, new FailingWindow(), "failing");
+        fail("Expected the window to fail");
+      } catch (Exception e) {
+        // expected
+      }
+      for (Key key : H2O.localKeySet())
+        assertFalse("Halo left behind: " + key, key.toString().contains("__window_halo_") && DKV.get(key) != null);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testLagLead() {
+    Scope.enter();
+    try {
+      Scope.track(randomFrame("windowFrame", 3000, 3));
+      for (int k : new int[]{1, 3, 40, -1, -5}) {
+        for (String partBy : new String[]{"[0]", "[]"}) {
+          Frame res = exec("(lag windowFrame " + partBy + " [1] \"val\" " + k + ")");
+          String name = (k > 0 ? "lag" : "lead") + Math.abs(k) + "_val";
+          assertEquals(name, res.name(3));
+          double[] keys = partBy.equals("[]") ? null : col(res, "key");
+          double[] vals = col(res, "val"), actual = col(res, name);
+          for (int i = 0; i < actual.length; i++) {
+            int j = i - k;
+            boolean inPart = j >= 0 && j < vals.length;
+            for (int l = Math.min(i, j); inPart && l < Math.max(i, j); l++) inPart = samePart(keys, l, l + 1);
+            assertEquals("lag " + k + " row " + i, inPart ? vals[j] : Double.NaN, actual[i], 0);
+          }
+        }
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testBadArguments() {
+    Scope.enter();
+    try {
+      Scope.track(randomFrame("windowFrame", 30, 1));
+      for (String rapids : new String[]{
+              "(rolling windowFrame [0] [1] \"median\" 2 3 0)",
+              "(rolling windowFrame [0] [1] \"mean\" 0 3 0)",
+              "(rolling windowFrame [0] [1] \"mean\" 2 2.5 0)",
+              "(rolling windowFrame [0] [] \"mean\" 2 3 1)",
+              "(lag windowFrame [0] [1] 2 0)"}) {
+        try {
+          exec(rapids);
+          fail(rapids);
+        } catch (IllegalArgumentException expected) {
+          // Expected
+        }
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+}
@@ -0,0 +1,83 @@
+package water.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LZBlockCodecTest {
+
+  @Test
+  public void testEmptyAndTiny() {
+    for (int len = 0; len < 20; len++) {
+      byte[] raw = new byte[len];
+      for (int i = 0; i < len; i++) raw[i] = (byte) (i % 3);
+      assertRoundTrip(raw);
+    }
+  }
+
+  @Test
+  public void testZerosCompressWell() {
+    byte[] raw = new byte[1 << 20];
+    byte[] c = assertRoundTrip(raw);
+    assertTrue("compressed size " + c.length, c.length < raw.length / 100);
+  }
+
+  @Test
+  public void testRandomIsBounded() {
+    byte[] raw = new byte[100000];
+    new Random(0xCAFE).nextBytes(raw);
+    byte[] c = assertRoundTrip(raw);
+    assertTrue(c.length <= LZBlockCodec.maxCompressedLength(raw.length));
+  }
+
+  @Test
+  public void testRepeatedPatternsAndLongRuns() {
+    Random r = new Random(42);
+    byte[] raw = new byte[300000];
+    int i = 0;
+    while (i < raw.length) {
+      int run = r.nextInt(2000);
+      if (r.nextBoolean()) { // literal noise
+        for (int j = 0; j < run && i < raw.length; j++) raw[i++] = (byte) r.nextInt();
+      } else { // copy of an earlier region, possibly overlapping
+        int from = i == 0 ? 0 : r.nextInt(i);
+        for (int j = 0; j < run && i < raw.length; j++) raw[i++] = raw[from + j];
+      }
+    }
+    assertRoundTrip(raw);
+  }
+
+  @Test
+  public void testDoublesWithManyZeros() {
+    byte[] raw = new byte[8 * 10000];
+    for (int i = 0; i < 10000; i += 7)
+      UnsafeUtils.set8d(raw, 8 * i, i * 0.5);
+    byte[] c = assertRoundTrip(raw);
+    assertTrue(c.length < raw.length / 2);
+  }
+
+  @Test
+  public void testOffsetAndLength() {
+    byte[] raw = new byte[1000];
+    new Random(7).nextBytes(raw);
+    Arrays.fill(raw, 100, 900, (byte) 5);
+    byte[] c = LZBlockCodec.compress(raw, 50, 900);
+    assertArrayEquals(Arrays.copyOfRange(raw, 50, 950), LZBlockCodec.decompress(c, 900));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testWrongLengthIsDetected() {
+    byte[] raw = new byte[1000];
+    LZBlockCodec.decompress(LZBlockCodec.compress(raw), 999);
+  }
+
+  private static byte[] assertRoundTrip(byte[] raw) {
+    byte[] c = LZBlockCodec.compress(raw);
+    assertArrayEquals(raw, LZBlockCodec.decompress(c, raw.length));
+    return c;
+  }
+
+}
@@ -0,0 +1,166 @@
+package ai.h2o.targetencoding;
+
+import hex.genmodel.GenModel;
+import hex.genmodel.ModelMojoReader;
+import hex.genmodel.MojoReaderBackendFactory;
+import hex.genmodel.algos.targetencoder.TargetEncoderMojoModel;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * TargetEncoder MOJO loading and transformation micro-benchmark.
+ *
+ * The model is trained at setup on synthetic data with a low and a high cardinality categorical column
+ * and a binary response. Transformation benchmarks measure the time to encode a block of {@code rows} rows.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(1)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TargetEncoderMojoBench {
+
+  private static final String[] CAT_COLS = {"cat_low", "cat_high"};
+  private static final int[] CARDINALITIES = {8, 1000};
+  private static final String RESPONSE = "y";
+  private static final int TRAIN_ROWS = 10000;
+
+  @Param({"false", "true"})
+  private boolean blending;
+
+  @Param({"1000"})
+  private int rows;
+
+  private byte[] _mojoBytes;
+  private TargetEncoderMojoModel _mojo;
+  private EasyPredictModelWrapper _wrapper;
+  private double[][] _rawData;
+  private double[] _preds;
+  private RowData[] _rowData;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(TargetEncoderMojoBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    _mojoBytes = trainMojo(blending);
+    _mojo = (TargetEncoderMojoModel) loadMojo(_mojoBytes);
+    _wrapper = new EasyPredictModelWrapper(_mojo);
+
+    String[][] levels = makeLevels(rows, 0xDA7A);
+    _rawData = new double[rows][];
+    _rowData = new RowData[rows];
+    for (int r = 0; r < rows; r++) {
+      _rawData[r] = new double[_mojo.nfeatures()];
+      _rowData[r] = new RowData();
+      for (int i = 0; i < _mojo.nfeatures(); i++) {
+        int c = CAT_COLS[0].equals(_mojo._names[i]) ? 0 : CAT_COLS[1].equals(_mojo._names[i]) ? 1 : -1;
+        _rawData[r][i] = c < 0 ? Double.NaN : _mojo.mapEnum(i, levels[c][r]);
+      }
+      for (int c = 0; c < CAT_COLS.length; c++)
+        _rowData[r].put(CAT_COLS[c], levels[c][r]);
+    }
+    _preds = new double[_mojo._teColumnNameToIdx.size()];
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public GenModel loadMojo() throws IOException {
+    return loadMojo(_mojoBytes);
+  }
+
+  @Benchmark
+  public double score0() {
+    double sum = 0;
+    for (double[] row : _rawData) {
+      sum += _mojo.score0(row, _preds)[0];
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public void transformEasy(Blackhole bh) throws Exception {
+    for (RowData row : _rowData) {
+      bh.consume(_wrapper.transformWithTargetEncoding(row));
+    }
+  }
+
+  /** Levels of the categorical columns, the high cardinality levels are skewed towards the first ones */
+  private static String[][] makeLevels(int n, long seed) {
+    Random rnd = new Random(seed);
+    String[][] levels = new String[CAT_COLS.length][n];
+    for (int r = 0; r < n; r++) {
+      for (int c = 0; c < CAT_COLS.length; c++) {
+        int level = c == 0 ? rnd.nextInt(CARDINALITIES[c]) : (int) (CARDINALITIES[c] * Math.pow(rnd.nextDouble(), 2));
+        levels[c][r] = CAT_COLS[c] + "_" + level;
+      }
+    }
+    return levels;
+  }
+
+  private static byte[] trainMojo(boolean blending) throws IOException {
+    water.util.Log.setLogLevel("ERR");
+    stall_till_cloudsize(1);
+    String[][] levels = makeLevels(TRAIN_ROWS, 0xB3AC4);
+    Random rnd = new Random(42);
+    String[] response = new String[TRAIN_ROWS];
+    for (int r = 0; r < TRAIN_ROWS; r++) {
+      double signal = levels[0][r].hashCode() % 3 + levels[1][r].hashCode() % 5 + rnd.nextGaussian();
+      response[r] = signal > 0 ? "yes" : "no";
+    }
+    Frame train = new TestFrameBuilder()
+            .withName("te_mojo_bench_train")
+            .withColNames(CAT_COLS[0], CAT_COLS[1], RESPONSE)
+            .withVecTypes(Vec.T_CAT, Vec.T_CAT, Vec.T_CAT)
+            .withDataForCol(0, levels[0])
+            .withDataForCol(1, levels[1])
+            .withDataForCol(2, response)
+            .build();
+    TargetEncoderModel model = null;
+    try {
+      TargetEncoderModel.TargetEncoderParameters parms = new TargetEncoderModel.TargetEncoderParameters();
+      parms._response_column = RESPONSE;
+      parms._blending = blending;
+      parms.setTrain(train._key);
+      TargetEncoderBuilder builder = new TargetEncoderBuilder(parms);
+      builder.trainModel().get();
+      model = builder.getTargetEncoderModel();
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      model.getMojo().writeTo(os);
+      return os.toByteArray();
+    } finally {
+      if (model != null) model.delete();
+      train.delete();
+    }
+  }
+
+  private static GenModel loadMojo(byte[] mojo) throws IOException {
+    return ModelMojoReader.readFrom(MojoReaderBackendFactory.createReaderBackend(
+            new ByteArrayInputStream(mojo), MojoReaderBackendFactory.CachingStrategy.MEMORY));
+  }
+
+}
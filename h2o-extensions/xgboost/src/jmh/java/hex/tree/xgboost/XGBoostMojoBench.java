@@ -0,0 +1,184 @@
+package hex.tree.xgboost;
+
+import hex.genmodel.GenModel;
+import hex.genmodel.ModelMojoReader;
+import hex.genmodel.MojoReaderBackendFactory;
+import hex.genmodel.easy.EasyPredictModelWrapper;
+import hex.genmodel.easy.RowData;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * XGBoost MOJO loading and scoring micro-benchmark (MOJOs are always scored by the Java predictor).
+ *
+ * The model is trained at setup on synthetic data with 4 numerical columns (with ~1% of NAs), a categorical
+ * column with 8 levels and a binary response. Scoring benchmarks measure the time to score a block of
+ * {@code rows} rows.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(1)
+@State(Scope.Thread)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XGBoostMojoBench {
+
+  private static final String[] NUM_COLS = {"x1", "x2", "x3", "x4"};
+  private static final String CAT_COL = "cat";
+  private static final String RESPONSE = "y";
+  private static final String[] CAT_LEVELS = {"a", "b", "c", "d", "e", "f", "g", "h"};
+  private static final int TRAIN_ROWS = 10000;
+
+  @Param({"gbtree", "gblinear"})
+  private String booster;
+
+  @Param({"1000"})
+  private int rows;
+
+  private byte[] _mojoBytes;
+  private GenModel _mojo;
+  private EasyPredictModelWrapper _wrapper;
+  private double[][] _rawData;
+  private double[] _preds;
+  private RowData[] _rowData;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(XGBoostMojoBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    _mojoBytes = trainMojo(XGBoostModel.XGBoostParameters.Booster.valueOf(booster));
+    _mojo = loadMojo(_mojoBytes);
+    _wrapper = new EasyPredictModelWrapper(_mojo);
+
+    double[][] data = makeRows(rows, 0xDA7A);
+    _rawData = new double[rows][_mojo.nfeatures()];
+    _rowData = new RowData[rows];
+    for (int r = 0; r < rows; r++) {
+      for (int i = 0; i < _mojo.nfeatures(); i++) {
+        String name = _mojo._names[i];
+        int c = Arrays.asList(NUM_COLS).indexOf(name);
+        if (CAT_COL.equals(name))
+          _rawData[r][i] = _mojo.mapEnum(i, CAT_LEVELS[(int) data[r][NUM_COLS.length]]);
+        else
+          _rawData[r][i] = c < 0 ? Double.NaN : data[r][c];
+      }
+      _rowData[r] = new RowData();
+      for (int c = 0; c < NUM_COLS.length; c++) {
+        if (!Double.isNaN(data[r][c]))
+          _rowData[r].put(NUM_COLS[c], data[r][c]);
+      }
+      _rowData[r].put(CAT_COL, CAT_LEVELS[(int) data[r][NUM_COLS.length]]);
+    }
+    _preds = new double[_mojo.getPredsSize()];
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public GenModel loadMojo() throws IOException {
+    return loadMojo(_mojoBytes);
+  }
+
+  @Benchmark
+  public double score0() {
+    double sum = 0;
+    for (double[] row : _rawData) {
+      sum += _mojo.score0(row, _preds)[0];
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public void predictEasy(Blackhole bh) throws Exception {
+    for (RowData row : _rowData) {
+      bh.consume(_wrapper.predict(row));
+    }
+  }
+
+  /** Synthetic rows: numerical columns followed by the index of the categorical level */
+  private static double[][] makeRows(int n, long seed) {
+    Random rnd = new Random(seed);
+    double[][] rows = new double[n][NUM_COLS.length + 1];
+    for (double[] row : rows) {
+      for (int c = 0; c < NUM_COLS.length; c++)
+        row[c] = rnd.nextInt(100) == 0 ? Double.NaN : rnd.nextGaussian() * (c + 1);
+      row[NUM_COLS.length] = rnd.nextInt(CAT_LEVELS.length);
+    }
+    return rows;
+  }
+
+  private static byte[] trainMojo(XGBoostModel.XGBoostParameters.Booster booster) throws IOException {
+    water.util.Log.setLogLevel("ERR");
+    stall_till_cloudsize(1);
+    double[][] rows = makeRows(TRAIN_ROWS, 0xB3AC4);
+    Random rnd = new Random(42);
+    double[][] nums = new double[NUM_COLS.length][TRAIN_ROWS];
+    String[] cats = new String[TRAIN_ROWS];
+    String[] response = new String[TRAIN_ROWS];
+    for (int r = 0; r < TRAIN_ROWS; r++) {
+      double[] row = rows[r];
+      for (int c = 0; c < NUM_COLS.length; c++)
+        nums[c][r] = row[c];
+      int level = (int) row[NUM_COLS.length];
+      cats[r] = CAT_LEVELS[level];
+      double signal = (Double.isNaN(row[0]) ? 0 : row[0]) - (Double.isNaN(row[1]) ? 0 : 0.5 * row[1])
+              + (Double.isNaN(row[2]) ? 0 : Math.sin(row[2])) + (level % 3 - 1) + rnd.nextGaussian() * 0.5;
+      response[r] = signal > 0 ? "yes" : "no";
+    }
+    TestFrameBuilder builder = new TestFrameBuilder()
+            .withName("xgboost_mojo_bench_train")
+            .withColNames(NUM_COLS[0], NUM_COLS[1], NUM_COLS[2], NUM_COLS[3], CAT_COL, RESPONSE)
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_CAT);
+    for (int c = 0; c < NUM_COLS.length; c++)
+      builder = builder.withDataForCol(c, nums[c]);
+    Frame train = builder
+            .withDataForCol(NUM_COLS.length, cats)
+            .withDataForCol(NUM_COLS.length + 1, response)
+            .build();
+    XGBoostModel model = null;
+    try {
+      XGBoostModel.XGBoostParameters parms = new XGBoostModel.XGBoostParameters();
+      parms._train = train._key;
+      parms._response_column = RESPONSE;
+      parms._booster = booster;
+      parms._ntrees = 50;
+      parms._max_depth = 5;
+      parms._seed = 42;
+      model = new XGBoost(parms).trainModel().get();
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      model.getMojo().writeTo(os);
+      return os.toByteArray();
+    } finally {
+      if (model != null) model.delete();
+      train.delete();
+    }
+  }
+
+  private static GenModel loadMojo(byte[] mojo) throws IOException {
+    return ModelMojoReader.readFrom(MojoReaderBackendFactory.createReaderBackend(
+            new ByteArrayInputStream(mojo), MojoReaderBackendFactory.CachingStrategy.MEMORY));
+  }
+
+}
@@ -7,7 +7,6 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.List;
 import java.util.*;
 
 /**
@@ -266,6 +265,14 @@ public abstract class GenModel implements IGenModel, IGeneratedModel, Serializab
     throw new UnsupportedOperationException("`offset` column is not supported");
   }
 
+  /**
+   * Creates the scratch space for scoring rows of this model without allocation, see {@link ScoringContext}.
+   * The returned context should be used by a single thread only.
+   */
+  public ScoringContext makeScoringContext() {
+    return new ScoringContext(this);
+  }
+
   /** Subclasses implement calibration of class probabilities. The input is array of
    *  predictions returned by the scoring function (score0). Supports classification
    *  models that were trained with calibration enabled. Original probabilities
@@ -343,8 +350,6 @@ public abstract class GenModel implements IGenModel, IGeneratedModel, Serializab
   }
 
   public static int getPredictionMultinomial(double[] preds, double[] priorClassDist, double[] data) {
-    List<Integer> ties = new ArrayList<>();
-    ties.add(0);
     int best=1, tieCnt=0;   // Best class; count of ties
     for( int c=2; c<preds.length; c++) {
       if( preds[best] < preds[c] ) {
@@ -352,7 +357,6 @@ public abstract class GenModel implements IGenModel, IGeneratedModel, Serializab
         tieCnt=0;               // No ties
       } else if (preds[best] == preds[c]) {
         tieCnt++;               // Ties
-        ties.add(c-1);
       }
     }
     if( tieCnt==0 ) return best-1; // Return zero-based best class
@@ -366,18 +370,21 @@ public abstract class GenModel implements IGenModel, IGeneratedModel, Serializab
       // Tie-breaking based on prior probabilities
       // Example: probabilities are 0.4, 0.2, 0.4 for a 3-class problem with priors 0.7, 0.1, 0.2
       // Probability of predicting class 1 should be higher than for class 3 based on the priors
+      double res = preds[best];
       double sum = 0;
-      for (Integer i : ties) { //ties = [0, 2]
-        sum += priorClassDist[i]; //0.7 + 0.2
+      for (int c = best; c < preds.length; c++) { // ties are classes 1 and 3
+        if (preds[c] == res)
+          sum += priorClassDist[c-1]; //0.7 + 0.2
       }
       // sum is now 0.9
-      Random rng = new Random(hash);
-      double tie = rng.nextDouble(); //for example 0.4135 -> should pick the first of the ties, since it occupies 0.7777 = 0.7/0.9 of the 0...1 range, and 0.4135 < 0.7777
+      double tie = randomDouble(hash); //for example 0.4135 -> should pick the first of the ties, since it occupies 0.7777 = 0.7/0.9 of the 0...1 range, and 0.4135 < 0.7777
       double partialSum = 0;
-      for (Integer i : ties) {
-        partialSum += priorClassDist[i] / sum; //0.7777 at first iteration, 1.0000 at second iteration
+      for (int c = best; c < preds.length; c++) {
+        if (preds[c] != res)
+          continue;
+        partialSum += priorClassDist[c-1] / sum; //0.7777 at first iteration, 1.0000 at second iteration
         if (tie <= partialSum)
-          return i;
+          return c-1;
       }
     }
 
@@ -389,6 +396,17 @@ public abstract class GenModel implements IGenModel, IGeneratedModel, Serializab
         return best-1;          // Return best
     throw new RuntimeException("Should Not Reach Here");
   }
+
+  // Same as new Random(seed).nextDouble(), without allocating the generator on the scoring path
+  static double randomDouble(long seed) {
+    final long multiplier = 0x5DEECE66DL, addend = 0xBL, mask = (1L << 48) - 1;
+    long s = (seed ^ multiplier) & mask;
+    s = (s * multiplier + addend) & mask;
+    long hi = s >>> (48 - 26);
+    s = (s * multiplier + addend) & mask;
+    long lo = s >>> (48 - 27);
+    return ((hi << 27) + lo) * 0x1.0p-53;
+  }
   
   // Utility to do bitset lookup from a POJO
   public static boolean bitSetContains(byte[] bits, int nbits, int bitoff, double dnum) {
@@ -0,0 +1,63 @@
+package hex.genmodel;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread scratch space for scoring a model one row at a time without producing garbage.
+ *
+ * <p></p>
+ * A scoring context owns the buffers needed to score a single row: the raw input row, the predictions and the
+ * feature contributions. Obtain one with {@link GenModel#makeScoringContext()} and keep it for the lifetime of the
+ * scoring thread; a context is not thread-safe and must not be shared between threads. Values held in the buffers
+ * are only valid until the context is used again.
+ *
+ * <p></p>
+ * Allocation-free contract: once the context is created, {@link GenModel#score0(double[], double[])} called with
+ * its buffers doesn't allocate for tree based models (GBM, DRF, IsolationForest), GLM and K-means. The recycling
+ * variants of the {@code hex.genmodel.easy.EasyPredictModelWrapper} predict methods extend the contract to the
+ * prediction objects, including class probabilities and contributions of tree models.
+ * Models that need per-call workspace (DeepLearning, StackedEnsemble, XGBoost, pipelines), leaf node assignments
+ * and staged probabilities still allocate.
+ */
+public class ScoringContext {
+
+  private final double[] _rawData;
+  private final double[] _preds;
+  private float[] _contributions;
+
+  public ScoringContext(GenModel model) {
+    this(model.nfeatures(), model.getPredsSize(model.getModelCategory()));
+  }
+
+  protected ScoringContext(int nfeatures, int npreds) {
+    _rawData = new double[nfeatures];
+    _preds = new double[npreds];
+  }
+
+  /**
+   * Buffer for the raw input row, all values are reset to NA.
+   */
+  public double[] rawData() {
+    Arrays.fill(_rawData, Double.NaN);
+    return _rawData;
+  }
+
+  /**
+   * Buffer for the predictions, all values are reset to 0.
+   */
+  public double[] preds() {
+    Arrays.fill(_preds, 0);
+    return _preds;
+  }
+
+  /**
+   * Buffer for the feature contributions (allocated on first use).
+   * @param ncontribs number of contributions (including the bias term)
+   */
+  public float[] contributions(int ncontribs) {
+    if (_contributions == null || _contributions.length != ncontribs)
+      _contributions = new float[ncontribs];
+    return _contributions;
+  }
+
+}
@@ -3,6 +3,8 @@ package hex.genmodel.algos.tree;
 import hex.genmodel.PredictContributions;
 import hex.genmodel.utils.ArrayUtils;
 
+import java.util.Arrays;
+
 public abstract class ContributionsPredictor<E> implements PredictContributions {
   private final int _ncontribs;
   private final String[] _contribution_names;
@@ -22,7 +24,19 @@ public abstract class ContributionsPredictor<E> implements PredictContributions
   }
 
   public final float[] calculateContributions(double[] input) {
-    float[] contribs = new float[_ncontribs];
+    return calculateContributions(input, new float[_ncontribs]);
+  }
+
+  /**
+   * Calculates the contributions into a caller-provided buffer.
+   * @param input raw input row
+   * @param contribs buffer of size {@link #getContributionNames()}.length, its content is overwritten
+   * @return the given buffer holding the contributions
+   */
+  public final float[] calculateContributions(double[] input, float[] contribs) {
+    if (contribs.length != _ncontribs)
+      throw new IllegalArgumentException("Expected buffer of size " + _ncontribs + ", got " + contribs.length);
+    Arrays.fill(contribs, 0);
     _treeSHAPPredictor.calculateContributions(toInputRow(input), contribs, 0, -1, getWorkspace());
     return getContribs(contribs);
   }
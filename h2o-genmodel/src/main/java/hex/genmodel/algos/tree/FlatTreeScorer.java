@@ -0,0 +1,294 @@
+package hex.genmodel.algos.tree;
+
+import hex.genmodel.utils.ByteBufferWrapper;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Tree scoring engine over a flattened representation of the compressed trees.
+ *
+ * The compressed trees (see {@link SharedTreeMojoModel#scoreTree(byte[], double[], boolean, String[][])}) are
+ * decoded once at model load time into parallel primitive arrays indexed by node. Nodes of one tree are laid out
+ * in pre-order, so the left child of a node directly follows it. A child index {@code >= 0} refers to another node,
+ * a negative child index {@code ~i} refers to the {@code i}-th leaf value.
+ *
+ * Scoring follows exactly the decision logic of the current MOJO version (1.20 and higher), including the handling
+ * of NAs, of categorical levels outside of the bitset range and of levels unseen in the training domain.
+ */
+public final class FlatTreeScorer implements Serializable {
+
+  private static final int NsdNaVsRest = NaSplitDir.NAvsREST.value();
+  private static final int NsdNaLeft = NaSplitDir.NALeft.value();
+  private static final int NsdLeft = NaSplitDir.Left.value();
+
+  // Node flags
+  private static final byte LEFTWARD = 1;      // NAs (and NA-like values) go left
+  private static final byte NA_VS_REST = 2;    // NAs go one way, everything else goes left
+  private static final byte BITSET = 4;        // Categorical (bitset) split
+  private static final byte CHECK_DOMAIN = 8;  // Levels outside of the training domain are treated as NAs
+
+  private static final int EMPTY_TREE = Integer.MIN_VALUE;
+
+  private final int[] _roots;        // Per tree: root node, leaf (~i) or EMPTY_TREE
+  // Per node
+  private int[] _cols;
+  private float[] _splitVals;
+  private int[] _lefts;
+  private int[] _rights;
+  private byte[] _flags;
+  private int[] _bitsetIds;          // Bitset consulted by the node, -1 if none
+  // Per leaf
+  private float[] _leaves;
+  // Per bitset: bits are stored in one shared pool
+  private int[] _bsByteOffs;
+  private int[] _bsBitOffs;
+  private int[] _bsNBits;
+  private byte[] _bsBytes;
+  // Per column: domain cardinality
+  private final int[] _domainLens;
+
+  private int _nnodes, _nleaves, _nbitsets, _nbsBytes;
+
+  /**
+   * Decodes compressed trees (current MOJO format).
+   * @param trees compressed trees, {@code null} entries denote empty trees
+   * @param domains domains of the input columns (may be {@code null})
+   */
+  public FlatTreeScorer(byte[][] trees, String[][] domains) {
+    _roots = new int[trees.length];
+    int size = 0;
+    for (byte[] tree : trees)
+      if (tree != null) size += tree.length;
+    int estNodes = Math.max(16, size / 8);
+    _cols = new int[estNodes];
+    _splitVals = new float[estNodes];
+    _lefts = new int[estNodes];
+    _rights = new int[estNodes];
+    _flags = new byte[estNodes];
+    _bitsetIds = new int[estNodes];
+    _leaves = new float[estNodes];
+    _bsByteOffs = new int[4];
+    _bsBitOffs = new int[4];
+    _bsNBits = new int[4];
+    _bsBytes = new byte[16];
+    _domainLens = new int[domains == null ? 0 : domains.length];
+    for (int c = 0; c < _domainLens.length; c++)
+      _domainLens[c] = domains[c] == null ? -1 : domains[c].length;
+    for (int t = 0; t < trees.length; t++) {
+      if (trees[t] == null) {
+        _roots[t] = EMPTY_TREE;
+        continue;
+      }
+      ByteBufferWrapper ab = new ByteBufferWrapper(trees[t]);
+      if (isRootLeaf(trees[t])) {
+        ab.skip(3);
+        _roots[t] = ~addLeaf(ab.get4f());
+      } else
+        _roots[t] = decodeNode(trees[t], ab, -1);
+    }
+    trim();
+  }
+
+  private static boolean isRootLeaf(byte[] tree) {
+    ByteBufferWrapper ab = new ByteBufferWrapper(tree);
+    ab.get1U();
+    return ab.get2() == 65535;
+  }
+
+  /**
+   * Decodes the node at the current position of the buffer and (recursively) its subtrees.
+   * @param lastBitset bitset of the closest bitset-split ancestor; the reference scorer re-uses a single bitset
+   *                   instance, NA-vs-REST nodes on categorical columns see the one filled last on the path
+   * @return index of the decoded node
+   */
+  private int decodeNode(byte[] tree, ByteBufferWrapper ab, int lastBitset) {
+    final int n = _nnodes++;
+    ensureNodeCapacity(_nnodes);
+    int nodeType = ab.get1U();
+    int colId = ab.get2();
+    int naSplitDir = ab.get1U();
+    boolean naVsRest = naSplitDir == NsdNaVsRest;
+    boolean leftward = naSplitDir == NsdNaLeft || naSplitDir == NsdLeft;
+    int lmask = (nodeType & 51);
+    int equal = (nodeType & 12);  // Can be one of 0, 8, 12
+    assert equal != 4;  // no longer supported
+
+    byte flags = 0;
+    if (leftward) flags |= LEFTWARD;
+    if (naVsRest) flags |= NA_VS_REST;
+    if (equal != 0) flags |= BITSET;
+    if (colId < _domainLens.length && _domainLens[colId] >= 0) flags |= CHECK_DOMAIN;
+    float splitVal = -1;
+    int bitset = equal != 0 ? lastBitset : -1;
+    if (!naVsRest) {
+      if (equal == 0)
+        splitVal = ab.get4f();
+      else if (equal == 8) {
+        bitset = addBitset(tree, ab.position(), 0, 32);
+        ab.skip(4);
+      } else {
+        int bitoff = ab.get2();
+        int nbits = ab.get4();
+        bitset = addBitset(tree, ab.position(), bitoff, nbits);
+        ab.skip(((nbits - 1) >> 3) + 1);
+      }
+    }
+    _cols[n] = colId;
+    _splitVals[n] = splitVal;
+    _flags[n] = flags;
+    _bitsetIds[n] = bitset;
+    final int childBitset = equal != 0 ? bitset : lastBitset;
+
+    // Left subtree: either a leaf, or a subtree prefixed by its size
+    int rightStart;
+    if (lmask <= 3) {
+      int leftSize;
+      switch (lmask) {
+        case 0:  leftSize = ab.get1U();  break;
+        case 1:  leftSize = ab.get2();  break;
+        case 2:  leftSize = ab.get3();  break;
+        default: leftSize = ab.get4();  break;
+      }
+      rightStart = ab.position() + leftSize;
+      _lefts[n] = decodeNode(tree, ab, childBitset);
+    } else {
+      assert lmask == 48 : "illegal lmask value " + lmask + " in tree " + Arrays.toString(tree);
+      _lefts[n] = ~addLeaf(ab.get4f());
+      rightStart = ab.position();
+    }
+
+    ab.skip(rightStart - ab.position());
+    int rmask = (nodeType & 0xC0) >> 2;
+    if ((rmask & 16) != 0)
+      _rights[n] = ~addLeaf(ab.get4f());
+    else
+      _rights[n] = decodeNode(tree, ab, childBitset);
+    return n;
+  }
+
+  private int addLeaf(float value) {
+    if (_nleaves == _leaves.length)
+      _leaves = Arrays.copyOf(_leaves, _leaves.length << 1);
+    _leaves[_nleaves] = value;
+    return _nleaves++;
+  }
+
+  private int addBitset(byte[] tree, int byteOff, int bitoff, int nbits) {
+    int nbytes = ((nbits - 1) >> 3) + 1;
+    if (_nbitsets == _bsNBits.length) {
+      _bsByteOffs = Arrays.copyOf(_bsByteOffs, _nbitsets << 1);
+      _bsBitOffs = Arrays.copyOf(_bsBitOffs, _nbitsets << 1);
+      _bsNBits = Arrays.copyOf(_bsNBits, _nbitsets << 1);
+    }
+    if (_nbsBytes + nbytes > _bsBytes.length)
+      _bsBytes = Arrays.copyOf(_bsBytes, Math.max(_bsBytes.length << 1, _nbsBytes + nbytes));
+    System.arraycopy(tree, byteOff, _bsBytes, _nbsBytes, nbytes);
+    _bsByteOffs[_nbitsets] = _nbsBytes;
+    _bsBitOffs[_nbitsets] = bitoff;
+    _bsNBits[_nbitsets] = nbits;
+    _nbsBytes += nbytes;
+    return _nbitsets++;
+  }
+
+  private void ensureNodeCapacity(int n) {
+    if (n <= _cols.length) return;
+    int len = _cols.length << 1;
+    _cols = Arrays.copyOf(_cols, len);
+    _splitVals = Arrays.copyOf(_splitVals, len);
+    _lefts = Arrays.copyOf(_lefts, len);
+    _rights = Arrays.copyOf(_rights, len);
+    _flags = Arrays.copyOf(_flags, len);
+    _bitsetIds = Arrays.copyOf(_bitsetIds, len);
+  }
+
+  private void trim() {
+    _cols = Arrays.copyOf(_cols, _nnodes);
+    _splitVals = Arrays.copyOf(_splitVals, _nnodes);
+    _lefts = Arrays.copyOf(_lefts, _nnodes);
+    _rights = Arrays.copyOf(_rights, _nnodes);
+    _flags = Arrays.copyOf(_flags, _nnodes);
+    _bitsetIds = Arrays.copyOf(_bitsetIds, _nnodes);
+    _leaves = Arrays.copyOf(_leaves, _nleaves);
+    _bsByteOffs = Arrays.copyOf(_bsByteOffs, _nbitsets);
+    _bsBitOffs = Arrays.copyOf(_bsBitOffs, _nbitsets);
+    _bsNBits = Arrays.copyOf(_bsNBits, _nbitsets);
+    _bsBytes = Arrays.copyOf(_bsBytes, _nbsBytes);
+  }
+
+  /** Number of trees (including the empty ones) */
+  public int ntrees() {
+    return _roots.length;
+  }
+
+  /** Does the tree have any nodes? Empty trees do not contribute to the prediction. */
+  public boolean isEmpty(int tree) {
+    return _roots[tree] == EMPTY_TREE;
+  }
+
+  /**
+   * Scores a single tree.
+   * @param tree index of a non-empty tree
+   * @param row input row
+   * @return prediction of the tree
+   */
+  public double scoreTree(int tree, double[] row) {
+    int n = _roots[tree];
+    assert n != EMPTY_TREE;
+    while (n >= 0) {
+      final int col = _cols[n];
+      final byte flags = _flags[n];
+      final double d = row[col];
+      final boolean right;
+      if (Double.isNaN(d) || isNALike(n, col, flags, d))
+        right = (flags & LEFTWARD) == 0;
+      else if ((flags & NA_VS_REST) != 0)
+        right = false;
+      else if ((flags & BITSET) == 0)
+        right = d >= _splitVals[n];
+      else
+        right = bitsetContains(_bitsetIds[n], (int) d);
+      n = right ? _rights[n] : _lefts[n];
+    }
+    return _leaves[~n];
+  }
+
+  private boolean isNALike(int n, int col, byte flags, double d) {
+    if ((flags & BITSET) != 0) {
+      int bs = _bitsetIds[n];
+      if (bs >= 0) {
+        int b = (int) d - _bsBitOffs[bs];
+        if (b < 0 || b >= _bsNBits[bs]) return true;
+      }
+    }
+    return (flags & CHECK_DOMAIN) != 0 && _domainLens[col] <= (int) d;
+  }
+
+  private boolean bitsetContains(int bs, int idx) {
+    idx -= _bsBitOffs[bs];
+    return (_bsBytes[_bsByteOffs[bs] + (idx >> 3)] & ((byte) 1 << (idx & 7))) != 0;
+  }
+
+  /**
+   * Scores a range of trees over a block of rows, tree-major: each tree is applied to all the rows of the block
+   * before moving on to the next tree, so that the nodes of the tree stay in cache.
+   * Tree predictions are accumulated into {@code preds[row][predIdx]}; per row, trees are added in the order of
+   * the range, same as scoring the rows one by one would do.
+   *
+   * @param fromTree first tree (inclusive)
+   * @param toTree last tree (exclusive)
+   * @param rows input rows
+   * @param fromRow first row of the block (inclusive)
+   * @param toRow last row of the block (exclusive)
+   * @param preds per-row prediction arrays
+   * @param predIdx index of the accumulated prediction
+   */
+  public void scoreTrees(int fromTree, int toTree, double[][] rows, int fromRow, int toRow, double[][] preds, int predIdx) {
+    for (int t = fromTree; t < toTree; t++) {
+      if (_roots[t] == EMPTY_TREE) continue;
+      for (int r = fromRow; r < toRow; r++)
+        preds[r][predIdx] += scoreTree(t, rows[r]);
+    }
+  }
+
+}
@@ -25,6 +25,8 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
     private static final int NsdLeft = NaSplitDir.Left.value();
 
     private ScoreTree _scoreTree;
+    private boolean _decodeTrees; // Current MOJO versions can be scored over decoded trees
+    private transient volatile FlatTreeScorer _flatTrees; // Decoded trees, built on first use, see flatTrees()
     
     private static Logger logger = LoggerFactory.getLogger(SharedTreeMojoModel.class);
 
@@ -73,8 +75,27 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
         _scoreTree = new ScoreTree0(); // First version
       } else if (_mojo_version == 1.1) {
         _scoreTree = new ScoreTree1(); // Second version
-      } else
+      } else {
         _scoreTree = new ScoreTree2(); // Current version
+        _decodeTrees = true;
+      }
+    }
+
+    /**
+     * Trees decoded for scoring, null for the old MOJO versions. The trees are decoded when the model is first
+     * used for scoring, so that models loaded only to inspect their trees, or to compute leaf node assignments,
+     * don't keep a second copy of the trees in memory.
+     */
+    private FlatTreeScorer flatTrees() {
+      FlatTreeScorer flatTrees = _flatTrees;
+      if (flatTrees == null && _decodeTrees) {
+        synchronized (this) {
+          flatTrees = _flatTrees;
+          if (flatTrees == null)
+            _flatTrees = flatTrees = new FlatTreeScorer(_compressed_trees, _domains);
+        }
+      }
+      return flatTrees;
     }
 
     @Override
@@ -793,18 +814,63 @@ public abstract class SharedTreeMojoModel extends MojoModel implements TreeBacke
      */
     public final void scoreTreeRange(double[] row, int fromIndex, int toIndex, double[] preds) {
         final int clOffset = _nclasses == 1 ? 0 : 1;
+        final FlatTreeScorer flatTrees = flatTrees();
         for (int classIndex = 0; classIndex < _ntrees_per_group; classIndex++) {
             int k = clOffset + classIndex;
             int itree = treeIndex(fromIndex, classIndex);
             for (int groupIndex = fromIndex; groupIndex < toIndex; groupIndex++) {
                 if (_compressed_trees[itree] != null) { // Skip all empty trees
-                  preds[k] += _scoreTree.scoreTree(_compressed_trees[itree], row, false, _domains);
+                  preds[k] += flatTrees != null ?
+                          flatTrees.scoreTree(itree, row) :
+                          _scoreTree.scoreTree(_compressed_trees[itree], row, false, _domains);
                 }
                 itree++;
             }
         }
     }
 
+    private static final int SCORE_BLOCK_ROWS = 256;
+
+    /**
+     * Scores a batch of rows. Trees are evaluated tree-major over blocks of rows, which keeps the nodes
+     * of a tree in cache while it is applied to all rows of the block. Gives the same predictions as calling
+     * {@link #score0(double[], double[])} for each of the rows.
+     * @param rows input rows
+     * @param preds per-row output arrays (same structure as of {@link #score0(double[], double[])})
+     * @return preds
+     */
+    public final double[][] score0(double[][] rows, double[][] preds) {
+        final FlatTreeScorer flatTrees = flatTrees();
+        if (flatTrees == null) { // Old MOJO version
+            for (int r = 0; r < rows.length; r++)
+                score0(rows[r], preds[r]);
+            return preds;
+        }
+        final int clOffset = _nclasses == 1 ? 0 : 1;
+        for (int from = 0; from < rows.length; from += SCORE_BLOCK_ROWS) {
+            final int to = Math.min(rows.length, from + SCORE_BLOCK_ROWS);
+            for (int r = from; r < to; r++)
+                Arrays.fill(preds[r], 0);
+            for (int classIndex = 0; classIndex < _ntrees_per_group; classIndex++) {
+                int itree = treeIndex(0, classIndex);
+                flatTrees.scoreTrees(itree, itree + _ntree_groups, rows, from, to, preds, clOffset + classIndex);
+            }
+            for (int r = from; r < to; r++)
+                unifyPreds(rows[r], 0, preds[r]);
+        }
+        return preds;
+    }
+
+    /**
+     * Scores a batch of rows, see {@link #score0(double[][], double[][])}.
+     * @param rows input rows
+     * @return per-row predictions
+     */
+    public final double[][] score0(double[][] rows) {
+        double[][] preds = new double[rows.length][getPredsSize()];
+        return score0(rows, preds);
+    }
+
     // note that _ntree_group = _treekeys.length
     // ntrees_per_group = _treeKeys[0].length
     public String[] getDecisionPathNames() {
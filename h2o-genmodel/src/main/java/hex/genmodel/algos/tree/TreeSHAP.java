@@ -187,6 +187,7 @@ public class TreeSHAP<R, N extends INode<R>, S extends INodeStat> implements Tre
   public static class PathPointer {
     PathElement[] path;
     int position;
+    PathPointer next; // pointer of the next recursion level, re-used so that scoring doesn't allocate
 
     PathPointer(PathElement[] path) {
       this.path = path;
@@ -208,7 +209,10 @@ public class TreeSHAP<R, N extends INode<R>, S extends INodeStat> implements Tre
         path[position + len + i].one_fraction = path[position + i].one_fraction;
         path[position + len + i].pweight = path[position + i].pweight;
       }
-      return new PathPointer(path, position + len);
+      if (next == null)
+        next = new PathPointer(path);
+      next.position = position + len;
+      return next;
     }
 
     void reset() {
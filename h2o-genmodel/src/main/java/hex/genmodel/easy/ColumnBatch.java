@@ -0,0 +1,90 @@
+package hex.genmodel.easy;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Column name to column values mapping for a batch of new rows to predict, the columnar counterpart of {@link RowData}.
+ *
+ * <p></p>
+ * Columns of different types are supplied as follows:
+ * <ul>
+ * <li>
+ *   Numerical columns are given as {@code double[]}, with {@code Double.NaN} for missing values. They can also
+ *   be given as {@code String[]}, then Double.parseDouble() will be called on each value.
+ * </li>
+ * <li>
+ *   Categorical (aka factor, enum) columns are given as {@code String[]} of level names, {@code null} denotes
+ *   a missing value.
+ * </li>
+ * </ul>
+ * Columns missing in the batch are treated as NA, extra columns that are not in the model are ignored.
+ *
+ * <p></p>
+ * Intended to be re-used from one batch to another (see {@link #clear(int)}); the batch keeps the buffers
+ * holding the converted raw data, so scoring repeated batches of similar size doesn't allocate them again.
+ * A ColumnBatch is not thread-safe.
+ */
+public class ColumnBatch {
+
+  private int _nrows;
+  private final Map<String, Object> _columns = new LinkedHashMap<>();
+  private double[][] _rawData; // Scratch buffers for the raw rows, kept across batches
+
+  /**
+   * @param nrows number of rows in the batch
+   */
+  public ColumnBatch(int nrows) {
+    clear(nrows);
+  }
+
+  /**
+   * Removes all columns, so that the batch can be filled with new data.
+   * @param nrows number of rows of the next batch
+   */
+  public void clear(int nrows) {
+    if (nrows < 0) throw new IllegalArgumentException("Number of rows cannot be negative: " + nrows);
+    _nrows = nrows;
+    _columns.clear();
+  }
+
+  public int nrows() {
+    return _nrows;
+  }
+
+  public ColumnBatch put(String columnName, double[] values) {
+    return putColumn(columnName, values, values.length);
+  }
+
+  public ColumnBatch put(String columnName, String[] values) {
+    return putColumn(columnName, values, values.length);
+  }
+
+  private ColumnBatch putColumn(String columnName, Object values, int len) {
+    if (len < _nrows)
+      throw new IllegalArgumentException("Column " + columnName + " has only " + len + " values, expected " + _nrows);
+    _columns.put(columnName, values);
+    return this;
+  }
+
+  Map<String, Object> columns() {
+    return _columns;
+  }
+
+  /**
+   * Raw rows (exactly nrows of them) of the given width, all set to NA.
+   */
+  double[][] rawData(int ncols) {
+    if (_rawData == null || _rawData.length != _nrows || (_nrows > 0 && _rawData[0].length != ncols)) {
+      double[][] rawData = new double[_nrows][];
+      for (int r = 0; r < _nrows; r++) // Re-use the rows of the previous batch
+        rawData[r] = _rawData != null && r < _rawData.length && _rawData[r].length == ncols ? _rawData[r] : new double[ncols];
+      _rawData = rawData;
+    }
+    for (int r = 0; r < _nrows; r++)
+      Arrays.fill(_rawData[r], Double.NaN);
+    return _rawData;
+  }
+
+}
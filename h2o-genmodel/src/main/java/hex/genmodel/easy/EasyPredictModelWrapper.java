@@ -5,6 +5,7 @@ import hex.genmodel.*;
 import hex.genmodel.algos.deeplearning.DeeplearningMojoModel;
 import hex.genmodel.algos.glrm.GlrmMojoModel;
 import hex.genmodel.algos.targetencoder.TargetEncoderMojoModel;
+import hex.genmodel.algos.tree.ContributionsPredictor;
 import hex.genmodel.algos.tree.SharedTreeMojoModel;
 import hex.genmodel.algos.tree.TreeBackedMojoModel;
 import hex.genmodel.algos.word2vec.WordEmbeddingModel;
@@ -54,6 +55,7 @@ import java.util.*;
 public class EasyPredictModelWrapper implements Serializable {
   // These private members are read-only after the constructor.
   public final GenModel m;
+  private final EnumSet<ModelCategory> modelCategories; // cached, the model builds a new set on each call
   private final RowToRawDataConverter rowDataConverter;
 
   private final boolean useExtendedOutput;
@@ -64,6 +66,8 @@ public class EasyPredictModelWrapper implements Serializable {
   private final int glrmIterNumber; // allow user to set GLRM mojo iteration number in constructing x.
 
   private final PredictContributions predictContributions;
+
+  private static final String[] QUASIBINOMIAL_DOMAIN = new String[]{"0", "1"};
   
   /**
    * Observer interface with methods corresponding to errors during the prediction.
@@ -280,6 +284,7 @@ public class EasyPredictModelWrapper implements Serializable {
    */
   public EasyPredictModelWrapper(Config config) {
     m = config.getModel();
+    modelCategories = m.getModelCategories();
     // Ensure an error consumer is always instantiated to avoid missing null-check errors.
     ErrorConsumer errorConsumer = config.getErrorConsumer() == null ? new VoidErrorConsumer() : config.getErrorConsumer();
 
@@ -375,6 +380,52 @@ public class EasyPredictModelWrapper implements Serializable {
     return predict(data, m.getModelCategory());
   }
 
+  /**
+   * Make predictions for a batch of rows supplied as columns.
+   *
+   * Column names and categorical domain mappings are resolved once per batch, and no per-row objects are created.
+   * The predictions are returned in the raw format of {@link GenModel#score0(double[], double[])}, e.g. for
+   * classification models the predicted label index followed by the class probabilities, and for regression
+   * models the predicted value.
+   *
+   * @param batch A batch of new data points.
+   * @param offsets Per-row offsets, or null for no offsets.
+   * @param preds Output buffer, one array of (at least) {@link GenModel#getPredsSize()} values per row; when null
+   *              (or too small) a new buffer is allocated.
+   * @return Raw predictions, one array per row.
+   * @throws PredictException
+   */
+  public double[][] predictRaw(ColumnBatch batch, double[] offsets, double[][] preds) throws PredictException {
+    final int nrows = batch.nrows();
+    final int predsSize = m.getPredsSize();
+    if (preds == null || preds.length < nrows || (nrows > 0 && preds[0].length < predsSize))
+      preds = new double[nrows][predsSize];
+    double[][] rawData = rowDataConverter.convert(batch, batch.rawData(m.nfeatures()));
+    if (offsets == null && !m.requiresOffset() && m instanceof SharedTreeMojoModel && preds.length == nrows) {
+      ((SharedTreeMojoModel) m).score0(rawData, preds); // Tree-major scoring of the whole batch
+    } else {
+      for (int r = 0; r < nrows; r++) {
+        double offset = offsets == null ? 0 : offsets[r];
+        if (m.requiresOffset() || offset != 0)
+          m.score0(rawData[r], offset, preds[r]);
+        else
+          m.score0(rawData[r], preds[r]);
+      }
+    }
+    return preds;
+  }
+
+  /**
+   * Make predictions for a batch of rows supplied as columns, see {@link #predictRaw(ColumnBatch, double[], double[][])}.
+   *
+   * @param batch A batch of new data points.
+   * @return Raw predictions, one array per row.
+   * @throws PredictException
+   */
+  public double[][] predictRaw(ColumnBatch batch) throws PredictException {
+    return predictRaw(batch, null, null);
+  }
+
   ErrorConsumer getErrorConsumer() {
     return rowDataConverter.getErrorConsumer();
   }
@@ -563,38 +614,8 @@ public class EasyPredictModelWrapper implements Serializable {
    * @throws PredictException
    */
   public BinomialModelPrediction predictBinomial(RowData data, double offset) throws PredictException {
-
     double[] preds = preamble(ModelCategory.Binomial, data, offset);
-
-    BinomialModelPrediction p = new BinomialModelPrediction();
-    if (enableLeafAssignment) { // only get leaf node assignment if enabled
-      SharedTreeMojoModel.LeafNodeAssignments assignments = leafNodeAssignmentExtended(data);
-      p.leafNodeAssignments = assignments._paths;
-      p.leafNodeAssignmentIds = assignments._nodeIds;
-    }
-    double d = preds[0];
-    p.labelIndex = (int) d;
-    String[] domainValues = m.getDomainValues(m.getResponseIdx());
-    if (domainValues == null && m.getNumResponseClasses() == 2)
-      domainValues = new String[]{"0", "1"}; // quasibinomial
-    p.label = domainValues[p.labelIndex];
-    p.classProbabilities = new double[m.getNumResponseClasses()];
-    System.arraycopy(preds, 1, p.classProbabilities, 0, p.classProbabilities.length);
-    if (m.calibrateClassProbabilities(preds)) {
-      p.calibratedClassProbabilities = new double[m.getNumResponseClasses()];
-      System.arraycopy(preds, 1, p.calibratedClassProbabilities, 0, p.calibratedClassProbabilities.length);
-    }
-    if (enableStagedProbabilities) {
-        double[] rawData = nanArray(m.nfeatures());
-        rawData = fillRawData(data, rawData);
-        p.stageProbabilities = ((SharedTreeMojoModel) m).scoreStagedPredictions(rawData, preds.length);
-    }
-    if (enableContributions) {
-      double[] rawData = nanArray(m.nfeatures());
-      rawData = fillRawData(data, rawData);
-      p.contributions = predictContributions.calculateContributions(rawData);
-    }
-    return p;
+    return fillBinomial(data, preds, null, new BinomialModelPrediction());
   }
 
   /**
@@ -651,24 +672,7 @@ public class EasyPredictModelWrapper implements Serializable {
    */
   public MultinomialModelPrediction predictMultinomial(RowData data, double offset) throws PredictException {
     double[] preds = preamble(ModelCategory.Multinomial, data, offset);
-
-    MultinomialModelPrediction p = new MultinomialModelPrediction();
-    if (enableLeafAssignment) { // only get leaf node assignment if enabled
-      SharedTreeMojoModel.LeafNodeAssignments assignments = leafNodeAssignmentExtended(data);
-      p.leafNodeAssignments = assignments._paths;
-      p.leafNodeAssignmentIds = assignments._nodeIds;
-    }
-    p.classProbabilities = new double[m.getNumResponseClasses()];
-    p.labelIndex = (int) preds[0];
-    String[] domainValues = m.getDomainValues(m.getResponseIdx());
-    p.label = domainValues[p.labelIndex];
-    System.arraycopy(preds, 1, p.classProbabilities, 0, p.classProbabilities.length);
-    if (enableStagedProbabilities) {
-        double[] rawData = nanArray(m.nfeatures());
-        rawData = fillRawData(data, rawData);
-        p.stageProbabilities = ((SharedTreeMojoModel) m).scoreStagedPredictions(rawData, preds.length);
-    }
-    return p;
+    return fillMultinomial(data, preds, null, new MultinomialModelPrediction());
   }
 
   /**
@@ -779,27 +783,137 @@ public class EasyPredictModelWrapper implements Serializable {
    */
   public RegressionModelPrediction predictRegression(RowData data, double offset) throws PredictException {
     double[] preds = preamble(ModelCategory.Regression, data, offset);
+    return fillRegression(data, preds, null, new RegressionModelPrediction());
+  }
+
+  /**
+   * Make a prediction on a new data point using a Binomial model, recycling the given prediction object.
+   *
+   * The scratch buffers are taken from the scoring context and the arrays of the prediction object are re-used
+   * when they have the expected size, see {@link ScoringContext} for what is guaranteed not to allocate.
+   * Values of the prediction object are overwritten. The row is scored by
+   * {@link #predict(RowData, double, double[], ScoringContext)}, the same hook used by
+   * {@link #predictBinomial(RowData, double)}.
+   *
+   * @param data A new data point.
+   * @param offset An offset for the prediction.
+   * @param ctx Scoring context of the calling thread, obtained from {@link GenModel#makeScoringContext()}.
+   * @param p Prediction object to be filled in.
+   * @return The given prediction object.
+   * @throws PredictException
+   */
+  public BinomialModelPrediction predictBinomial(RowData data, double offset, ScoringContext ctx,
+                                                 BinomialModelPrediction p) throws PredictException {
+    double[] preds = preamble(ModelCategory.Binomial, data, offset, ctx);
+    return fillBinomial(data, preds, ctx, p);
+  }
 
-    RegressionModelPrediction p = new RegressionModelPrediction();
+  /**
+   * Make a prediction on a new data point using a Multinomial model, recycling the given prediction object.
+   * See {@link #predictBinomial(RowData, double, ScoringContext, BinomialModelPrediction)} for details.
+   */
+  public MultinomialModelPrediction predictMultinomial(RowData data, double offset, ScoringContext ctx,
+                                                       MultinomialModelPrediction p) throws PredictException {
+    double[] preds = preamble(ModelCategory.Multinomial, data, offset, ctx);
+    return fillMultinomial(data, preds, ctx, p);
+  }
+
+  /**
+   * Make a prediction on a new data point using a Regression model, recycling the given prediction object.
+   * See {@link #predictBinomial(RowData, double, ScoringContext, BinomialModelPrediction)} for details.
+   */
+  public RegressionModelPrediction predictRegression(RowData data, double offset, ScoringContext ctx,
+                                                     RegressionModelPrediction p) throws PredictException {
+    double[] preds = preamble(ModelCategory.Regression, data, offset, ctx);
+    return fillRegression(data, preds, ctx, p);
+  }
+
+  // The fill* methods are shared by the allocating and the recycling predict methods, ctx is null for the former
+
+  private BinomialModelPrediction fillBinomial(RowData data, double[] preds, ScoringContext ctx,
+                                               BinomialModelPrediction p) throws PredictException {
     if (enableLeafAssignment) { // only get leaf node assignment if enabled
       SharedTreeMojoModel.LeafNodeAssignments assignments = leafNodeAssignmentExtended(data);
       p.leafNodeAssignments = assignments._paths;
       p.leafNodeAssignmentIds = assignments._nodeIds;
     }
-    p.value = preds[0];
-    if (enableStagedProbabilities) {
-        double[] rawData = nanArray(m.nfeatures());
-        rawData = fillRawData(data, rawData);
+    p.labelIndex = (int) preds[0];
+    String[] domainValues = m.getDomainValues(m.getResponseIdx());
+    if (domainValues == null && m.getNumResponseClasses() == 2)
+      domainValues = QUASIBINOMIAL_DOMAIN;
+    p.label = domainValues[p.labelIndex];
+    p.classProbabilities = reuse(p.classProbabilities, m.getNumResponseClasses());
+    System.arraycopy(preds, 1, p.classProbabilities, 0, p.classProbabilities.length);
+    if (m.calibrateClassProbabilities(preds)) {
+      p.calibratedClassProbabilities = reuse(p.calibratedClassProbabilities, m.getNumResponseClasses());
+      System.arraycopy(preds, 1, p.calibratedClassProbabilities, 0, p.calibratedClassProbabilities.length);
+    } else
+      p.calibratedClassProbabilities = null;
+    if (enableStagedProbabilities || enableContributions) {
+      double[] rawData = rawData(data, ctx);
+      if (enableStagedProbabilities) {
         p.stageProbabilities = ((SharedTreeMojoModel) m).scoreStagedPredictions(rawData, preds.length);
+      }
+      if (enableContributions) {
+        p.contributions = contributions(rawData, ctx);
+      }
     }
-    if (enableContributions) {
-      double[] rawData = nanArray(m.nfeatures());
-      rawData = fillRawData(data, rawData);
-      p.contributions = predictContributions.calculateContributions(rawData);
+    return p;
+  }
+
+  private MultinomialModelPrediction fillMultinomial(RowData data, double[] preds, ScoringContext ctx,
+                                                     MultinomialModelPrediction p) throws PredictException {
+    if (enableLeafAssignment) { // only get leaf node assignment if enabled
+      SharedTreeMojoModel.LeafNodeAssignments assignments = leafNodeAssignmentExtended(data);
+      p.leafNodeAssignments = assignments._paths;
+      p.leafNodeAssignmentIds = assignments._nodeIds;
+    }
+    p.classProbabilities = reuse(p.classProbabilities, m.getNumResponseClasses());
+    p.labelIndex = (int) preds[0];
+    p.label = m.getDomainValues(m.getResponseIdx())[p.labelIndex];
+    System.arraycopy(preds, 1, p.classProbabilities, 0, p.classProbabilities.length);
+    if (enableStagedProbabilities) {
+      p.stageProbabilities = ((SharedTreeMojoModel) m).scoreStagedPredictions(rawData(data, ctx), preds.length);
     }
     return p;
   }
 
+  private RegressionModelPrediction fillRegression(RowData data, double[] preds, ScoringContext ctx,
+                                                   RegressionModelPrediction p) throws PredictException {
+    if (enableLeafAssignment) { // only get leaf node assignment if enabled
+      SharedTreeMojoModel.LeafNodeAssignments assignments = leafNodeAssignmentExtended(data);
+      p.leafNodeAssignments = assignments._paths;
+      p.leafNodeAssignmentIds = assignments._nodeIds;
+    }
+    p.value = preds[0];
+    if (enableStagedProbabilities || enableContributions) {
+      double[] rawData = rawData(data, ctx);
+      if (enableStagedProbabilities) {
+        p.stageProbabilities = ((SharedTreeMojoModel) m).scoreStagedPredictions(rawData, preds.length);
+      }
+      if (enableContributions) {
+        p.contributions = contributions(rawData, ctx);
+      }
+    }
+    return p;
+  }
+
+  private double[] rawData(RowData data, ScoringContext ctx) throws PredictException {
+    return fillRawData(data, ctx != null ? ctx.rawData() : nanArray(m.nfeatures()));
+  }
+
+  private float[] contributions(double[] rawData, ScoringContext ctx) {
+    if (ctx != null && predictContributions instanceof ContributionsPredictor) {
+      float[] contribs = ctx.contributions(predictContributions.getContributionNames().length);
+      return ((ContributionsPredictor<?>) predictContributions).calculateContributions(rawData, contribs);
+    }
+    return predictContributions.calculateContributions(rawData);
+  }
+
+  private static double[] reuse(double[] arr, int len) {
+    return arr != null && arr.length == len ? arr : new double[len];
+  }
+
   public KLimeModelPrediction predictKLime(RowData data) throws PredictException {
     double[] preds = preamble(ModelCategory.KLime, data);
 
@@ -851,7 +965,7 @@ public class EasyPredictModelWrapper implements Serializable {
 
 
   private void validateModelCategory(ModelCategory c) throws PredictException {
-    if (!m.getModelCategories().contains(c))
+    if (!modelCategories.contains(c))
       throw new PredictException(c + " prediction type is not supported for this model.");
   }
 
@@ -864,6 +978,10 @@ public class EasyPredictModelWrapper implements Serializable {
     final int predsSize = m.getPredsSize(c);
     return predict(data, offset, new double[predsSize]);
   }
+  private double[] preamble(ModelCategory c, RowData data, double offset, ScoringContext ctx) throws PredictException {
+    validateModelCategory(c);
+    return predict(data, offset, ctx.preds(), ctx);
+  }
 
   private static double[] nanArray(int len) {
     double[] arr = new double[len];
@@ -878,8 +996,15 @@ public class EasyPredictModelWrapper implements Serializable {
   }
 
   protected double[] predict(RowData data, double offset, double[] preds) throws PredictException {
-    double[] rawData = nanArray(m.nfeatures());
-    rawData = fillRawData(data, rawData);
+    return predict(data, offset, preds, null);
+  }
+
+  /**
+   * Scores the row, all predict methods end up here. The row is converted into the buffer of the scoring context
+   * if one is given (recycling predict methods), otherwise into a newly allocated array.
+   */
+  protected double[] predict(RowData data, double offset, double[] preds, ScoringContext ctx) throws PredictException {
+    double[] rawData = rawData(data, ctx);
     if (m.requiresOffset() || offset != 0) {
       preds = m.score0(rawData, offset, preds);
     }
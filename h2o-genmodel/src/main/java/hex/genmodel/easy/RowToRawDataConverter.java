@@ -59,6 +59,50 @@ public class RowToRawDataConverter implements Serializable {
     return rawData;
   }
 
+  /**
+   * Converts a batch of rows. Column names and categorical encoders are resolved once per column of the batch.
+   *
+   * @param batch columns of the rows we want to get predictions for
+   * @param rawData rows that will be filled up from the batch (values not present in the batch need to be set to NA)
+   * @return `rawData` array with data from the batch
+   * @throws PredictException same as for {@link #convert(RowData, double[])}
+   */
+  public double[][] convert(ColumnBatch batch, double[][] rawData) throws PredictException {
+    final int nrows = batch.nrows();
+    // Subclasses may customize the conversion of single values, the numerical fast path is only safe without them
+    final boolean plainConversion = getClass() == RowToRawDataConverter.class;
+    for (Map.Entry<String, Object> column : batch.columns().entrySet()) {
+      final String columnName = column.getKey();
+      Integer index = _modelColumnNameToIndexMap.get(columnName);
+      if (index == null || nrows == 0 || index >= rawData[0].length) {
+        continue;
+      }
+      final int idx = index;
+      final CategoricalEncoder catEncoder = _domainMap.get(idx);
+      if (column.getValue() instanceof double[]) {
+        final double[] values = (double[]) column.getValue();
+        if (catEncoder == null && plainConversion) {
+          for (int r = 0; r < nrows; r++) {
+            final double value = values[r];
+            if (Double.isNaN(value))
+              _errorConsumer.dataTransformError(columnName, value, "Given non-categorical value is unparseable, treating as NaN.");
+            rawData[r][idx] = value;
+          }
+        } else {
+          for (int r = 0; r < nrows; r++)
+            convertValue(columnName, values[r], catEncoder, idx, rawData[r]);
+        }
+      } else {
+        final String[] values = (String[]) column.getValue();
+        for (int r = 0; r < nrows; r++) {
+          if (values[r] != null) // Same as a missing RowData entry
+            convertValue(columnName, values[r], catEncoder, idx, rawData[r]);
+        }
+      }
+    }
+    return rawData;
+  }
+
   protected boolean convertValue(String columnName, Object o, CategoricalEncoder catEncoder,
                                  int targetIndex, double[] rawData) throws PredictException {
     if (catEncoder == null) {
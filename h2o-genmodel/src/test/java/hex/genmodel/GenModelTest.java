@@ -50,4 +50,25 @@ public class GenModelTest {
     assertArrayEquals(new float[]{0, 0, 0, 0, 0, 0, 0, 1, 0, 0, 1, 0, 0, 0, 0, 42}, to, 0);
   }
   
+
+  @Test
+  public void testRandomDoubleMatchesRandom() {
+    for (long seed : new long[]{0, 1, -1, 42, Long.MAX_VALUE, Long.MIN_VALUE, 0x5DEECE66DL, 1234567890123L})
+      assertEquals(new java.util.Random(seed).nextDouble(), GenModel.randomDouble(seed), 0);
+  }
+
+  @Test
+  public void testGetPredictionMultinomialBreaksTiesAmongTiedClassesOnly() {
+    double[] preds = {0, 0.2, 0.4, 0.4};
+    double[] priors = {0.9, 0.05, 0.05}; // class 0 isn't tied despite its dominant prior
+    boolean[] seen = new boolean[3];
+    for (int i = 0; i < 100; i++) {
+      int pred = GenModel.getPredictionMultinomial(preds, priors, new double[]{i, i * 0.37});
+      assertTrue("Expected one of the tied classes, got " + pred, pred == 1 || pred == 2);
+      seen[pred] = true;
+    }
+    assertTrue(seen[1] && seen[2]);
+    assertEquals(2, GenModel.getPredictionMultinomial(new double[]{0, 0.3, 0.3, 0.4}, priors, null));
+  }
+
 }
@@ -3,9 +3,12 @@ package hex.genmodel.algos.gbm;
 import com.google.common.io.ByteStreams;
 import hex.genmodel.ModelMojoReader;
 import hex.genmodel.MojoReaderBackend;
+import hex.genmodel.ScoringContext;
+import hex.genmodel.easy.ColumnBatch;
 import hex.genmodel.easy.EasyPredictModelWrapper;
 import hex.genmodel.easy.RowData;
 import hex.genmodel.easy.exception.PredictException;
+import hex.genmodel.easy.exception.PredictUnknownCategoricalLevelException;
 import hex.genmodel.easy.prediction.BinomialModelPrediction;
 import org.junit.Before;
 import org.junit.Test;
@@ -14,6 +17,8 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -91,6 +96,98 @@ public class GbmMojoModelTest {
     assertArrayEquals(new double[]{0.3920402, 0.6079598}, pred.calibratedClassProbabilities, 1e-5);
   }
 
+  @Test
+  public void testPredictRawBatch() throws Exception {
+    EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(mojo12);
+    final String[] numCols = {"SegSumT", "SegTSeas", "SegLowFlow", "DSDist", "DSMaxSlope", "USAvgT", "USRainDays", "USSlope", "USNative", "DSDam"};
+    final String[] levels = {"electric", "mixture", "net", "spo", "trap", null};
+    final int n = 300;
+    Random rnd = new Random(42);
+    ColumnBatch batch = new ColumnBatch(n);
+    double[][] numData = new double[numCols.length][n];
+    for (int c = 0; c < numCols.length; c++) {
+      for (int r = 0; r < n; r++)
+        numData[c][r] = r % 17 == c ? Double.NaN : rnd.nextDouble() * 20;
+      batch.put(numCols[c], numData[c]);
+    }
+    String[] method = new String[n];
+    for (int r = 0; r < n; r++)
+      method[r] = levels[rnd.nextInt(levels.length)];
+    batch.put("Method", method);
+
+    double[][] preds = wrapper.predictRaw(batch);
+    assertEquals(n, preds.length);
+    for (int r = 0; r < n; r++) {
+      RowData row = new RowData();
+      for (int c = 0; c < numCols.length; c++)
+        row.put(numCols[c], numData[c][r]);
+      if (method[r] != null)
+        row.put("Method", method[r]);
+      BinomialModelPrediction p = wrapper.predictBinomial(row);
+      assertEquals(p.labelIndex, (int) preds[r][0]);
+      assertArrayEquals(p.classProbabilities, Arrays.copyOfRange(preds[r], 1, 3), 0);
+    }
+
+    // Buffers are re-used for the next batch
+    assertSame(preds, wrapper.predictRaw(batch, null, preds));
+  }
+
+  @Test(expected = PredictUnknownCategoricalLevelException.class)
+  public void testPredictRawBatchUnknownLevel() throws Exception {
+    EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(mojo12);
+    wrapper.predictRaw(new ColumnBatch(2).put("Method", new String[]{"net", "rocket"}));
+  }
+
+  @Test
+  public void testPredictBinomialRecycled() throws Exception {
+    EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(
+            new EasyPredictModelWrapper.Config().setModel(mojo12).setEnableContributions(true)
+    );
+    ScoringContext ctx = mojo12.makeScoringContext();
+    BinomialModelPrediction recycled = new BinomialModelPrediction();
+    double[] classProbabilities = null;
+    float[] contributions = null;
+    for (String method : new String[]{"electric", "mixture", "net", "spo", "trap", null}) {
+      RowData row = new RowData();
+      if (method != null)
+        row.put("Method", method);
+      BinomialModelPrediction expected = wrapper.predictBinomial(row);
+      assertSame(recycled, wrapper.predictBinomial(row, 0, ctx, recycled));
+      assertEquals(expected.labelIndex, recycled.labelIndex);
+      assertEquals(expected.label, recycled.label);
+      assertArrayEquals(expected.classProbabilities, recycled.classProbabilities, 0);
+      assertArrayEquals(expected.calibratedClassProbabilities, recycled.calibratedClassProbabilities, 0);
+      assertNotNull(recycled.contributions);
+      assertArrayEquals(expected.contributions, recycled.contributions, 0);
+      if (classProbabilities != null) { // buffers are re-used from the 2nd prediction on
+        assertSame(classProbabilities, recycled.classProbabilities);
+        assertSame(contributions, recycled.contributions);
+      }
+      classProbabilities = recycled.classProbabilities;
+      contributions = recycled.contributions;
+    }
+  }
+
+  @Test
+  public void testPredictBinomialRecycledUsesPredictHook() throws Exception {
+    EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(mojo12) {
+      @Override
+      protected double[] predict(RowData data, double offset, double[] preds, ScoringContext ctx)
+              throws PredictException {
+        preds = super.predict(data, offset, preds, ctx);
+        preds[0] = 1 - preds[0]; // flip the label
+        return preds;
+      }
+    };
+    RowData row = new RowData();
+    BinomialModelPrediction expected = wrapper.predictBinomial(row);
+    BinomialModelPrediction recycled = wrapper.predictBinomial(row, 0, mojo12.makeScoringContext(),
+            new BinomialModelPrediction());
+    assertEquals(1 - new EasyPredictModelWrapper(mojo12).predictBinomial(row).labelIndex, expected.labelIndex);
+    assertEquals(expected.labelIndex, recycled.labelIndex);
+    assertEquals(expected.label, recycled.label);
+  }
+
   @Test
   public void testPredictWithLeafAssignments() throws IOException, PredictException {
     EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(
@@ -0,0 +1,80 @@
+package hex.genmodel.algos.tree;
+
+import hex.genmodel.ModelMojoReader;
+import hex.genmodel.MojoReaderBackend;
+import hex.genmodel.MojoReaderBackendFactory;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FlatTreeScorerTest {
+
+  @Test
+  public void testMatchesCompressedTreeScoring() throws Exception {
+    for (String mojo : new String[]{"/hex/genmodel/mojo.zip", "/hex/genmodel/algos/gbm/calibrated/"}) {
+      SharedTreeMojoModel model = load(mojo);
+      FlatTreeScorer flat = new FlatTreeScorer(model._compressed_trees, model._domains);
+      assertEquals(model._compressed_trees.length, flat.ntrees());
+      for (double[] row : randomRows(model, 1000)) {
+        for (int t = 0; t < flat.ntrees(); t++) {
+          assertEquals(model._compressed_trees[t] == null, flat.isEmpty(t));
+          if (flat.isEmpty(t)) continue;
+          double expected = SharedTreeMojoModel.scoreTree(model._compressed_trees[t], row, false, model._domains);
+          assertEquals(mojo + ", tree " + t, expected, flat.scoreTree(t, row), 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBatchScoringMatchesScore0() throws Exception {
+    for (String mojo : new String[]{"/hex/genmodel/mojo.zip", "/hex/genmodel/algos/gbm/calibrated/"}) {
+      SharedTreeMojoModel model = load(mojo);
+      double[][] rows = randomRows(model, 1000);
+      double[][] preds = model.score0(rows);
+      for (int r = 0; r < rows.length; r++)
+        assertArrayEquals(model.score0(rows[r], new double[model.getPredsSize()]), preds[r], 0);
+    }
+  }
+
+  @Test
+  public void testScoreStump() {
+    byte[] tree = new byte[7];
+    java.nio.ByteBuffer.wrap(tree).order(java.nio.ByteOrder.nativeOrder()).put((byte) 0).putChar((char) 65535).putFloat(4.2f);
+    FlatTreeScorer flat = new FlatTreeScorer(new byte[][]{tree, null}, null);
+    assertEquals(4.2f, flat.scoreTree(0, new double[0]), 0);
+    assertTrue(flat.isEmpty(1));
+  }
+
+  private static SharedTreeMojoModel load(String path) throws Exception {
+    URL url = FlatTreeScorerTest.class.getResource(path);
+    assertNotNull(path, url);
+    MojoReaderBackend backend = path.endsWith(".zip") ?
+            MojoReaderBackendFactory.createReaderBackend(url, MojoReaderBackendFactory.CachingStrategy.MEMORY) :
+            MojoReaderBackendFactory.createReaderBackend(url.getPath());
+    return (SharedTreeMojoModel) ModelMojoReader.readFrom(backend);
+  }
+
+  // Mix of NAs, values over several orders of magnitude and (also unseen) categorical levels
+  private static double[][] randomRows(SharedTreeMojoModel model, int n) {
+    Random rnd = new Random(0xF1A7);
+    int ncols = model.nfeatures();
+    double[][] rows = new double[n][ncols];
+    for (double[] row : rows) {
+      for (int c = 0; c < ncols; c++) {
+        String[] domain = model._domains[c];
+        if (rnd.nextInt(10) == 0)
+          row[c] = Double.NaN;
+        else if (domain != null)
+          row[c] = rnd.nextInt(domain.length + 2);
+        else
+          row[c] = rnd.nextGaussian() * Math.pow(10, rnd.nextInt(4));
+      }
+    }
+    return rows;
+  }
+
+}
@@ -0,0 +1,149 @@
+package water.parser.arrow;
+
+import water.exceptions.H2OUnsupportedDataFileException;
+import water.fvec.Vec;
+
+import static water.parser.arrow.ArrowFormat.*;
+
+/**
+ * A column of an Arrow schema and its mapping to an H2O column type.
+ */
+final class ArrowColumn {
+
+  final String _name;
+  final int _type;          // Arrow type of the values (of the dictionary for dictionary encoded columns)
+  final int _bitWidth;      // width of fixed size values
+  final boolean _signed;
+  final long _toMillis;     // time units to milliseconds: multiplier if positive, divisor if negative
+  final long _dictionaryId; // -1 if the column isn't dictionary encoded
+  final int _indexBitWidth;
+  final boolean _indexSigned;
+
+  private ArrowColumn(FlatBuffers.Table field) {
+    _name = field.getString(FIELD_NAME);
+    _type = field.getByte(FIELD_TYPE_TYPE, TYPE_NONE);
+    if (field.vectorLength(FIELD_CHILDREN) > 0 || !isSupported(_type))
+      throw new H2OUnsupportedDataFileException("Arrow files with nested or " + typeName(_type) + " columns are not supported.",
+              "Detected column '" + _name + "' of type " + typeName(_type));
+    FlatBuffers.Table type = field.getTable(FIELD_TYPE);
+    switch (_type) {
+      case TYPE_INT:
+        _bitWidth = type.getInt(INT_BIT_WIDTH, 0);
+        _signed = type.getBool(INT_IS_SIGNED, false);
+        _toMillis = 1;
+        break;
+      case TYPE_FLOATING_POINT:
+        _bitWidth = 16 << type.getShort(FLOATING_POINT_PRECISION, PRECISION_HALF);
+        _signed = true;
+        _toMillis = 1;
+        break;
+      case TYPE_DATE:
+        boolean days = type.getShort(DATE_UNIT, DATE_UNIT_MILLISECOND) == DATE_UNIT_DAY;
+        _bitWidth = days ? 32 : 64;
+        _signed = true;
+        _toMillis = days ? 24 * 3600 * 1000L : 1;
+        break;
+      case TYPE_TIMESTAMP:
+        _bitWidth = 64;
+        _signed = true;
+        _toMillis = TIME_UNIT_TO_MILLIS[type.getShort(TIMESTAMP_UNIT, TIME_UNIT_SECOND)];
+        break;
+      case TYPE_BOOL:
+        _bitWidth = 1;
+        _signed = false;
+        _toMillis = 1;
+        break;
+      default:
+        _bitWidth = _type == TYPE_LARGE_UTF8 || _type == TYPE_LARGE_BINARY ? 64 : 32; // width of the offsets
+        _signed = false;
+        _toMillis = 1;
+    }
+    FlatBuffers.Table dictionary = field.getTable(FIELD_DICTIONARY);
+    if (dictionary != null) {
+      if (!isString(_type))
+        throw new H2OUnsupportedDataFileException("Arrow files with dictionary encoded " + typeName(_type) +
+                " columns are not supported.", "Detected dictionary encoded column '" + _name + "'");
+      _dictionaryId = dictionary.getLong(DICTIONARY_ENCODING_ID, 0);
+      FlatBuffers.Table indexType = dictionary.getTable(DICTIONARY_ENCODING_INDEX_TYPE);
+      _indexBitWidth = indexType == null ? 32 : indexType.getInt(INT_BIT_WIDTH, 32);
+      _indexSigned = indexType == null || indexType.getBool(INT_IS_SIGNED, true);
+    } else {
+      _dictionaryId = -1;
+      _indexBitWidth = 0;
+      _indexSigned = false;
+    }
+  }
+
+  private ArrowColumn(ArrowColumn c) {
+    _name = c._name;
+    _type = c._type;
+    _bitWidth = c._bitWidth;
+    _signed = c._signed;
+    _toMillis = c._toMillis;
+    _dictionaryId = -1;
+    _indexBitWidth = 0;
+    _indexSigned = false;
+  }
+
+  /** @return column of the values of the dictionary of a dictionary encoded column */
+  ArrowColumn dictionaryValues() {
+    return new ArrowColumn(this);
+  }
+
+  /**
+   * @param schema Schema table of an Arrow file
+   * @return columns of the schema
+   */
+  static ArrowColumn[] columns(FlatBuffers.Table schema) {
+    if (schema.getShort(SCHEMA_ENDIANNESS, ENDIANNESS_LITTLE) != ENDIANNESS_LITTLE)
+      throw new H2OUnsupportedDataFileException("Big-endian Arrow files are not supported.",
+              "Detected a big-endian Arrow schema");
+    ArrowColumn[] columns = new ArrowColumn[schema.vectorLength(SCHEMA_FIELDS)];
+    for (int i = 0; i < columns.length; i++)
+      columns[i] = new ArrowColumn(schema.getTable(SCHEMA_FIELDS, i));
+    return columns;
+  }
+
+  private static boolean isSupported(int type) {
+    switch (type) {
+      case TYPE_NULL:
+      case TYPE_INT:
+      case TYPE_FLOATING_POINT:
+      case TYPE_BOOL:
+      case TYPE_DATE:
+      case TYPE_TIMESTAMP:
+        return true;
+      default:
+        return isString(type);
+    }
+  }
+
+  private static boolean isString(int type) {
+    return type == TYPE_UTF8 || type == TYPE_LARGE_UTF8 || type == TYPE_BINARY || type == TYPE_LARGE_BINARY;
+  }
+
+  boolean isDictionaryEncoded() {
+    return _dictionaryId >= 0;
+  }
+
+  /** @return number of buffers of the column in a record batch */
+  int bufferCount() {
+    if (_type == TYPE_NULL) return 0;
+    return isString(_type) && !isDictionaryEncoded() ? 3 : 2;
+  }
+
+  /** @return initial H2O type of the column; the final type of plain strings is guessed from their values */
+  byte h2oType() {
+    if (isDictionaryEncoded()) return Vec.T_CAT;
+    switch (_type) {
+      case TYPE_NULL: return Vec.T_BAD;
+      case TYPE_INT:
+      case TYPE_FLOATING_POINT: return Vec.T_NUM;
+      case TYPE_BOOL: return Vec.T_CAT;
+      case TYPE_DATE:
+      case TYPE_TIMESTAMP: return Vec.T_TIME;
+      default: return Vec.T_STR;
+    }
+  }
+
+}
@@ -0,0 +1,261 @@
+package water.parser.arrow;
+
+import water.Iced;
+import water.Key;
+import water.exceptions.H2OUnsupportedDataFileException;
+import water.fvec.ByteVec;
+import water.fvec.Chunk;
+import water.parser.BufferedString;
+import water.util.ArrayUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static water.parser.arrow.ArrowFormat.*;
+
+/**
+ * Index of an Arrow stream or file: its schema, its dictionaries and the positions of its record batches.
+ *
+ * The index is built once, on the node creating the parse setup, and travels with the setup. Each record batch
+ * is then parsed by the node holding the chunk the batch starts in.
+ */
+final class ArrowFile extends Iced<ArrowFile> {
+
+  Key _key;               // ByteVec of the file
+  byte[] _schema;         // metadata of the schema message
+  long[] _batchOffsets;   // positions of the record batch messages
+  int[] _batchLengths;    // lengths of the record batch messages, metadata included
+  long[] _dictionaryIds;  // ids of the dictionaries in the order they were read, a stream can replace a dictionary
+  String[][] _dictionaries;
+  int[] _batchDictionaries; // number of dictionaries read before each record batch
+
+  public ArrowFile() {}
+
+  /**
+   * @param vec content of an Arrow stream or file
+   * @return index of the Arrow data
+   * @throws H2OUnsupportedDataFileException if the data uses features of Arrow that are not supported
+   * @throws IllegalStateException if the data is not a valid Arrow stream or file
+   */
+  static ArrowFile index(ByteVec vec) {
+    ArrowFile f = new ArrowFile();
+    f._key = vec._key;
+    long len = vec.length();
+    boolean isFile = isFile(read(vec, 0, (int) Math.min(len, MAGIC.length)));
+    long pos = isFile ? FILE_HEADER_LENGTH : 0;
+    // The schema message starts both formats
+    Message schema = Message.readMetadata(vec, pos);
+    if (schema == null || schema._headerType != HEADER_SCHEMA)
+      throw new IllegalStateException("Arrow data doesn't start with a schema");
+    f._schema = schema._metadata;
+    ArrowColumn[] columns = f.columns();
+    List<long[]> batches = new ArrayList<>(); // {offset, length, dictionaries read before}
+    f._dictionaryIds = new long[0];
+    f._dictionaries = new String[0][];
+    if (isFile) { // The footer knows where the batches are, files can only have delta dictionaries
+      long trailer = len - FILE_TRAILER_LENGTH;
+      int footerLength = read(vec, trailer, 4).getInt(0);
+      if (footerLength <= 0 || trailer - footerLength < FILE_HEADER_LENGTH)
+        throw new IllegalStateException("Corrupted Arrow file: invalid footer length " + footerLength);
+      FlatBuffers.Table footer = FlatBuffers.Table.root(read(vec, trailer - footerLength, footerLength));
+      for (int i = 0; i < footer.vectorLength(FOOTER_DICTIONARIES); i++)
+        f.addDictionary(columns, Message.read(vec, footer.getStructLong(FOOTER_DICTIONARIES, BLOCK_SIZE, i, 0)), false);
+      for (int i = 0; i < footer.vectorLength(FOOTER_RECORD_BATCHES); i++) {
+        long offset = footer.getStructLong(FOOTER_RECORD_BATCHES, BLOCK_SIZE, i, 0);
+        long metadataLength = footer.getStructLong(FOOTER_RECORD_BATCHES, BLOCK_SIZE, i, 8) & 0xFFFFFFFFL;
+        long bodyLength = footer.getStructLong(FOOTER_RECORD_BATCHES, BLOCK_SIZE, i, 16);
+        batches.add(new long[]{offset, metadataLength + bodyLength, f._dictionaryIds.length});
+      }
+    } else { // Walk the messages of the stream
+      pos += schema._length;
+      Message m;
+      while (pos < len && (m = Message.readMetadata(vec, pos)) != null) {
+        if (m._headerType == HEADER_DICTIONARY_BATCH)
+          f.addDictionary(columns, Message.read(vec, pos), true);
+        else if (m._headerType == HEADER_RECORD_BATCH)
+          batches.add(new long[]{pos, m._length, f._dictionaryIds.length});
+        pos += m._length;
+      }
+    }
+    f._batchOffsets = new long[batches.size()];
+    f._batchLengths = new int[batches.size()];
+    f._batchDictionaries = new int[batches.size()];
+    for (int i = 0; i < batches.size(); i++) {
+      f._batchOffsets[i] = batches.get(i)[0];
+      f._batchLengths[i] = Message.checkLength(batches.get(i)[1]);
+      f._batchDictionaries[i] = (int) batches.get(i)[2];
+    }
+    return f;
+  }
+
+  /**
+   * A delta extends the current dictionary of its id, which keeps the indices of the batches read before valid.
+   * A replacement becomes the dictionary of the batches read after it, the batches before keep the previous one.
+   */
+  private void addDictionary(ArrowColumn[] columns, Message m, boolean canReplace) {
+    if (m._headerType != HEADER_DICTIONARY_BATCH)
+      throw new IllegalStateException("Corrupted Arrow data: expected a dictionary batch");
+    FlatBuffers.Table batch = m._header;
+    long id = batch.getLong(DICTIONARY_BATCH_ID, 0);
+    ArrowColumn column = null;
+    for (ArrowColumn c : columns)
+      if (c._dictionaryId == id) column = c;
+    if (column == null)
+      throw new IllegalStateException("Corrupted Arrow data: no column uses dictionary " + id);
+    FlatBuffers.Table data = batch.getTable(DICTIONARY_BATCH_DATA);
+    checkUncompressed(data);
+    // The values of the dictionary are a record batch of a single column of the value type
+    ArrowVector values = new ArrowVector(column.dictionaryValues(), data, m._body, 0, 0, null);
+    String[] dictionary = new String[values.length()];
+    for (int i = 0; i < dictionary.length; i++)
+      dictionary[i] = values.isNA(i) ? null : values.getString(i).toString();
+    int idx = dictionaryIndex(id, _dictionaryIds.length);
+    if (idx >= 0 && batch.getBool(DICTIONARY_BATCH_IS_DELTA, false)) {
+      _dictionaries[idx] = ArrayUtils.append(_dictionaries[idx], dictionary);
+    } else {
+      if (idx >= 0 && !canReplace)
+        throw new IllegalStateException("Corrupted Arrow file: dictionary " + id + " is replaced");
+      _dictionaryIds = Arrays.copyOf(_dictionaryIds, _dictionaryIds.length + 1);
+      _dictionaryIds[_dictionaryIds.length - 1] = id;
+      _dictionaries = Arrays.copyOf(_dictionaries, _dictionaries.length + 1);
+      _dictionaries[_dictionaries.length - 1] = dictionary;
+    }
+  }
+
+  // Index of the last dictionary with the given id among the first n read, -1 if none
+  private int dictionaryIndex(long id, int n) {
+    for (int i = n - 1; i >= 0; i--)
+      if (_dictionaryIds[i] == id) return i;
+    return -1;
+  }
+
+  static void checkUncompressed(FlatBuffers.Table batch) {
+    if (batch.has(RECORD_BATCH_COMPRESSION))
+      throw new H2OUnsupportedDataFileException("Compressed Arrow record batches are not supported.",
+              "Detected a record batch with body compression");
+  }
+
+  ArrowColumn[] columns() {
+    return ArrowColumn.columns(FlatBuffers.Table.root(ByteBuffer.wrap(_schema)).getTable(MESSAGE_HEADER));
+  }
+
+  /**
+   * @param batch index of a record batch
+   * @return dictionary values of each column for the record batch, null for columns that are not dictionary encoded
+   */
+  BufferedString[][] dictionaries(ArrowColumn[] columns, int batch) {
+    BufferedString[][] dictionaries = new BufferedString[columns.length][];
+    for (int c = 0; c < columns.length; c++) {
+      if (!columns[c].isDictionaryEncoded()) continue;
+      int idx = dictionaryIndex(columns[c]._dictionaryId, _batchDictionaries[batch]);
+      String[] values = idx < 0 ? new String[0] : _dictionaries[idx];
+      dictionaries[c] = new BufferedString[values.length];
+      for (int i = 0; i < values.length; i++)
+        dictionaries[c][i] = values[i] == null ? null : new BufferedString(values[i]);
+    }
+    return dictionaries;
+  }
+
+  /**
+   * @param vec content of the file
+   * @param i index of a record batch
+   * @return the message of the record batch
+   */
+  Message readBatch(ByteVec vec, int i) {
+    return Message.read(read(vec, _batchOffsets[i], _batchLengths[i]));
+  }
+
+  /**
+   * @return a little-endian view of a part of a ByteVec; the bytes are copied only if they span several chunks
+   */
+  static ByteBuffer read(ByteVec vec, long offset, int len) {
+    if (offset < 0 || offset + len > vec.length())
+      throw new IllegalStateException("Corrupted Arrow data: reading past the end of the data (offset " + offset + ")");
+    if (len == 0)
+      return ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+    int cidx = vec.elem2ChunkIdx(offset);
+    Chunk c = vec.chunkForChunkIdx(cidx);
+    byte[] mem = c.getBytes();
+    int start = (int) (offset - c.start());
+    if (start + len <= mem.length)
+      return slice(ByteBuffer.wrap(mem), start, len);
+    byte[] bytes = new byte[len];
+    int n = 0;
+    while (true) {
+      int k = Math.min(len - n, mem.length - start);
+      System.arraycopy(mem, start, bytes, n, k);
+      n += k;
+      if (n == len) break;
+      mem = vec.chunkForChunkIdx(++cidx).getBytes();
+      start = 0;
+    }
+    return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /** An encapsulated message. */
+  static final class Message {
+    final byte[] _metadata; // only kept for the schema
+    final int _headerType;
+    final FlatBuffers.Table _header;
+    final ByteBuffer _body;
+    final long _length;     // length of the whole message
+
+    private Message(ByteBuffer metadata, int prefixLength, ByteBuffer body) {
+      FlatBuffers.Table message = FlatBuffers.Table.root(metadata);
+      _headerType = message.getByte(MESSAGE_HEADER_TYPE, 0);
+      _header = message.getTable(MESSAGE_HEADER);
+      _length = prefixLength + metadata.limit() + message.getLong(MESSAGE_BODY_LENGTH, 0);
+      _metadata = _headerType == HEADER_SCHEMA ? copy(metadata) : null;
+      _body = body;
+    }
+
+    private static byte[] copy(ByteBuffer bb) {
+      byte[] bytes = new byte[bb.limit()];
+      bb.duplicate().get(bytes);
+      return bytes;
+    }
+
+    // Length of the metadata, 0 at the end of a stream
+    private static int metadataLength(ByteBuffer prefix) {
+      if (prefix.getInt(0) != CONTINUATION)
+        throw new H2OUnsupportedDataFileException("Arrow data without continuation markers (format older than 0.15) " +
+                "is not supported.", "Invalid message prefix " + prefix.getInt(0));
+      int len = prefix.getInt(4);
+      if (len < 0 || len % 8 != 0)
+        throw new IllegalStateException("Corrupted Arrow data: invalid metadata length " + len);
+      return len;
+    }
+
+    /** @return the message starting at a position of the ByteVec, without its body; null at the end of a stream */
+    static Message readMetadata(ByteVec vec, long pos) {
+      if (pos + 8 > vec.length()) return null;
+      int len = metadataLength(ArrowFile.read(vec, pos, 8));
+      return len == 0 ? null : new Message(ArrowFile.read(vec, pos + 8, len), 8, null);
+    }
+
+    /** @return the message starting at a position of the ByteVec, with its body */
+    static Message read(ByteVec vec, long pos) {
+      Message m = readMetadata(vec, pos);
+      if (m == null)
+        throw new IllegalStateException("Corrupted Arrow data: no message at position " + pos);
+      return read(ArrowFile.read(vec, pos, checkLength(m._length)));
+    }
+
+    /** @return the message of a buffer holding the whole message */
+    static Message read(ByteBuffer bb) {
+      int len = metadataLength(bb);
+      return new Message(slice(bb, 8, len), 8, slice(bb, 8 + len, bb.limit() - 8 - len));
+    }
+
+    static int checkLength(long length) {
+      if (length > Integer.MAX_VALUE)
+        throw new H2OUnsupportedDataFileException("Arrow messages larger than 2GB are not supported.",
+                "Detected a message of " + length + " bytes");
+      return (int) length;
+    }
+  }
+
+}
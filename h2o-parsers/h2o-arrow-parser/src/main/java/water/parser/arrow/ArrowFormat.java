@@ -0,0 +1,133 @@
+package water.parser.arrow;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Constants of the Arrow IPC format (Schema.fbs, Message.fbs and File.fbs of the Arrow specification).
+ *
+ * A stream is a sequence of encapsulated messages: a continuation marker (0xFFFFFFFF), the length of the metadata,
+ * the metadata (a FlatBuffer padded to 8 bytes) and the body of the message. The first message is the schema,
+ * dictionary batches precede the record batches using them, and the stream ends with a zero length. A file is
+ * a stream surrounded by the magic string "ARROW1" and followed by a footer with the positions of the batches.
+ */
+final class ArrowFormat {
+
+  private ArrowFormat() {}
+
+  static final int CONTINUATION = 0xFFFFFFFF;
+  static final byte[] MAGIC = {'A', 'R', 'R', 'O', 'W', '1'};
+  static final int FILE_HEADER_LENGTH = 8; // magic padded to 8 bytes
+  static final int FILE_TRAILER_LENGTH = 4 + MAGIC.length; // footer length followed by the magic
+
+  static final short METADATA_VERSION_V5 = 4;
+
+  // Message table
+  static final int MESSAGE_VERSION = 0;
+  static final int MESSAGE_HEADER_TYPE = 1;
+  static final int MESSAGE_HEADER = 2;
+  static final int MESSAGE_BODY_LENGTH = 3;
+
+  // MessageHeader union
+  static final int HEADER_SCHEMA = 1;
+  static final int HEADER_DICTIONARY_BATCH = 2;
+  static final int HEADER_RECORD_BATCH = 3;
+
+  // Schema table
+  static final int SCHEMA_ENDIANNESS = 0;
+  static final int SCHEMA_FIELDS = 1;
+  static final int ENDIANNESS_LITTLE = 0;
+
+  // Field table
+  static final int FIELD_NAME = 0;
+  static final int FIELD_NULLABLE = 1;
+  static final int FIELD_TYPE_TYPE = 2;
+  static final int FIELD_TYPE = 3;
+  static final int FIELD_DICTIONARY = 4;
+  static final int FIELD_CHILDREN = 5;
+
+  // DictionaryEncoding table
+  static final int DICTIONARY_ENCODING_ID = 0;
+  static final int DICTIONARY_ENCODING_INDEX_TYPE = 1;
+
+  // Type union
+  static final int TYPE_NONE = 0;
+  static final int TYPE_NULL = 1;
+  static final int TYPE_INT = 2;
+  static final int TYPE_FLOATING_POINT = 3;
+  static final int TYPE_BINARY = 4;
+  static final int TYPE_UTF8 = 5;
+  static final int TYPE_BOOL = 6;
+  static final int TYPE_DATE = 8;
+  static final int TYPE_TIMESTAMP = 10;
+  static final int TYPE_LARGE_BINARY = 19;
+  static final int TYPE_LARGE_UTF8 = 20;
+  private static final String[] TYPE_NAMES = {"NONE", "Null", "Int", "FloatingPoint", "Binary", "Utf8", "Bool",
+          "Decimal", "Date", "Time", "Timestamp", "Interval", "List", "Struct", "Union", "FixedSizeBinary",
+          "FixedSizeList", "Map", "Duration", "LargeBinary", "LargeUtf8", "LargeList"};
+
+  // Int table
+  static final int INT_BIT_WIDTH = 0;
+  static final int INT_IS_SIGNED = 1;
+
+  // FloatingPoint table
+  static final int FLOATING_POINT_PRECISION = 0;
+  static final int PRECISION_HALF = 0;
+  static final int PRECISION_DOUBLE = 2;
+
+  // Date table
+  static final int DATE_UNIT = 0;
+  static final int DATE_UNIT_DAY = 0;
+  static final int DATE_UNIT_MILLISECOND = 1;
+
+  // Timestamp table
+  static final int TIMESTAMP_UNIT = 0;
+  static final int TIME_UNIT_SECOND = 0;
+  static final int TIME_UNIT_MILLISECOND = 1;
+  static final long[] TIME_UNIT_TO_MILLIS = {1000, 1, -1000, -1000000}; // negative values are divisors
+
+  // RecordBatch table
+  static final int RECORD_BATCH_LENGTH = 0;
+  static final int RECORD_BATCH_NODES = 1;
+  static final int RECORD_BATCH_BUFFERS = 2;
+  static final int RECORD_BATCH_COMPRESSION = 3;
+  static final int FIELD_NODE_SIZE = 16;    // struct FieldNode { length: long; null_count: long; }
+  static final int BUFFER_SIZE = 16;        // struct Buffer { offset: long; length: long; }
+
+  // DictionaryBatch table
+  static final int DICTIONARY_BATCH_ID = 0;
+  static final int DICTIONARY_BATCH_DATA = 1;
+  static final int DICTIONARY_BATCH_IS_DELTA = 2;
+
+  // Footer table
+  static final int FOOTER_VERSION = 0;
+  static final int FOOTER_SCHEMA = 1;
+  static final int FOOTER_DICTIONARIES = 2;
+  static final int FOOTER_RECORD_BATCHES = 3;
+  static final int BLOCK_SIZE = 24;         // struct Block { offset: long; metaDataLength: int; bodyLength: long; }
+
+  static String typeName(int type) {
+    return type >= 0 && type < TYPE_NAMES.length ? TYPE_NAMES[type] : "type #" + type;
+  }
+
+  static boolean isFile(ByteBuffer bb) {
+    if (bb.limit() < MAGIC.length) return false;
+    for (int i = 0; i < MAGIC.length; i++)
+      if (bb.get(i) != MAGIC[i]) return false;
+    return true;
+  }
+
+  /**
+   * @param bb buffer
+   * @param pos position of a part of the buffer
+   * @param len length of the part
+   * @return little-endian view of a part of the buffer
+   */
+  static ByteBuffer slice(ByteBuffer bb, int pos, int len) {
+    ByteBuffer dup = bb.duplicate();
+    dup.position(pos);
+    dup.limit(pos + len);
+    return dup.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+}
@@ -0,0 +1,234 @@
+package water.parser.arrow;
+
+import water.Job;
+import water.Key;
+import water.fvec.ByteVec;
+import water.fvec.Chunk;
+import water.fvec.Vec;
+import water.parser.*;
+import water.util.Log;
+
+import java.nio.ByteBuffer;
+
+import static water.parser.arrow.ArrowFormat.*;
+
+/**
+ * Arrow IPC (stream and file, aka Feather v2) parser for H2O distributed parsing subsystem.
+ *
+ * Each record batch is parsed by the task parsing the chunk the batch starts in. The values are read directly
+ * from the buffers of the batch and written a column at a time to the chunks of the parsed frame.
+ */
+public class ArrowParser extends Parser {
+
+  private static final int MAX_PREVIEW_RECORDS = 1000;
+
+  private final ArrowFile _file;
+
+  ArrowParser(ParseSetup setup, Key<Job> jobKey) {
+    super(setup, jobKey);
+    _file = ((ArrowParseSetup) setup).file;
+  }
+
+  @Override
+  protected final ParseWriter parseChunk(int cidx, ParseReader din, ParseWriter dout) {
+    if (! (din instanceof FVecParseReader)) {
+      throw new IllegalStateException("We only accept parser readers backed by a Vec (no streaming support!).");
+    }
+    Chunk chunk = ((FVecParseReader) din).getChunk();
+    ByteVec vec = (ByteVec) chunk.vec();
+    parseBatches(vec, chunk.start(), chunk.start() + chunk.len(), dout);
+    return dout;
+  }
+
+  @Override
+  protected final StreamParseWriter sequentialParse(Vec vec, final StreamParseWriter dout) {
+    // Batches go to the output chunk matching the input chunk they start in, like in a distributed parse
+    StreamParseWriter nextChunk = dout;
+    int nChunks = vec.nChunks();
+    for (int i = 0; i < nChunks; i++) {
+      parseBatches((ByteVec) vec, vec.espc()[i], vec.espc()[i + 1], nextChunk);
+      if (_jobKey != null)
+        Job.update(vec.length() / nChunks, _jobKey);
+      nextChunk.close();
+      dout.reduce(nextChunk);
+      nextChunk = nextChunk.nextChunk();
+    }
+    return dout;
+  }
+
+  // Parses the record batches starting between the given positions
+  private void parseBatches(ByteVec vec, long start, long end, ParseWriter dout) {
+    ArrowColumn[] columns = _file.columns();
+    BufferedString[][] dictionaries = null;
+    int dictionariesRead = -1; // dictionaries read before the batches using the current ones
+    boolean columnar = dout.getClass() == FVecParseWriter.class;
+    int nbatches = 0;
+    for (int i = 0; i < _file._batchOffsets.length; i++) {
+      long offset = _file._batchOffsets[i];
+      if (offset < start || offset >= end) continue;
+      if (_file._batchDictionaries[i] != dictionariesRead) { // first batch, or dictionaries added or replaced since
+        dictionaries = _file.dictionaries(columns, i);
+        dictionariesRead = _file._batchDictionaries[i];
+      }
+      ArrowVector[] vectors = vectors(columns, dictionaries, _file.readBatch(vec, i), _keepColumns);
+      if (columnar) writeColumns(vectors, (FVecParseWriter) dout);
+      else writeRows(vectors, dout, Integer.MAX_VALUE);
+      nbatches++;
+    }
+    Log.trace("Arrow: parsed ", nbatches, " record batches starting between ", start, " and ", end);
+  }
+
+  /**
+   * @return vectors of the kept columns of a record batch, null for the skipped columns
+   */
+  private static ArrowVector[] vectors(ArrowColumn[] columns, BufferedString[][] dictionaries, ArrowFile.Message m,
+                                       boolean[] keepColumns) {
+    if (m._headerType != HEADER_RECORD_BATCH)
+      throw new IllegalStateException("Corrupted Arrow data: expected a record batch");
+    FlatBuffers.Table batch = m._header;
+    ArrowFile.checkUncompressed(batch);
+    if (batch.vectorLength(RECORD_BATCH_NODES) != columns.length)
+      throw new IllegalStateException("Corrupted Arrow data: the record batch doesn't match the schema");
+    ArrowVector[] vectors = new ArrowVector[columns.length];
+    int buffer = 0;
+    for (int c = 0; c < columns.length; c++) {
+      if (keepColumns == null || keepColumns[c])
+        vectors[c] = new ArrowVector(columns[c], batch, m._body, c, buffer, dictionaries[c]);
+      buffer += columns[c].bufferCount();
+    }
+    return vectors;
+  }
+
+  private static void writeColumns(ArrowVector[] vectors, FVecParseWriter dout) {
+    int length = -1;
+    int col = 0;
+    for (ArrowVector v : vectors) {
+      if (v == null) continue;
+      length = v.length();
+      for (int r = 0; r < length; r++)
+        v.write(dout, col, r);
+      col++;
+    }
+    if (length > 0)
+      dout.addLines(length);
+  }
+
+  private static void writeRows(ArrowVector[] vectors, ParseWriter dout, int maxRows) {
+    int length = 0;
+    for (ArrowVector v : vectors)
+      if (v != null) length = Math.min(v.length(), maxRows);
+    for (int r = 0; r < length; r++) {
+      int col = 0;
+      for (ArrowVector v : vectors)
+        if (v != null) v.write(dout, col++, r);
+      dout.newLine();
+    }
+  }
+
+  /**
+   * @return initial setup if the data is an Arrow stream or file, otherwise null
+   */
+  static ArrowParseSetup guessFormatSetup(ByteVec vec, byte[] bits) {
+    ByteBuffer bb = ByteBuffer.wrap(bits).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+    boolean isStream = bits.length >= 8 && bb.getInt(0) == CONTINUATION && bb.getInt(4) > 0;
+    if (!isStream && !isFile(bb)) {
+      return null;
+    }
+    // seems like we have Arrow data
+    ArrowFile file = ArrowFile.index(vec);
+    ArrowColumn[] columns = file.columns();
+    String[] names = new String[columns.length];
+    byte[] types = new byte[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      names[i] = columns[i]._name;
+      types[i] = columns[i].h2oType();
+    }
+    return new ArrowParseSetup(names, types, null, file);
+  }
+
+  static ArrowParseSetup guessDataSetup(ByteVec vec, ArrowParseSetup ps) {
+    ArrowFile file = ps.file;
+    ArrowColumn[] columns = file.columns();
+    ArrowPreviewParseWriter ppWriter = new ArrowPreviewParseWriter(ps);
+    if (file._batchOffsets.length > 0) {
+      ArrowVector[] vectors = vectors(columns, file.dictionaries(columns, 0), file.readBatch(vec, 0), null);
+      writeRows(vectors, ppWriter, MAX_PREVIEW_RECORDS);
+    }
+    byte[] types = ppWriter.guessTypes();
+    for (int i = 0; i < types.length; i++)
+      if (columns[i].h2oType() == Vec.T_CAT || columns[i].h2oType() == Vec.T_BAD) // dictionary encoded strings or booleans, nulls
+        types[i] = columns[i].h2oType();
+    return new ArrowParseSetup(ps.getColumnNames(), correctTypeConversions(columns, types), ppWriter.data(), file);
+  }
+
+  /**
+   * Overrides unsupported type conversions: numeric and time columns keep their type, string columns
+   * cannot be converted to numbers.
+   * @param columns columns of the Arrow schema
+   * @param requestedTypes requested types (or types guessed from the first rows)
+   * @return corrected types
+   */
+  static byte[] correctTypeConversions(ArrowColumn[] columns, byte[] requestedTypes) {
+    if (requestedTypes.length != columns.length)
+      throw new IllegalArgumentException("Invalid column type specification: number of columns and number of types differ!");
+    byte[] types = new byte[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      byte type = columns[i].h2oType();
+      if (type == Vec.T_NUM || type == Vec.T_TIME) {
+        types[i] = type;
+      } else if (type == Vec.T_BAD) {
+        // column of nulls, any type will do
+        types[i] = requestedTypes[i];
+      } else {
+        // strings can be parsed as categoricals, strings, times or UUIDs
+        types[i] = requestedTypes[i] == Vec.T_NUM || requestedTypes[i] == Vec.T_BAD ? type : requestedTypes[i];
+      }
+    }
+    return types;
+  }
+
+  private static class ArrowPreviewParseWriter extends PreviewParseWriter {
+
+    public ArrowPreviewParseWriter() {
+      // externalizable class should have a public constructor
+      super();
+    }
+
+    ArrowPreviewParseWriter(ArrowParseSetup setup) {
+      super(setup.getColumnNames().length);
+      setColumnNames(setup.getColumnNames());
+      _nlines = 0;
+      _data[0] = new String[setup.getColumnNames().length];
+    }
+
+    String[][] data() {
+      return _data;
+    }
+  }
+
+  public static class ArrowParseSetup extends ParseSetup {
+    ArrowFile[] files;       // indices of all parsed files
+    transient ArrowFile file; // index of the file being parsed
+
+    public ArrowParseSetup() { super(); }
+    ArrowParseSetup(String[] columnNames, byte[] ctypes, String[][] data, ArrowFile file) {
+      super(ArrowParserProvider.ARROW_INFO, (byte) '|', true, ParseSetup.HAS_HEADER,
+              columnNames.length, columnNames, ctypes,
+              new String[columnNames.length][] /* domains */, null /* NA strings */, data);
+      this.files = new ArrowFile[]{file};
+      this.file = file;
+    }
+
+    ArrowParseSetup setFile(Vec vec) {
+      if (files != null)
+        for (ArrowFile f : files)
+          if (f._key.equals(vec._key)) {
+            file = f;
+            return this;
+          }
+      file = ArrowFile.index((ByteVec) vec); // not indexed by the provider
+      return this;
+    }
+  }
+
+}
@@ -0,0 +1,73 @@
+package water.parser.arrow;
+
+import water.DKV;
+import water.Job;
+import water.Key;
+import water.fvec.ByteVec;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.parser.*;
+
+/**
+ * Arrow IPC parser provider.
+ */
+public class ArrowParserProvider extends BinaryParserProvider {
+
+  /* Setup for this parser */
+  static ParserInfo ARROW_INFO = new ParserInfo("ARROW", DefaultParserProviders.MAX_CORE_PRIO + 40, true, false, true, false);
+
+  @Override
+  public ParserInfo info() {
+    return ARROW_INFO;
+  }
+
+  @Override
+  public Parser createParser(ParseSetup setup, Key<Job> jobKey) {
+    return new ArrowParser(setup, jobKey);
+  }
+
+  @Override
+  public ParseSetup guessInitSetup(ByteVec v, byte[] bits, ParseSetup userSetup) {
+    return ArrowParser.guessFormatSetup(v, bits);
+  }
+
+  @Override
+  public ParseSetup guessFinalSetup(ByteVec v, byte[] bits, ParseSetup ps) {
+    return ArrowParser.guessDataSetup(v, (ArrowParser.ArrowParseSetup) ps);
+  }
+
+  @Override
+  public ParseSetup createParserSetup(Key[] inputs, ParseSetup requestedSetup) {
+    // convert to an instance of ArrowParseSetup if needed
+    ArrowParser.ArrowParseSetup setup = requestedSetup instanceof ArrowParser.ArrowParseSetup ?
+            (ArrowParser.ArrowParseSetup) requestedSetup : requestedSetup.copyTo(new ArrowParser.ArrowParseSetup());
+    // index all files once, the parse tasks only read the record batches
+    setup.files = new ArrowFile[inputs.length];
+    for (int i = 0; i < inputs.length; i++)
+      setup.files[i] = ArrowFile.index(byteVec(inputs[i]));
+    ArrowColumn[] columns = setup.files[0].columns();
+    for (int i = 1; i < inputs.length; i++)
+      if (setup.files[i].columns().length != columns.length)
+        throw new ParseDataset.H2OParseException("Arrow files " + inputs[0] + " and " + inputs[i] +
+                " have a different number of columns.");
+    // override incorrect type mappings (using the schema of the first file)
+    byte[] requestedTypes = setup.getColumnTypes();
+    byte[] types = ArrowParser.correctTypeConversions(columns, requestedTypes);
+    setup.setColumnTypes(types);
+    for (int i = 0; i < types.length; i++)
+      if (types[i] != requestedTypes[i])
+        setup.addErrs(new ParseWriter.UnsupportedTypeOverride(inputs[0].toString(),Vec.TYPE_STR[types[i]], Vec.TYPE_STR[requestedTypes[i]], setup.getColumnNames()[i]));
+    return setup;
+  }
+
+  @Override
+  public ParseSetup setupLocal(Vec v, ParseSetup setup) {
+    return ((ArrowParser.ArrowParseSetup) setup).setFile(v);
+  }
+
+  private static ByteVec byteVec(Key key) {
+    Object frameOrVec = DKV.getGet(key);
+    return (ByteVec) (frameOrVec instanceof Frame ? ((Frame) frameOrVec).vec(0) : frameOrVec);
+  }
+
+}
@@ -0,0 +1,161 @@
+package water.parser.arrow;
+
+import water.parser.BufferedString;
+import water.parser.ParseWriter;
+
+import java.nio.ByteBuffer;
+
+import static water.parser.arrow.ArrowFormat.*;
+
+/**
+ * The values of a column in a record batch.
+ *
+ * The buffers are views of the body of the batch, which itself is a view of the chunk holding it whenever the
+ * batch doesn't cross a chunk boundary. Values are read straight from the buffers, strings included.
+ */
+final class ArrowVector {
+
+  private static final BufferedString TRUE = new BufferedString("true");
+  private static final BufferedString FALSE = new BufferedString("false");
+
+  private final ArrowColumn _column;
+  private final int _length;
+  private final ByteBuffer _validity; // null if there are no missing values
+  private final ByteBuffer _offsets;  // offsets of strings, null for other types
+  private final ByteBuffer _data;     // values, dictionary indices for dictionary encoded columns
+  private final BufferedString[] _dictionary;
+  private final BufferedString _str = new BufferedString();
+
+  /**
+   * @param column column of the vector
+   * @param batch RecordBatch table
+   * @param body body of the batch
+   * @param node index of the field node of the column
+   * @param buffer index of the first buffer of the column
+   * @param dictionary values of a dictionary encoded column, otherwise null
+   */
+  ArrowVector(ArrowColumn column, FlatBuffers.Table batch, ByteBuffer body, int node, int buffer,
+              BufferedString[] dictionary) {
+    _column = column;
+    _length = (int) batch.getStructLong(RECORD_BATCH_NODES, FIELD_NODE_SIZE, node, 0);
+    long nullCount = batch.getStructLong(RECORD_BATCH_NODES, FIELD_NODE_SIZE, node, 8);
+    _dictionary = dictionary;
+    int nbuffers = column.bufferCount();
+    if (nbuffers == 0) {
+      _validity = _offsets = _data = null;
+      return;
+    }
+    ByteBuffer validity = buffer(batch, body, buffer);
+    _validity = nullCount == 0 || validity.limit() == 0 ? null : validity;
+    _offsets = nbuffers == 3 ? buffer(batch, body, buffer + 1) : null;
+    _data = buffer(batch, body, buffer + nbuffers - 1);
+  }
+
+  private static ByteBuffer buffer(FlatBuffers.Table batch, ByteBuffer body, int i) {
+    long offset = batch.getStructLong(RECORD_BATCH_BUFFERS, BUFFER_SIZE, i, 0);
+    long length = batch.getStructLong(RECORD_BATCH_BUFFERS, BUFFER_SIZE, i, 8);
+    if (offset < 0 || length < 0 || offset + length > body.limit())
+      throw new IllegalStateException("Corrupted Arrow record batch: buffer #" + i + " is not within the message body");
+    return slice(body, (int) offset, (int) length);
+  }
+
+  int length() {
+    return _length;
+  }
+
+  boolean isNA(int row) {
+    return _column._type == TYPE_NULL ||
+            (_validity != null && (_validity.get(row >> 3) & (1 << (row & 7))) == 0);
+  }
+
+  /** @return integer value (or dictionary index) of a row */
+  long getLong(int row) {
+    return getLong(_data, row, _column.isDictionaryEncoded() ? _column._indexBitWidth : _column._bitWidth,
+            _column.isDictionaryEncoded() ? _column._indexSigned : _column._signed);
+  }
+
+  private static long getLong(ByteBuffer bb, int row, int bitWidth, boolean signed) {
+    switch (bitWidth) {
+      case 8: return signed ? bb.get(row) : bb.get(row) & 0xFFL;
+      case 16: return signed ? bb.getShort(row << 1) : bb.getShort(row << 1) & 0xFFFFL;
+      case 32: return signed ? bb.getInt(row << 2) : bb.getInt(row << 2) & 0xFFFFFFFFL;
+      default: return bb.getLong(row << 3);
+    }
+  }
+
+  double getDouble(int row) {
+    switch (_column._bitWidth) {
+      case 16: return halfToFloat(_data.getShort(row << 1));
+      case 32: return _data.getFloat(row << 2);
+      default: return _data.getDouble(row << 3);
+    }
+  }
+
+  /** @return time in milliseconds since the epoch */
+  long getMillis(int row) {
+    long v = getLong(row);
+    long toMillis = _column._toMillis;
+    return toMillis > 0 ? v * toMillis : Math.floorDiv(v, -toMillis);
+  }
+
+  /** @return a view of the string in the buffer, valid until the next call */
+  BufferedString getString(int row) {
+    int start, end;
+    if (_column._bitWidth == 64) {
+      start = (int) _offsets.getLong(row << 3);
+      end = (int) _offsets.getLong((row + 1) << 3);
+    } else {
+      start = _offsets.getInt(row << 2);
+      end = _offsets.getInt((row + 1) << 2);
+    }
+    return _str.set(_data.array(), _data.arrayOffset() + start, end - start);
+  }
+
+  /** Writes the value of a row to a column of the writer. */
+  void write(ParseWriter dout, int col, int row) {
+    if (isNA(row)) {
+      dout.addInvalidCol(col);
+    } else if (_dictionary != null) {
+      BufferedString s = _dictionary[(int) getLong(row)];
+      if (s == null) dout.addInvalidCol(col);
+      else dout.addStrCol(col, s);
+    } else {
+      switch (_column._type) {
+        case TYPE_INT:
+          long v = getLong(row);
+          if (v < 0 && !_column._signed) // unsigned 64-bit integer beyond the range of long
+            dout.addNumCol(col, (double) (v >>> 1) * 2 + (v & 1));
+          else
+            dout.addNumCol(col, v, 0);
+          break;
+        case TYPE_FLOATING_POINT:
+          dout.addNumCol(col, getDouble(row));
+          break;
+        case TYPE_BOOL:
+          dout.addStrCol(col, (_data.get(row >> 3) & (1 << (row & 7))) != 0 ? TRUE : FALSE);
+          break;
+        case TYPE_DATE:
+        case TYPE_TIMESTAMP:
+          dout.addNumCol(col, getMillis(row), 0);
+          break;
+        default:
+          dout.addStrCol(col, getString(row));
+      }
+    }
+  }
+
+  // IEEE 754 half precision to single precision
+  private static float halfToFloat(short h) {
+    int sign = (h & 0x8000) << 16;
+    int exp = (h >> 10) & 0x1F;
+    int mantissa = h & 0x3FF;
+    if (exp == 0x1F) // infinity or NaN
+      return Float.intBitsToFloat(sign | 0x7F800000 | (mantissa << 13));
+    if (exp == 0) { // zero or subnormal
+      float f = mantissa * (1f / (1 << 24));
+      return sign == 0 ? f : -f;
+    }
+    return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mantissa << 13));
+  }
+
+}
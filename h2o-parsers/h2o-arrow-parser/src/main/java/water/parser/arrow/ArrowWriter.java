@@ -0,0 +1,364 @@
+package water.parser.arrow;
+
+import water.H2O;
+import water.Job;
+import water.exceptions.H2OIllegalArgumentException;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.parser.BufferedString;
+import water.util.Log;
+import water.util.PrettyPrint;
+import water.util.StringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static water.parser.arrow.ArrowFormat.*;
+
+/**
+ * Writes a Frame in the Arrow IPC format, as a stream or as a file (aka Feather v2).
+ *
+ * Each chunk of the Frame becomes a record batch. Columns are mapped to Arrow types as follows:
+ * integer columns to Int64, other numeric columns to Float64, time columns to Timestamp (milliseconds, no time zone),
+ * categorical columns to Utf8 dictionary encoded with Int32 indices (the dictionary is the domain of the column),
+ * string and UUID columns to Utf8 and columns without any value to Null.
+ */
+public class ArrowWriter {
+
+  private final Frame _fr;
+  private final OutputStream _os;
+  private final Job _job;
+  private long _pos;
+  private final List<long[]> _dictionaryBlocks = new ArrayList<>(); // {offset, metadata length, body length}
+  private final List<long[]> _batchBlocks = new ArrayList<>();
+
+  private ArrowWriter(Frame fr, OutputStream os, Job job) {
+    _fr = fr;
+    _os = os;
+    _job = job;
+  }
+
+  /** Writes the Frame as an Arrow IPC stream. */
+  public static void writeStream(Frame fr, OutputStream os) throws IOException {
+    new ArrowWriter(fr, os, null).write(false);
+  }
+
+  /** Writes the Frame as an Arrow IPC file. */
+  public static void writeFile(Frame fr, OutputStream os) throws IOException {
+    new ArrowWriter(fr, os, null).write(true);
+  }
+
+  /**
+   * Exports the Frame to an Arrow IPC file.
+   * @param fr frame to export
+   * @param path target path
+   * @param overwrite overwrite an existing file
+   * @return export job
+   */
+  public static Job export(final Frame fr, final String path, final boolean overwrite) {
+    boolean fileExists = H2O.getPM().exists(path);
+    if (overwrite && fileExists) {
+      Log.warn("File " + path + " exists, but will be overwritten!");
+    } else if (!overwrite && fileExists) {
+      throw new H2OIllegalArgumentException(path, "exportFrame", "File " + path + " already exists!");
+    }
+    final Job<Frame> job = new Job<>(fr._key, "water.fvec.Frame", "Export dataset");
+    return job.start(new H2O.H2OCountedCompleter() {
+      @Override
+      public void compute2() {
+        fr.read_lock(job._key);
+        try (OutputStream os = H2O.getPM().create(path, overwrite)) {
+          ArrowWriter w = new ArrowWriter(fr, os, job);
+          w.write(true);
+          Log.info("Written " + w._pos + " bytes of key '" + fr._key + "' to " + path + ".");
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        } finally {
+          fr.unlock(job);
+        }
+        tryComplete();
+      }
+    }, fr.anyVec().nChunks());
+  }
+
+  private void write(boolean file) throws IOException {
+    if (file) {
+      write(MAGIC);
+      write(new byte[FILE_HEADER_LENGTH - MAGIC.length]);
+    }
+    writeMessage(HEADER_SCHEMA, schema(), new byte[0][]);
+    Vec[] vecs = _fr.vecs();
+    for (int c = 0; c < vecs.length; c++)
+      if (vecs[c].isCategorical())
+        _dictionaryBlocks.add(writeDictionary(c, vecs[c].domain()));
+    int nChunks = _fr.anyVec() == null ? 0 : _fr.anyVec().nChunks();
+    for (int cidx = 0; cidx < nChunks; cidx++) {
+      Chunk[] cs = new Chunk[vecs.length];
+      for (int c = 0; c < vecs.length; c++)
+        cs[c] = vecs[c].chunkForChunkIdx(cidx);
+      _batchBlocks.add(writeBatch(cs));
+      if (_job != null)
+        _job.update(1);
+    }
+    writeInt(CONTINUATION);
+    writeInt(0); // end of stream
+    if (file) {
+      FlatBuffers.TableObj footer = new FlatBuffers.TableObj()
+              .addShort(FOOTER_VERSION, METADATA_VERSION_V5)
+              .addObj(FOOTER_SCHEMA, schema())
+              .addObj(FOOTER_DICTIONARIES, blocks(_dictionaryBlocks))
+              .addObj(FOOTER_RECORD_BATCHES, blocks(_batchBlocks));
+      byte[] bytes = FlatBuffers.Builder.finish(footer);
+      write(bytes);
+      writeInt(bytes.length);
+      write(MAGIC);
+    }
+    _os.flush();
+  }
+
+  private static FlatBuffers.Obj blocks(List<long[]> blocks) {
+    long[] values = new long[3 * blocks.size()];
+    for (int i = 0; i < blocks.size(); i++)
+      System.arraycopy(blocks.get(i), 0, values, 3 * i, 3); // the int metadata length is padded to a long
+    return FlatBuffers.structs(values, 3);
+  }
+
+  private FlatBuffers.TableObj schema() {
+    List<FlatBuffers.TableObj> fields = new ArrayList<>();
+    Vec[] vecs = _fr.vecs();
+    for (int c = 0; c < vecs.length; c++) {
+      Vec v = vecs[c];
+      FlatBuffers.TableObj field = new FlatBuffers.TableObj()
+              .addObj(FIELD_NAME, FlatBuffers.string(_fr.name(c)))
+              .addBool(FIELD_NULLABLE, true)
+              .addObj(FIELD_CHILDREN, FlatBuffers.tables(Collections.<FlatBuffers.TableObj>emptyList()));
+      FlatBuffers.TableObj type = new FlatBuffers.TableObj();
+      int typeId;
+      switch (v.get_type()) {
+        case Vec.T_NUM:
+          if (v.isInt()) {
+            typeId = TYPE_INT;
+            type.addInt(INT_BIT_WIDTH, 64).addBool(INT_IS_SIGNED, true);
+          } else {
+            typeId = TYPE_FLOATING_POINT;
+            type.addShort(FLOATING_POINT_PRECISION, PRECISION_DOUBLE);
+          }
+          break;
+        case Vec.T_TIME:
+          typeId = TYPE_TIMESTAMP;
+          type.addShort(TIMESTAMP_UNIT, TIME_UNIT_MILLISECOND);
+          break;
+        case Vec.T_CAT:
+          typeId = TYPE_UTF8;
+          field.addObj(FIELD_DICTIONARY, new FlatBuffers.TableObj()
+                  .addLong(DICTIONARY_ENCODING_ID, c)
+                  .addObj(DICTIONARY_ENCODING_INDEX_TYPE, new FlatBuffers.TableObj()
+                          .addInt(INT_BIT_WIDTH, 32).addBool(INT_IS_SIGNED, true)));
+          break;
+        case Vec.T_STR:
+        case Vec.T_UUID:
+          typeId = TYPE_UTF8;
+          break;
+        default:
+          typeId = TYPE_NULL;
+      }
+      fields.add(field.addByte(FIELD_TYPE_TYPE, typeId).addObj(FIELD_TYPE, type));
+    }
+    return new FlatBuffers.TableObj()
+            .addShort(SCHEMA_ENDIANNESS, ENDIANNESS_LITTLE)
+            .addObj(SCHEMA_FIELDS, FlatBuffers.tables(fields));
+  }
+
+  private long[] writeDictionary(int col, String[] domain) throws IOException {
+    Batch b = new Batch(domain.length);
+    b.strings(domain.length, new StringSource() {
+      @Override
+      public String get(int row) {
+        return domain[row];
+      }
+    });
+    FlatBuffers.TableObj dictionary = new FlatBuffers.TableObj()
+            .addLong(DICTIONARY_BATCH_ID, col)
+            .addObj(DICTIONARY_BATCH_DATA, b.recordBatch());
+    return writeMessage(HEADER_DICTIONARY_BATCH, dictionary, b.buffers());
+  }
+
+  private long[] writeBatch(final Chunk[] cs) throws IOException {
+    final int len = cs.length == 0 ? 0 : cs[0]._len;
+    Batch b = new Batch(len);
+    for (final Chunk c : cs) {
+      final Vec v = c.vec();
+      switch (v.get_type()) {
+        case Vec.T_NUM:
+        case Vec.T_TIME:
+        case Vec.T_CAT:
+          boolean isInt = !v.isNumeric() || v.isInt(); // categorical codes and times are integers
+          ByteBuffer data = b.allocate(len * (v.isCategorical() ? 4 : 8));
+          long nas = 0;
+          for (int r = 0; r < len; r++) {
+            if (c.isNA(r)) {
+              nas++;
+              continue;
+            }
+            if (v.isCategorical()) data.putInt(r << 2, (int) c.at8(r));
+            else if (isInt) data.putLong(r << 3, c.at8(r));
+            else data.putDouble(r << 3, c.atd(r));
+          }
+          b.column(nas, validity(c), data);
+          break;
+        case Vec.T_STR:
+        case Vec.T_UUID:
+          b.strings(len, new StringSource() {
+            final BufferedString _bs = new BufferedString();
+            @Override
+            public String get(int row) {
+              if (c.isNA(row)) return null;
+              if (v.isUUID()) return PrettyPrint.UUID(c.at16l(row), c.at16h(row));
+              return c.atStr(_bs, row).toString();
+            }
+          });
+          break;
+        default:
+          b.nulls();
+      }
+    }
+    return writeMessage(HEADER_RECORD_BATCH, b.recordBatch(), b.buffers());
+  }
+
+  private static ByteBuffer validity(Chunk c) {
+    if (!c.hasNA()) return null;
+    byte[] bits = new byte[(c._len + 7) >> 3];
+    for (int r = 0; r < c._len; r++)
+      if (!c.isNA(r)) bits[r >> 3] |= 1 << (r & 7);
+    return ByteBuffer.wrap(bits);
+  }
+
+  private interface StringSource {
+    /** @return value of a row, null if missing */
+    String get(int row);
+  }
+
+  /** Nodes and buffers of a record batch being written. */
+  private static final class Batch {
+    private final int _length;
+    private final List<Long> _nodes = new ArrayList<>();   // length, null count
+    private final List<Long> _buffers = new ArrayList<>(); // offset, length
+    private final List<byte[]> _bodies = new ArrayList<>();
+    private long _bodyLength;
+
+    Batch(int length) { _length = length; }
+
+    ByteBuffer allocate(int size) {
+      return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    void column(long nullCount, ByteBuffer validity, ByteBuffer data) {
+      _nodes.add((long) _length);
+      _nodes.add(nullCount);
+      buffer(validity == null ? new byte[0] : validity.array());
+      buffer(data.array());
+    }
+
+    void nulls() {
+      _nodes.add((long) _length);
+      _nodes.add((long) _length);
+    }
+
+    void strings(int len, StringSource values) {
+      ByteBuffer offsets = allocate(4 * (len + 1));
+      byte[] validity = new byte[(len + 7) >> 3];
+      List<byte[]> strings = new ArrayList<>(len);
+      int nas = 0;
+      int offset = 0;
+      for (int r = 0; r < len; r++) {
+        String s = values.get(r);
+        if (s == null) {
+          nas++;
+        } else {
+          validity[r >> 3] |= 1 << (r & 7);
+          byte[] bytes = StringUtils.bytesOf(s);
+          strings.add(bytes);
+          offset += bytes.length;
+        }
+        offsets.putInt((r + 1) << 2, offset);
+      }
+      byte[] data = new byte[offset];
+      int pos = 0;
+      for (byte[] bytes : strings) {
+        System.arraycopy(bytes, 0, data, pos, bytes.length);
+        pos += bytes.length;
+      }
+      _nodes.add((long) len);
+      _nodes.add((long) nas);
+      buffer(nas == 0 ? new byte[0] : validity);
+      buffer(offsets.array());
+      buffer(data);
+    }
+
+    private void buffer(byte[] bytes) {
+      _buffers.add(_bodyLength);
+      _buffers.add((long) bytes.length);
+      _bodies.add(bytes);
+      _bodyLength += padding(bytes.length) + bytes.length;
+    }
+
+    byte[][] buffers() {
+      return _bodies.toArray(new byte[0][]);
+    }
+
+    FlatBuffers.TableObj recordBatch() {
+      return new FlatBuffers.TableObj()
+              .addLong(RECORD_BATCH_LENGTH, _length)
+              .addObj(RECORD_BATCH_NODES, FlatBuffers.structs(toArray(_nodes), 2))
+              .addObj(RECORD_BATCH_BUFFERS, FlatBuffers.structs(toArray(_buffers), 2));
+    }
+
+    private static long[] toArray(List<Long> values) {
+      long[] res = new long[values.size()];
+      for (int i = 0; i < res.length; i++)
+        res[i] = values.get(i);
+      return res;
+    }
+  }
+
+  private static int padding(int len) {
+    return (8 - len % 8) % 8;
+  }
+
+  /** @return block of the message: {offset, metadata length, body length} */
+  private long[] writeMessage(int headerType, FlatBuffers.TableObj header, byte[][] buffers) throws IOException {
+    long bodyLength = 0;
+    for (byte[] b : buffers)
+      bodyLength += b.length + padding(b.length);
+    byte[] metadata = FlatBuffers.Builder.finish(new FlatBuffers.TableObj()
+            .addShort(MESSAGE_VERSION, METADATA_VERSION_V5)
+            .addByte(MESSAGE_HEADER_TYPE, headerType)
+            .addObj(MESSAGE_HEADER, header)
+            .addLong(MESSAGE_BODY_LENGTH, bodyLength));
+    long offset = _pos;
+    writeInt(CONTINUATION);
+    writeInt(metadata.length);
+    write(metadata);
+    for (byte[] b : buffers) {
+      write(b);
+      write(new byte[padding(b.length)]);
+    }
+    return new long[]{offset, 8 + metadata.length, bodyLength};
+  }
+
+  private void writeInt(int v) throws IOException {
+    write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(v).array());
+  }
+
+  private void write(byte[] bytes) throws IOException {
+    _os.write(bytes);
+    _pos += bytes.length;
+  }
+
+}
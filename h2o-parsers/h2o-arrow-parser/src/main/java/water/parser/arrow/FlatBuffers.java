@@ -0,0 +1,279 @@
+package water.parser.arrow;
+
+import water.util.StringUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Minimal FlatBuffers support for the metadata of Arrow IPC messages.
+ *
+ * Tables are read in place (see {@link Table}). Tables are written top-down (see {@link Builder}): a table is laid out
+ * before the objects it refers to, which keeps all offsets pointing forward as the format requires.
+ */
+final class FlatBuffers {
+
+  private FlatBuffers() {}
+
+  /** A table of a FlatBuffer; a field is identified by its slot, ie. its position in the schema definition. */
+  static final class Table {
+    private final ByteBuffer _bb;
+    private final int _pos;
+
+    private Table(ByteBuffer bb, int pos) {
+      _bb = bb;
+      _pos = pos;
+    }
+
+    /** @return the root table of a FlatBuffer starting at position 0 of the buffer */
+    static Table root(ByteBuffer bb) {
+      ByteBuffer buf = bb.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+      return new Table(buf, buf.getInt(0));
+    }
+
+    // Offset of the field from the start of the table, 0 if the field is absent
+    private int offset(int slot) {
+      int vtable = _pos - _bb.getInt(_pos);
+      int o = 4 + 2 * slot;
+      return o < (_bb.getShort(vtable) & 0xFFFF) ? _bb.getShort(vtable + o) & 0xFFFF : 0;
+    }
+
+    boolean has(int slot) { return offset(slot) != 0; }
+
+    int getByte(int slot, int dflt) {
+      int o = offset(slot);
+      return o == 0 ? dflt : _bb.get(_pos + o);
+    }
+
+    boolean getBool(int slot, boolean dflt) {
+      int o = offset(slot);
+      return o == 0 ? dflt : _bb.get(_pos + o) != 0;
+    }
+
+    int getShort(int slot, int dflt) {
+      int o = offset(slot);
+      return o == 0 ? dflt : _bb.getShort(_pos + o);
+    }
+
+    int getInt(int slot, int dflt) {
+      int o = offset(slot);
+      return o == 0 ? dflt : _bb.getInt(_pos + o);
+    }
+
+    long getLong(int slot, long dflt) {
+      int o = offset(slot);
+      return o == 0 ? dflt : _bb.getLong(_pos + o);
+    }
+
+    // Position of the object the field refers to
+    private int indirect(int slot) {
+      int p = _pos + offset(slot);
+      return p + _bb.getInt(p);
+    }
+
+    Table getTable(int slot) {
+      return has(slot) ? new Table(_bb, indirect(slot)) : null;
+    }
+
+    String getString(int slot) {
+      if (!has(slot)) return null;
+      int p = indirect(slot);
+      byte[] bytes = new byte[_bb.getInt(p)];
+      for (int i = 0; i < bytes.length; i++)
+        bytes[i] = _bb.get(p + 4 + i);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int vectorLength(int slot) {
+      return has(slot) ? _bb.getInt(indirect(slot)) : 0;
+    }
+
+    Table getTable(int slot, int i) {
+      int p = indirect(slot) + 4 + 4 * i;
+      return new Table(_bb, p + _bb.getInt(p));
+    }
+
+    /** @return the i-th long of a vector of structs made of longs */
+    long getStructLong(int slot, int structSize, int i, int fieldOffset) {
+      return _bb.getLong(indirect(slot) + 4 + structSize * i + fieldOffset);
+    }
+  }
+
+  /** Serializes a tree of objects to a FlatBuffer. */
+  static final class Builder {
+    private ByteBuffer _bb = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+    private int _len;
+
+    /**
+     * @param root the root table
+     * @return the FlatBuffer, padded to a multiple of 8 bytes
+     */
+    static byte[] finish(TableObj root) {
+      Builder b = new Builder();
+      b.reserve(4);
+      b.patch(0, root.write(b));
+      b.align(8);
+      return Arrays.copyOf(b._bb.array(), b._len);
+    }
+
+    private int reserve(int n) {
+      if (_len + n > _bb.capacity()) {
+        ByteBuffer bb = ByteBuffer.allocate(Math.max(_len + n, 2 * _bb.capacity())).order(ByteOrder.LITTLE_ENDIAN);
+        bb.put(_bb.array(), 0, _len);
+        _bb = bb;
+      }
+      int pos = _len;
+      _len += n;
+      return pos;
+    }
+
+    private void align(int alignment) {
+      reserve((alignment - _len % alignment) % alignment);
+    }
+
+    // Points the offset at position pos to the object at position target
+    private void patch(int pos, int target) {
+      _bb.putInt(pos, target - pos);
+    }
+  }
+
+  /** An object written to a FlatBuffer, refered to by an offset. */
+  abstract static class Obj {
+    /** @return position of the object in the buffer */
+    abstract int write(Builder b);
+  }
+
+  static final class TableObj extends Obj {
+    private final List<int[]> _scalars = new ArrayList<>(); // {slot, size}, values in _values
+    private final List<Long> _values = new ArrayList<>();
+    private final List<Object[]> _refs = new ArrayList<>(); // {slot, Obj}
+
+    TableObj addByte(int slot, int v) { return addScalar(slot, 1, v); }
+    TableObj addBool(int slot, boolean v) { return addScalar(slot, 1, v ? 1 : 0); }
+    TableObj addShort(int slot, int v) { return addScalar(slot, 2, v); }
+    TableObj addInt(int slot, int v) { return addScalar(slot, 4, v); }
+    TableObj addLong(int slot, long v) { return addScalar(slot, 8, v); }
+
+    TableObj addObj(int slot, Obj obj) {
+      if (obj != null)
+        _refs.add(new Object[]{slot, obj});
+      return this;
+    }
+
+    private TableObj addScalar(int slot, int size, long v) {
+      _scalars.add(new int[]{slot, size});
+      _values.add(v);
+      return this;
+    }
+
+    @Override
+    int write(Builder b) {
+      int nslots = 0;
+      int align = 4;
+      for (int[] s : _scalars) {
+        nslots = Math.max(nslots, s[0] + 1);
+        align = Math.max(align, s[1]);
+      }
+      for (Object[] r : _refs)
+        nslots = Math.max(nslots, (int) r[0] + 1);
+      // Lay the fields out after the offset to the vtable, largest first so that they are all aligned
+      int[] fieldOffsets = new int[nslots];
+      int size = 4;
+      for (int fieldSize : new int[]{8, 4, 2, 1}) {
+        for (int[] s : _scalars)
+          if (s[1] == fieldSize) {
+            size = (size + fieldSize - 1) / fieldSize * fieldSize;
+            fieldOffsets[s[0]] = size;
+            size += fieldSize;
+          }
+        if (fieldSize == 4)
+          for (Object[] r : _refs) {
+            fieldOffsets[(int) r[0]] = size;
+            size += 4;
+          }
+      }
+      size = (size + align - 1) / align * align;
+      // The vtable goes right before the table, any padding goes before the vtable
+      int vtableSize = 4 + 2 * nslots;
+      b.reserve(vtableSize);
+      b.align(align);
+      int table = b.reserve(size);
+      int vtable = table - vtableSize;
+      b._bb.putShort(vtable, (short) vtableSize);
+      b._bb.putShort(vtable + 2, (short) size);
+      for (int i = 0; i < nslots; i++)
+        b._bb.putShort(vtable + 4 + 2 * i, (short) fieldOffsets[i]);
+      b._bb.putInt(table, table - vtable);
+      for (int i = 0; i < _scalars.size(); i++) {
+        int[] s = _scalars.get(i);
+        int p = table + fieldOffsets[s[0]];
+        long v = _values.get(i);
+        switch (s[1]) {
+          case 1: b._bb.put(p, (byte) v); break;
+          case 2: b._bb.putShort(p, (short) v); break;
+          case 4: b._bb.putInt(p, (int) v); break;
+          default: b._bb.putLong(p, v);
+        }
+      }
+      for (Object[] r : _refs) {
+        int p = table + fieldOffsets[(int) r[0]];
+        b.patch(p, ((Obj) r[1]).write(b));
+      }
+      return table;
+    }
+  }
+
+  static Obj string(final String s) {
+    return new Obj() {
+      @Override
+      int write(Builder b) {
+        byte[] bytes = StringUtils.bytesOf(s);
+        b.align(4);
+        int p = b.reserve(4 + bytes.length + 1);
+        b._bb.putInt(p, bytes.length);
+        for (int i = 0; i < bytes.length; i++)
+          b._bb.put(p + 4 + i, bytes[i]);
+        return p;
+      }
+    };
+  }
+
+  static Obj tables(final List<TableObj> tables) {
+    return new Obj() {
+      @Override
+      int write(Builder b) {
+        b.align(4);
+        int p = b.reserve(4 + 4 * tables.size());
+        b._bb.putInt(p, tables.size());
+        for (int i = 0; i < tables.size(); i++)
+          b.patch(p + 4 + 4 * i, tables.get(i).write(b));
+        return p;
+      }
+    };
+  }
+
+  /**
+   * @param values fields of the structs, all of them 8 bytes long
+   * @param longsPerStruct number of fields of a struct
+   * @return vector of structs
+   */
+  static Obj structs(final long[] values, final int longsPerStruct) {
+    return new Obj() {
+      @Override
+      int write(Builder b) {
+        // the elements are aligned to 8 bytes, the length precedes them
+        b.reserve((12 - b._len % 8) % 8);
+        int p = b.reserve(4 + 8 * values.length);
+        b._bb.putInt(p, values.length / longsPerStruct);
+        for (int i = 0; i < values.length; i++)
+          b._bb.putLong(p + 4 + 8 * i, values[i]);
+        return p;
+      }
+    };
+  }
+
+}
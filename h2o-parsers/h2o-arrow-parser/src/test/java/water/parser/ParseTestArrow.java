@@ -0,0 +1,282 @@
+package water.parser;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import water.Key;
+import water.Scope;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.NFSFileVec;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+import water.parser.arrow.ArrowWriter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test suite for Arrow parser, the Arrow files are written by {@link ArrowWriter} or are test resources
+ * written by arrow-java.
+ */
+public class ParseTestArrow extends TestUtil {
+
+  private static double EPSILON = 1e-9;
+
+  @Rule
+  public transient TemporaryFolder tmp = new TemporaryFolder();
+
+  @BeforeClass
+  static public void setup() { TestUtil.stall_till_cloudsize(5); }
+
+  private static Frame mixedFrame() {
+    return new TestFrameBuilder()
+            .withColNames("CNum", "CInt", "CCat", "CStr", "CTime")
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_STR, Vec.T_TIME)
+            .withDataForCol(0, ard(1.5, Double.NaN, -3.25, 4e10, 0))
+            .withDataForCol(1, ard(1, 2, Double.NaN, -4, Long.MAX_VALUE >> 12))
+            .withDataForCol(2, ar("b", "a", null, "b", "c"))
+            .withDataForCol(3, ar("x", null, "", "zz", "été"))
+            .withDataForCol(4, ard(1500000000000L, 1500000000001L, Double.NaN, 0, -86400000L))
+            .withChunkLayout(2, 0, 3)
+            .build();
+  }
+
+  private Frame parseArrow(Frame fr, boolean fileFormat, int[] skippedColumns) throws IOException {
+    File f = tmp.newFile();
+    try (OutputStream os = new FileOutputStream(f)) {
+      if (fileFormat)
+        ArrowWriter.writeFile(fr, os);
+      else
+        ArrowWriter.writeStream(fr, os);
+    }
+    NFSFileVec nfs = NFSFileVec.make(f);
+    Frame parsed = ParseDataset.parse(skippedColumns, Key.make(), nfs._key);
+    Scope.track(parsed);
+    return parsed;
+  }
+
+  private Frame parseResource(String name) throws IOException {
+    File f = new File(tmp.getRoot(), name);
+    try (InputStream is = ParseTestArrow.class.getResourceAsStream("arrow/" + name)) {
+      Files.copy(is, f.toPath());
+    }
+    NFSFileVec nfs = NFSFileVec.make(f);
+    return Scope.track(ParseDataset.parse(Key.make(), nfs._key));
+  }
+
+  private static void assertStrings(Frame fr, String column, String... expected) {
+    Vec v = fr.vec(column);
+    assertEquals(expected.length, v.length());
+    for (int r = 0; r < expected.length; r++)
+      assertEquals("Value in column " + column + " row " + r, expected[r], v.isNA(r) ? null : stringAt(v, r));
+  }
+
+  private static void assertNums(Frame fr, String column, double... expected) {
+    Vec v = fr.vec(column);
+    assertEquals(expected.length, v.length());
+    for (int r = 0; r < expected.length; r++) {
+      if (Double.isNaN(expected[r]))
+        assertTrue("NA in column " + column + " row " + r, v.isNA(r));
+      else
+        assertEquals("Value in column " + column + " row " + r, expected[r], v.at(r), EPSILON * Math.abs(expected[r]));
+    }
+  }
+
+  private static void assertLongs(Frame fr, String column, Long... expected) {
+    Vec v = fr.vec(column);
+    assertEquals(expected.length, v.length());
+    for (int r = 0; r < expected.length; r++) {
+      if (expected[r] == null)
+        assertTrue("NA in column " + column + " row " + r, v.isNA(r));
+      else
+        assertEquals("Value in column " + column + " row " + r, (long) expected[r], v.at8(r));
+    }
+  }
+
+  @Test
+  public void testParseStream() throws IOException {
+    Scope.enter();
+    try {
+      Frame fr = mixedFrame();
+      Frame parsed = parseArrow(fr, false, null);
+      // plain strings are guessed from their values like in the other parsers
+      assertArrayEquals(ar(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_CAT, Vec.T_TIME), parsed.types());
+      assertSameValues(fr, parsed);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testParseFile() throws IOException {
+    Scope.enter();
+    try {
+      Frame fr = mixedFrame();
+      Frame parsed = parseArrow(fr, true, null);
+      assertArrayEquals(ar(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT, Vec.T_CAT, Vec.T_TIME), parsed.types());
+      assertSameValues(fr, parsed);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testSkippedColumns() throws IOException {
+    Scope.enter();
+    try {
+      Frame fr = mixedFrame();
+      Frame parsed = parseArrow(fr, true, new int[]{0, 3});
+      assertArrayEquals(ar("CInt", "CCat", "CTime"), parsed.names());
+      assertSameValues(new Frame(fr.vec(1), fr.vec(2), fr.vec(4)), parsed);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testExport() throws IOException {
+    Scope.enter();
+    try {
+      Frame fr = mixedFrame();
+      File f = new File(tmp.getRoot(), "exported.arrow");
+      ArrowWriter.export(fr, f.getPath(), false).get();
+      Frame parsed = parse_test_file(f.getPath());
+      Scope.track(parsed);
+      assertArrayEquals(fr.names(), parsed.names());
+      assertSameValues(fr, parsed);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testTypes() throws IOException {
+    final double NA = Double.NaN;
+    final long day = 24 * 3600 * 1000L;
+    for (String name : ar("types.arrow", "types.arrows")) {
+      Scope.enter();
+      try {
+        Frame parsed = parseResource(name);
+        assertEquals(24, parsed.numCols());
+        for (String c : ar("i8", "i16", "i32", "i64", "u8", "u16", "u32", "u64", "f16", "f32", "f64"))
+          assertEquals(name + " " + c, Vec.T_NUM, parsed.vec(c).get_type());
+        for (String c : ar("date32", "date64", "ts_s", "ts_ms", "ts_us", "ts_ns", "ts_ms_utc"))
+          assertEquals(name + " " + c, Vec.T_TIME, parsed.vec(c).get_type());
+        assertEquals(Vec.T_CAT, parsed.vec("bool").get_type());
+        assertEquals(Vec.T_BAD, parsed.vec("null").get_type());
+        // 2 record batches of 3 rows
+        assertLongs(parsed, "i8", 1L, -128L, null, 127L, 0L, -1L);
+        assertLongs(parsed, "i16", 2L, -32768L, null, 32767L, 0L, -2L);
+        assertLongs(parsed, "i32", 3L, (long) Integer.MIN_VALUE, null, (long) Integer.MAX_VALUE, 0L, -3L);
+        assertLongs(parsed, "i64", 4L, -(1L << 60), null, 1L << 60, 0L, -4L);
+        assertLongs(parsed, "u8", 5L, 255L, null, 128L, 0L, 1L);
+        assertLongs(parsed, "u16", 6L, 65535L, null, 32768L, 0L, 1L);
+        assertLongs(parsed, "u32", 7L, 4294967295L, null, 2147483648L, 0L, 1L);
+        assertNums(parsed, "u64", 8, 18446744073709551615.0, NA, 9223372036854775808.0, 0, 1);
+        assertNums(parsed, "f16", 1.5, -0.25, NA, 65504, 0, Math.pow(2, -24));
+        assertNums(parsed, "f32", 1.5, -3.25, NA, 0.1f, 0, Float.MAX_VALUE);
+        assertNums(parsed, "f64", 1 / 7.0, -1e300, NA, 0, 4e-320, 2.5);
+        assertLongs(parsed, "date32", 0L, 19000 * day, null, -day, day, 365 * day);
+        assertLongs(parsed, "date64", 1500000000000L, 0L, null, -day, 1L, 2L);
+        assertLongs(parsed, "ts_s", 1500000000000L, 0L, null, -1000L, 1000L, 2000L);
+        assertLongs(parsed, "ts_ms", 1500000000123L, 0L, null, -1L, 1L, 2L);
+        assertLongs(parsed, "ts_us", 1500000000123L, 0L, null, -1L, 0L, 2L); // rounded down to milliseconds
+        assertLongs(parsed, "ts_ns", 1500000000123L, 0L, null, -1L, 0L, 2L);
+        assertLongs(parsed, "ts_ms_utc", 1500000000123L, 0L, null, -1L, 1L, 2L);
+        assertStrings(parsed, "bool", "true", "false", null, "true", "true", "false");
+        assertStrings(parsed, "utf8", "a", "", null, "été", "ÿ", "日本");
+        assertStrings(parsed, "large_utf8", "x", "yy", null, "", "zzz", "w");
+        assertStrings(parsed, "binary", "b1", "b2", null, "b3", "", "b4");
+        assertStrings(parsed, "large_binary", "B1", "B2", null, "B3", "", "B4");
+        assertStrings(parsed, "null", null, null, null, null, null, null);
+      } finally {
+        Scope.exit();
+      }
+    }
+  }
+
+  @Test
+  public void testDictionaries() throws IOException {
+    for (String name : ar("dictionaries.arrow", "dictionaries.arrows")) {
+      Scope.enter();
+      try {
+        // Int8 and Int16 indices, a delta adds "c" to the dictionary of d16 before the second record batch
+        Frame parsed = parseResource(name);
+        assertArrayEquals(ar(Vec.T_CAT, Vec.T_CAT), parsed.types());
+        assertStrings(parsed, "d8", "lo", "hi", null, "mid", "mid", "lo");
+        assertStrings(parsed, "d16", "b", "a", "b", "c", null, "a");
+      } finally {
+        Scope.exit();
+      }
+    }
+  }
+
+  @Test
+  public void testDictionaryReplacement() throws IOException {
+    Scope.enter();
+    try {
+      // the second record batch of the stream comes after a replacement of the dictionary of the first one
+      Frame parsed = parseResource("dictionary_replacement.arrows");
+      assertEquals(Vec.T_CAT, parsed.vec("r").get_type());
+      assertStrings(parsed, "r", "x", "y", "x", "s", "p", "q");
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testBatchesSpanningChunks() throws IOException {
+    Scope.enter();
+    try {
+      // ~9.6MB of data written in several record batches, larger than the chunks of the file
+      final int nrows = 600000;
+      double[] nums = new double[nrows];
+      long[] ints = new long[nrows];
+      for (int i = 0; i < nrows; i++) {
+        nums[i] = i / 7.0;
+        ints[i] = i * 31L;
+      }
+      Frame fr = new TestFrameBuilder()
+              .withColNames("CNum", "CInt")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, nums)
+              .withDataForCol(1, ints)
+              .withChunkLayout(100000, 150000, 50000, 300000)
+              .build();
+      Frame parsed = parseArrow(fr, false, null);
+      assertSameValues(fr, parsed);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  private static void assertSameValues(Frame expected, Frame actual) {
+    assertEquals(expected.numCols(), actual.numCols());
+    assertEquals(expected.numRows(), actual.numRows());
+    for (int c = 0; c < expected.numCols(); c++) {
+      Vec e = expected.vec(c), a = actual.vec(c);
+      String name = actual.name(c);
+      for (long r = 0; r < e.length(); r++) {
+        assertEquals("NA in column " + name + " row " + r, e.isNA(r), a.isNA(r));
+        if (e.isNA(r)) continue;
+        if (e.isCategorical() || e.isString())
+          assertEquals("Value in column " + name, stringAt(e, r), stringAt(a, r));
+        else
+          assertEquals("Value in column " + name, e.at(r), a.at(r), EPSILON * Math.max(1, Math.abs(e.at(r))));
+      }
+    }
+  }
+
+  private static String stringAt(Vec v, long row) {
+    return v.isCategorical() ? v.factor(v.at8(row)) : v.atStr(new BufferedString(), row).toString();
+  }
+
+}
@@ -23,6 +23,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import water.*;
+import water.exceptions.H2OIllegalArgumentException;
 import water.fvec.Frame;
 import water.fvec.NFSFileVec;
 import water.fvec.TestFrameBuilder;
@@ -408,6 +409,91 @@ public class ParseTestParquet extends TestUtil {
     }
   }
 
+  private Frame parseFile(File f, int[] skippedColumns, String rowGroupFilter) {
+    NFSFileVec nfs = NFSFileVec.make(f);
+    Key[] keys = new Key[]{nfs._key};
+    ParseSetup setup = ParseSetup.guessSetup(keys, false, ParseSetup.GUESS_HEADER);
+    if (skippedColumns != null) {
+      setup.setSkippedColumns(skippedColumns);
+      setup.setParseColumnIndices(setup.getNumberColumns(), skippedColumns);
+    }
+    if (rowGroupFilter != null)
+      setup = ParquetParser.ParquetParseSetup.withRowGroupFilter(setup, rowGroupFilter);
+    setup.disableParallelParse = disableParallelParse;
+    return ParseDataset.parse(Key.make(), keys, true, setup);
+  }
+
+  @Test
+  public void testParseRowGroupFilter() throws IOException {
+    final int nrows = 1000;
+    File f = ParquetFileGenerator.generateParquetFile(Files.createTempDir(), "rowGroupFilter.parquet", nrows, new Date());
+    Frame all = null, filtered = null;
+    try {
+      all = parseFile(f, null, null);
+      filtered = parseFile(f, null, "int32_field >= 900 && double_field > 0 || float_field == 2");
+      // int32_field is increasing: the first row group and the row groups of the last rows are kept
+      assertTrue(filtered.numRows() < nrows);
+      long expected = 0, actual = 0;
+      for (long r = 0; r < nrows; r++)
+        if (all.vec("int32_field").at8(r) >= 900) expected++;
+      for (long r = 0; r < filtered.numRows(); r++)
+        if (filtered.vec("int32_field").at8(r) >= 900) actual++;
+      assertEquals(expected, actual);
+      assertEquals(32, filtered.vec("int32_field").at8(0));
+      assertEquals(32 + nrows - 1, filtered.vec("int32_field").at8(filtered.numRows() - 1));
+    } finally {
+      if (all != null) all.delete();
+      if (filtered != null) filtered.delete();
+    }
+  }
+
+  @Test
+  public void testParseInvalidRowGroupFilter() throws IOException {
+    File f = ParquetFileGenerator.generateParquetFile(Files.createTempDir(), "invalidRowGroupFilter.parquet", 10, new Date());
+    NFSFileVec nfs = NFSFileVec.make(f);
+    try {
+      Key[] keys = new Key[]{nfs._key};
+      ParseSetup setup = ParseSetup.guessSetup(keys, false, ParseSetup.GUESS_HEADER);
+      for (String filter : new String[]{"no_such_field > 1", "int32_field > abc", "int32_field >", "int32_field ~ 1"}) {
+        try {
+          ParseDataset.forkParseDataset(Key.<Frame>make(), keys, ParquetParser.ParquetParseSetup.withRowGroupFilter(setup, filter), false);
+          fail("Expected filter '" + filter + "' to be rejected");
+        } catch (H2OIllegalArgumentException e) {
+          assertTrue(e.getMessage().startsWith("Invalid Parquet row group filter"));
+        }
+      }
+    } finally {
+      nfs.remove();
+    }
+  }
+
+  @Test
+  public void testParseColumnarMatchesRecordReader() throws IOException {
+    final int nrows = 1000;
+    File f = ParquetFileGenerator.generateSparseParquetFile(Files.createTempDir(), "columnar.parquet", nrows);
+    String property = H2O.OptArgs.SYSTEM_PROP_PREFIX + "parse.parquet.columnar";
+    Frame columnar = null, records = null;
+    try {
+      for (int[] skipped : new int[][]{null, new int[]{0, 3}}) {
+        columnar = parseFile(f, skipped, null);
+        System.setProperty(property, "false");
+        try {
+          records = parseFile(f, skipped, null);
+        } finally {
+          System.clearProperty(property);
+        }
+        assertEquals(skipped == null ? 4 : 2, columnar.numCols());
+        assertArrayEquals(records.names(), columnar.names());
+        assertFrameEquals(records, columnar, 0);
+        columnar.delete(); columnar = null;
+        records.delete(); records = null;
+      }
+    } finally {
+      if (columnar != null) columnar.delete();
+      if (records != null) records.delete();
+    }
+  }
+
 }
 
 class ParquetFileGenerator {
@@ -28,19 +28,24 @@ class ChunkConverter extends GroupConverter {
 
   private long _currentRecordIdx = -1;
 
+  /**
+   * @param parquetSchema schema of the Parquet file
+   * @param chunkSchema column types of all columns of the file
+   * @param writer writer of the parsed columns
+   * @param keepColumns parsed columns, null for all columns; the converter expects the projection
+   *                    of the file schema to these columns (see {@link ChunkReadSupport#projection})
+   */
   ChunkConverter(MessageType parquetSchema, byte[] chunkSchema, WriterDelegate writer, boolean[] keepColumns) {
     _writer = writer;
 
     int colIdx = 0; // index to columns actually parsed
-    _converters = new Converter[chunkSchema.length];
+    _converters = new Converter[ChunkReadSupport.projection(parquetSchema, keepColumns).getFieldCount()];
     int trueColumnIndex = 0;  // count all columns including the skipped ones
     for (Type parquetField : parquetSchema.getFields()) {
       assert parquetField.isPrimitive();
-      if (keepColumns[trueColumnIndex]) {
-        _converters[trueColumnIndex] = newConverter(colIdx, chunkSchema[trueColumnIndex], parquetField.asPrimitiveType());
+      if (keepColumns == null || keepColumns[trueColumnIndex]) {
+        _converters[colIdx] = newConverter(colIdx, chunkSchema[trueColumnIndex], parquetField.asPrimitiveType());
         colIdx++;
-      } else {
-        _converters[trueColumnIndex] = nullConverter(chunkSchema[trueColumnIndex], parquetField.asPrimitiveType());
       }
 
       trueColumnIndex++;
@@ -67,60 +72,6 @@ class ChunkConverter extends GroupConverter {
     return _currentRecordIdx;
   }
 
-  private PrimitiveConverter nullConverter(byte vecType, PrimitiveType parquetType) {
-    switch (vecType) {
-      case Vec.T_BAD:
-      case Vec.T_CAT:
-      case Vec.T_STR:
-      case Vec.T_UUID:
-      case Vec.T_TIME:
-      case Vec.T_NUM:
-          boolean dictSupport = parquetType.getOriginalType() == OriginalType.UTF8 || parquetType.getOriginalType() == OriginalType.ENUM;
-          return new NullStringConverter(dictSupport);
-      default:
-        throw new UnsupportedOperationException("Unsupported type " + vecType);
-    }
-  }
-
-  private static class NullStringConverter extends PrimitiveConverter {
-    private final boolean _dictionarySupport;
-
-    NullStringConverter(boolean dictionarySupport) {
-      _dictionarySupport = dictionarySupport;
-    }
-
-    @Override
-    public void addBinary(Binary value) { ; }
-
-    @Override
-    public boolean hasDictionarySupport() {
-      return _dictionarySupport;
-    }
-
-    @Override
-    public void setDictionary(Dictionary dictionary) {
-    }
-
-    @Override
-    public void addValueFromDictionary(int dictionaryId) {
-    }
-
-    @Override
-    public void addBoolean(boolean value) { }
-
-    @Override
-    public void addDouble(double value) { }
-
-    @Override
-    public void addFloat(float value) { }
-
-    @Override
-    public void addInt(int value) { }
-
-    @Override
-    public void addLong(long value) { }
-  }
-
   private PrimitiveConverter newConverter(int colIdx, byte vecType, PrimitiveType parquetType) {
     switch (vecType) {
       case Vec.T_BAD:
@@ -5,7 +5,10 @@ import org.apache.parquet.hadoop.api.InitContext;
 import org.apache.parquet.hadoop.api.ReadSupport;
 import org.apache.parquet.io.api.RecordMaterializer;
 import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class ChunkReadSupport extends ReadSupport<Long> {
@@ -22,7 +25,23 @@ public class ChunkReadSupport extends ReadSupport<Long> {
 
   @Override
   public ReadContext init(InitContext context) {
-    return new ReadContext(context.getFileSchema());
+    return new ReadContext(projection(context.getFileSchema(), _keepColumns));
+  }
+
+  /**
+   * Schema of the parsed columns only, the pages of the skipped columns are not even read.
+   * @param fileSchema schema of the Parquet file
+   * @param keepColumns parsed columns, null for all columns
+   * @return requested schema
+   */
+  static MessageType projection(MessageType fileSchema, boolean[] keepColumns) {
+    if (keepColumns == null)
+      return fileSchema;
+    List<Type> fields = new ArrayList<>();
+    for (int i = 0; i < fileSchema.getFieldCount(); i++)
+      if (keepColumns[i])
+        fields.add(fileSchema.getType(i));
+    return new MessageType(fileSchema.getName(), fields);
   }
 
   @Override
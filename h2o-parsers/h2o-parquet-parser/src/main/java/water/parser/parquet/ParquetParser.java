@@ -32,15 +32,17 @@ public class ParquetParser extends Parser {
   private static final int MAX_PREVIEW_RECORDS = 1000;
 
   private final byte[] _metadata;
+  private final String _rowGroupFilter;
 
   ParquetParser(ParseSetup setup, Key<Job> jobKey) {
     super(setup, jobKey);
     _metadata = ((ParquetParseSetup) setup).parquetMetadata;
+    _rowGroupFilter = ((ParquetParseSetup) setup).rowGroupFilter;
   }
 
   @Override
   protected final StreamParseWriter sequentialParse(Vec vec, final StreamParseWriter dout) {
-    final ParquetMetadata metadata = VecParquetReader.readFooter(_metadata);
+    final ParquetMetadata metadata = pruneRowGroups(VecParquetReader.readFooter(_metadata));
     final int nChunks = vec.nChunks();
     final long totalRecs = totalRecords(metadata);
     final long nChunkRecs = ((totalRecs / nChunks) + (totalRecs % nChunks > 0 ? 1 : 0));
@@ -75,6 +77,17 @@ public class ParquetParser extends Parser {
     return dout;
   }
 
+  // Drops the row groups that cannot match the row group filter
+  private ParquetMetadata pruneRowGroups(ParquetMetadata metadata) {
+    if (_rowGroupFilter == null || metadata.getBlocks().isEmpty())
+      return metadata;
+    MessageType schema = metadata.getFileMetaData().getSchema();
+    List<BlockMetaData> blocks = ParquetRowGroupFilter.filter(_rowGroupFilter, metadata.getBlocks(), schema);
+    if (blocks.size() < metadata.getBlocks().size())
+      Log.debug("Row group filter pruned ", metadata.getBlocks().size() - blocks.size(), " of ", metadata.getBlocks().size(), " blocks");
+    return new ParquetMetadata(metadata.getFileMetaData(), blocks);
+  }
+
   private long totalRecords(ParquetMetadata metadata) {
     long nr = 0;
     for (BlockMetaData meta : metadata.getBlocks()) {
@@ -94,12 +107,21 @@ public class ParquetParser extends Parser {
     // extract metadata, we want to read only the row groups that have centers in this chunk
     ParquetMetadataConverter.MetadataFilter chunkFilter = ParquetMetadataConverter.range(
             chunk.start(), chunk.start() + chunk.len());
-    ParquetMetadata metadata = VecParquetReader.readFooter(_metadata, chunkFilter);
+    ParquetMetadata metadata = pruneRowGroups(VecParquetReader.readFooter(_metadata, chunkFilter));
     if (metadata.getBlocks().isEmpty()) {
-      Log.trace("Chunk #", cidx, " doesn't contain any Parquet block center.");
+      Log.trace("Chunk #", cidx, " doesn't contain any Parquet block center to be read.");
       return dout;
     }
     Log.info("Processing ", metadata.getBlocks().size(), " blocks of chunk #", cidx);
+    if (VecParquetColumnReader.canRead(dout)) {
+      try {
+        new VecParquetColumnReader(vec, metadata, _setup.getColumnTypes(), _keepColumns)
+                .read((FVecParseWriter) dout, _setup.get_parse_columns_indices().length);
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to parse records", e);
+      }
+      return dout;
+    }
     VecParquetReader reader = new VecParquetReader(vec, metadata, dout, _setup.getColumnTypes(), _keepColumns, _setup.get_parse_columns_indices().length);
     try {
       Long recordNumber;
@@ -201,6 +223,7 @@ public class ParquetParser extends Parser {
 
   public static class ParquetParseSetup extends ParseSetup {
     transient byte[] parquetMetadata;
+    String rowGroupFilter; // see ParquetRowGroupFilter
 
     public ParquetParseSetup() { super(); }
     public ParquetParseSetup(String[] columnNames, byte[] ctypes, String[][] data, byte[] parquetMetadata) {
@@ -209,6 +232,20 @@ public class ParquetParser extends Parser {
               new String[columnNames.length][] /* domains */, null /* NA strings */, data);
       this.parquetMetadata = parquetMetadata;
     }
+
+    /**
+     * Skips the row groups whose min/max column statistics show that none of their rows match the filter, eg.
+     * {@code year >= 2015 && carrier == "UA"}. The rows of the other row groups are all parsed.
+     * The filter is only available from Java, the REST parse endpoint (ParseV3) and the clients don't expose it.
+     * @param setup parse setup of Parquet files
+     * @param filter comparisons of columns with constants, combined with {@code &&} and {@code ||}
+     * @return Parquet parse setup with the row group filter
+     */
+    public static ParquetParseSetup withRowGroupFilter(ParseSetup setup, String filter) {
+      ParquetParseSetup ps = setup instanceof ParquetParseSetup ? (ParquetParseSetup) setup : setup.copyTo(new ParquetParseSetup());
+      ps.rowGroupFilter = filter;
+      return ps;
+    }
   }
 
   private static void checkCompatibility(ParquetMetadata metadata) {
@@ -59,6 +59,10 @@ public class ParquetParserProvider extends BinaryParserProvider {
     for (int i = 0; i < types.length; i++)
       if (types[i] != requestedTypes[i])
         setup.addErrs(new ParseWriter.UnsupportedTypeOverride(inputs[0].toString(),Vec.TYPE_STR[types[i]], Vec.TYPE_STR[requestedTypes[i]], setup.getColumnNames()[i]));
+    // fail fast on an invalid row group filter
+    String rowGroupFilter = ((ParquetParser.ParquetParseSetup) setup).rowGroupFilter;
+    if (rowGroupFilter != null)
+      ParquetRowGroupFilter.parse(rowGroupFilter, VecParquetReader.readFooter(VecParquetReader.readFooterAsBytes(vec)).getFileMetaData().getSchema());
     return setup;
   }
 
@@ -0,0 +1,180 @@
+package water.parser.parquet;
+
+import org.apache.parquet.filter2.compat.FilterCompat;
+import org.apache.parquet.filter2.compat.RowGroupFilter;
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.Type;
+import water.exceptions.H2OIllegalArgumentException;
+
+import java.util.List;
+
+/**
+ * Row group pruning based on the min/max statistics of the columns of the row groups.
+ *
+ * The filter expression is a disjunction ({@code ||}) of conjunctions ({@code &&}) of comparisons of a column
+ * with a constant, eg. {@code year >= 2015 && carrier == "UA" || delayed == true}. Column names can be quoted
+ * with backticks, string constants with single or double quotes. The row groups whose statistics show that none
+ * of their rows can match the expression are not read at all. All rows of the remaining row groups are parsed,
+ * the expression is not evaluated row by row.
+ */
+final class ParquetRowGroupFilter {
+
+  private final String _expr;
+  private final MessageType _schema;
+  private int _pos;
+
+  private ParquetRowGroupFilter(String expr, MessageType schema) {
+    _expr = expr;
+    _schema = schema;
+  }
+
+  /**
+   * Converts the filter expression to a Parquet predicate.
+   * @param expr filter expression
+   * @param schema schema of the Parquet file
+   * @return Parquet predicate
+   * @throws H2OIllegalArgumentException if the expression is invalid or doesn't fit the schema
+   */
+  static FilterPredicate parse(String expr, MessageType schema) {
+    ParquetRowGroupFilter parser = new ParquetRowGroupFilter(expr, schema);
+    FilterPredicate predicate = parser.disjunction();
+    if (parser.peek() != -1)
+      throw parser.error("unexpected '" + expr.substring(parser._pos) + "'");
+    return predicate;
+  }
+
+  /**
+   * @param expr filter expression
+   * @param blocks row groups
+   * @param schema schema of the Parquet file
+   * @return the row groups that can contain rows matching the expression
+   */
+  static List<BlockMetaData> filter(String expr, List<BlockMetaData> blocks, MessageType schema) {
+    return RowGroupFilter.filterRowGroups(FilterCompat.get(parse(expr, schema)), blocks, schema);
+  }
+
+  private FilterPredicate disjunction() {
+    FilterPredicate predicate = conjunction();
+    while (accept("||"))
+      predicate = FilterApi.or(predicate, conjunction());
+    return predicate;
+  }
+
+  private FilterPredicate conjunction() {
+    FilterPredicate predicate = comparison();
+    while (accept("&&"))
+      predicate = FilterApi.and(predicate, comparison());
+    return predicate;
+  }
+
+  private FilterPredicate comparison() {
+    String column = token('`');
+    String op = operator();
+    String value = peek() == '"' || peek() == '\'' ? token((char) peek()) : token((char) 0);
+    if (!_schema.containsField(column))
+      throw error("unknown column '" + column + "'");
+    Type type = _schema.getType(column);
+    if (!type.isPrimitive())
+      throw error("column '" + column + "' is not a primitive column");
+    try {
+      return compare(type.asPrimitiveType(), column, op, value);
+    } catch (NumberFormatException e) {
+      throw error("'" + value + "' is not a valid value of column '" + column + "'");
+    }
+  }
+
+  private FilterPredicate compare(PrimitiveType type, String column, String op, String value) {
+    if (OriginalType.DECIMAL.equals(type.getOriginalType()))
+      throw error("decimal column '" + column + "' is not supported");
+    switch (type.getPrimitiveTypeName()) {
+      case INT32:
+        return compare(FilterApi.intColumn(column), op, Integer.valueOf(value));
+      case INT64:
+        return compare(FilterApi.longColumn(column), op, Long.valueOf(value));
+      case FLOAT:
+        return compare(FilterApi.floatColumn(column), op, Float.valueOf(value));
+      case DOUBLE:
+        return compare(FilterApi.doubleColumn(column), op, Double.valueOf(value));
+      case BINARY:
+        return compare(FilterApi.binaryColumn(column), op, Binary.fromString(value));
+      case BOOLEAN:
+        if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value))
+          throw new NumberFormatException(value);
+        Operators.BooleanColumn booleanColumn = FilterApi.booleanColumn(column);
+        Boolean booleanValue = Boolean.valueOf(value);
+        switch (op) {
+          case "==": return FilterApi.eq(booleanColumn, booleanValue);
+          case "!=": return FilterApi.notEq(booleanColumn, booleanValue);
+          default: throw error("operator " + op + " is not supported for boolean column '" + column + "'");
+        }
+      default:
+        throw error(type.getPrimitiveTypeName() + " column '" + column + "' is not supported");
+    }
+  }
+
+  private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt>
+  FilterPredicate compare(C column, String op, T value) {
+    switch (op) {
+      case "==": return FilterApi.eq(column, value);
+      case "!=": return FilterApi.notEq(column, value);
+      case "<": return FilterApi.lt(column, value);
+      case "<=": return FilterApi.ltEq(column, value);
+      case ">": return FilterApi.gt(column, value);
+      case ">=": return FilterApi.gtEq(column, value);
+      default: throw new IllegalStateException("Unknown operator " + op);
+    }
+  }
+
+  private String operator() {
+    for (String op : new String[]{"==", "!=", "<=", ">=", "<", ">"})
+      if (accept(op))
+        return op;
+    throw error("expected a comparison operator");
+  }
+
+  // A quoted token, or a token ending at a space, an operator or the end of the expression
+  private String token(char quote) {
+    peek();
+    if (quote != 0 && _pos < _expr.length() && _expr.charAt(_pos) == quote) {
+      int end = _expr.indexOf(quote, _pos + 1);
+      if (end < 0)
+        throw error("unterminated " + quote);
+      String token = _expr.substring(_pos + 1, end);
+      _pos = end + 1;
+      return token;
+    }
+    int start = _pos;
+    while (_pos < _expr.length() && " \t<>=!&|".indexOf(_expr.charAt(_pos)) < 0)
+      _pos++;
+    if (start == _pos)
+      throw error("expected a column name or a value");
+    return _expr.substring(start, _pos);
+  }
+
+  private boolean accept(String s) {
+    peek();
+    if (!_expr.startsWith(s, _pos))
+      return false;
+    _pos += s.length();
+    return true;
+  }
+
+  // Next non-blank character, -1 at the end of the expression
+  private int peek() {
+    while (_pos < _expr.length() && Character.isWhitespace(_expr.charAt(_pos)))
+      _pos++;
+    return _pos < _expr.length() ? _expr.charAt(_pos) : -1;
+  }
+
+  private H2OIllegalArgumentException error(String msg) {
+    return new H2OIllegalArgumentException("Invalid Parquet row group filter '" + _expr + "': " + msg);
+  }
+
+}
@@ -0,0 +1,81 @@
+package water.parser.parquet;
+
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.ColumnReader;
+import org.apache.parquet.column.impl.ColumnReadStoreImpl;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import water.H2O;
+import water.fvec.Vec;
+import water.parser.FVecParseWriter;
+import water.parser.ParseWriter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads the row groups of a Parquet file a column at a time, straight into the chunks of a {@link FVecParseWriter}.
+ *
+ * Unlike {@link VecParquetReader} this reader doesn't assemble records: each column is decoded page by page and its
+ * values are handed to the converter of the column (see {@link ChunkConverter}), which writes them to the column's
+ * NewChunk. Only the pages of the parsed columns are read. This is possible because H2O only parses flat schemas.
+ */
+class VecParquetColumnReader {
+
+  private final Vec _vec;
+  private final ParquetMetadata _metadata;
+  private final byte[] _chunkSchema; // column types of all columns, not just the parsed ones
+  private final boolean[] _keepColumns;
+
+  VecParquetColumnReader(Vec vec, ParquetMetadata metadata, byte[] chunkSchema, boolean[] keepColumns) {
+    _vec = vec;
+    _metadata = metadata;
+    _chunkSchema = chunkSchema;
+    _keepColumns = keepColumns;
+  }
+
+  /**
+   * @param writer target writer
+   * @return true if the data can be written a column at a time to the writer
+   */
+  static boolean canRead(ParseWriter writer) {
+    return H2O.getSysBoolProperty("parse.parquet.columnar", true) && writer.getClass() == FVecParseWriter.class;
+  }
+
+  void read(FVecParseWriter writer, int parseColumnNumber) throws IOException {
+    MessageType schema = ChunkReadSupport.projection(_metadata.getFileMetaData().getSchema(), _keepColumns);
+    WriterDelegate w = new WriterDelegate(writer, parseColumnNumber, true);
+    ChunkConverter converter = new ChunkConverter(_metadata.getFileMetaData().getSchema(), _chunkSchema, w, _keepColumns);
+    List<ColumnDescriptor> columns = schema.getColumns();
+    String createdBy = _metadata.getFileMetaData().getCreatedBy();
+
+    VecReaderEnv env = VecReaderEnv.make(_vec);
+    ParquetFileReader reader = new ParquetFileReader(env.getConf(), _metadata.getFileMetaData(), env.getPath(),
+            _metadata.getBlocks(), columns);
+    try {
+      PageReadStore rowGroup;
+      while ((rowGroup = reader.readNextRowGroup()) != null) {
+        long rows = rowGroup.getRowCount();
+        ColumnReadStoreImpl store = new ColumnReadStoreImpl(rowGroup, converter, schema, createdBy);
+        for (int c = 0; c < columns.size(); c++) {
+          ColumnDescriptor column = columns.get(c);
+          ColumnReader cr = store.getColumnReader(column);
+          int maxDef = column.getMaxDefinitionLevel();
+          for (long r = 0; r < rows; r++) {
+            if (cr.getCurrentDefinitionLevel() == maxDef)
+              cr.writeCurrentValueToConverter(); // the converter writes to column c of the writer
+            else
+              w.addInvalidCol(c);
+            cr.consume();
+          }
+        }
+        writer.addLines((int) rows);
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+}
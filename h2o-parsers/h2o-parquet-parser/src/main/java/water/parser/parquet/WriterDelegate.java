@@ -17,14 +17,20 @@ final class WriterDelegate {
   private final int _maxStringSize;
   private final int[] _colRawSize; // currently only used for String columns
   private final int _numCols;
+  private final boolean _columnar; // values are written a column at a time, lines are ended by the caller
 
   private ParseWriter _writer;
   private int _col;
 
   WriterDelegate(ParseWriter writer, int numCols) {
+    this(writer, numCols, false);
+  }
+
+  WriterDelegate(ParseWriter writer, int numCols, boolean columnar) {
     _maxStringSize = getMaxStringSize();
     _numCols = numCols;
     _colRawSize = new int[numCols];
+    _columnar = columnar;
     setWriter(writer);
   }
 
@@ -44,6 +50,8 @@ final class WriterDelegate {
   }
 
   private int moveToCol(int colIdx) {
+    if (_columnar)
+      return colIdx;
     for (int c = _col + 1; c < colIdx; c++) _writer.addInvalidCol(c);
     _col = colIdx;
     return _col;
@@ -57,14 +65,21 @@ final class WriterDelegate {
     _writer.addNumCol(moveToCol(colIdx), d);
   }
 
+  void addInvalidCol(int colIdx) {
+    _writer.addInvalidCol(moveToCol(colIdx));
+  }
+
   void addStrCol(int colIdx, BufferedString str) {
-    if (_colRawSize[colIdx] == -1)
-      return; // already exceeded max length
+    if (_colRawSize[colIdx] == -1) {
+      addInvalidCol(colIdx); // already exceeded max length
+      return;
+    }
 
     long totalSize = (long) str.length() + _colRawSize[colIdx];
     if (totalSize > _maxStringSize) {
       _colRawSize[colIdx] = -1;
       Log.err("Total String size limit reached: skipping remaining values in column: " + colIdx + "!");
+      addInvalidCol(colIdx);
       return;
     }
 
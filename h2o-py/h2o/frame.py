@@ -2930,6 +2930,13 @@ class H2OFrame(Keyed):
         the hash method.  The hash method cannot perform merge if you have string columns in your left frame.
         Hence, we consider the radix method superior to the hash method and is the default method to use.
 
+        The broadcast method is never chosen by auto, it has to be asked for.  It sends the ``other`` frame (this
+        frame if ``all_y=True``) to every node and joins without sorting, which is faster when that frame is
+        small.  It fails if that frame is larger than ``sys.ai.h2o.rapids.merge.broadcast.max_bytes`` (64MB by
+        default) or has a UUID column.  It can also merge a categorical key column with a string key column.
+        Note that it returns the same rows as the radix method but not in the same order: the rows keep the order
+        of this frame (of ``other`` if ``all_y=True``), while the radix method sorts them by the merge key.
+
         :param H2OFrame other: The frame to merge to the current one. By default, must have at least one column in common with
             this frame, and all columns in common are used as the merge key.  If you want to use only a subset of the
             columns in common, rename the other columns so the columns are unique in the merged result.
@@ -2938,7 +2945,7 @@ class H2OFrame(Keyed):
         :param by_x: list of columns in the current frame to use as a merge key.
         :param by_y: list of columns in the ``other`` frame to use as a merge key. Should have the same number of
             columns as in the ``by_x`` list.
-        :param method: string representing the merge method, one of auto(default), radix or hash.
+        :param method: string representing the merge method, one of auto(default), radix, hash or broadcast.
 
         :returns: New H2OFrame with the result of merging the current frame with the ``other`` frame.
 